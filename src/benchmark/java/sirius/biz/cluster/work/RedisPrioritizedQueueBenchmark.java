@@ -0,0 +1,94 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.biz.cluster.work;
+
+import com.alibaba.fastjson.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import sirius.db.redis.Redis;
+import sirius.kernel.Sirius;
+import sirius.kernel.di.Injector;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how many tasks several concurrent pollers can fetch from a {@link RedisPrioritizedQueue}.
+ * <p>
+ * Each invocation offers a batch of tasks and polls the same number of tasks again, either one by one or via
+ * {@link RedisPrioritizedQueue#pollBatch(int)}. As eight threads do this concurrently, the pollers compete for the
+ * same tasks, just like the work loaders of several nodes do.
+ * <p>
+ * This starts the framework in test mode and therefore requires the Redis of the test docker setup. Use the
+ * <tt>benchmarks</tt> profile and pass <tt>-Dbenchmark=RedisPrioritizedQueueBenchmark</tt> to run it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Threads(8)
+@Fork(1)
+public class RedisPrioritizedQueueBenchmark {
+
+    @Param({"1", "8"})
+    public int batchSize;
+
+    private RedisPrioritizedQueue queue;
+
+    /**
+     * Starts the framework and creates a queue which isn't used by anything else.
+     */
+    @Setup
+    public void setup() {
+        // The JMH annotation Setup shadows the one of the kernel, therefore we have to use its full name...
+        Sirius.start(new sirius.kernel.Setup(sirius.kernel.Setup.Mode.TEST, Sirius.class.getClassLoader()));
+        queue = new RedisPrioritizedQueue(Injector.context().getPart(Redis.class),
+                                          "prioritized_benchmark_" + System.currentTimeMillis());
+    }
+
+    /**
+     * Removes all remaining tasks and stops the framework.
+     */
+    @TearDown
+    public void tearDown() {
+        while (!queue.pollBatch(100).isEmpty()) {
+            // Drain the queue, so that no tasks are left behind in Redis...
+        }
+        Sirius.stop();
+    }
+
+    /**
+     * Offers a batch of tasks and polls the same number of tasks again.
+     *
+     * @return the number of tasks which have been polled
+     */
+    @Benchmark
+    public int offerAndPoll() {
+        for (int i = 0; i < batchSize; i++) {
+            queue.offer(System.nanoTime(), new JSONObject().fluentPut("value", i));
+        }
+
+        if (batchSize > 1) {
+            return queue.pollBatch(batchSize).size();
+        }
+
+        return queue.poll() == null ? 0 : 1;
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.biz.storage.layer1.transformer;
+
+import io.netty.buffer.ByteBuf;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.crypto.KeyGenerator;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how fast data can be read through a {@link TransformingInputStream} for the typical transformer chains.
+ * <p>
+ * Each invocation reads 16 MB of pre-transformed data through a plain (identity), a deflate, an AES or a combined
+ * (AES and deflate) chain. Use the <tt>benchmarks</tt> profile and pass
+ * <tt>-Dbenchmark='TransformingInputStreamBenchmark -prof gc'</tt> to also report the allocations per read.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TransformingInputStreamBenchmark {
+
+    private static final int DATA_SIZE = 16 * 1024 * 1024;
+
+    @Param({"plain", "deflate", "aes", "combined"})
+    public String chain;
+
+    private CipherProvider cipherProvider;
+    private byte[] transformedData;
+    private final byte[] readBuffer = new byte[8192];
+
+    /**
+     * Passes all data through unchanged, so that the overhead of the stream itself is measured.
+     */
+    private static class IdentityTransformer implements ByteBlockTransformer {
+
+        @Override
+        public Optional<ByteBuf> apply(ByteBuf input) {
+            return Optional.of(input.readRetainedSlice(input.readableBytes()));
+        }
+
+        @Override
+        public Optional<ByteBuf> complete() {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Generates the data and transforms it using the write chain, so that only reading is measured.
+     *
+     * @throws Exception in case of an error while transforming the data
+     */
+    @Setup
+    public void setup() throws Exception {
+        cipherProvider = new SecretKeyCipherProvider(KeyGenerator.getInstance("AES").generateKey(),
+                                                     "AES/ECB/PKCS5Padding");
+
+        // Generate somewhat compressible data...
+        Random rnd = new Random(42);
+        byte[] data = new byte[DATA_SIZE];
+        for (int i = 0; i < DATA_SIZE; i++) {
+            data[i] = (byte) ('a' + rnd.nextInt(16));
+        }
+
+        try (InputStream input = new TransformingInputStream(new ByteArrayInputStream(data),
+                                                             createWriteTransformer())) {
+            transformedData = input.readAllBytes();
+        }
+    }
+
+    private ByteBlockTransformer createWriteTransformer() {
+        return switch (chain) {
+            case "plain" -> new IdentityTransformer();
+            case "deflate" -> new DeflateTransformer(CompressionLevel.DEFAULT);
+            case "aes" -> new CipherTransformer(cipherProvider.createEncryptionCipher());
+            default -> new CombinedTransformer(new DeflateTransformer(CompressionLevel.DEFAULT),
+                                               new CipherTransformer(cipherProvider.createEncryptionCipher()));
+        };
+    }
+
+    private ByteBlockTransformer createReadTransformer() {
+        return switch (chain) {
+            case "plain" -> new IdentityTransformer();
+            case "deflate" -> new InflateTransformer();
+            case "aes" -> new CipherTransformer(cipherProvider.createDecryptionChiper());
+            default -> new CombinedTransformer(new CipherTransformer(cipherProvider.createDecryptionChiper()),
+                                               new InflateTransformer());
+        };
+    }
+
+    /**
+     * Reads all transformed data through the read chain.
+     *
+     * @return the number of bytes read, so that the JIT cannot skip reading
+     * @throws IOException in case of an error while reading the data
+     */
+    @Benchmark
+    public long read() throws IOException {
+        long bytesRead = 0;
+        try (InputStream input = new TransformingInputStream(new ByteArrayInputStream(transformedData),
+                                                             createReadTransformer())) {
+            int read = input.read(readBuffer);
+            while (read >= 0) {
+                bytesRead += read;
+                read = input.read(readBuffer);
+            }
+        }
+
+        return bytesRead;
+    }
+}
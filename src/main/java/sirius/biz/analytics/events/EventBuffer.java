@@ -0,0 +1,147 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.biz.analytics.events;
+
+import sirius.kernel.commons.Wait;
+
+import javax.annotation.Nullable;
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Buffers the events of a single type until they are flushed into the database by the {@link EventRecorder}.
+ * <p>
+ * Each buffer is a bounded ring buffer, so that a single chatty event type cannot consume the capacity of all
+ * others. Also, a buffer keeps track of its age and whether a flush is currently in progress, so that at most one
+ * flush worker processes a buffer at a time while different types are flushed in parallel.
+ */
+class EventBuffer {
+
+    private final Class<? extends Event> type;
+    private final BlockingQueue<Event> events;
+    private final AtomicLong oldestEventTimestamp = new AtomicLong();
+    private final AtomicBoolean flushing = new AtomicBoolean();
+
+    /**
+     * Creates a new buffer for the given type of events.
+     *
+     * @param type     the type of events stored in this buffer
+     * @param capacity the max number of events to store
+     */
+    EventBuffer(Class<? extends Event> type, int capacity) {
+        this.type = type;
+        this.events = new ArrayBlockingQueue<>(capacity);
+    }
+
+    /**
+     * Adds the given event to the buffer.
+     *
+     * @param event the event to add
+     * @return <tt>true</tt> if the event was added, <tt>false</tt> if the buffer is full
+     */
+    boolean offer(Event event) {
+        if (!events.offer(event)) {
+            return false;
+        }
+
+        oldestEventTimestamp.compareAndSet(0, System.currentTimeMillis());
+        return true;
+    }
+
+    /**
+     * Removes the next event from the buffer.
+     *
+     * @return the next event or <tt>null</tt> if the buffer is empty
+     */
+    @Nullable
+    Event poll() {
+        long seen = oldestEventTimestamp.get();
+        Event result = events.poll();
+        if (result == null) {
+            // Only reset the timestamp we've seen, and re-stamp in case an event has been offered concurrently.
+            // Otherwise, such an event might end up without timestamp and would never become due by its age...
+            oldestEventTimestamp.compareAndSet(seen, 0);
+            if (!events.isEmpty()) {
+                oldestEventTimestamp.compareAndSet(0, System.currentTimeMillis());
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Determines if a flush should be performed, as either enough events have been collected or the oldest
+     * event has waited long enough.
+     *
+     * @param minBatchSize the min number of events which triggers a flush
+     * @param maxAge       the max age of the oldest event which triggers a flush
+     * @return <tt>true</tt> if a flush is due, <tt>false</tt> otherwise
+     */
+    boolean isFlushDue(int minBatchSize, Duration maxAge) {
+        if (events.isEmpty()) {
+            return false;
+        }
+        if (events.size() >= minBatchSize) {
+            return true;
+        }
+
+        long oldest = oldestEventTimestamp.get();
+        return oldest > 0 && System.currentTimeMillis() - oldest > maxAge.toMillis();
+    }
+
+    /**
+     * Tries to mark this buffer as being flushed.
+     *
+     * @return <tt>true</tt> if the caller is now responsible for flushing the buffer, <tt>false</tt> if another
+     * flush is already in progress
+     */
+    boolean tryStartFlush() {
+        return flushing.compareAndSet(false, true);
+    }
+
+    /**
+     * Waits until the buffer can be marked as being flushed.
+     * <p>
+     * This is used by synchronous flushes (e.g. when the system is stopped) which must not run in parallel to a
+     * flush being performed by a worker.
+     *
+     * @param timeout the max time to wait for a concurrent flush to complete
+     * @return <tt>true</tt> if the caller is now responsible for flushing the buffer, <tt>false</tt> if another
+     * flush didn't complete within the given timeout
+     */
+    boolean awaitStartFlush(Duration timeout) {
+        long deadline = System.currentTimeMillis() + timeout.toMillis();
+        while (!tryStartFlush()) {
+            if (System.currentTimeMillis() > deadline) {
+                return false;
+            }
+            Wait.millis(10);
+        }
+
+        return true;
+    }
+
+    /**
+     * Marks a flush, which has been started via {@link #tryStartFlush()}, as completed.
+     */
+    void completeFlush() {
+        flushing.set(false);
+    }
+
+    Class<? extends Event> getType() {
+        return type;
+    }
+
+    int size() {
+        return events.size();
+    }
+}
@@ -18,6 +18,9 @@ import javax.annotation.Nullable;
 
 /**
  * Notifies the {@link EventRecorder} to persist events (if enough data is available).
+ * <p>
+ * Note that the actual insertion runs are forked into the <tt>event-recorder</tt> executor, so that several
+ * event types can be persisted in parallel.
  */
 @Register
 public class EventProcessorLoop extends BackgroundLoop {
@@ -34,7 +37,7 @@ public class EventProcessorLoop extends BackgroundLoop {
     @Nullable
     @Override
     protected String doWork() throws Exception {
-        int processedEvents = eventRecorder.processIfBufferIsFilled();
-        return processedEvents == 0 ? null : Strings.apply("Events processed: %s", processedEvents);
+        int forkedFlushes = eventRecorder.processIfBufferIsFilled();
+        return forkedFlushes == 0 ? null : Strings.apply("Event buffers being flushed: %s", forkedFlushes);
     }
 }
@@ -17,8 +17,13 @@ import sirius.db.mixing.annotations.Realm;
 import sirius.kernel.Sirius;
 import sirius.kernel.Startable;
 import sirius.kernel.Stoppable;
+import sirius.kernel.async.Tasks;
+import sirius.kernel.commons.Average;
+import sirius.kernel.commons.Watch;
+import sirius.kernel.di.std.ConfigValue;
 import sirius.kernel.di.std.Part;
 import sirius.kernel.di.std.Register;
+import sirius.kernel.health.Counter;
 import sirius.kernel.health.Exceptions;
 import sirius.kernel.health.HandledException;
 import sirius.kernel.health.Log;
@@ -27,28 +32,35 @@ import sirius.kernel.health.metrics.MetricsCollector;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.io.File;
 import java.time.Duration;
-import java.time.LocalDateTime;
-import java.util.HashMap;
 import java.util.Map;
-import java.util.Queue;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Responsible for collecting and storing {@link Event events} for analytical and statistical purposes.
  * <p>
  * To minimize the impact on the running application and to maximize the performance, events are collected and queued.
- * This queue is batch processed in regular intervals (which greatly increases the performance of Clickhouse).
+ * Each event type has its own {@link EventBuffer buffer} which is batch processed once either enough events are
+ * present or the oldest event waited long enough (which greatly increases the performance of Clickhouse). Different
+ * event types are flushed in parallel using the {@link #EXECUTOR_EVENT_RECORDER} executor.
  * <p>
  * In case of a missing data store or a system overload condition (more events are generated than persisted), events
- * will be dropped as we favor system stability over perfect metrics.
+ * will be dropped as we favor system stability over perfect metrics. If enabled via
+ * <tt>analytics.events.spill.enabled</tt>, events which do not fit into their buffer are written into local segment
+ * files instead and replayed once the database catches up.
  */
 @Register(classes = {EventRecorder.class, Startable.class, Stoppable.class, MetricProvider.class})
 public class EventRecorder implements Startable, Stoppable, MetricProvider {
 
     /**
-     * Determines the max number of events to keep in the queue.
+     * Contains the name of the executor used to flush event buffers in parallel.
+     */
+    private static final String EXECUTOR_EVENT_RECORDER = "event-recorder";
+
+    /**
+     * Determines the max number of events to keep in the queue per event type.
      */
     private static final int MAX_BUFFER_SIZE = 16 * 1024;
 
@@ -68,17 +80,40 @@ public class EventRecorder implements Startable, Stoppable, MetricProvider {
     private static final Duration MAX_BUFFER_AGE_DEV = Duration.ofSeconds(10);
 
     /**
-     * Determines the max number of events to process in one insertion run.
+     * Determines the max number of events to process in one insertion run (per event type).
      */
     private static final int MAX_EVENTS_PER_PROCESS = 16 * 1024;
 
-    private LocalDateTime lastProcessed;
+    /**
+     * Determines the max period to wait for a concurrent flush of a buffer when processing events synchronously.
+     */
+    private static final Duration MAX_FLUSH_WAIT = Duration.ofMinutes(1);
+
     private final AtomicInteger bufferedEvents = new AtomicInteger();
-    private final Queue<Event> buffer = new ConcurrentLinkedQueue<>();
+    private final Map<Class<? extends Event>, EventBuffer> buffers = new ConcurrentHashMap<>();
+
+    private final Counter droppedEvents = new Counter();
+    private final Counter spilledEvents = new Counter();
+    private final Average flushDuration = new Average();
+    private final Average batchSize = new Average();
 
     @Part
     private Schema schema;
 
+    @Part
+    private Tasks tasks;
+
+    @ConfigValue("analytics.events.spill.enabled")
+    private boolean spillEnabled;
+
+    @ConfigValue("analytics.events.spill.directory")
+    private String spillDirectory;
+
+    @ConfigValue("analytics.events.spill.segmentSize")
+    private int spillSegmentSize;
+
+    private EventSpill spill;
+
     private volatile boolean configured;
     private Database database;
 
@@ -89,6 +124,10 @@ public class EventRecorder implements Startable, Stoppable, MetricProvider {
 
     @Override
     public void started() {
+        if (spillEnabled) {
+            spill = new EventSpill(new File(spillDirectory), spillSegmentSize);
+        }
+
         schema.getReadyFuture().onSuccess(() -> {
             String realm = Event.class.getAnnotation(Realm.class).value();
             configured = schema.isConfigured(realm);
@@ -108,11 +147,32 @@ public class EventRecorder implements Startable, Stoppable, MetricProvider {
 
     @Override
     public void gather(MetricsCollector metricsCollector) {
+        int usedBuffers = Math.max(1, buffers.size());
         metricsCollector.metric("events_buffer_usage",
                                 "events_buffer_usage",
                                 "Event Buffer Usage",
-                                100 * bufferedEvents.doubleValue() / MAX_BUFFER_SIZE,
+                                100 * bufferedEvents.doubleValue() / (MAX_BUFFER_SIZE * usedBuffers),
                                 "%");
+        metricsCollector.differentialMetric("events_dropped",
+                                            "events-dropped",
+                                            "Dropped Events",
+                                            droppedEvents.getCount(),
+                                            "/min");
+        metricsCollector.differentialMetric("events_spilled",
+                                            "events-spilled",
+                                            "Spilled Events",
+                                            spilledEvents.getCount(),
+                                            "/min");
+        metricsCollector.metric("events_flush_duration",
+                                "events-flush-duration",
+                                "Event Flush Duration",
+                                flushDuration.getAndClear(),
+                                "ms");
+        metricsCollector.metric("events_batch_size",
+                                "events-batch-size",
+                                "Event Batch Size",
+                                batchSize.getAndClear(),
+                                null);
     }
 
     /**
@@ -160,7 +220,8 @@ public class EventRecorder implements Startable, Stoppable, MetricProvider {
     /**
      * Records an event to be stored in the event database within the next insertion run.
      * <p>
-     * Note that the event might be dropped if no database is configured or if the internal buffer is overloaded.
+     * Note that the event might be dropped if no database is configured or if the internal buffer is overloaded
+     * (and spilling onto the local disk is disabled).
      * <p>
      * Also note that all {@link sirius.db.mixing.annotations.BeforeSave before save handlers} are invoked
      * in this thread so that the event is properly populated.
@@ -172,36 +233,63 @@ public class EventRecorder implements Startable, Stoppable, MetricProvider {
             return;
         }
 
-        if (bufferedEvents.get() >= MAX_BUFFER_SIZE) {
-            return;
-        }
-
         try {
             event.getDescriptor().beforeSave(event);
-            buffer.offer(event);
-            bufferedEvents.incrementAndGet();
+            enqueue(event);
         } catch (Exception e) {
             Exceptions.handle(Log.BACKGROUND, e);
         }
     }
 
+    private void enqueue(Event event) {
+        EventBuffer buffer = buffers.computeIfAbsent(event.getClass(), type -> new EventBuffer(type, MAX_BUFFER_SIZE));
+        if (buffer.offer(event)) {
+            bufferedEvents.incrementAndGet();
+        } else if (spill != null && spill.spill(event)) {
+            spilledEvents.inc();
+        } else {
+            droppedEvents.inc();
+        }
+    }
+
     /**
      * Invoked periodically by the {@link EventProcessorLoop} to process events if necessary.
      * <p>
-     * An insertion run will be started if there are enough events in the buffer (more than {@link #MIN_BUFFER_SIZE})
-     * or if enough time elapsed since the last insertion run (more than {@link #MAX_BUFFER_AGE} or
+     * An insertion run will be forked for each event type which has enough events in its buffer (more than
+     * {@link #MIN_BUFFER_SIZE}) or if its oldest event waited long enough (more than {@link #MAX_BUFFER_AGE} or
      * {@link #MAX_BUFFER_AGE_DEV} in development systems).
      *
-     * @return the number of inserted events
+     * @return the number of forked insertion runs
      */
     protected int processIfBufferIsFilled() {
-        if (bufferedEvents.get() > MIN_BUFFER_SIZE
-            || lastProcessed == null
-            || Duration.between(lastProcessed, LocalDateTime.now()).compareTo(getEffectiveMaxAge()) > 0) {
-            return process();
-        } else {
-            return 0;
+        replaySpilledEvents();
+
+        int forkedFlushes = 0;
+        for (EventBuffer buffer : buffers.values()) {
+            if (buffer.isFlushDue(MIN_BUFFER_SIZE, getEffectiveMaxAge()) && buffer.tryStartFlush()) {
+                tasks.executor(EXECUTOR_EVENT_RECORDER).dropOnOverload(buffer::completeFlush).fork(() -> {
+                    try {
+                        flush(buffer);
+                    } finally {
+                        buffer.completeFlush();
+                    }
+                });
+                forkedFlushes++;
+            }
         }
+
+        return forkedFlushes;
+    }
+
+    /**
+     * Re-records spilled events once the buffers have enough capacity left.
+     */
+    private void replaySpilledEvents() {
+        if (spill == null || !configured || bufferedEvents.get() > MIN_BUFFER_SIZE || !spill.hasSpilledEvents()) {
+            return;
+        }
+
+        spill.replayOldestSegment(this::enqueue);
     }
 
     private Duration getEffectiveMaxAge() {
@@ -209,63 +297,98 @@ public class EventRecorder implements Startable, Stoppable, MetricProvider {
     }
 
     /**
-     * Processes the queued events by creating a {@link BatchContext} and batch-inserting all events.
+     * Synchronously processes the queued events of all event types by batch-inserting them.
+     * <p>
+     * If a buffer is currently being flushed by a worker, we wait for this flush to complete, so that a buffer is
+     * never processed by two threads at the same time.
      *
      * @return the number of inserted events
      */
     protected int process() {
-        lastProcessed = LocalDateTime.now();
+        int processedEvents = 0;
+        for (EventBuffer buffer : buffers.values()) {
+            if (buffer.awaitStartFlush(MAX_FLUSH_WAIT)) {
+                try {
+                    processedEvents += flush(buffer);
+                } finally {
+                    buffer.completeFlush();
+                }
+            }
+        }
+
+        return processedEvents;
+    }
+
+    /**
+     * Processes the queued events of the given buffer by creating a {@link BatchContext} and batch-inserting them.
+     *
+     * @param buffer the buffer to flush
+     * @return the number of inserted events
+     */
+    private int flush(EventBuffer buffer) {
+        Watch watch = Watch.start();
         int processedEvents = 0;
         try (BatchContext ctx = new BatchContext(() -> "Process recorded events.", Duration.ofMinutes(1))) {
-            Map<Class<? extends Event>, InsertQuery<Event>> queries = new HashMap<>();
-            Event nextEvent = fetchBufferedEvent();
+            InsertQuery<Event> query = null;
+            Event nextEvent = fetchBufferedEvent(buffer);
             while (nextEvent != null) {
-                processEvent(ctx, queries, nextEvent);
+                query = processEvent(ctx, query, nextEvent);
                 if (++processedEvents >= MAX_EVENTS_PER_PROCESS) {
                     return processedEvents;
                 }
 
-                nextEvent = fetchBufferedEvent();
+                nextEvent = fetchBufferedEvent(buffer);
             }
         } catch (HandledException e) {
             Exceptions.ignore(e);
         } catch (Exception e) {
             Exceptions.handle(Log.BACKGROUND, e);
+        } finally {
+            if (processedEvents > 0) {
+                batchSize.addValue(processedEvents);
+                flushDuration.addValue(watch.elapsedMillis());
+            }
         }
 
         return processedEvents;
     }
 
     /**
-     * Inserts a single event by either creating a new {@link InsertQuery} or by appending a batch-insert for an
-     * existing one (there is one per event type in <tt>queries</tt>).
+     * Inserts a single event by either creating a new {@link InsertQuery} or by appending a batch-insert for the
+     * existing one (there is one per event buffer and therefore per event type).
      *
-     * @param ctx     the batch context
-     * @param queries the map of prepared insert queries per event type
-     * @param event   the event to insert
+     * @param ctx   the batch context
+     * @param query the insert query created for a previous event of the buffer or <tt>null</tt> if none has been
+     *              created yet
+     * @param event the event to insert
+     * @return the insert query which has been used
      */
     @SuppressWarnings("unchecked")
-    private void processEvent(BatchContext ctx, Map<Class<? extends Event>, InsertQuery<Event>> queries, Event event) {
+    private InsertQuery<Event> processEvent(BatchContext ctx, @Nullable InsertQuery<Event> query, Event event) {
         try {
-            InsertQuery<Event> qry = queries.computeIfAbsent(event.getClass(),
-                                                             type -> (InsertQuery<Event>) ctx.insertQuery(type, false));
-            qry.insert(event, false, true);
+            InsertQuery<Event> effectiveQuery = query;
+            if (effectiveQuery == null) {
+                effectiveQuery = (InsertQuery<Event>) ctx.insertQuery(event.getClass(), false);
+            }
+            effectiveQuery.insert(event, false, true);
+            return effectiveQuery;
         } catch (Exception e) {
             if (!event.retried) {
                 event.retried = true;
-                record(event);
+                enqueue(event);
             }
             throw e;
         }
     }
 
     /**
-     * Fetches the next event to process.
+     * Fetches the next event to process from the given buffer.
      *
+     * @param buffer the buffer to fetch the event from
      * @return the next event to process or <tt>null</tt> to indicate that the buffer queue is empty.
      */
     @Nullable
-    protected Event fetchBufferedEvent() {
+    private Event fetchBufferedEvent(EventBuffer buffer) {
         Event result = buffer.poll();
         if (result != null) {
             bufferedEvents.decrementAndGet();
@@ -0,0 +1,221 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.biz.analytics.events;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+import sirius.db.jdbc.SQLEntity;
+import sirius.db.mixing.EntityDescriptor;
+import sirius.db.mixing.Property;
+import sirius.kernel.commons.Strings;
+import sirius.kernel.commons.Value;
+import sirius.kernel.health.Exceptions;
+import sirius.kernel.health.Log;
+import sirius.kernel.nls.NLS;
+
+import javax.annotation.Nullable;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Spills events to the local disk if the {@link EventBuffer buffers} of the {@link EventRecorder} are full.
+ * <p>
+ * Events are appended to segment files (one JSON object per line). Once a segment contains enough events, a new one
+ * is started. Completed segments are replayed into the event buffers (oldest first) once the database catches up
+ * and are then deleted.
+ */
+class EventSpill {
+
+    private static final String SEGMENT_SUFFIX = ".events";
+    private static final String FIELD_TYPE = "type";
+    private static final String FIELD_DATA = "data";
+
+    private final File directory;
+    private final int segmentSize;
+
+    private BufferedWriter currentSegment;
+    private int eventsInCurrentSegment;
+    private long segmentCounter;
+
+    /**
+     * Creates a new spill which stores its segments in the given directory.
+     *
+     * @param directory   the directory to store the segment files in
+     * @param segmentSize the max number of events per segment file
+     */
+    EventSpill(File directory, int segmentSize) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * Appends the given event to the current segment.
+     *
+     * @param event the event to spill
+     * @return <tt>true</tt> if the event was written, <tt>false</tt> if an IO error occurred
+     */
+    synchronized boolean spill(Event event) {
+        try {
+            if (currentSegment == null) {
+                startSegment();
+            }
+
+            currentSegment.write(serialize(event).toJSONString());
+            currentSegment.newLine();
+
+            if (++eventsInCurrentSegment >= segmentSize) {
+                completeSegment();
+            }
+
+            return true;
+        } catch (IOException e) {
+            Exceptions.handle()
+                      .to(Log.BACKGROUND)
+                      .error(e)
+                      .withSystemErrorMessage("Failed to spill an event into %s: %s (%s)", directory)
+                      .handle();
+            return false;
+        }
+    }
+
+    private void startSegment() throws IOException {
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException(Strings.apply("Cannot create spill directory: %s", directory.getAbsolutePath()));
+        }
+
+        File segment = new File(directory,
+                                Strings.apply("%013d-%06d%s",
+                                              System.currentTimeMillis(),
+                                              segmentCounter++ % 1_000_000,
+                                              SEGMENT_SUFFIX));
+        currentSegment = Files.newBufferedWriter(segment.toPath(),
+                                                 StandardCharsets.UTF_8,
+                                                 StandardOpenOption.CREATE,
+                                                 StandardOpenOption.APPEND);
+        eventsInCurrentSegment = 0;
+    }
+
+    private void completeSegment() throws IOException {
+        if (currentSegment != null) {
+            currentSegment.close();
+            currentSegment = null;
+        }
+    }
+
+    /**
+     * Replays the oldest segment by passing all its events to the given consumer and then deleting the segment.
+     * <p>
+     * If there is no completed segment, the current one is completed and replayed.
+     *
+     * @param consumer the consumer to supply with the replayed events
+     * @return the number of replayed events
+     */
+    int replayOldestSegment(Consumer<Event> consumer) {
+        Optional<File> segment = findOldestSegment();
+        if (segment.isEmpty()) {
+            return 0;
+        }
+
+        int numberOfEvents = 0;
+        try (BufferedReader reader = Files.newBufferedReader(segment.get().toPath(), StandardCharsets.UTF_8)) {
+            String line = reader.readLine();
+            while (line != null) {
+                Event event = deserialize(line);
+                if (event != null) {
+                    consumer.accept(event);
+                    numberOfEvents++;
+                }
+                line = reader.readLine();
+            }
+        } catch (IOException e) {
+            Exceptions.handle()
+                      .to(Log.BACKGROUND)
+                      .error(e)
+                      .withSystemErrorMessage("Failed to replay spilled events from %s: %s (%s)", segment.get())
+                      .handle();
+        }
+
+        sirius.kernel.commons.Files.delete(segment.get());
+        return numberOfEvents;
+    }
+
+    private synchronized Optional<File> findOldestSegment() {
+        try {
+            completeSegment();
+        } catch (IOException e) {
+            Exceptions.ignore(e);
+        }
+
+        File[] segments = directory.listFiles((dir, name) -> name.endsWith(SEGMENT_SUFFIX));
+        if (segments == null) {
+            return Optional.empty();
+        }
+
+        return Arrays.stream(segments).min(Comparator.comparing(File::getName));
+    }
+
+    /**
+     * Determines if there are any spilled events to replay.
+     *
+     * @return <tt>true</tt> if there are spilled events, <tt>false</tt> otherwise
+     */
+    synchronized boolean hasSpilledEvents() {
+        if (currentSegment != null) {
+            return true;
+        }
+
+        String[] segments = directory.list((dir, name) -> name.endsWith(SEGMENT_SUFFIX));
+        return segments != null && segments.length > 0;
+    }
+
+    private JSONObject serialize(Event event) {
+        JSONObject data = new JSONObject();
+        for (Property property : event.getDescriptor().getProperties()) {
+            Object value = property.getValue(event);
+            if (value != null && !Strings.areEqual(property.getName(), SQLEntity.ID.getName())) {
+                data.put(property.getName(), NLS.toMachineString(value));
+            }
+        }
+
+        return new JSONObject().fluentPut(FIELD_TYPE, event.getClass().getName()).fluentPut(FIELD_DATA, data);
+    }
+
+    @Nullable
+    private Event deserialize(String line) {
+        try {
+            JSONObject json = JSON.parseObject(line);
+            Event event = (Event) Class.forName(json.getString(FIELD_TYPE)).getDeclaredConstructor().newInstance();
+            EntityDescriptor descriptor = event.getDescriptor();
+            json.getJSONObject(FIELD_DATA).forEach((name, value) -> {
+                Property property = descriptor.findProperty(name);
+                if (property != null) {
+                    property.parseValueFromImport(event, Value.of(value));
+                }
+            });
+
+            return event;
+        } catch (Exception e) {
+            Exceptions.handle()
+                      .to(Log.BACKGROUND)
+                      .error(e)
+                      .withSystemErrorMessage("Failed to restore a spilled event: %s (%s)")
+                      .handle();
+            return null;
+        }
+    }
+}
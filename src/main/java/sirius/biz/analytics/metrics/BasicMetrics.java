@@ -9,14 +9,28 @@
 package sirius.biz.analytics.metrics;
 
 import sirius.db.mixing.BaseEntity;
+import sirius.db.mixing.Mapping;
 import sirius.db.mixing.Mixing;
+import sirius.db.mixing.query.constraints.Constraint;
+import sirius.db.mixing.query.constraints.FilterFactory;
 import sirius.kernel.cache.Cache;
 import sirius.kernel.cache.CacheManager;
 import sirius.kernel.commons.Explain;
 import sirius.kernel.nls.NLS;
 
+import javax.annotation.Nullable;
 import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * Base class which handles all the database independent boilerplate.
@@ -36,7 +50,31 @@ public abstract class BasicMetrics<E extends BaseEntity<?>> implements Metrics {
     private static final String METRIC_NLS_PREFIX = "Metric.";
     private static final String DESCRIPTION_NLS_SUFFIX = ".description";
 
+    /**
+     * Limits the number of targets which are queried at once when fetching a series of metrics for many targets.
+     */
+    private static final int MAX_TARGETS_PER_QUERY = 100;
+
     private final Cache<String, Integer> metricCache = CacheManager.createCoherentCache("metrics");
+    private final Cache<String, List<Integer>> seriesCache = CacheManager.createCoherentCache("metrics-series");
+
+    /**
+     * Receives the metric values found by {@link #queryMetrics}.
+     */
+    @FunctionalInterface
+    protected interface MetricValueConsumer {
+
+        /**
+         * Invoked for each metric value which has been found.
+         *
+         * @param targetId the id of the target to which the value belongs
+         * @param year     the year of the metric (or 0 for facts)
+         * @param month    the month of the metric (or 0 for facts and yearly metrics)
+         * @param day      the day of the metric (or 0 for facts, yearly and monthly metrics)
+         * @param value    the value of the metric
+         */
+        void accept(String targetId, int year, int month, int day, int value);
+    }
 
     /**
      * Returns the entity type used to store facts.
@@ -456,4 +494,239 @@ public abstract class BasicMetrics<E extends BaseEntity<?>> implements Metrics {
                                                      Integer year,
                                                      Integer month,
                                                      Integer day);
+
+    /**
+     * Executes the query for a series of consecutive metric values for each of the given targets.
+     * <p>
+     * In contrast to {@link #executeQuery(MetricQuery.Interval, String, String, String, Integer, Integer, Integer)}
+     * this fetches the whole date range using a single query (per chunk of targets) and caches each series as a
+     * single entry. Gaps in the stored metrics are filled with zeros.
+     *
+     * @param interval       the metric type to query
+     * @param targetType     the target type to query
+     * @param targetIds      the ids of the targets to query for
+     * @param name           the name of the metric to query
+     * @param startDate      the date of the first value to fetch
+     * @param numberOfValues the number of values to fetch per target
+     * @return a map which contains the series of values for each of the given targets (in the order of the given ids)
+     */
+    protected Map<String, List<Integer>> executeRangeQuery(MetricQuery.Interval interval,
+                                                           String targetType,
+                                                           Collection<String> targetIds,
+                                                           String name,
+                                                           LocalDate startDate,
+                                                           int numberOfValues) {
+        Map<String, List<Integer>> result = new LinkedHashMap<>();
+        if (interval == MetricQuery.Interval.FACT) {
+            targetIds.forEach(targetId -> result.put(targetId,
+                                                     List.of(executeQuery(interval,
+                                                                          targetType,
+                                                                          targetId,
+                                                                          name,
+                                                                          null,
+                                                                          null,
+                                                                          null).orElse(0))));
+            return result;
+        }
+
+        LocalDate effectiveStartDate = normalizeDate(interval, startDate);
+        Set<String> missingTargetIds = new LinkedHashSet<>();
+        for (String targetId : targetIds) {
+            List<Integer> series = seriesCache.get(buildSeriesCacheKey(interval,
+                                                                       targetType,
+                                                                       targetId,
+                                                                       name,
+                                                                       effectiveStartDate,
+                                                                       numberOfValues));
+            result.put(targetId, series);
+            if (series == null) {
+                missingTargetIds.add(targetId);
+            }
+        }
+
+        if (!missingTargetIds.isEmpty()) {
+            loadSeries(interval,
+                       targetType,
+                       missingTargetIds,
+                       name,
+                       effectiveStartDate,
+                       numberOfValues).forEach((targetId, series) -> {
+                seriesCache.put(buildSeriesCacheKey(interval,
+                                                    targetType,
+                                                    targetId,
+                                                    name,
+                                                    effectiveStartDate,
+                                                    numberOfValues), series);
+                result.put(targetId, series);
+            });
+        }
+
+        return result;
+    }
+
+    private Map<String, List<Integer>> loadSeries(MetricQuery.Interval interval,
+                                                  String targetType,
+                                                  Collection<String> targetIds,
+                                                  String name,
+                                                  LocalDate startDate,
+                                                  int numberOfValues) {
+        Map<String, Integer[]> valuesPerTarget = new HashMap<>();
+        targetIds.forEach(targetId -> {
+            Integer[] values = new Integer[Math.max(0, numberOfValues)];
+            Arrays.fill(values, 0);
+            valuesPerTarget.put(targetId, values);
+        });
+
+        if (numberOfValues > 0) {
+            LocalDate endDate = computeEndDate(interval, startDate, numberOfValues);
+            List<String> remainingTargetIds = new ArrayList<>(targetIds);
+            while (!remainingTargetIds.isEmpty()) {
+                List<String> chunk =
+                        remainingTargetIds.subList(0, Math.min(MAX_TARGETS_PER_QUERY, remainingTargetIds.size()));
+                queryMetrics(determineTable(interval),
+                             targetType,
+                             chunk,
+                             name,
+                             startDate,
+                             endDate,
+                             (targetId, year, month, day, value) -> {
+                                 Integer[] values = valuesPerTarget.get(targetId);
+                                 long index = computeIndex(interval, startDate, year, month, day);
+                                 if (values != null && index >= 0 && index < values.length) {
+                                     values[(int) index] = value;
+                                 }
+                             });
+                chunk.clear();
+            }
+        }
+
+        Map<String, List<Integer>> result = new HashMap<>();
+        valuesPerTarget.forEach((targetId, values) -> result.put(targetId, List.of(values)));
+        return result;
+    }
+
+    private Class<? extends E> determineTable(MetricQuery.Interval interval) {
+        return switch (interval) {
+            case YEARLY -> getYearlyMetricType();
+            case MONTHLY -> getMonthlyMetricType();
+            case DAILY -> getDailyMetricType();
+            case FACT -> getFactType();
+        };
+    }
+
+    private LocalDate normalizeDate(MetricQuery.Interval interval, LocalDate date) {
+        return switch (interval) {
+            case YEARLY -> date.withDayOfYear(1);
+            case MONTHLY -> date.withDayOfMonth(1);
+            default -> date;
+        };
+    }
+
+    private LocalDate computeEndDate(MetricQuery.Interval interval, LocalDate startDate, int numberOfValues) {
+        return switch (interval) {
+            case YEARLY -> startDate.plusYears(numberOfValues - 1L);
+            case MONTHLY -> startDate.plusMonths(numberOfValues - 1L);
+            default -> startDate.plusDays(numberOfValues - 1L);
+        };
+    }
+
+    private long computeIndex(MetricQuery.Interval interval, LocalDate startDate, int year, int month, int day) {
+        return switch (interval) {
+            case YEARLY -> (long) year - startDate.getYear();
+            case MONTHLY -> (year * 12L + month) - (startDate.getYear() * 12L + startDate.getMonthValue());
+            default -> ChronoUnit.DAYS.between(startDate, LocalDate.of(year, month, day));
+        };
+    }
+
+    private String buildSeriesCacheKey(MetricQuery.Interval interval,
+                                       String targetType,
+                                       String targetId,
+                                       String name,
+                                       LocalDate startDate,
+                                       int numberOfValues) {
+        return interval + "-" + targetType + "-" + targetId + "-" + name + "-" + startDate + "-" + numberOfValues;
+    }
+
+    /**
+     * Builds a constraint which matches all metrics between the given dates (both inclusive).
+     * <p>
+     * As metrics store their date split into year, month and day, this compares the fields lexicographically. The
+     * year is additionally bounded on its own, so that an index on the metric fields can be used efficiently.
+     *
+     * @param filters   the filter factory of the underlying database
+     * @param year      the field which contains the year
+     * @param month     the field which contains the month or <tt>null</tt> for yearly metrics
+     * @param day       the field which contains the day or <tt>null</tt> for yearly and monthly metrics
+     * @param startDate the first date to match
+     * @param endDate   the last date to match
+     * @param <C>       the type of constraints generated by the filter factory
+     * @return a constraint which matches all metrics in the given range
+     */
+    protected <C extends Constraint> C buildDateRangeConstraint(FilterFactory<C> filters,
+                                                                Mapping year,
+                                                                @Nullable Mapping month,
+                                                                @Nullable Mapping day,
+                                                                LocalDate startDate,
+                                                                LocalDate endDate) {
+        List<Mapping> fields = new ArrayList<>();
+        List<Integer> startValues = new ArrayList<>();
+        List<Integer> endValues = new ArrayList<>();
+        fields.add(year);
+        startValues.add(startDate.getYear());
+        endValues.add(endDate.getYear());
+        if (month != null) {
+            fields.add(month);
+            startValues.add(startDate.getMonthValue());
+            endValues.add(endDate.getMonthValue());
+            if (day != null) {
+                fields.add(day);
+                startValues.add(startDate.getDayOfMonth());
+                endValues.add(endDate.getDayOfMonth());
+            }
+        }
+
+        return filters.and(filters.gte(year, startDate.getYear()),
+                           filters.lte(year, endDate.getYear()),
+                           buildBound(filters, fields, startValues, 0, true),
+                           buildBound(filters, fields, endValues, 0, false));
+    }
+
+    private <C extends Constraint> C buildBound(FilterFactory<C> filters,
+                                                List<Mapping> fields,
+                                                List<Integer> values,
+                                                int index,
+                                                boolean lowerBound) {
+        Mapping field = fields.get(index);
+        Integer value = values.get(index);
+        if (index == fields.size() - 1) {
+            return lowerBound ? filters.gte(field, value) : filters.lte(field, value);
+        }
+
+        return filters.or(lowerBound ? filters.gt(field, value) : filters.lt(field, value),
+                          filters.and(filters.eq(field, value),
+                                      buildBound(filters, fields, values, index + 1, lowerBound)));
+    }
+
+    /**
+     * Queries all values of the given metric within the given date range for the given targets.
+     * <p>
+     * Note that only the present values have to be reported, gaps are filled with zeros by the caller.
+     *
+     * @param table      the table to query
+     * @param targetType the target type to query
+     * @param targetIds  the ids of the targets to query for
+     * @param name       the name of the metric to query
+     * @param startDate  the first date to fetch values for
+     * @param endDate    the last date to fetch values for
+     * @param consumer   the consumer to supply with all values which have been found
+     */
+    @SuppressWarnings("java:S107")
+    @Explain("The simplest way seems to have that many parameters.")
+    protected abstract void queryMetrics(Class<? extends E> table,
+                                         String targetType,
+                                         Collection<String> targetIds,
+                                         String name,
+                                         LocalDate startDate,
+                                         LocalDate endDate,
+                                         MetricValueConsumer consumer);
 }
@@ -14,7 +14,10 @@ import sirius.kernel.nls.NLS;
 import javax.annotation.CheckReturnValue;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -46,6 +49,7 @@ public class MetricQuery {
     private String metricName;
     private String targetType;
     private String targetId;
+    private List<String> targetIds;
     private Interval interval;
 
     protected MetricQuery(BasicMetrics<?> metrics) {
@@ -119,6 +123,7 @@ public class MetricQuery {
     public MetricQuery of(String targetType, String targetId) {
         this.targetType = targetType;
         this.targetId = targetId;
+        this.targetIds = null;
 
         return this;
     }
@@ -134,6 +139,42 @@ public class MetricQuery {
         return of(entity.getTypeName(), entity.getIdAsString());
     }
 
+    /**
+     * Specifies a list of objects of the same type to query metrics for.
+     * <p>
+     * This can be used along with {@link #valuesPerTarget(LocalDate, LocalDate)} or
+     * {@link #valuesPerTargetUntil(LocalDate, int)} to fetch the metric for all targets at once.
+     *
+     * @param targetType the type of the entities to query metrics for
+     * @param targetIds  the ids of the entities to query metrics for
+     * @return the query itself for fluent method calls
+     */
+    @CheckReturnValue
+    public MetricQuery ofAll(String targetType, Collection<String> targetIds) {
+        this.targetType = targetType;
+        this.targetId = null;
+        this.targetIds = new ArrayList<>(targetIds);
+
+        return this;
+    }
+
+    /**
+     * Specifies a list of entities (of the same type) to query metrics for.
+     *
+     * @param entities the entities to query metrics for
+     * @return the query itself for fluent method calls
+     * @see #ofAll(String, Collection)
+     */
+    @CheckReturnValue
+    public MetricQuery ofAll(Collection<? extends BaseEntity<?>> entities) {
+        if (entities.isEmpty()) {
+            return ofAll("", Collections.emptyList());
+        }
+
+        return ofAll(entities.iterator().next().getTypeName(),
+                     entities.stream().map(BaseEntity::getIdAsString).toList());
+    }
+
     /**
      * Specifies that global metrics (not associated to an entity but rather system wide values) should be queried.
      *
@@ -154,22 +195,42 @@ public class MetricQuery {
      */
     public List<Integer> values(LocalDate startDate, LocalDate untilDate) {
         assertParametersArePresent();
-        List<Integer> result = new ArrayList<>();
+        return fetchValues(startDate, determineNumberOfValues(startDate, untilDate));
+    }
+
+    private int determineNumberOfValues(LocalDate startDate, LocalDate untilDate) {
         LocalDate date = startDate;
         LocalDate endDate = untilDate == null ? LocalDate.now() : untilDate;
-        AtomicInteger limit = new AtomicInteger(determineLimit(interval));
-        while (!date.isAfter(endDate) && limit.decrementAndGet() >= 0) {
-            result.add(metrics.executeQuery(interval,
-                                            targetType,
-                                            targetId,
-                                            metricName,
-                                            date.getYear(),
-                                            date.getMonthValue(),
-                                            date.getDayOfMonth()).orElse(0));
+        int limit = determineLimit(interval);
+        int numberOfValues = 0;
+        while (!date.isAfter(endDate) && numberOfValues < limit) {
+            numberOfValues++;
             date = increment(date, interval);
         }
 
-        return result;
+        return numberOfValues;
+    }
+
+    private List<Integer> fetchValues(LocalDate startDate, int numberOfValues) {
+        if (numberOfValues <= 0) {
+            return new ArrayList<>();
+        }
+
+        return new ArrayList<>(metrics.executeRangeQuery(interval,
+                                                         targetType,
+                                                         Collections.singletonList(targetId),
+                                                         metricName,
+                                                         startDate,
+                                                         numberOfValues).get(targetId));
+    }
+
+    private LocalDate determineStartDate(LocalDate endDate, int numberOfValues) {
+        LocalDate date = endDate;
+        for (int i = 1; i < numberOfValues; i++) {
+            date = decrement(date, interval);
+        }
+
+        return date;
     }
 
     private void assertParametersArePresent() {
@@ -224,21 +285,7 @@ public class MetricQuery {
      */
     public List<Integer> valuesFrom(LocalDate startDate, int numberOfValues) {
         assertParametersArePresent();
-        List<Integer> result = new ArrayList<>();
-        LocalDate date = startDate;
-        AtomicInteger limit = new AtomicInteger(Math.min(numberOfValues, determineLimit(interval)));
-        while (limit.decrementAndGet() >= 0) {
-            result.add(metrics.executeQuery(interval,
-                                            targetType,
-                                            targetId,
-                                            metricName,
-                                            date.getYear(),
-                                            date.getMonthValue(),
-                                            date.getDayOfMonth()).orElse(0));
-            date = increment(date, interval);
-        }
-
-        return result;
+        return fetchValues(startDate, Math.min(numberOfValues, determineLimit(interval)));
     }
 
     /**
@@ -272,22 +319,57 @@ public class MetricQuery {
      */
     public List<Integer> valuesUntil(LocalDate endDate, int numberOfValues) {
         assertParametersArePresent();
-        List<Integer> result = new ArrayList<>();
-        LocalDate date = endDate;
-        AtomicInteger limit = new AtomicInteger(Math.min(numberOfValues, determineLimit(interval)));
-        while (limit.decrementAndGet() >= 0) {
-            result.add(0,
-                       metrics.executeQuery(interval,
-                                            targetType,
-                                            targetId,
-                                            metricName,
-                                            date.getYear(),
-                                            date.getMonthValue(),
-                                            date.getDayOfMonth()).orElse(0));
-            date = decrement(date, interval);
-        }
+        int effectiveNumberOfValues = Math.min(numberOfValues, determineLimit(interval));
+        return fetchValues(determineStartDate(endDate, effectiveNumberOfValues), effectiveNumberOfValues);
+    }
 
-        return result;
+    /**
+     * Fetches all metrics starting from the <tt>startDate</tt> up until the <tt>untilDate</tt> for all targets
+     * specified via {@link #ofAll(String, Collection)}.
+     * <p>
+     * All targets are queried at once, which is way more efficient than querying them one by one.
+     *
+     * @param startDate the first date to fetch metrics for
+     * @param untilDate the last date to fetch metrics for
+     * @return the metrics fetched for the given period per target id (in the order of the given targets). The
+     * labels can be obtained via {@link #labels(LocalDate, LocalDate)}.
+     */
+    public Map<String, List<Integer>> valuesPerTarget(LocalDate startDate, LocalDate untilDate) {
+        assertMultipleTargetsArePresent();
+        return fetchValuesPerTarget(startDate, determineNumberOfValues(startDate, untilDate));
+    }
+
+    /**
+     * Fetches the requested number of metrics up until the <tt>endDate</tt> for all targets specified via
+     * {@link #ofAll(String, Collection)}.
+     *
+     * @param endDate        the last date to fetch metrics for
+     * @param numberOfValues the number of metrics to fetch (before the given end date)
+     * @return the metrics fetched for the given period per target id (each sorted by date ascending). The labels can
+     * be obtained via {@link #labelsUntil(LocalDate, int)}.
+     */
+    public Map<String, List<Integer>> valuesPerTargetUntil(LocalDate endDate, int numberOfValues) {
+        assertMultipleTargetsArePresent();
+        int effectiveNumberOfValues = Math.min(numberOfValues, determineLimit(interval));
+        return fetchValuesPerTarget(determineStartDate(endDate, effectiveNumberOfValues), effectiveNumberOfValues);
+    }
+
+    private Map<String, List<Integer>> fetchValuesPerTarget(LocalDate startDate, int numberOfValues) {
+        return metrics.executeRangeQuery(interval,
+                                         targetType,
+                                         targetIds,
+                                         metricName,
+                                         startDate,
+                                         Math.max(0, numberOfValues));
+    }
+
+    private void assertMultipleTargetsArePresent() {
+        if (interval == null) {
+            throw new IllegalStateException("No interval has been chosen for the metric query: " + this);
+        }
+        if (targetIds == null) {
+            throw new IllegalStateException("No targetIds have been chosen for the metric query: " + this);
+        }
     }
 
     /**
@@ -418,6 +500,8 @@ public class MetricQuery {
                + ", targetId='"
                + targetId
                + '\''
+               + ", targetIds="
+               + targetIds
                + ", interval="
                + interval
                + '}';
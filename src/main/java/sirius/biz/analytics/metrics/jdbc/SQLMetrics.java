@@ -12,12 +12,19 @@ import sirius.biz.analytics.metrics.BasicMetrics;
 import sirius.biz.analytics.metrics.Metrics;
 import sirius.db.jdbc.OMA;
 import sirius.db.jdbc.SQLEntity;
+import sirius.db.jdbc.SmartQuery;
+import sirius.db.mixing.Mapping;
 import sirius.db.mixing.Mixing;
+import sirius.kernel.commons.Limit;
 import sirius.kernel.di.std.Part;
 import sirius.kernel.di.std.Register;
 import sirius.kernel.health.Exceptions;
 
 import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -194,4 +201,48 @@ public class SQLMetrics extends BasicMetrics<SQLEntity> {
             throw Exceptions.handle(OMA.LOG, ex);
         }
     }
+
+    @Override
+    protected void queryMetrics(Class<? extends SQLEntity> table,
+                                String targetType,
+                                Collection<String> targetIds,
+                                String name,
+                                LocalDate startDate,
+                                LocalDate endDate,
+                                MetricValueConsumer consumer) {
+        boolean hasMonth = MonthlyMetric.class.isAssignableFrom(table);
+        boolean hasDay = DailyMetric.class.isAssignableFrom(table);
+        List<Mapping> fields = new ArrayList<>(List.of(Fact.TARGET_ID, Fact.VALUE, YearlyMetric.YEAR));
+        if (hasMonth) {
+            fields.add(MonthlyMetric.MONTH);
+        }
+        if (hasDay) {
+            fields.add(DailyMetric.DAY);
+        }
+
+        SmartQuery<? extends SQLEntity> query = oma.select(table)
+                                                   .fields(fields.toArray(Mapping[]::new))
+                                                   .eq(Fact.TARGET_TYPE, targetType)
+                                                   .eq(Fact.NAME, name);
+        query.where(OMA.FILTERS.or(targetIds.stream()
+                                            .map(targetId -> OMA.FILTERS.eq(Fact.TARGET_ID, targetId))
+                                            .toList()));
+        query.where(buildDateRangeConstraint(OMA.FILTERS,
+                                             YearlyMetric.YEAR,
+                                             hasMonth ? MonthlyMetric.MONTH : null,
+                                             hasDay ? DailyMetric.DAY : null,
+                                             startDate,
+                                             endDate));
+
+        try {
+            query.asSQLQuery()
+                 .iterateAll(row -> consumer.accept(row.getValue(Fact.TARGET_ID).asString(),
+                                                    row.getValue(YearlyMetric.YEAR).asInt(0),
+                                                    hasMonth ? row.getValue(MonthlyMetric.MONTH).asInt(0) : 0,
+                                                    hasDay ? row.getValue(DailyMetric.DAY).asInt(0) : 0,
+                                                    row.getValue(Fact.VALUE).asInt(0)), Limit.UNLIMITED);
+        } catch (SQLException ex) {
+            throw Exceptions.handle(OMA.LOG, ex);
+        }
+    }
 }
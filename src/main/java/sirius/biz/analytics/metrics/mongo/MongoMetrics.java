@@ -15,10 +15,13 @@ import sirius.db.mongo.Deleter;
 import sirius.db.mongo.Mango;
 import sirius.db.mongo.Mongo;
 import sirius.db.mongo.MongoEntity;
+import sirius.db.mongo.QueryBuilder;
 import sirius.db.mongo.Updater;
 import sirius.kernel.di.std.Part;
 import sirius.kernel.di.std.Register;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.Optional;
 
 /**
@@ -179,4 +182,35 @@ public class MongoMetrics extends BasicMetrics<MongoEntity> {
                     .singleIn(table)
                     .map(doc -> doc.get(Fact.VALUE).asInt(0));
     }
+
+    @Override
+    protected void queryMetrics(Class<? extends MongoEntity> table,
+                                String targetType,
+                                Collection<String> targetIds,
+                                String name,
+                                LocalDate startDate,
+                                LocalDate endDate,
+                                MetricValueConsumer consumer) {
+        boolean hasMonth = MonthlyMetric.class.isAssignableFrom(table);
+        boolean hasDay = DailyMetric.class.isAssignableFrom(table);
+        mongo.find()
+             .where(Fact.TARGET_TYPE, targetType)
+             .where(Fact.NAME, name)
+             .where(QueryBuilder.FILTERS.or(targetIds.stream()
+                                                     .map(targetId -> QueryBuilder.FILTERS.eq(Fact.TARGET_ID,
+                                                                                              targetId))
+                                                     .toList()))
+             .where(buildDateRangeConstraint(QueryBuilder.FILTERS,
+                                             YearlyMetric.YEAR,
+                                             hasMonth ? MonthlyMetric.MONTH : null,
+                                             hasDay ? DailyMetric.DAY : null,
+                                             startDate,
+                                             endDate))
+             .allIn(table,
+                    doc -> consumer.accept(doc.getString(Fact.TARGET_ID),
+                                           doc.get(YearlyMetric.YEAR).asInt(0),
+                                           hasMonth ? doc.get(MonthlyMetric.MONTH).asInt(0) : 0,
+                                           hasDay ? doc.get(DailyMetric.DAY).asInt(0) : 0,
+                                           doc.get(Fact.VALUE).asInt(0)));
+    }
 }
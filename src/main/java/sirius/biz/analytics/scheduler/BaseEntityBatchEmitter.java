@@ -15,10 +15,11 @@ import sirius.db.mixing.Mixing;
 import sirius.db.mixing.query.Query;
 import sirius.db.mixing.query.constraints.Constraint;
 import sirius.kernel.async.TaskContext;
-import sirius.kernel.commons.ValueHolder;
 import sirius.kernel.di.std.Part;
 
 import javax.annotation.Nullable;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
 
@@ -55,47 +56,121 @@ public abstract class BaseEntityBatchEmitter<I, C extends Constraint, B extends
 
     /**
      * Creates a query for the given type of entities and yields a number of batch descriptions.
+     * <p>
+     * Note that the batches are emitted as soon as their boundaries are known, so that the consumer can already
+     * start to distribute (and process) them while the remaining batches are still being computed. The boundaries
+     * themselves are determined by seeking to the last id of each batch, using a query which only fetches a single
+     * (id-projected) row instead of loading all entities of the batch.
      *
      * @param type          the type of entities being queried
      * @param queryExtender an extender which can further narrow down the entities being queried
      * @param batchSize     the size of each batch
      * @param batchConsumer a consumer which processes the batch descriptions
      */
-    @SuppressWarnings("unchecked")
     public <E extends B> void computeBatches(Class<E> type,
                                              @Nullable Consumer<Q> queryExtender,
                                              int batchSize,
                                              Predicate<JSONObject> batchConsumer) {
         TaskContext taskContext = TaskContext.get();
-        ValueHolder<I> lastLimit = ValueHolder.of(null);
+        I lastLimit = null;
         while (taskContext.isActive()) {
-            Q query = (Q) getMapper().select(type);
-            if (lastLimit.get() != null) {
-                query.where(getMapper().filters().gt(BaseEntity.ID, lastLimit.get()));
-            }
-            if (queryExtender != null) {
-                queryExtender.accept(query);
-            }
-
-            ValueHolder<I> nextLimit = ValueHolder.of(null);
-            query.orderAsc(BaseEntity.ID).limit(batchSize).iterateAll(e -> {
-                nextLimit.set(e.getId());
-            });
-
-            if (nextLimit.get() == null) {
+            I nextLimit = findBatchBoundary(type, queryExtender, lastLimit, batchSize);
+            if (nextLimit == null) {
                 return;
             }
 
             JSONObject batch = new JSONObject();
             batch.put(TYPE, Mixing.getNameForType(type));
-            batch.put(START_ID, lastLimit.get());
-            batch.put(END_ID, nextLimit.get());
+            batch.put(START_ID, lastLimit);
+            batch.put(END_ID, nextLimit);
             if (!batchConsumer.test(batch)) {
                 return;
             }
 
-            lastLimit.set(nextLimit.get());
+            lastLimit = nextLimit;
+        }
+    }
+
+    /**
+     * Determines the last id of the batch which starts right after the given id.
+     * <p>
+     * We first try to skip directly to the n-th entity. If there are less entities left, we determine the last
+     * one by reversing the sort order. Both queries only read a single row and are answered using the index on the
+     * id field. If the database limits the number of entities to skip (see {@link #getMaxSkip()}), we seek in
+     * several steps.
+     *
+     * @param type          the type of entities being queried
+     * @param queryExtender an extender which can further narrow down the entities being queried
+     * @param lastLimit     the last id of the previous batch or <tt>null</tt> when computing the first batch
+     * @param batchSize     the size of each batch
+     * @return the last id of the batch or <tt>null</tt> if there are no more entities
+     */
+    @Nullable
+    private <E extends B> I findBatchBoundary(Class<E> type,
+                                              @Nullable Consumer<Q> queryExtender,
+                                              @Nullable I lastLimit,
+                                              int batchSize) {
+        I boundary = lastLimit;
+        int remainingEntities = batchSize;
+        while (remainingEntities > 0) {
+            int skip = Math.min(Math.max(0, remainingEntities - 1), getMaxSkip());
+            Optional<B> nextBoundary = createBoundaryQuery(type, queryExtender, boundary).orderAsc(BaseEntity.ID)
+                                                                                        .skip(skip)
+                                                                                        .limit(1)
+                                                                                        .first();
+            if (nextBoundary.isEmpty()) {
+                // There are less entities left than required to fill the batch, therefore the last one ends it...
+                boundary = createBoundaryQuery(type, queryExtender, boundary).orderDesc(BaseEntity.ID)
+                                                                            .first()
+                                                                            .map(BaseEntity::getId)
+                                                                            .orElse(boundary);
+                break;
+            }
+
+            boundary = nextBoundary.get().getId();
+            remainingEntities -= skip + 1;
+        }
+
+        return Objects.equals(boundary, lastLimit) ? null : boundary;
+    }
+
+    /**
+     * Determines the max number of entities which can be skipped by a single query.
+     * <p>
+     * By default, there is no such limit.
+     *
+     * @return the max number of entities to skip within a single query
+     */
+    protected int getMaxSkip() {
+        return Integer.MAX_VALUE;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <E extends B> Q createBoundaryQuery(Class<E> type,
+                                                @Nullable Consumer<Q> queryExtender,
+                                                @Nullable I lastLimit) {
+        Q query = (Q) getMapper().select(type);
+        if (lastLimit != null) {
+            query.where(getMapper().filters().gt(BaseEntity.ID, lastLimit));
         }
+        if (queryExtender != null) {
+            queryExtender.accept(query);
+        }
+
+        return projectToId(query);
+    }
+
+    /**
+     * Restricts the given query to only fetch the id of each entity.
+     * <p>
+     * This is used when computing the batch boundaries, as we're only interested in the ids there. By default, the
+     * query is left as is, as not every database supports projections.
+     *
+     * @param query the query to restrict
+     * @return the restricted query
+     */
+    protected Q projectToId(Q query) {
+        return query;
     }
 
     protected abstract BaseMapper<B, C, ?> getMapper();
@@ -29,6 +29,14 @@ import java.util.function.Consumer;
 public class ElasticEntityBatchEmitter
         extends BaseEntityBatchEmitter<String, ElasticConstraint, ElasticEntity, ElasticQuery<ElasticEntity>> {
 
+    /**
+     * Contains the default <tt>index.max_result_window</tt> of Elasticsearch.
+     * <p>
+     * A query fails if <tt>from + size</tt> exceeds this limit, therefore batch boundaries of larger batches are
+     * determined in several steps.
+     */
+    private static final int MAX_RESULT_WINDOW = 10_000;
+
     @Part
     protected Elastic elastic;
 
@@ -36,4 +44,10 @@ public class ElasticEntityBatchEmitter
     protected BaseMapper<ElasticEntity, ElasticConstraint, ?> getMapper() {
         return elastic;
     }
+
+    @Override
+    protected int getMaxSkip() {
+        // Leave room for the single entity being fetched...
+        return MAX_RESULT_WINDOW - 1;
+    }
 }
@@ -36,4 +36,9 @@ public class MongoEntityBatchEmitter extends BaseEntityBatchEmitter<String, Mong
     protected BaseMapper<MongoEntity, MongoConstraint, ?> getMapper() {
         return mango;
     }
+
+    @Override
+    protected MongoQuery<MongoEntity> projectToId(MongoQuery<MongoEntity> query) {
+        return query.fields(MongoEntity.ID);
+    }
 }
@@ -36,4 +36,9 @@ public class SQLEntityBatchEmitter
     protected BaseMapper<SQLEntity, SQLConstraint, ?> getMapper() {
         return oma;
     }
+
+    @Override
+    protected SmartQuery<SQLEntity> projectToId(SmartQuery<SQLEntity> query) {
+        return query.fields(SQLEntity.ID);
+    }
 }
@@ -9,22 +9,51 @@
 package sirius.biz.cluster;
 
 import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONArray;
 import com.alibaba.fastjson.JSONObject;
 import sirius.db.redis.Redis;
 import sirius.db.redis.Subscriber;
+import sirius.kernel.Stoppable;
+import sirius.kernel.async.Tasks;
 import sirius.kernel.commons.Explain;
 import sirius.kernel.commons.Strings;
 import sirius.kernel.di.GlobalContext;
+import sirius.kernel.di.std.ConfigValue;
 import sirius.kernel.di.std.Part;
 import sirius.kernel.di.std.Register;
+import sirius.kernel.health.Average;
+import sirius.kernel.health.Counter;
 import sirius.kernel.health.Exceptions;
 import sirius.kernel.health.Log;
+import sirius.kernel.health.metrics.MetricProvider;
+import sirius.kernel.health.metrics.MetricsCollector;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Provides a pusblish / subscribe model to broadcast messages across all nodes of the cluster.
+ * <p>
+ * Outgoing messages are collected for a short period of time (<tt>interconnect.batchWindow</tt>) and then published
+ * as a single frame. Messages dispatched via {@link #dispatchIdempotent(String, JSONObject)} (e.g. the repeated
+ * invalidation of the same cache key during an import) are coalesced with any identical idempotent message in the
+ * window. Apart from that, all messages are sent in the order in which they were dispatched.
+ * <p>
+ * Incoming messages are put into a queue per {@link InterconnectHandler} which is processed by the
+ * <tt>interconnect-dispatch</tt> executor. Therefore, a slow handler cannot block the processing of other handlers,
+ * whereas the messages of a single handler are still processed in order.
  */
-@Register(classes = {Interconnect.class, Subscriber.class})
-public class Interconnect implements Subscriber {
+@Register(classes = {Interconnect.class, Subscriber.class, MetricProvider.class, Stoppable.class})
+public class Interconnect implements Subscriber, MetricProvider, Stoppable {
 
     /**
      * Contains the logger used for all messages concerning the interconnect.
@@ -44,21 +73,141 @@ public class Interconnect implements Subscriber {
      */
     public static final String HANDLER = "_handler";
 
+    /**
+     * Contains the name of the key which contains the messages of a batch frame.
+     */
+    private static final String BATCH = "_batch";
+
+    private static final String EXECUTOR_INTERCONNECT_SENDER = "interconnect-sender";
+    private static final String EXECUTOR_INTERCONNECT_DISPATCH = "interconnect-dispatch";
+
     @Part
     private GlobalContext ctx;
 
     @Part
     private Redis redis;
 
+    @Part
+    private Tasks tasks;
+
+    @ConfigValue("interconnect.batchWindow")
+    private Duration batchWindow;
+
+    @ConfigValue("interconnect.maxBatchSize")
+    private int maxBatchSize;
+
+    private final Object outgoingLock = new Object();
+    private final OutgoingMessageBuffer outgoingMessages = new OutgoingMessageBuffer();
+    private boolean flushScheduled;
+
+    /**
+     * Triggers the flush of the outgoing messages once the batch window has passed.
+     * <p>
+     * This only hands the flush over to the <tt>interconnect-sender</tt> executor, so that no thread is blocked
+     * while the messages are being collected.
+     */
+    private final ScheduledExecutorService flushScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "interconnect-flush-scheduler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Map<String, HandlerQueue> handlerQueues = new ConcurrentHashMap<>();
+    private final AtomicInteger queuedMessages = new AtomicInteger();
+
+    private final Counter messagesSent = new Counter();
+    private final Counter messagesCoalesced = new Counter();
+    private final Counter messagesReceived = new Counter();
+    private final Average batchSize = new Average();
+    private final Average dispatchLag = new Average();
+
+    /**
+     * Keeps the received messages for a single handler.
+     * <p>
+     * At most one task processes a queue at any given time, so that the messages of a handler are processed in order.
+     */
+    private class HandlerQueue {
+
+        private final String handlerName;
+        private final Queue<QueuedMessage> messages = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean processing = new AtomicBoolean();
+
+        HandlerQueue(String handlerName) {
+            this.handlerName = handlerName;
+        }
+
+        void offer(JSONObject event) {
+            messages.offer(new QueuedMessage(event, System.currentTimeMillis()));
+            queuedMessages.incrementAndGet();
+            if (processing.compareAndSet(false, true)) {
+                tasks.executor(EXECUTOR_INTERCONNECT_DISPATCH).fork(this::process);
+            }
+        }
+
+        private void process() {
+            InterconnectHandler handler = ctx.findPart(handlerName, InterconnectHandler.class);
+            while (true) {
+                QueuedMessage message = messages.poll();
+                while (message != null) {
+                    queuedMessages.decrementAndGet();
+                    dispatchLag.addValue(System.currentTimeMillis() - message.received);
+                    handleSafely(handler, message.event);
+                    message = messages.poll();
+                }
+
+                processing.set(false);
+
+                // A message might have been added after our last poll but before resetting the flag. In this case
+                // no other task has been started, so we have to continue ourselves...
+                if (messages.isEmpty() || !processing.compareAndSet(false, true)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private static class QueuedMessage {
+
+        private final JSONObject event;
+        private final long received;
+
+        QueuedMessage(JSONObject event, long received) {
+            this.event = event;
+            this.received = received;
+        }
+    }
+
     /**
      * Dispatches a JSON message across all nodes via <tt>Redis Pub/Sub</tt>.
      * <p>
      * The appropriate {@link InterconnectHandler} with the given name will be invoked on each node, including this one.
+     * <p>
+     * Note that the message is sent asynchronously as part of the next batch. It is never coalesced with other
+     * messages, as its handler might not be idempotent (e.g. when appending to a transcript).
      *
      * @param handler the handler to send the event to
      * @param event   the JSON data to publish
      */
     public void dispatch(String handler, JSONObject event) {
+        dispatch(handler, event, false);
+    }
+
+    /**
+     * Dispatches an idempotent JSON message across all nodes via <tt>Redis Pub/Sub</tt>.
+     * <p>
+     * In contrast to {@link #dispatch(String, JSONObject)}, the message is dropped if any identical message, which has
+     * also been dispatched via this method, is already waiting to be sent. Therefore, this must only be used for
+     * messages which have no additional effect when being handled twice, no matter which messages are handled in
+     * between (e.g. removing a key from a cache).
+     *
+     * @param handler the handler to send the event to
+     * @param event   the JSON data to publish
+     */
+    public void dispatchIdempotent(String handler, JSONObject event) {
+        dispatch(handler, event, true);
+    }
+
+    private void dispatch(String handler, JSONObject event, boolean idempotent) {
         event.put(HANDLER, handler);
 
         if (!redis.isConfigured()) {
@@ -68,10 +217,68 @@ public class Interconnect implements Subscriber {
 
         String msg = event.toJSONString();
         if (LOG.isFINE()) {
-            LOG.FINE("Sending message: " + msg);
+            LOG.FINE("Queueing message: " + msg);
+        }
+
+        synchronized (outgoingLock) {
+            if (!outgoingMessages.add(msg, idempotent)) {
+                messagesCoalesced.inc();
+            }
+            if (!flushScheduled) {
+                flushScheduled = true;
+                scheduleFlush();
+            }
         }
+    }
+
+    private void scheduleFlush() {
         try {
-            redis.publish(TOPIC_INTERCONNECT, msg);
+            // Wait for the batch window to pass so that more messages can be collected...
+            flushScheduler.schedule(this::forkFlush, batchWindow.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            // The scheduler has already been shut down, as the system is halting - therefore we send right away...
+            Exceptions.ignore(e);
+            forkFlush();
+        }
+    }
+
+    private void forkFlush() {
+        tasks.executor(EXECUTOR_INTERCONNECT_SENDER).fork(this::flushOutgoingMessages);
+    }
+
+    private void flushOutgoingMessages() {
+        List<String> messages;
+        synchronized (outgoingLock) {
+            messages = outgoingMessages.drain();
+            flushScheduled = false;
+        }
+
+        for (int offset = 0; offset < messages.size(); offset += maxBatchSize) {
+            publishFrame(messages.subList(offset, Math.min(messages.size(), offset + maxBatchSize)));
+        }
+    }
+
+    @Override
+    public void stopped() {
+        flushScheduler.shutdownNow();
+
+        // Send all pending messages right away, as these would be lost otherwise...
+        flushOutgoingMessages();
+    }
+
+    private void publishFrame(List<String> messages) {
+        // Single messages are sent as is, so that these remain readable for nodes which do not know about batches...
+        String frame = messages.size() == 1 ?
+                       messages.get(0) :
+                       "{\"" + BATCH + "\":[" + String.join(",", messages) + "]}";
+        if (LOG.isFINE()) {
+            LOG.FINE("Sending frame: " + frame);
+        }
+
+        try {
+            redis.publish(TOPIC_INTERCONNECT, frame);
+            messagesSent.add(messages.size());
+            batchSize.addValue(messages.size());
         } catch (Exception e) {
             Exceptions.handle(LOG, e);
         }
@@ -89,12 +296,29 @@ public class Interconnect implements Subscriber {
                 LOG.FINE("Received message: " + message);
             }
             JSONObject msgAsJSON = JSON.parseObject(message);
-            dispatchLocally(msgAsJSON);
+            JSONArray batch = msgAsJSON.getJSONArray(BATCH);
+            if (batch == null) {
+                enqueue(msgAsJSON);
+            } else {
+                for (int i = 0; i < batch.size(); i++) {
+                    enqueue(batch.getJSONObject(i));
+                }
+            }
         } catch (Exception e) {
             Exceptions.handle(LOG, e);
         }
     }
 
+    private void enqueue(JSONObject event) {
+        messagesReceived.inc();
+        String type = event.getString(HANDLER);
+        if (Strings.isEmpty(type)) {
+            throw new IllegalArgumentException("handler must not be empty!");
+        }
+
+        handlerQueues.computeIfAbsent(type, HandlerQueue::new).offer(event);
+    }
+
     private void dispatchLocally(JSONObject event) {
         String type = event.getString(HANDLER);
         if (Strings.isEmpty(type)) {
@@ -103,4 +327,46 @@ public class Interconnect implements Subscriber {
 
         ctx.findPart(type, InterconnectHandler.class).handleEvent(event);
     }
+
+    private void handleSafely(InterconnectHandler handler, JSONObject event) {
+        try {
+            handler.handleEvent(event);
+        } catch (Exception e) {
+            Exceptions.handle(LOG, e);
+        }
+    }
+
+    @Override
+    public void gather(MetricsCollector metricsCollector) {
+        metricsCollector.differentialMetric("interconnect_messages_sent",
+                                            "interconnect-messages-sent",
+                                            "Interconnect Messages Sent",
+                                            messagesSent.getCount(),
+                                            "/min");
+        metricsCollector.differentialMetric("interconnect_messages_coalesced",
+                                            "interconnect-messages-coalesced",
+                                            "Interconnect Messages Coalesced",
+                                            messagesCoalesced.getCount(),
+                                            "/min");
+        metricsCollector.differentialMetric("interconnect_messages_received",
+                                            "interconnect-messages-received",
+                                            "Interconnect Messages Received",
+                                            messagesReceived.getCount(),
+                                            "/min");
+        metricsCollector.metric("interconnect_batch_size",
+                                "interconnect-batch-size",
+                                "Interconnect Batch Size",
+                                batchSize.getAndClear(),
+                                null);
+        metricsCollector.metric("interconnect_dispatch_lag",
+                                "interconnect-dispatch-lag",
+                                "Interconnect Dispatch Lag",
+                                dispatchLag.getAndClear(),
+                                "ms");
+        metricsCollector.metric("interconnect_dispatch_queue",
+                                "interconnect-dispatch-queue",
+                                "Interconnect Dispatch Queue",
+                                queuedMessages.get(),
+                                null);
+    }
 }
@@ -41,31 +41,31 @@ public class InterconnectCacheCoherence implements CacheCoherence, InterconnectH
 
     @Override
     public void clear(Cache<String, ?> cache) {
-        interconnect.dispatch(getName(),
-                              new JSONObject().fluentPut(MESSAGE_TYPE, TYPE_CLEAR)
-                                              .fluentPut(MESSAGE_CACHE, cache.getName())
-                                              .fluentPut(MESSAGE_NODE, CallContext.getNodeName()));
+        interconnect.dispatchIdempotent(getName(),
+                                        new JSONObject().fluentPut(MESSAGE_TYPE, TYPE_CLEAR)
+                                                        .fluentPut(MESSAGE_CACHE, cache.getName())
+                                                        .fluentPut(MESSAGE_NODE, CallContext.getNodeName()));
         CacheManager.clearCoherentCacheLocally(cache.getName());
     }
 
     @Override
     public void removeKey(Cache<String, ?> cache, String key) {
-        interconnect.dispatch(getName(),
-                              new JSONObject().fluentPut(MESSAGE_TYPE, TYPE_REMOVE)
-                                              .fluentPut(MESSAGE_CACHE, cache.getName())
-                                              .fluentPut(MESSAGE_KEY, key)
-                                              .fluentPut(MESSAGE_NODE, CallContext.getNodeName()));
+        interconnect.dispatchIdempotent(getName(),
+                                        new JSONObject().fluentPut(MESSAGE_TYPE, TYPE_REMOVE)
+                                                        .fluentPut(MESSAGE_CACHE, cache.getName())
+                                                        .fluentPut(MESSAGE_KEY, key)
+                                                        .fluentPut(MESSAGE_NODE, CallContext.getNodeName()));
         CacheManager.removeCoherentCacheKeyLocally(cache.getName(), key);
     }
 
     @Override
     public void removeAll(Cache<String, ?> cache, String discriminator, String testInput) {
-        interconnect.dispatch(getName(),
-                              new JSONObject().fluentPut(MESSAGE_TYPE, TYPE_REMOVE_ALL)
-                                              .fluentPut(MESSAGE_CACHE, cache.getName())
-                                              .fluentPut(MESSAGE_DISCRIMINATOR, discriminator)
-                                              .fluentPut(MESSAGE_TEST_VALUE, testInput)
-                                              .fluentPut(MESSAGE_NODE, CallContext.getNodeName()));
+        interconnect.dispatchIdempotent(getName(),
+                                        new JSONObject().fluentPut(MESSAGE_TYPE, TYPE_REMOVE_ALL)
+                                                        .fluentPut(MESSAGE_CACHE, cache.getName())
+                                                        .fluentPut(MESSAGE_DISCRIMINATOR, discriminator)
+                                                        .fluentPut(MESSAGE_TEST_VALUE, testInput)
+                                                        .fluentPut(MESSAGE_NODE, CallContext.getNodeName()));
         CacheManager.coherentCacheRemoveAllLocally(cache.getName(), discriminator, testInput);
     }
 
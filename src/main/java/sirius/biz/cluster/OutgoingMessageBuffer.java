@@ -0,0 +1,63 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.biz.cluster;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Collects the outgoing messages of the {@link Interconnect} until the next batch is published.
+ * <p>
+ * The messages are kept in the order in which they were dispatched. A message is only dropped (coalesced) if it
+ * has been marked as idempotent and an identical idempotent message is already waiting to be sent. This is used for
+ * invalidations like cache removals, which have no additional effect when being applied twice. All other messages
+ * are always sent, as their handlers might rely on receiving each of them.
+ * <p>
+ * Note that this class is not thread-safe, as the caller already has to synchronize the scheduling of the flush.
+ */
+class OutgoingMessageBuffer {
+
+    private List<String> messages = new ArrayList<>();
+    private Set<String> idempotentMessages = new HashSet<>();
+
+    /**
+     * Adds the given message to the buffer unless it can be coalesced with an already queued one.
+     *
+     * @param message    the message to add
+     * @param idempotent <tt>true</tt> if the message may be coalesced with any identical idempotent message in the
+     *                   buffer, <tt>false</tt> if it must always be sent
+     * @return <tt>true</tt> if the message has been added, <tt>false</tt> if it has been coalesced
+     */
+    boolean add(String message, boolean idempotent) {
+        if (idempotent && !idempotentMessages.add(message)) {
+            return false;
+        }
+
+        messages.add(message);
+        return true;
+    }
+
+    /**
+     * Removes and returns all buffered messages.
+     *
+     * @return all messages in the order in which they have been added
+     */
+    List<String> drain() {
+        List<String> result = messages;
+        messages = new ArrayList<>();
+        idempotentMessages = new HashSet<>();
+        return result;
+    }
+
+    boolean isEmpty() {
+        return messages.isEmpty();
+    }
+}
@@ -28,6 +28,7 @@ import sirius.kernel.settings.Extension;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -457,6 +458,38 @@ public class DistributedTasks implements MetricProvider {
         }
     }
 
+    /**
+     * Fetches up to the given number of work items from any available queue.
+     * <p>
+     * In contrast to {@link #fetchWork()}, this pulls several work items per queue at once (using
+     * {@link PrioritizedQueue#pollBatch(int)} for prioritized queues), so that all free slots of the local executor
+     * can be filled with as few round trips as possible. Queues are still visited in a round-robin fashion and each
+     * queue is asked for its fair share of the remaining work items per round.
+     *
+     * @param maxTasks the max number of work items to fetch
+     * @return the fetched work items which might be empty to indicate that currently no executable work was found
+     */
+    protected List<DistributedTask> fetchWork(int maxTasks) {
+        List<DistributedQueueInfo> queues = getQueues();
+        List<DistributedTask> result = new ArrayList<>();
+
+        boolean workFound = !queues.isEmpty();
+        while (workFound && result.size() < maxTasks) {
+            workFound = false;
+            for (int i = 0; i < queues.size() && result.size() < maxTasks; i++) {
+                DistributedQueueInfo queue = queues.get(fetchAndMoveNextQueueIndex());
+                if (orchestration.isDistributedTaskQueueEnabled(queue.getName())) {
+                    int fairShare = Math.max(1, (maxTasks - result.size()) / queues.size());
+                    List<DistributedTask> pulledWork = tryToPullWork(queue, fairShare);
+                    workFound |= !pulledWork.isEmpty();
+                    result.addAll(pulledWork);
+                }
+            }
+        }
+
+        return result;
+    }
+
     /**
      * Reads the round-robin index for pulling work from {@link #sortedTaskQueues}.
      *
@@ -510,6 +543,41 @@ public class DistributedTasks implements MetricProvider {
         return null;
     }
 
+    /**
+     * Tries to pull up to the given number of work items from the given queue.
+     *
+     * @param queue    the queue to pull the work items from
+     * @param maxTasks the max number of work items to pull
+     * @return the pulled work items, which might be empty to indicate that either there is no work, or that the
+     * required <tt>concurrencyToken</tt> is exhausted on this machine.
+     */
+    private List<DistributedTask> tryToPullWork(DistributedQueueInfo queue, int maxTasks) {
+        int acquiredTokens = 0;
+        while (acquiredTokens < maxTasks && acquireConcurrencyToken(queue.getConcurrencyToken())) {
+            acquiredTokens++;
+        }
+
+        if (acquiredTokens == 0) {
+            return Collections.emptyList();
+        }
+
+        List<DistributedTask> result = new ArrayList<>();
+        try {
+            for (JSONObject task : fetchTasks(queue, acquiredTokens)) {
+                result.add(new DistributedTask(queue, task));
+            }
+        } catch (Exception e) {
+            Exceptions.handle(LOG, e);
+        }
+
+        // Release all concurrency tokens acquired above, for which we didn't yield a task...
+        for (int i = result.size(); i < acquiredTokens; i++) {
+            releaseConcurrencyToken(queue.getConcurrencyToken());
+        }
+
+        return result;
+    }
+
     /**
      * Acquires a slot for the given concurrency token.
      * <p>
@@ -588,6 +656,34 @@ public class DistributedTasks implements MetricProvider {
         }
     }
 
+    /**
+     * Tries to fetch descriptions of up to the given number of work items from the given queue.
+     * <p>
+     * This method assumes that the <tt>concurrencyTokens</tt> (if required by the queue) have already been acquired.
+     *
+     * @param queue    the queue to fetch the task descriptions from
+     * @param maxTasks the max number of task descriptions to fetch
+     * @return a list of JSON objects representing descriptions of executable tasks
+     */
+    private List<JSONObject> fetchTasks(DistributedQueueInfo queue, int maxTasks) {
+        if (queue.isPrioritized()) {
+            PrioritizedQueue prioritizedQueue = prioritizedQueues.get(queue.getName());
+            return prioritizedQueue == null ? Collections.emptyList() : prioritizedQueue.pollBatch(maxTasks);
+        }
+
+        List<JSONObject> result = new ArrayList<>();
+        FifoQueue fifoQueue = fifos.get(queue.getName());
+        while (fifoQueue != null && result.size() < maxTasks) {
+            JSONObject task = fifoQueue.poll();
+            if (task == null) {
+                return result;
+            }
+            result.add(task);
+        }
+
+        return result;
+    }
+
     @Override
     public void gather(MetricsCollector metricsCollector) {
         metricsCollector.metric("active-distributed-tasks",
@@ -15,6 +15,8 @@ import sirius.kernel.health.Log;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.PriorityBlockingQueue;
 
 /**
@@ -50,6 +52,21 @@ class LocalPrioritizedQueue implements PrioritizedQueue {
         }
     }
 
+    @Nonnull
+    @Override
+    public List<JSONObject> pollBatch(int maxTasks) {
+        List<JSONObject> result = new ArrayList<>();
+        while (result.size() < maxTasks) {
+            JSONObject task = poll();
+            if (task == null) {
+                return result;
+            }
+            result.add(task);
+        }
+
+        return result;
+    }
+
     @Override
     public int size() {
         return queue.size();
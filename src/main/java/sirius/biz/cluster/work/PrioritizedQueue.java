@@ -12,6 +12,7 @@ import com.alibaba.fastjson.JSONObject;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.List;
 
 /**
  * Represents a prioritized queue for work items.
@@ -37,6 +38,15 @@ interface PrioritizedQueue {
     @Nullable
     JSONObject poll();
 
+    /**
+     * Pulls up to the given number of work items, starting with the one with the lowest priority.
+     *
+     * @param maxTasks the max number of work items to pull
+     * @return the work items to process, which might be empty to indicate that the queue is empty
+     */
+    @Nonnull
+    List<JSONObject> pollBatch(int maxTasks);
+
     /**
      * Returns the number of elements in the queue.
      *
@@ -10,7 +10,6 @@ package sirius.biz.cluster.work;
 
 import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.JSONObject;
-import redis.clients.jedis.Jedis;
 import sirius.db.KeyGenerator;
 import sirius.db.redis.Redis;
 import sirius.kernel.commons.Strings;
@@ -20,16 +19,52 @@ import sirius.kernel.health.Log;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
-import java.util.Set;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
 
 /**
  * Provides a prioritized queue which supports distributed concurrent access using Redis.
+ * <p>
+ * Offering and polling tasks is performed by Lua scripts, so that each operation is executed atomically on the
+ * server within a single round trip. Therefore, concurrent pollers on several nodes never compete for the same task.
  */
 class RedisPrioritizedQueue implements PrioritizedQueue {
 
     private static final int REDIS_RESPONSE_SUCCESS = 1;
     private static final int MAX_ATTEMPTS_TO_GENERATE_UNIQUE_TASK_ID = 3;
-    private static final int MAX_ATTEMPTS_TO_POLL = 5;
+
+    /**
+     * Stores the task data in the task map (unless the id is already taken) and adds the id to the queue.
+     * <p>
+     * KEYS: queue, task map - ARGV: task id, priority, task data
+     */
+    private static final String SCRIPT_OFFER = """
+            if redis.call('HSETNX', KEYS[2], ARGV[1], ARGV[3]) == 1 then
+                redis.call('ZADD', KEYS[1], ARGV[2], ARGV[1])
+                return 1
+            end
+            return 0
+            """;
+
+    /**
+     * Removes up to N task ids with the lowest priority from the queue and returns their task data.
+     * <p>
+     * KEYS: queue, task map - ARGV: max number of tasks to poll
+     */
+    private static final String SCRIPT_POLL = """
+            local ids = redis.call('ZRANGE', KEYS[1], 0, tonumber(ARGV[1]) - 1)
+            local result = {}
+            for _, id in ipairs(ids) do
+                redis.call('ZREM', KEYS[1], id)
+                local data = redis.call('HGET', KEYS[2], id)
+                if data then
+                    redis.call('HDEL', KEYS[2], id)
+                    table.insert(result, data)
+                end
+            end
+            return result
+            """;
 
     private final Redis redis;
     private final String queueName;
@@ -45,8 +80,22 @@ class RedisPrioritizedQueue implements PrioritizedQueue {
     @Override
     public void offer(long priority, @Nonnull JSONObject task) {
         redis.exec(() -> Strings.apply("Add to prioritized queue %s", queueName), db -> {
-            String taskId = storeTask(db, task);
-            db.zadd(getRedisQueueName(), priority, taskId);
+            List<String> keys = List.of(getRedisQueueName(), getRedisTaskMapKeyName());
+            String taskData = task.toJSONString();
+            int retries = MAX_ATTEMPTS_TO_GENERATE_UNIQUE_TASK_ID;
+            while (retries-- > 0) {
+                Object result = db.eval(SCRIPT_OFFER,
+                                        keys,
+                                        List.of(keyGen.generateId(), String.valueOf(priority), taskData));
+                if (result instanceof Long longResult && longResult == REDIS_RESPONSE_SUCCESS) {
+                    return;
+                }
+            }
+
+            throw Exceptions.handle()
+                            .to(Log.BACKGROUND)
+                            .withSystemErrorMessage("Failed to generate a unique task id for queue %s", queueName)
+                            .handle();
         });
     }
 
@@ -58,58 +107,39 @@ class RedisPrioritizedQueue implements PrioritizedQueue {
         return "distributed_prioritized_queue_" + queueName;
     }
 
-    private String storeTask(Jedis db, JSONObject task) {
-        int retries = MAX_ATTEMPTS_TO_GENERATE_UNIQUE_TASK_ID;
-        String taskMap = getRedisTaskMapKeyName();
-        String taskData = task.toJSONString();
-        while (retries-- > 0) {
-            String id = keyGen.generateId();
-            if (db.hsetnx(taskMap, id, taskData) == REDIS_RESPONSE_SUCCESS) {
-                return id;
-            }
-        }
-
-        throw Exceptions.handle()
-                        .to(Log.BACKGROUND)
-                        .withSystemErrorMessage("Failed to generate a unique task id for queue %s", queueName)
-                        .handle();
-    }
-
     @Nullable
     @Override
     public JSONObject poll() {
-        String taskData = pollFromRedis();
+        List<String> taskData = pollFromRedis(1);
 
-        if (taskData != null) {
-            return JSON.parseObject(taskData);
+        if (!taskData.isEmpty()) {
+            return JSON.parseObject(taskData.get(0));
         } else {
             return null;
         }
     }
 
-    private String pollFromRedis() {
-        return redis.query(() -> Strings.apply("Poll prioritized queue %s", queueName), db -> {
-            String taskMap = getRedisTaskMapKeyName();
-            String queue = getRedisQueueName();
+    @Nonnull
+    @Override
+    public List<JSONObject> pollBatch(int maxTasks) {
+        if (maxTasks <= 0) {
+            return Collections.emptyList();
+        }
 
-            int retries = MAX_ATTEMPTS_TO_POLL;
-            while (retries-- > 0) {
-                Set<String> possibleTasks = db.zrange(queue, 0, 0);
-                if (possibleTasks.isEmpty()) {
-                    return null;
-                }
+        return pollFromRedis(maxTasks).stream().map(JSON::parseObject).collect(Collectors.toList());
+    }
 
-                String task = possibleTasks.iterator().next();
-                if (db.zrem(queue, task) == REDIS_RESPONSE_SUCCESS) {
-                    String taskData = db.hget(taskMap, task);
-                    if (taskData != null) {
-                        db.hdel(taskMap, task);
-                        return taskData;
-                    }
-                }
+    @SuppressWarnings("unchecked")
+    private List<String> pollFromRedis(int maxTasks) {
+        return redis.query(() -> Strings.apply("Poll prioritized queue %s", queueName), db -> {
+            Object result = db.eval(SCRIPT_POLL,
+                                    List.of(getRedisQueueName(), getRedisTaskMapKeyName()),
+                                    List.of(String.valueOf(maxTasks)));
+            if (result instanceof List<?>) {
+                return (List<String>) result;
             }
 
-            return null;
+            return Collections.emptyList();
         });
     }
 
@@ -18,7 +18,7 @@ import sirius.kernel.di.std.Part;
 import sirius.kernel.di.std.Register;
 
 import javax.annotation.Nonnull;
-import java.util.Optional;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Lock;
@@ -66,19 +66,23 @@ public class WorkLoaderLoop extends BackgroundLoop {
 
     private int scheduleAvailableWork() {
         AsyncExecutor executor = distributedTasks.getLocalExecutor();
-        int tasksScheduled = 0;
-        while (executor.getQueue().isEmpty() && executor.getActiveCount() < executor.getMaximumPoolSize()) {
-            Optional<DistributedTasks.DistributedTask> work = distributedTasks.fetchWork();
-            if (work.isPresent()) {
-                CallContext.initialize();
-                executor.submit(() -> executeWork(work.get()));
-                tasksScheduled++;
-            } else {
-                return tasksScheduled;
-            }
+        if (!executor.getQueue().isEmpty()) {
+            return 0;
+        }
+
+        int freeSlots = executor.getMaximumPoolSize() - executor.getActiveCount();
+        if (freeSlots <= 0) {
+            return 0;
+        }
+
+        // Fills all free slots at once, as fetching a batch of work is a single round trip per queue...
+        List<DistributedTasks.DistributedTask> work = distributedTasks.fetchWork(freeSlots);
+        for (DistributedTasks.DistributedTask task : work) {
+            CallContext.initialize();
+            executor.submit(() -> executeWork(task));
         }
 
-        return tasksScheduled;
+        return work.size();
     }
 
     private void locked(Runnable runInLock) {
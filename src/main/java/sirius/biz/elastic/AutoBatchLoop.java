@@ -12,44 +12,238 @@ import sirius.db.es.BulkContext;
 import sirius.db.es.Elastic;
 import sirius.db.es.ElasticEntity;
 import sirius.kernel.async.BackgroundLoop;
-import sirius.kernel.commons.Explain;
 import sirius.kernel.commons.Strings;
+import sirius.kernel.commons.Watch;
+import sirius.kernel.di.std.ConfigValue;
 import sirius.kernel.di.std.Part;
 import sirius.kernel.di.std.Register;
+import sirius.kernel.health.Average;
+import sirius.kernel.health.Counter;
 import sirius.kernel.health.Exceptions;
 import sirius.kernel.health.Log;
-import sirius.kernel.nls.NLS;
+import sirius.kernel.health.metrics.MetricProvider;
+import sirius.kernel.health.metrics.MetricsCollector;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.time.Duration;
-import java.time.LocalDateTime;
-import java.util.concurrent.ConcurrentLinkedDeque;
-import java.util.concurrent.TimeUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Collects and bulk-inserts {@link ElasticEntity entities} to be inserted into Elasticsearch.
  * <p>
+ * Each entity type (and therefore each index) has its own pipeline, so that e.g. a flood of process logs cannot
+ * crowd out journal entries or log messages. A pipeline is flushed once it contains
+ * <tt>elastic.autoBatch.flushThreshold</tt> entities or once its oldest entity is older than
+ * <tt>elastic.autoBatch.maxAge</tt>. Entities which cannot be stored are retried individually with an exponential
+ * backoff (starting at <tt>elastic.autoBatch.retryDelay</tt>) until <tt>elastic.autoBatch.maxAttempts</tt> is
+ * reached, so that a failure doesn't affect the other entities or pipelines.
+ * <p>
  * Note that when worse comes to worst, this framework rather drops entities to insert than to crash the system.
  * Therefore, this should only be used for non-critical tasks (e.g. log entries).
  */
-@Register(classes = {AutoBatchLoop.class, BackgroundLoop.class})
-public class AutoBatchLoop extends BackgroundLoop {
-
-    private static final int MAX_ENTITIES_PER_RUN = 5000;
-    private static final int MAX_QUEUED_ENTITIES = 20000;
-    private LocalDateTime frozenUntil;
-    private final ConcurrentLinkedDeque<ElasticEntity> entities = new ConcurrentLinkedDeque<>();
-    private final AtomicInteger queuedEntities = new AtomicInteger();
-    private final ReentrantLock signalLock = new ReentrantLock();
-    private final Condition loopExecuted = signalLock.newCondition();
+@Register(classes = {AutoBatchLoop.class, BackgroundLoop.class, MetricProvider.class})
+public class AutoBatchLoop extends BackgroundLoop implements MetricProvider {
+
+    /**
+     * Limits the number of entities sent in a single bulk request, so that failed entities can be retried
+     * individually.
+     */
+    private static final int MAX_ENTITIES_PER_BULK = 256;
+
+    /**
+     * Limits the exponent of the backoff, so that the delay cannot overflow.
+     */
+    private static final int MAX_BACKOFF_EXPONENT = 10;
+
+    @ConfigValue("elastic.autoBatch.maxQueueLength")
+    private int maxQueueLength;
+
+    @ConfigValue("elastic.autoBatch.flushThreshold")
+    private int flushThreshold;
+
+    @ConfigValue("elastic.autoBatch.maxAge")
+    private Duration maxAge;
+
+    @ConfigValue("elastic.autoBatch.maxEntitiesPerRun")
+    private int maxEntitiesPerRun;
+
+    @ConfigValue("elastic.autoBatch.maxAttempts")
+    private int maxAttempts;
+
+    @ConfigValue("elastic.autoBatch.retryDelay")
+    private Duration retryDelay;
 
     @Part
     private Elastic elastic;
 
+    private final Map<Class<?>, Pipeline> pipelines = new ConcurrentHashMap<>();
+
+    /**
+     * Is incremented for each call of {@link #awaitNextFlush(Duration)}.
+     */
+    private final AtomicLong requestedFlushGeneration = new AtomicLong();
+
+    /**
+     * Contains the last flush generation which has been observed and completed by the loop.
+     * <p>
+     * This is only modified while holding the {@link #signalLock}.
+     */
+    private volatile long completedFlushGeneration;
+    private final ReentrantLock signalLock = new ReentrantLock();
+    private final Condition loopExecuted = signalLock.newCondition();
+
+    /**
+     * Wraps an entity along with its retry state.
+     */
+    private static class PendingEntity {
+
+        private final ElasticEntity entity;
+
+        /**
+         * Contains the timestamp from which on the age of the entity is computed. For retried entities, this is the
+         * earliest point in time at which they may be stored again.
+         */
+        private long queuedAt = System.currentTimeMillis();
+        private int attempts;
+        private long notBefore;
+
+        PendingEntity(ElasticEntity entity) {
+            this.entity = entity;
+        }
+    }
+
+    /**
+     * Collects the entities of a single index.
+     */
+    private class Pipeline {
+
+        private final String name;
+        private final Queue<PendingEntity> entities = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger queueLength = new AtomicInteger();
+        private final Average bulkDuration = new Average();
+        private final Counter rejected = new Counter();
+        private final Counter retried = new Counter();
+
+        Pipeline(String name) {
+            this.name = name;
+        }
+
+        boolean offer(ElasticEntity entity) {
+            if (queueLength.get() >= maxQueueLength) {
+                rejected.inc();
+                return false;
+            }
+
+            enqueue(new PendingEntity(entity));
+            return true;
+        }
+
+        private void enqueue(PendingEntity pendingEntity) {
+            entities.offer(pendingEntity);
+            queueLength.incrementAndGet();
+        }
+
+        boolean isFlushDue(long now, boolean force) {
+            PendingEntity oldestEntity = entities.peek();
+            if (oldestEntity == null) {
+                return false;
+            }
+
+            return force || queueLength.get() >= flushThreshold || now - oldestEntity.queuedAt >= maxAge.toMillis();
+        }
+
+        int flush(long now) {
+            int entitiesStored = 0;
+            List<PendingEntity> deferredEntities = new ArrayList<>();
+            List<PendingEntity> bulk = new ArrayList<>(MAX_ENTITIES_PER_BULK);
+
+            // We only process the entities which are currently queued, as failed ones are put back into the queue...
+            int entitiesToProcess = Math.min(queueLength.get(), maxEntitiesPerRun);
+            for (int i = 0; i < entitiesToProcess; i++) {
+                PendingEntity pendingEntity = entities.poll();
+                if (pendingEntity == null) {
+                    break;
+                }
+                queueLength.decrementAndGet();
+
+                if (pendingEntity.notBefore > now) {
+                    deferredEntities.add(pendingEntity);
+                } else {
+                    bulk.add(pendingEntity);
+                    if (bulk.size() >= MAX_ENTITIES_PER_BULK) {
+                        entitiesStored += executeBulk(bulk);
+                        bulk.clear();
+                    }
+                }
+            }
+
+            if (!bulk.isEmpty()) {
+                entitiesStored += executeBulk(bulk);
+            }
+            deferredEntities.forEach(this::enqueue);
+
+            return entitiesStored;
+        }
+
+        private int executeBulk(List<PendingEntity> bulk) {
+            Watch watch = Watch.start();
+            Set<String> failedIds;
+            try (BulkContext bulkContext = elastic.batch()) {
+                bulk.forEach(pendingEntity -> bulkContext.overwrite(pendingEntity.entity));
+                failedIds = bulkContext.commit();
+            } catch (Exception e) {
+                Exceptions.handle()
+                          .to(Log.BACKGROUND)
+                          .error(e)
+                          .withSystemErrorMessage("Failed to bulk insert %s entities into %s: %s (%s)",
+                                                  bulk.size(),
+                                                  name)
+                          .handle();
+                bulk.forEach(this::retryLater);
+                return 0;
+            } finally {
+                bulkDuration.addValue(watch.elapsedMillis());
+            }
+
+            int entitiesStored = 0;
+            for (PendingEntity pendingEntity : bulk) {
+                if (failedIds.contains(pendingEntity.entity.getId())) {
+                    retryLater(pendingEntity);
+                } else {
+                    entitiesStored++;
+                }
+            }
+
+            return entitiesStored;
+        }
+
+        private void retryLater(PendingEntity pendingEntity) {
+            pendingEntity.attempts++;
+            if (pendingEntity.attempts >= maxAttempts) {
+                rejected.inc();
+                return;
+            }
+
+            long backoff = retryDelay.toMillis() << Math.min(pendingEntity.attempts - 1, MAX_BACKOFF_EXPONENT);
+            pendingEntity.notBefore = System.currentTimeMillis() + backoff;
+            // Otherwise, the original timestamp would make the pipeline look overdue in every run...
+            pendingEntity.queuedAt = pendingEntity.notBefore;
+            retried.inc();
+            enqueue(pendingEntity);
+        }
+    }
+
     @Nonnull
     @Override
     public String getName() {
@@ -58,7 +252,7 @@ public class AutoBatchLoop extends BackgroundLoop {
 
     @Override
     public double maxCallFrequency() {
-        return 0.5d;
+        return 2d;
     }
 
     /**
@@ -69,34 +263,42 @@ public class AutoBatchLoop extends BackgroundLoop {
      * carefully.
      *
      * @param entity the entity to bulk-insert into Elasticsearch
-     * @return <tt>true</tt> if the entity was successfully queued, <tt>false</tt> otherwise
+     * @return <tt>true</tt> if the entity was successfully queued, <tt>false</tt> if the pipeline of its index is full
      */
     public boolean insertAsync(ElasticEntity entity) {
         if (entity == null) {
             return true;
         }
-        if (queuedEntities.get() < MAX_QUEUED_ENTITIES) {
-            entities.add(entity);
-            queuedEntities.incrementAndGet();
-            return true;
-        }
 
-        return false;
+        return pipelines.computeIfAbsent(entity.getClass(),
+                                         ignored -> new Pipeline(entity.getDescriptor().getRelationName()))
+                        .offer(entity);
     }
 
     /**
      * Blocks the current thread until this loop ran.
+     * <p>
+     * Note that this also requests that all pipelines are flushed during the next run, independently of their
+     * size or age. This only returns once a run has been completed which observed this request, therefore all
+     * entities which have been queued before this call have been processed.
      *
      * @param timeout maximal time to wait for the loop (in case something hangs...)
      * @return <tt>true</tt> if the execution was successfully awaited, <tt>false</tt> if the operation hit a timeout
      * or if the current thread was interrupted.
      */
-    @SuppressWarnings("java:S2274")
-    @Explain("We explicitly want to abort and return the result of await here.")
     public boolean awaitNextFlush(Duration timeout) {
+        long generation = requestedFlushGeneration.incrementAndGet();
+        long remainingNanos = timeout.toNanos();
         signalLock.lock();
         try {
-            return loopExecuted.await(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            while (completedFlushGeneration < generation) {
+                if (remainingNanos <= 0) {
+                    return false;
+                }
+                remainingNanos = loopExecuted.awaitNanos(remainingNanos);
+            }
+
+            return true;
         } catch (InterruptedException interruptedException) {
             Thread.currentThread().interrupt();
             return false;
@@ -108,54 +310,63 @@ public class AutoBatchLoop extends BackgroundLoop {
     @Nullable
     @Override
     protected String doWork() throws Exception {
-        if (entities.isEmpty()) {
-            signalBatchRun();
-            return null;
-        }
+        long observedFlushGeneration = requestedFlushGeneration.get();
+        boolean forceFlush = observedFlushGeneration > completedFlushGeneration;
 
-        if (frozenUntil != null) {
-            if (LocalDateTime.now().isAfter(frozenUntil)) {
-                frozenUntil = null;
-            } else {
-                return Strings.apply("Frozen until: %s", NLS.toUserString(frozenUntil));
+        long now = System.currentTimeMillis();
+        int entitiesStored = 0;
+        int pipelinesFlushed = 0;
+        for (Pipeline pipeline : pipelines.values()) {
+            if (pipeline.isFlushDue(now, forceFlush)) {
+                entitiesStored += pipeline.flush(now);
+                pipelinesFlushed++;
             }
         }
 
-        int entitiesProcessed = executeBatchInsert();
+        signalBatchRun(observedFlushGeneration);
 
-        return Strings.apply("Inserted %s entities...", entitiesProcessed);
-    }
-
-    private int executeBatchInsert() {
-        int entitiesProcessed = 0;
-        try (BulkContext bulkContext = elastic.batch()) {
-            ElasticEntity entity = entities.poll();
-            while (entity != null) {
-                queuedEntities.decrementAndGet();
-                bulkContext.overwrite(entity);
-
-                if (entitiesProcessed++ >= MAX_ENTITIES_PER_RUN) {
-                    return entitiesProcessed;
-                }
-                entity = entities.poll();
-            }
-        } catch (Exception e) {
-            Exceptions.handle(Log.BACKGROUND, e);
-            frozenUntil = LocalDateTime.now().plusSeconds(10);
+        if (pipelinesFlushed == 0) {
+            return null;
         }
 
-        signalBatchRun();
-
-        return entitiesProcessed;
+        return Strings.apply("Inserted %s entities into %s indices...", entitiesStored, pipelinesFlushed);
     }
 
-    private void signalBatchRun() {
-        // Signal all waiting threads, that all entities from within the queue have been flushed...
+    private void signalBatchRun(long observedFlushGeneration) {
+        // Signal all waiting threads, that all entities from within the queue have been flushed. Only the threads
+        // which requested a flush before this run started will actually return...
         signalLock.lock();
         try {
+            completedFlushGeneration = Math.max(completedFlushGeneration, observedFlushGeneration);
             loopExecuted.signalAll();
         } finally {
             signalLock.unlock();
         }
     }
+
+    @Override
+    public void gather(MetricsCollector metricsCollector) {
+        for (Pipeline pipeline : pipelines.values()) {
+            metricsCollector.metric("elastic_auto_batch_queue_" + pipeline.name,
+                                    "elastic-auto-batch-queue",
+                                    "Auto Batch Queue (" + pipeline.name + ")",
+                                    pipeline.queueLength.get(),
+                                    null);
+            metricsCollector.metric("elastic_auto_batch_duration_" + pipeline.name,
+                                    "elastic-auto-batch-duration",
+                                    "Auto Batch Duration (" + pipeline.name + ")",
+                                    pipeline.bulkDuration.getAndClear(),
+                                    "ms");
+            metricsCollector.differentialMetric("elastic_auto_batch_rejected_" + pipeline.name,
+                                                "elastic-auto-batch-rejected",
+                                                "Auto Batch Rejected (" + pipeline.name + ")",
+                                                pipeline.rejected.getCount(),
+                                                "/min");
+            metricsCollector.differentialMetric("elastic_auto_batch_retried_" + pipeline.name,
+                                                "elastic-auto-batch-retried",
+                                                "Auto Batch Retried (" + pipeline.name + ")",
+                                                pipeline.retried.getCount(),
+                                                "/min");
+        }
+    }
 }
@@ -9,32 +9,133 @@
 package sirius.biz.i5;
 
 import com.ibm.as400.access.AS400Bin4;
+import com.ibm.as400.access.AS400DataType;
 import com.ibm.as400.access.AS400PackedDecimal;
 import com.ibm.as400.access.AS400Text;
 import com.ibm.as400.access.AS400ZonedDecimal;
 import sirius.kernel.health.Exceptions;
+import sirius.kernel.health.HandledException;
 
 import javax.annotation.Nonnull;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
 /**
  * Helps to transform byte oriented record (sent and received from the i5) into Java objects.
  * <p>
  * This is achieved by placing {@link Transform} annotations on fields with appropriate <tt>AS400...</tt> types. These
  * are scanned and automatically copied to or from the byte array.
+ * <p>
+ * The fields are only scanned once per class and are accessed via method handles. For each CCSID (code page), the
+ * fields are compiled into a {@link Codec}, which contains the mappers and offsets of all fields. Therefore,
+ * transforming a record neither uses reflection nor creates any mappers. The mappers themselves are shared
+ * across all classes per type, length and CCSID.
  */
 public class Transformer {
 
-    private final Map<Field, Transform> transforms = new LinkedHashMap<>();
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private static final Map<MapperKey, AS400DataType> mappers = new ConcurrentHashMap<>();
+
+    private final List<TransformedField> fields = new ArrayList<>();
+    private final Map<Integer, Codec> codecs = new ConcurrentHashMap<>();
+    private volatile Codec lastUsedCodec;
+
+    /**
+     * Contains a field along with its annotation and the method handles used to access it.
+     */
+    private static class TransformedField {
+
+        private final Field field;
+        private final Transform info;
+        private final MethodHandle getter;
+        private final MethodHandle setter;
+
+        TransformedField(Field field, MethodHandle getter, MethodHandle setter) {
+            this.field = field;
+            this.info = field.getAnnotation(Transform.class);
+            this.getter = getter;
+            this.setter = setter;
+        }
+    }
+
+    /**
+     * Reads or writes a single field at a precomputed offset.
+     */
+    private interface FieldCodec {
+
+        void read(Object object, byte[] data, int offset) throws Throwable;
+
+        void write(Object object, byte[] data, int offset) throws Throwable;
+    }
+
+    /**
+     * Contains all fields of a class compiled for a CCSID.
+     */
+    private static class Codec {
+
+        private final int ccsid;
+        private final TransformedField[] fields;
+        private final FieldCodec[] fieldCodecs;
+        private final int[] offsets;
+
+        Codec(int ccsid, TransformedField[] fields, FieldCodec[] fieldCodecs, int[] offsets) {
+            this.ccsid = ccsid;
+            this.fields = fields;
+            this.fieldCodecs = fieldCodecs;
+            this.offsets = offsets;
+        }
+    }
+
+    /**
+     * Identifies a shared mapper instance.
+     */
+    private static class MapperKey {
+
+        private final Class<?> type;
+        private final int length;
+        private final int decimal;
+        private final int ccsid;
+
+        MapperKey(Class<?> type, int length, int decimal, int ccsid) {
+            this.type = type;
+            this.length = length;
+            this.decimal = decimal;
+            this.ccsid = ccsid;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof MapperKey otherKey)) {
+                return false;
+            }
+
+            return type == otherKey.type
+                   && length == otherKey.length
+                   && decimal == otherKey.decimal
+                   && ccsid == otherKey.ccsid;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(type, length, decimal, ccsid);
+        }
+    }
 
     Transformer(Class<?> target) {
         List<Field> result = new ArrayList<>();
@@ -45,8 +146,22 @@ public class Transformer {
             }
         }
         result.sort(Comparator.comparingInt(f -> f.getAnnotation(Transform.class).position()));
+
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
         for (Field field : result) {
-            transforms.put(field, field.getAnnotation(Transform.class));
+            try {
+                fields.add(new TransformedField(field,
+                                                lookup.unreflectGetter(field).asType(GETTER_TYPE),
+                                                lookup.unreflectSetter(field).asType(SETTER_TYPE)));
+            } catch (IllegalAccessException e) {
+                throw Exceptions.handle()
+                                .to(I5Connector.LOG)
+                                .error(e)
+                                .withSystemErrorMessage("Cannot access the field '%s.%s': %s (%s)",
+                                                        target.getName(),
+                                                        field.getName())
+                                .handle();
+            }
         }
     }
 
@@ -58,9 +173,36 @@ public class Transformer {
      * @param ccsid  the CCSID (code page) to use. This is best determined via {@link I5Connection#getCcsid()}
      */
     public void fromBytes(@Nonnull Object object, byte[] data, int ccsid) {
-        int offset = 0;
-        for (Map.Entry<Field, Transform> e : transforms.entrySet()) {
-            offset = transform(e, object, ccsid, data, offset);
+        Codec codec = fetchCodec(ccsid);
+        for (int i = 0; i < codec.fieldCodecs.length; i++) {
+            TransformedField field = codec.fields[i];
+            try {
+                codec.fieldCodecs[i].read(object, data, codec.offsets[i]);
+            } catch (Error ex) {
+                throw ex;
+            } catch (Throwable ex) {
+                handleReadError(object, field, ex);
+            }
+        }
+    }
+
+    private void handleReadError(Object object, TransformedField field, Throwable ex) {
+        if (field.info.ignoreErrors()) {
+            I5Connector.LOG.FINE("Ignoring a conversion error for %s of %s: %s (%s)",
+                                 field.field.getName(),
+                                 object.getClass().getName(),
+                                 ex.getMessage(),
+                                 ex.getClass().getName());
+            Exceptions.ignore(ex);
+        } else {
+            throw Exceptions.handle()
+                            .to(I5Connector.LOG)
+                            .error(ex)
+                            .withSystemErrorMessage("Error while transforming '%s.%s' to %s: %s (%s)",
+                                                    object.getClass().getName(),
+                                                    field.field.getName(),
+                                                    field.info.targetType().getName())
+                            .handle();
         }
     }
 
@@ -72,107 +214,193 @@ public class Transformer {
      * @param ccsid       the CCSID (code page) to use. This is best determined via {@link I5Connection#getCcsid()}
      */
     public void toBytes(@Nonnull Object object, byte[] destination, int ccsid) {
+        Codec codec = fetchCodec(ccsid);
+        for (int i = 0; i < codec.fieldCodecs.length; i++) {
+            TransformedField field = codec.fields[i];
+            try {
+                codec.fieldCodecs[i].write(object, destination, codec.offsets[i]);
+            } catch (Error ex) {
+                throw ex;
+            } catch (Throwable ex) {
+                throw Exceptions.handle()
+                                .to(I5Connector.LOG)
+                                .error(ex)
+                                .withSystemErrorMessage("Error while transforming '%s.%s' from %s: %s (%s)",
+                                                        object.getClass().getName(),
+                                                        field.field.getName(),
+                                                        field.info.targetType().getName())
+                                .handle();
+            }
+        }
+    }
+
+    private Codec fetchCodec(int ccsid) {
+        // Most probably all records are transformed using the same CCSID, therefore we skip the map lookup...
+        Codec codec = lastUsedCodec;
+        if (codec == null || codec.ccsid != ccsid) {
+            codec = codecs.computeIfAbsent(ccsid, this::compile);
+            lastUsedCodec = codec;
+        }
+
+        return codec;
+    }
+
+    private Codec compile(int ccsid) {
+        TransformedField[] transformedFields = fields.toArray(new TransformedField[0]);
+        FieldCodec[] fieldCodecs = new FieldCodec[transformedFields.length];
+        int[] offsets = new int[transformedFields.length];
         int offset = 0;
-        for (Map.Entry<Field, Transform> e : transforms.entrySet()) {
-            offset = serialize(e, object, ccsid, destination, offset);
+        for (int i = 0; i < transformedFields.length; i++) {
+            offsets[i] = offset;
+            fieldCodecs[i] = compileField(transformedFields[i], ccsid);
+            offset += determineByteLength(transformedFields[i].info, ccsid);
         }
+
+        return new Codec(ccsid, transformedFields, fieldCodecs, offsets);
     }
 
-    private int serialize(Entry<Field, Transform> e, Object object, int ccsid, byte[] data, int offset) {
-        Transform info = e.getValue();
-        Field field = e.getKey();
-        try {
-            Object value = field.get(object);
-            if (info.targetType() == AS400Text.class) {
-                AS400Text mapper = new AS400Text(info.length(), ccsid);
-                mapper.toBytes(value == null ? "" : value, data, offset);
-                return offset + mapper.getByteLength();
-            }
-            if (info.targetType() == AS400ZonedDecimal.class) {
-                AS400ZonedDecimal mapper = new AS400ZonedDecimal(info.length(), info.decimal());
-                mapper.toBytes(value == null ? 0d : ((BigDecimal) value).doubleValue(), data, offset);
-                return offset + mapper.getByteLength();
-            }
-            if (info.targetType() == Byte.class) {
-                if (value != null) {
-                    //noinspection SuspiciousSystemArraycopy
-                    System.arraycopy(value, 0, data, offset, info.length());
-                }
-                return offset + info.length();
-            }
-            throw Exceptions.handle()
-                            .to(I5Connector.LOG)
-                            .withSystemErrorMessage("Cannot transform a field from type: %s (%s.%s)",
-                                                    info.targetType().getName(),
-                                                    object.getClass().getName(),
-                                                    field.getName())
-                            .handle();
-        } catch (Exception ex) {
-            throw Exceptions.handle()
-                            .to(I5Connector.LOG)
-                            .error(ex)
-                            .withSystemErrorMessage("Error while transforming '%s.%s' from %s: %s (%s)",
-                                                    object.getClass().getName(),
-                                                    field.getName(),
-                                                    info.targetType().getName())
-                            .handle();
+    private int determineByteLength(Transform info, int ccsid) {
+        if (info.targetType() == Byte.class) {
+            return info.length();
         }
+
+        AS400DataType mapper = fetchMapper(info, ccsid);
+        return mapper == null ? 0 : mapper.getByteLength();
     }
 
-    private int transform(Entry<Field, Transform> e, Object object, int ccsid, byte[] data, int offset) {
-        Transform info = e.getValue();
-        Field field = e.getKey();
-        AtomicInteger nextIndex = new AtomicInteger(offset);
-        try {
-            if (info.targetType() == AS400Bin4.class) {
-                AS400Bin4 mapper = new AS400Bin4();
-                nextIndex.addAndGet(mapper.getByteLength());
-                field.set(object, mapper.toObject(data, offset));
-            } else if (info.targetType() == AS400Text.class) {
-                AS400Text mapper = new AS400Text(info.length(), ccsid);
-                nextIndex.addAndGet(mapper.getByteLength());
-                field.set(object, ((String) mapper.toObject(data, offset)).trim());
-            } else if (info.targetType() == AS400ZonedDecimal.class) {
-                AS400ZonedDecimal mapper = new AS400ZonedDecimal(info.length(), info.decimal());
-                nextIndex.addAndGet(mapper.getByteLength());
-                field.set(object, mapper.toObject(data, offset));
-            } else if (info.targetType() == AS400PackedDecimal.class) {
-                AS400PackedDecimal mapper = new AS400PackedDecimal(info.length(), info.decimal());
-                nextIndex.addAndGet(mapper.getByteLength());
-                field.set(object, mapper.toObject(data, offset));
-            } else if (info.targetType() == Byte.class) {
-                nextIndex.addAndGet(info.length());
-                field.set(object, Arrays.copyOfRange(data, offset, info.length()));
-            } else {
-                throw Exceptions.handle()
-                                .to(I5Connector.LOG)
-                                .withSystemErrorMessage("Cannot transform a field to type: %s (%s.%s)",
-                                                        info.targetType().getName(),
-                                                        object.getClass().getName(),
-                                                        field.getName())
-                                .handle();
+    private FieldCodec compileField(TransformedField field, int ccsid) {
+        Transform info = field.info;
+        if (info.targetType() == AS400Bin4.class) {
+            AS400Bin4 mapper = (AS400Bin4) fetchMapper(info, ccsid);
+            return new FieldCodec() {
+                @Override
+                public void read(Object object, byte[] data, int offset) throws Throwable {
+                    field.setter.invokeExact(object, mapper.toObject(data, offset));
+                }
+
+                @Override
+                public void write(Object object, byte[] data, int offset) {
+                    throw createUnsupportedTypeError(object, field, "from");
+                }
+            };
+        }
+        if (info.targetType() == AS400Text.class) {
+            AS400Text mapper = (AS400Text) fetchMapper(info, ccsid);
+            return new FieldCodec() {
+                @Override
+                public void read(Object object, byte[] data, int offset) throws Throwable {
+                    field.setter.invokeExact(object, (Object) ((String) mapper.toObject(data, offset)).trim());
+                }
+
+                @Override
+                public void write(Object object, byte[] data, int offset) throws Throwable {
+                    Object value = (Object) field.getter.invokeExact(object);
+                    mapper.toBytes(value == null ? "" : value, data, offset);
+                }
+            };
+        }
+        if (info.targetType() == AS400ZonedDecimal.class) {
+            AS400ZonedDecimal mapper = (AS400ZonedDecimal) fetchMapper(info, ccsid);
+            return new FieldCodec() {
+                @Override
+                public void read(Object object, byte[] data, int offset) throws Throwable {
+                    field.setter.invokeExact(object, mapper.toObject(data, offset));
+                }
+
+                @Override
+                public void write(Object object, byte[] data, int offset) throws Throwable {
+                    Object value = (Object) field.getter.invokeExact(object);
+                    mapper.toBytes(value == null ? 0d : ((BigDecimal) value).doubleValue(), data, offset);
+                }
+            };
+        }
+        if (info.targetType() == AS400PackedDecimal.class) {
+            AS400PackedDecimal mapper = (AS400PackedDecimal) fetchMapper(info, ccsid);
+            return new FieldCodec() {
+                @Override
+                public void read(Object object, byte[] data, int offset) throws Throwable {
+                    field.setter.invokeExact(object, mapper.toObject(data, offset));
+                }
+
+                @Override
+                public void write(Object object, byte[] data, int offset) {
+                    throw createUnsupportedTypeError(object, field, "from");
+                }
+            };
+        }
+        if (info.targetType() == Byte.class) {
+            return new FieldCodec() {
+                @Override
+                public void read(Object object, byte[] data, int offset) throws Throwable {
+                    field.setter.invokeExact(object, (Object) Arrays.copyOfRange(data, offset, offset + info.length()));
+                }
+
+                @Override
+                public void write(Object object, byte[] data, int offset) throws Throwable {
+                    Object value = (Object) field.getter.invokeExact(object);
+                    if (value != null) {
+                        //noinspection SuspiciousSystemArraycopy
+                        System.arraycopy(value, 0, data, offset, info.length());
+                    }
+                }
+            };
+        }
+
+        return new FieldCodec() {
+            @Override
+            public void read(Object object, byte[] data, int offset) {
+                throw createUnsupportedTypeError(object, field, "to");
             }
-        } catch (Exception ex) {
-            if (info.ignoreErrors()) {
-                I5Connector.LOG.FINE("Ignoring a conversion error for %s of %s: %s (%s)",
-                                     field.getName(),
-                                     object.getClass().getName(),
-                                     ex.getMessage(),
-                                     ex.getClass().getName());
-                Exceptions.ignore(ex);
-            } else {
-                throw Exceptions.handle()
-                                .to(I5Connector.LOG)
-                                .error(ex)
-                                .withSystemErrorMessage("Error while transforming '%s.%s' to %s: %s (%s)",
-                                                        object.getClass().getName(),
-                                                        field.getName(),
-                                                        info.targetType().getName())
-                                .handle();
+
+            @Override
+            public void write(Object object, byte[] data, int offset) {
+                throw createUnsupportedTypeError(object, field, "from");
             }
+        };
+    }
+
+    private static HandledException createUnsupportedTypeError(Object object,
+                                                               TransformedField field,
+                                                               String direction) {
+        return Exceptions.handle()
+                         .to(I5Connector.LOG)
+                         .withSystemErrorMessage("Cannot transform a field %s type: %s (%s.%s)",
+                                                 direction,
+                                                 field.info.targetType().getName(),
+                                                 object.getClass().getName(),
+                                                 field.field.getName())
+                         .handle();
+    }
+
+    /**
+     * Returns the shared mapper for the given field and CCSID.
+     *
+     * @param info  the annotation of the field to determine the mapper for
+     * @param ccsid the CCSID to use (only relevant for texts)
+     * @return the shared mapper instance or <tt>null</tt> if the target type isn't supported
+     */
+    private static AS400DataType fetchMapper(Transform info, int ccsid) {
+        if (info.targetType() == AS400Bin4.class) {
+            return fetchMapper(new MapperKey(AS400Bin4.class, 0, 0, 0), AS400Bin4::new);
+        }
+        if (info.targetType() == AS400Text.class) {
+            return fetchMapper(new MapperKey(AS400Text.class, info.length(), 0, ccsid),
+                               () -> new AS400Text(info.length(), ccsid));
         }
+        if (info.targetType() == AS400ZonedDecimal.class) {
+            return fetchMapper(new MapperKey(AS400ZonedDecimal.class, info.length(), info.decimal(), 0),
+                               () -> new AS400ZonedDecimal(info.length(), info.decimal()));
+        }
+        if (info.targetType() == AS400PackedDecimal.class) {
+            return fetchMapper(new MapperKey(AS400PackedDecimal.class, info.length(), info.decimal(), 0),
+                               () -> new AS400PackedDecimal(info.length(), info.decimal()));
+        }
+
+        return null;
+    }
 
-        return nextIndex.get();
+    private static AS400DataType fetchMapper(MapperKey key, Supplier<AS400DataType> factory) {
+        return mappers.computeIfAbsent(key, ignored -> factory.get());
     }
 
     /**
@@ -183,13 +411,13 @@ public class Transformer {
      */
     protected String asString(@Nonnull Transformable transformable) {
         StringBuilder sb = new StringBuilder();
-        for (Map.Entry<Field, Transform> e : transforms.entrySet()) {
+        for (TransformedField field : fields) {
             try {
-                sb.append(e.getKey().getName());
+                sb.append(field.field.getName());
                 sb.append(": ");
-                sb.append(e.getKey().get(transformable));
+                sb.append((Object) field.getter.invokeExact((Object) transformable));
                 sb.append("\n");
-            } catch (Exception t) {
+            } catch (Throwable t) {
                 Exceptions.ignore(t);
             }
         }
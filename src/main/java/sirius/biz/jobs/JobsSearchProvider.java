@@ -16,6 +16,7 @@ import sirius.kernel.nls.NLS;
 
 import javax.annotation.Nullable;
 import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 /**
  * Makes {@link JobFactory jobs} visible to the {@link sirius.biz.tycho.search.OpenSearchController}.
@@ -53,6 +54,12 @@ public class JobsSearchProvider implements OpenSearchProvider {
         });
     }
 
+    @Override
+    public Predicate<OpenSearchResult> createRefinementFilter(String refinedQuery) {
+        // We only search in the label, therefore cached results can be filtered the same way...
+        return result -> result.getLabel().toLowerCase().contains(refinedQuery);
+    }
+
     @Override
     public int getPriority() {
         return 10;
@@ -13,16 +13,20 @@ import sirius.biz.process.ProcessContext;
 import sirius.biz.process.logs.ProcessLog;
 import sirius.biz.storage.layer1.FileHandle;
 import sirius.biz.storage.layer3.VirtualFile;
+import sirius.biz.util.ArchiveExtractor;
 import sirius.biz.util.ExtractedFile;
 import sirius.biz.util.ExtractedZipFile;
 import sirius.kernel.async.TaskContext;
 import sirius.kernel.commons.Amount;
+import sirius.kernel.commons.Callback;
 import sirius.kernel.commons.Producer;
 import sirius.kernel.commons.Strings;
+import sirius.kernel.di.std.Part;
 import sirius.kernel.health.Exceptions;
 import sirius.kernel.nls.NLS;
 
 import javax.annotation.Nullable;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
@@ -48,6 +52,11 @@ public abstract class ArchiveImportJob extends FileImportJob {
     public static final Parameter<VirtualFile> ZIP_FILE_PARAMETER =
             FileImportJob.createFileParameter(Collections.singletonList(ZIP_FILE_EXTENSION));
 
+    @Part
+    private static ArchiveExtractor extractor;
+
+    private String archiveName;
+    private File archiveFile;
     private ZipFile zipFile;
 
     /**
@@ -72,7 +81,9 @@ public abstract class ArchiveImportJob extends FileImportJob {
                                   .withContext("size", NLS.formatSize(file.size())));
             try (FileHandle fileHandle = file.download()) {
                 backupInputFile(file.name(), fileHandle);
-                zipFile = new ZipFile(fileHandle.getFile());
+                archiveName = file.name();
+                archiveFile = fileHandle.getFile();
+                zipFile = new ZipFile(archiveFile);
                 importEntries();
             }
         } else {
@@ -153,6 +164,20 @@ public abstract class ArchiveImportJob extends FileImportJob {
         }
     }
 
+    /**
+     * Extracts all files from the archive and processes several of them in parallel.
+     * <p>
+     * This should be used if the handler mostly waits for IO, e.g. when storing auxiliary files in the
+     * {@link sirius.biz.storage.layer3.VirtualFileSystem}. Note that the handler therefore has to be thread-safe.
+     * Also note that, in contrast to {@link #extractAllFiles(Consumer)}, directories and hidden files are skipped.
+     *
+     * @param fileHandler a handler to be invoked for each file in the archive
+     * @see ArchiveExtractor#extractAllInParallel(String, File, java.util.function.Predicate, Callback)
+     */
+    protected void extractAllFilesInParallel(Callback<ExtractedFile> fileHandler) {
+        extractor.extractAllInParallel(archiveName, archiveFile, null, fileHandler);
+    }
+
     @Override
     protected final boolean canHandleFileExtension(@Nullable String fileExtension) {
         return ZIP_FILE_EXTENSION.equalsIgnoreCase(fileExtension);
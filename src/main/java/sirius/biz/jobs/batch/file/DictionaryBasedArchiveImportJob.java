@@ -166,11 +166,22 @@ public abstract class DictionaryBasedArchiveImportJob extends ArchiveImportJob {
         if (!TaskContext.get().isActive()) {
             return;
         }
-        extractAllFiles(file -> {
-            if (!handledFiles.contains(file.getFilePath())) {
-                handleAuxiliaryFile(file);
-            }
-        });
+
+        if (canHandleAuxiliaryFilesInParallel()) {
+            // Auxiliary files are handled in parallel, therefore their destination is resolved beforehand...
+            determineAuxiliaryFilesBasePath();
+            extractAllFilesInParallel(file -> {
+                if (!handledFiles.contains(file.getFilePath())) {
+                    handleAuxiliaryFile(file);
+                }
+            });
+        } else {
+            extractAllFiles(file -> {
+                if (!handledFiles.contains(file.getFilePath())) {
+                    handleAuxiliaryFile(file);
+                }
+            });
+        }
     }
 
     protected void handleFile(ImportFile importFile, ExtractedFile extractedFile) throws Exception {
@@ -215,7 +215,19 @@ public abstract class FileImportJob extends ImportJob {
 
         AtomicInteger filesImported = new AtomicInteger();
 
-        if (auxiliaryFileMode != AuxiliaryFileMode.IGNORE) {
+        if (auxiliaryFileMode != AuxiliaryFileMode.IGNORE && canHandleAuxiliaryFilesInParallel()) {
+            // Auxiliary files are only copied into the storage, therefore we can process several of them at once.
+            // The destination is resolved once beforehand, so that the workers only read it...
+            determineAuxiliaryFilesBasePath();
+            extractor.extractAllInParallel(filename,
+                                           fileHandle.getFile(),
+                                           name -> !canHandleFileExtension(Files.getFileExtension(name)),
+                                           file -> {
+                                               if (executeForEntry(file)) {
+                                                   filesImported.incrementAndGet();
+                                               }
+                                           });
+        } else if (auxiliaryFileMode != AuxiliaryFileMode.IGNORE) {
             extractor.extractAll(filename,
                                  fileHandle.getFile(),
                                  name -> !canHandleFileExtension(Files.getFileExtension(name)),
@@ -256,6 +268,20 @@ public abstract class FileImportJob extends ImportJob {
         }
     }
 
+    /**
+     * Determines if {@link #handleAuxiliaryFile(ExtractedFile)} may be invoked for several files in parallel.
+     * <p>
+     * Copying auxiliary files mostly waits for the storage, therefore processing several of them at once speeds up
+     * importing archives with many media files. As this requires a thread-safe implementation of
+     * {@link #handleAuxiliaryFile(ExtractedFile)}, this has to be enabled explicitly by overwriting this method.
+     *
+     * @return <tt>true</tt> if auxiliary files may be handled in parallel, <tt>false</tt> (default) to handle them
+     * one after another
+     */
+    protected boolean canHandleAuxiliaryFilesInParallel() {
+        return false;
+    }
+
     /**
      * Gets invoked for every entry in a given ZIP archive which cannot be processed by this job itself.
      * <p>
@@ -264,8 +290,13 @@ public abstract class FileImportJob extends ImportJob {
      * <p>
      * By default this is attempted if the {@link #determineAuxiliaryFilesDirectory()} returns a non-null result.
      * Otherwise, these files are simply ignored.
+     * <p>
+     * Note that this is invoked for several files in parallel if {@link #canHandleAuxiliaryFilesInParallel()} returns
+     * <tt>true</tt>. In this case, the destination (as determined via {@link #determineAuxiliaryFilesBasePath()}) is
+     * computed before the parallel extraction starts.
      *
      * @param extractedFile the extracted file which cannot be handled by the job itself
+     * @return <tt>true</tt> if the file has been handled, <tt>false</tt> otherwise
      */
     protected boolean handleAuxiliaryFile(ExtractedFile extractedFile) {
         try {
@@ -316,8 +347,16 @@ public abstract class FileImportJob extends ImportJob {
         return targetPath;
     }
 
+    /**
+     * Determines the directory into which auxiliary files are copied.
+     * <p>
+     * The result is computed once and then cached. As this isn't synchronized, it has to be invoked before
+     * {@link #handleAuxiliaryFile(ExtractedFile)} is called by several threads in parallel.
+     *
+     * @return the directory for auxiliary files or <tt>null</tt> if these are ignored
+     */
     @Nullable
-    private VirtualFile determineAuxiliaryFilesBasePath() {
+    protected VirtualFile determineAuxiliaryFilesBasePath() {
         if (auxFilesDestination == null) {
             String unusedFilesPath = determineAuxiliaryFilesDirectory();
             if (Strings.isEmpty(unusedFilesPath)) {
@@ -13,8 +13,11 @@ import sirius.biz.process.ProcessContext;
 import sirius.biz.process.ProcessLink;
 import sirius.biz.process.Processes;
 import sirius.biz.process.logs.ProcessLog;
+import sirius.biz.web.TenantAware;
 import sirius.kernel.async.BackgroundLoop;
+import sirius.kernel.async.Tasks;
 import sirius.kernel.di.PartCollection;
+import sirius.kernel.di.std.ConfigValue;
 import sirius.kernel.di.std.Part;
 import sirius.kernel.di.std.Parts;
 import sirius.kernel.di.std.Register;
@@ -27,9 +30,21 @@ import sirius.web.security.UserInfo;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Responsible for executing all {@link SchedulerEntry scheduler entries} of all {@link SchedulerEntryProvider providers}.
+ * <p>
+ * Each entry stores its {@link SchedulerData#NEXT_EXECUTION next execution}, so that only the entries which are due
+ * have to be loaded. The due jobs are then started in parallel (see <tt>jobs.scheduler.parallelStarts</tt>). To
+ * ensure fairness, the jobs are started in a round-robin manner across all tenants, so that a tenant with many due
+ * jobs doesn't delay the jobs of all other tenants.
  */
 @Register(framework = Jobs.FRAMEWORK_JOBS)
 public class JobSchedulerLoop extends BackgroundLoop {
@@ -40,6 +55,14 @@ public class JobSchedulerLoop extends BackgroundLoop {
     @Part
     private Processes processes;
 
+    @Part
+    private Tasks tasks;
+
+    @ConfigValue("jobs.scheduler.parallelStarts")
+    private int parallelStarts;
+
+    private static final String EXECUTOR_JOB_SCHEDULER = "job-scheduler";
+
     @Parts(SchedulerEntryProvider.class)
     private PartCollection<SchedulerEntryProvider<?>> providers;
 
@@ -58,11 +81,12 @@ public class JobSchedulerLoop extends BackgroundLoop {
     @Override
     protected String doWork() throws Exception {
         LocalDateTime now = LocalDateTime.now();
-        int startedJobs = 0;
+        Map<String, List<Runnable>> dueJobsPerTenant = new LinkedHashMap<>();
         for (SchedulerEntryProvider<?> provider : providers) {
-            startedJobs += executeEntriesOfProvider(now, provider);
+            collectDueEntriesOfProvider(now, provider, dueJobsPerTenant);
         }
 
+        int startedJobs = startJobs(interleaveTenants(dueJobsPerTenant));
         if (startedJobs == 0) {
             return null;
         }
@@ -70,15 +94,18 @@ public class JobSchedulerLoop extends BackgroundLoop {
         return "Started Jobs: " + startedJobs;
     }
 
-    private <J extends SchedulerEntry> int executeEntriesOfProvider(LocalDateTime now,
-                                                                    SchedulerEntryProvider<J> provider) {
-        int startedJobs = 0;
-        for (J entry : provider.getActiveScheduledJobs()) {
+    private <J extends SchedulerEntry> void collectDueEntriesOfProvider(LocalDateTime now,
+                                                                        SchedulerEntryProvider<J> provider,
+                                                                        Map<String, List<Runnable>> dueJobsPerTenant) {
+        for (J entry : provider.getDueScheduledJobs(now)) {
             try {
                 if (entry.getSchedulerData().shouldRun(now)) {
-                    entry = provider.fetchFullInformation(entry);
-                    executeJob(provider, entry, now);
-                    startedJobs++;
+                    dueJobsPerTenant.computeIfAbsent(determineTenant(entry), ignored -> new ArrayList<>())
+                                    .add(() -> executeJob(provider, provider.fetchFullInformation(entry), now));
+                } else {
+                    // The entry has either never been scheduled (its next execution hasn't been computed yet) or
+                    // its execution has been missed - either way, we store the proper next execution...
+                    provider.updateNextExecution(provider.fetchFullInformation(entry));
                 }
             } catch (Exception e) {
                 Exceptions.handle()
@@ -91,8 +118,65 @@ public class JobSchedulerLoop extends BackgroundLoop {
                           .handle();
             }
         }
+    }
+
+    private String determineTenant(SchedulerEntry entry) {
+        if (entry instanceof TenantAware tenantAware) {
+            return tenantAware.getTenantAsString();
+        }
+
+        return "";
+    }
+
+    /**
+     * Orders the due jobs so that the first job of each tenant is started, before the second job of any tenant.
+     *
+     * @param dueJobsPerTenant the due jobs grouped by tenant
+     * @return the jobs to start in the order they should be started
+     */
+    private List<Runnable> interleaveTenants(Map<String, List<Runnable>> dueJobsPerTenant) {
+        List<Iterator<Runnable>> iterators =
+                new ArrayList<>(dueJobsPerTenant.values().stream().map(List::iterator).toList());
+        List<Runnable> result = new ArrayList<>();
+        while (!iterators.isEmpty()) {
+            Iterator<Iterator<Runnable>> tenantIterator = iterators.iterator();
+            while (tenantIterator.hasNext()) {
+                Iterator<Runnable> jobsOfTenant = tenantIterator.next();
+                result.add(jobsOfTenant.next());
+                if (!jobsOfTenant.hasNext()) {
+                    tenantIterator.remove();
+                }
+            }
+        }
+
+        return result;
+    }
+
+    private int startJobs(List<Runnable> jobsToStart) {
+        AtomicInteger startedJobs = new AtomicInteger();
+        Semaphore permits = new Semaphore(Math.max(1, parallelStarts));
+        try {
+            for (Runnable job : jobsToStart) {
+                permits.acquire();
+                tasks.executor(EXECUTOR_JOB_SCHEDULER).fork(() -> {
+                    try {
+                        job.run();
+                        startedJobs.incrementAndGet();
+                    } catch (Exception e) {
+                        Exceptions.handle(Log.BACKGROUND, e);
+                    } finally {
+                        permits.release();
+                    }
+                });
+            }
+
+            // Wait until all jobs have been started...
+            permits.acquire(Math.max(1, parallelStarts));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
 
-        return startedJobs;
+        return startedJobs.get();
     }
 
     private <J extends SchedulerEntry> void executeJob(SchedulerEntryProvider<J> provider, J entry, LocalDateTime now) {
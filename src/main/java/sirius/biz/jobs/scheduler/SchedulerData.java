@@ -18,8 +18,11 @@ import sirius.kernel.commons.Strings;
 import sirius.kernel.health.Exceptions;
 import sirius.kernel.nls.NLS;
 
+import javax.annotation.Nullable;
 import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.function.Consumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -102,6 +105,16 @@ public class SchedulerData extends Composite {
     @NullAllowed
     private LocalDateTime lastExecution;
 
+    /**
+     * Stores the next point in time at which this task is to be executed.
+     * <p>
+     * This is recomputed whenever the entry is saved and permits the {@link JobSchedulerLoop} to only load the entries
+     * which are due instead of checking all of them.
+     */
+    public static final Mapping NEXT_EXECUTION = Mapping.named("nextExecution");
+    @NullAllowed
+    private LocalDateTime nextExecution;
+
     /**
      * Stores how often this task has been executed / scheduled.
      */
@@ -127,6 +140,12 @@ public class SchedulerData extends Composite {
     private static final Pattern MODULO_EXPRESSION = Pattern.compile(" */(\\d+) *");
     private static final Pattern VALUE_EXPRESSION = Pattern.compile(" *(\\d+) *");
 
+    /**
+     * Limits the search for the next execution. If none is found within this period, the entry is re-evaluated
+     * once this period has passed.
+     */
+    private static final int MAX_YEARS_TO_SCAN = 5;
+
     @BeforeSave
     protected void validate() {
         validateField(year, "SchedulerEntry.year", this::setYear);
@@ -135,6 +154,78 @@ public class SchedulerData extends Composite {
         validateField(dayOfWeek, "SchedulerEntry.dayOfWeek", this::setDayOfWeek);
         validateField(hourOfDay, "SchedulerEntry.hourOfDay", this::setHourOfDay);
         validateField(minute, "SchedulerEntry.minute", this::setMinute);
+
+        nextExecution = computeNextExecution(computeEarliestNextExecution());
+    }
+
+    /**
+     * Determines the earliest point in time at which this task may be executed again.
+     *
+     * @return the current minute or the minute after the last execution, whichever is later
+     */
+    private LocalDateTime computeEarliestNextExecution() {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES);
+        if (lastExecution == null) {
+            return now;
+        }
+
+        LocalDateTime afterLastExecution = lastExecution.truncatedTo(ChronoUnit.MINUTES).plusMinutes(1);
+        return afterLastExecution.isAfter(now) ? afterLastExecution : now;
+    }
+
+    /**
+     * Computes the first minute at or after the given timestamp at which this task is to be executed.
+     *
+     * @param from the earliest point in time to consider
+     * @return the next point in time at which this task is to be executed or <tt>null</tt> if the task is disabled or
+     * has no runs left. If no matching point in time is found within the next five years, the end of this period is
+     * returned, so that the entry is re-evaluated then.
+     */
+    @Nullable
+    public LocalDateTime computeNextExecution(LocalDateTime from) {
+        if (!enabled || (runs != null && runs <= 0)) {
+            return null;
+        }
+
+        LocalDateTime start = from.truncatedTo(ChronoUnit.MINUTES);
+        LocalDate horizon = start.toLocalDate().plusYears(MAX_YEARS_TO_SCAN);
+        LocalDate day = start.toLocalDate();
+        while (day.isBefore(horizon)) {
+            if (!matches(day.getYear(), year)) {
+                day = LocalDate.of(day.getYear() + 1, 1, 1);
+            } else if (!matches(day.getMonthValue(), month)) {
+                day = day.withDayOfMonth(1).plusMonths(1);
+            } else {
+                if (matches(day.getDayOfMonth(), dayOfMonth) && matches(day.getDayOfWeek().getValue(), dayOfWeek)) {
+                    LocalDateTime result = findFirstMatchingMinute(day.equals(start.toLocalDate()) ?
+                                                                   start :
+                                                                   day.atStartOfDay());
+                    if (result != null) {
+                        return result;
+                    }
+                }
+                day = day.plusDays(1);
+            }
+        }
+
+        return horizon.atStartOfDay();
+    }
+
+    @Nullable
+    private LocalDateTime findFirstMatchingMinute(LocalDateTime start) {
+        for (int hour = start.getHour(); hour < 24; hour++) {
+            if (matches(hour, hourOfDay)) {
+                for (int minuteOfHour = hour == start.getHour() ? start.getMinute() : 0;
+                     minuteOfHour < 60;
+                     minuteOfHour++) {
+                    if (matches(minuteOfHour, minute)) {
+                        return start.toLocalDate().atTime(hour, minuteOfHour);
+                    }
+                }
+            }
+        }
+
+        return null;
     }
 
     protected void validateField(String expression, String fieldKey, Consumer<String> defaultHandler) {
@@ -321,6 +412,10 @@ public class SchedulerData extends Composite {
         return lastExecution;
     }
 
+    public LocalDateTime getNextExecution() {
+        return nextExecution;
+    }
+
     public int getNumberOfExecutions() {
         return numberOfExecutions;
     }
@@ -19,23 +19,38 @@ import java.util.List;
 public interface SchedulerEntryProvider<J extends SchedulerEntry> {
 
     /**
-     * Returns the list of all actively scheduled tasks.
+     * Returns the list of all actively scheduled tasks which are due.
+     * <p>
+     * These are all active tasks, which {@link SchedulerData#NEXT_EXECUTION next execution} is at or before the given
+     * timestamp. Tasks for which no next execution has been computed yet are also returned, so that they can be
+     * checked and updated via {@link #updateNextExecution(SchedulerEntry)}.
      *
-     * @return a list of all actively scheduled tasks
+     * @param now the current timestamp
+     * @return a list of all actively scheduled tasks which are due
      */
-    List<J> getActiveScheduledJobs();
+    List<J> getDueScheduledJobs(LocalDateTime now);
 
     /**
      * Returns a fully populated entity.
      * <p>
-     * As {@link #getActiveScheduledJobs()} might return shallow entities which have only their scheduler fields
-     * populated, this method can be used to fetch all information - especially the parameter block.
+     * As {@link #getDueScheduledJobs(LocalDateTime)} might return shallow entities which have only their scheduler
+     * fields populated, this method can be used to fetch all information - especially the parameter block.
      *
-     * @param job a shallow entity returned by {@link #getActiveScheduledJobs()}
+     * @param job a shallow entity returned by {@link #getDueScheduledJobs(LocalDateTime)}
      * @return a fully populated entity
      */
     J fetchFullInformation(J job);
 
+    /**
+     * Persists the given task so that its next execution is re-computed.
+     * <p>
+     * This is used for tasks which were returned as due but must not be executed (e.g. as their execution has been
+     * missed while the scheduler wasn't running).
+     *
+     * @param job the fully populated task to update
+     */
+    void updateNextExecution(J job);
+
     /**
      * Marks the given task as executed at the given timestamp.
      *
@@ -12,6 +12,7 @@ import sirius.biz.jobs.JobConfigData;
 import sirius.biz.jobs.scheduler.SchedulerData;
 import sirius.biz.jobs.scheduler.SchedulerEntry;
 import sirius.biz.tenants.jdbc.SQLTenantAware;
+import sirius.db.mixing.annotations.Index;
 import sirius.db.mixing.annotations.TranslationSource;
 import sirius.kernel.commons.Strings;
 import sirius.kernel.di.std.Framework;
@@ -21,6 +22,7 @@ import sirius.kernel.di.std.Framework;
  */
 @Framework(SQLSchedulerController.FRAMEWORK_SCHEDULER_JDBC)
 @TranslationSource(SchedulerEntry.class)
+@Index(name = "next_execution_lookup", columns = {"schedulerData_enabled", "schedulerData_nextExecution"})
 public class SQLSchedulerEntry extends SQLTenantAware implements SchedulerEntry {
 
     private final SchedulerData schedulerData = new SchedulerData();
@@ -27,9 +27,10 @@ public class SQLSchedulerEntryProvider implements SchedulerEntryProvider<SQLSche
     private OMA oma;
 
     @Override
-    public List<SQLSchedulerEntry> getActiveScheduledJobs() {
+    public List<SQLSchedulerEntry> getDueScheduledJobs(LocalDateTime now) {
         return oma.select(SQLSchedulerEntry.class)
                   .fields(SQLSchedulerEntry.ID,
+                          SQLSchedulerEntry.TENANT,
                           SQLSchedulerEntry.SCHEDULER_DATA.inner(SchedulerData.ENABLED),
                           SQLSchedulerEntry.SCHEDULER_DATA.inner(SchedulerData.YEAR),
                           SQLSchedulerEntry.SCHEDULER_DATA.inner(SchedulerData.MONTH),
@@ -38,10 +39,15 @@ public class SQLSchedulerEntryProvider implements SchedulerEntryProvider<SQLSche
                           SQLSchedulerEntry.SCHEDULER_DATA.inner(SchedulerData.HOUR_OF_DAY),
                           SQLSchedulerEntry.SCHEDULER_DATA.inner(SchedulerData.MINUTE),
                           SQLSchedulerEntry.SCHEDULER_DATA.inner(SchedulerData.LAST_EXECUTION),
+                          SQLSchedulerEntry.SCHEDULER_DATA.inner(SchedulerData.NEXT_EXECUTION),
                           SQLSchedulerEntry.SCHEDULER_DATA.inner(SchedulerData.NUMBER_OF_EXECUTIONS),
                           SQLSchedulerEntry.SCHEDULER_DATA.inner(SchedulerData.RUNS),
-                          SQLSchedulerEntry.SCHEDULER_DATA.inner(SchedulerData.LAST_EXECUTION))
+                          SQLSchedulerEntry.SCHEDULER_DATA.inner(SchedulerData.USER_ID))
                   .eq(SQLSchedulerEntry.SCHEDULER_DATA.inner(SchedulerData.ENABLED), true)
+                  .where(OMA.FILTERS.or(OMA.FILTERS.lte(SQLSchedulerEntry.SCHEDULER_DATA.inner(
+                                                 SchedulerData.NEXT_EXECUTION), now),
+                                        OMA.FILTERS.notFilled(SQLSchedulerEntry.SCHEDULER_DATA.inner(
+                                                 SchedulerData.NEXT_EXECUTION))))
                   .where(OMA.FILTERS.or(OMA.FILTERS.ne(SQLSchedulerEntry.SCHEDULER_DATA.inner(SchedulerData.RUNS), 0),
                                         OMA.FILTERS.notFilled(SQLSchedulerEntry.SCHEDULER_DATA.inner(SchedulerData.RUNS))))
                   .queryList();
@@ -57,4 +63,10 @@ public class SQLSchedulerEntryProvider implements SchedulerEntryProvider<SQLSche
         job.getSchedulerData().rememberExecution(timestamp);
         oma.update(job);
     }
+
+    @Override
+    public void updateNextExecution(SQLSchedulerEntry job) {
+        // Saving the entity will re-compute the next execution...
+        oma.update(job);
+    }
 }
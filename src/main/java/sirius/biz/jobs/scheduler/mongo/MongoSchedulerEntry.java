@@ -12,7 +12,9 @@ import sirius.biz.jobs.JobConfigData;
 import sirius.biz.jobs.scheduler.SchedulerData;
 import sirius.biz.jobs.scheduler.SchedulerEntry;
 import sirius.biz.tenants.mongo.MongoTenantAware;
+import sirius.db.mixing.annotations.Index;
 import sirius.db.mixing.annotations.TranslationSource;
+import sirius.db.mongo.Mango;
 import sirius.kernel.commons.Strings;
 import sirius.kernel.di.std.Framework;
 
@@ -21,6 +23,9 @@ import sirius.kernel.di.std.Framework;
  */
 @Framework(MongoSchedulerController.FRAMEWORK_SCHEDULER_MONGO)
 @TranslationSource(SchedulerEntry.class)
+@Index(name = "next_execution_lookup",
+        columns = {"schedulerData_enabled", "schedulerData_nextExecution"},
+        columnSettings = {Mango.INDEX_ASCENDING, Mango.INDEX_ASCENDING})
 public class MongoSchedulerEntry extends MongoTenantAware implements SchedulerEntry {
 
     private final SchedulerData schedulerData = new SchedulerData();
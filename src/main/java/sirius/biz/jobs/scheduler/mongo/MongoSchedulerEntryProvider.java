@@ -28,9 +28,10 @@ public class MongoSchedulerEntryProvider implements SchedulerEntryProvider<Mongo
     private Mango mango;
 
     @Override
-    public List<MongoSchedulerEntry> getActiveScheduledJobs() {
+    public List<MongoSchedulerEntry> getDueScheduledJobs(LocalDateTime now) {
         return mango.select(MongoSchedulerEntry.class)
                     .fields(MongoSchedulerEntry.ID,
+                            MongoSchedulerEntry.TENANT,
                             MongoSchedulerEntry.SCHEDULER_DATA.inner(SchedulerData.ENABLED),
                             MongoSchedulerEntry.SCHEDULER_DATA.inner(SchedulerData.YEAR),
                             MongoSchedulerEntry.SCHEDULER_DATA.inner(SchedulerData.MONTH),
@@ -39,14 +40,17 @@ public class MongoSchedulerEntryProvider implements SchedulerEntryProvider<Mongo
                             MongoSchedulerEntry.SCHEDULER_DATA.inner(SchedulerData.HOUR_OF_DAY),
                             MongoSchedulerEntry.SCHEDULER_DATA.inner(SchedulerData.MINUTE),
                             MongoSchedulerEntry.SCHEDULER_DATA.inner(SchedulerData.LAST_EXECUTION),
+                            MongoSchedulerEntry.SCHEDULER_DATA.inner(SchedulerData.NEXT_EXECUTION),
                             MongoSchedulerEntry.SCHEDULER_DATA.inner(SchedulerData.NUMBER_OF_EXECUTIONS),
                             MongoSchedulerEntry.SCHEDULER_DATA.inner(SchedulerData.RUNS),
-                            MongoSchedulerEntry.SCHEDULER_DATA.inner(SchedulerData.LAST_EXECUTION))
+                            MongoSchedulerEntry.SCHEDULER_DATA.inner(SchedulerData.USER_ID))
                     .eq(MongoSchedulerEntry.SCHEDULER_DATA.inner(SchedulerData.ENABLED), true)
-                    .where(Finder.FILTERS.or(Finder.FILTERS.ne(MongoSchedulerEntry.SCHEDULER_DATA.inner(SchedulerData.RUNS),
-                                                               0),
+                    .where(Finder.FILTERS.or(Finder.FILTERS.lte(MongoSchedulerEntry.SCHEDULER_DATA.inner(
+                                                   SchedulerData.NEXT_EXECUTION), now),
                                              Finder.FILTERS.notFilled(MongoSchedulerEntry.SCHEDULER_DATA.inner(
-                                                     SchedulerData.RUNS))))
+                                                   SchedulerData.NEXT_EXECUTION))))
+                    .where(Finder.FILTERS.or(Finder.FILTERS.ne(MongoSchedulerEntry.SCHEDULER_DATA.inner(SchedulerData.RUNS), 0),
+                                             Finder.FILTERS.notFilled(MongoSchedulerEntry.SCHEDULER_DATA.inner(SchedulerData.RUNS))))
                     .queryList();
     }
 
@@ -60,4 +64,10 @@ public class MongoSchedulerEntryProvider implements SchedulerEntryProvider<Mongo
         job.getSchedulerData().rememberExecution(timestamp);
         mango.update(job);
     }
+
+    @Override
+    public void updateNextExecution(MongoSchedulerEntry job) {
+        // Saving the entity will re-compute the next execution...
+        mango.update(job);
+    }
 }
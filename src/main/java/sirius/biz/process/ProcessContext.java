@@ -30,6 +30,7 @@ import javax.annotation.concurrent.ThreadSafe;
 import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -130,6 +131,18 @@ public interface ProcessContext extends TaskContextAdapter {
      */
     void log(ProcessLog logEntry);
 
+    /**
+     * Logs all given log entries at once.
+     * <p>
+     * This should be preferred when many entries are produced in a tight loop (e.g. during a large import). The
+     * entries are buffered per process and stored in bulk. If the buffer of the process is full, only a sample of the
+     * info and success messages is kept and a summary of the skipped messages is logged instead, so that logging
+     * never blocks the process.
+     *
+     * @param logEntries the entries to log
+     */
+    void logAll(Collection<ProcessLog> logEntries);
+
     /**
      * Logs the given log entry if the current process has debugging enabled.
      *
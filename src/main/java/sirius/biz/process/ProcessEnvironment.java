@@ -45,6 +45,7 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.file.Files;
 import java.time.Duration;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -207,17 +208,28 @@ class ProcessEnvironment implements ProcessContext {
 
     @Override
     public void log(ProcessLog logEntry) {
+        if (isWithinMessageLimit(logEntry)) {
+            processes.log(processId, logEntry);
+        }
+    }
+
+    @Override
+    public void logAll(Collection<ProcessLog> logEntries) {
+        processes.logAll(processId, logEntries.stream().filter(this::isWithinMessageLimit).toList());
+    }
+
+    private boolean isWithinMessageLimit(ProcessLog logEntry) {
         if (Strings.isFilled(logEntry.getMessageType()) && logEntry.getMaxMessagesToLog() > 0) {
             AtomicInteger messagesSoFar =
                     messageCountsPerType.computeIfAbsent(logEntry.getMessageType(), this::countMessagesForType);
             if (messagesSoFar.incrementAndGet() > logEntry.getMaxMessagesToLog()) {
-                return;
+                return false;
             }
 
             limitsPerType.put(logEntry.getMessageType(), logEntry.getMaxMessagesToLog());
         }
 
-        processes.log(processId, logEntry);
+        return true;
     }
 
     private AtomicInteger countMessagesForType(String messageType) {
@@ -250,14 +262,16 @@ class ProcessEnvironment implements ProcessContext {
 
     @Override
     public void markCompleted() {
+        processes.flushBufferedLogs(processId);
         processes.reportLimitedMessages(processId, messageCountsPerType, limitsPerType);
         processes.markCompleted(processId, timings, adminTimings);
     }
 
     /**
-     * Flushes all timings for a partial execution.
+     * Flushes all timings and buffered logs for a partial execution.
      */
     protected void flushTimings() {
+        processes.flushBufferedLogs(processId);
         if (timings != null) {
             processes.addTimings(processId, getTimings(), getAdminTimings());
         }
@@ -0,0 +1,354 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.biz.process;
+
+import sirius.biz.process.logs.ProcessLog;
+import sirius.biz.process.logs.ProcessLogType;
+import sirius.db.es.BulkContext;
+import sirius.db.es.Elastic;
+import sirius.kernel.async.BackgroundLoop;
+import sirius.kernel.commons.Strings;
+import sirius.kernel.di.std.ConfigValue;
+import sirius.kernel.di.std.Part;
+import sirius.kernel.di.std.Register;
+import sirius.kernel.health.Counter;
+import sirius.kernel.health.Exceptions;
+import sirius.kernel.health.Log;
+import sirius.kernel.health.metrics.MetricProvider;
+import sirius.kernel.health.metrics.MetricsCollector;
+import sirius.kernel.nls.NLS;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Buffers {@link ProcessLog log entries} per process and stores them in bulk.
+ * <p>
+ * Entries end up here if they are logged via {@link ProcessContext#logAll(Collection)} or if the
+ * {@link sirius.biz.elastic.AutoBatchLoop} is overloaded. Each process has its own buffer, so that a single process
+ * which emits millions of log lines cannot crowd out the logs of all other processes. Once the buffer of a process
+ * contains <tt>processes.logBufferSize</tt> entries, only every n-th info or success message is kept (see
+ * <tt>processes.logSamplingRate</tt>) and a summary of the skipped entries is logged instead. Warnings and errors
+ * are kept until twice the buffer size is reached. Therefore, logging never blocks the process itself.
+ * <p>
+ * Entries which cannot be stored are put back into their buffer and retried with the next run. Only after
+ * several failed attempts, an entry is dropped and reported as skipped.
+ */
+@Register(classes = {ProcessLogBufferLoop.class, BackgroundLoop.class, MetricProvider.class},
+        framework = Processes.FRAMEWORK_PROCESSES)
+public class ProcessLogBufferLoop extends BackgroundLoop implements MetricProvider {
+
+    private static final int MAX_ENTRIES_PER_PROCESS_AND_RUN = 2000;
+    private static final int FREEZE_ON_ERROR_SECONDS = 10;
+    private static final int MAX_ATTEMPTS = 5;
+
+    @Part
+    private Elastic elastic;
+
+    @Part
+    private Processes processes;
+
+    @ConfigValue("processes.logBufferSize")
+    private int logBufferSize;
+
+    @ConfigValue("processes.logSamplingRate")
+    private int logSamplingRate;
+
+    private final Map<String, ProcessLogBuffer> buffers = new ConcurrentHashMap<>();
+    private final AtomicInteger bufferedEntries = new AtomicInteger();
+    private final Counter storedEntries = new Counter();
+    private final Counter skippedEntries = new Counter();
+    private LocalDateTime frozenUntil;
+
+    /**
+     * Keeps the pending log entries of a single process.
+     * <p>
+     * Entries are only offered within {@link ConcurrentHashMap#compute} so that a buffer cannot be removed while
+     * an entry is being added.
+     */
+    private class ProcessLogBuffer {
+
+        private final Queue<BufferedLogEntry> entries = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+        private final AtomicInteger skipped = new AtomicInteger();
+        private int sampleCounter;
+
+        void offer(ProcessLog logEntry) {
+            if (shouldKeep(logEntry)) {
+                add(new BufferedLogEntry(logEntry));
+            } else {
+                skip();
+            }
+        }
+
+        private boolean shouldKeep(ProcessLog logEntry) {
+            int currentSize = size.get();
+            if (currentSize < logBufferSize) {
+                return true;
+            }
+            if (currentSize >= 2 * logBufferSize) {
+                return false;
+            }
+
+            if (logEntry.getType() == ProcessLogType.ERROR || logEntry.getType() == ProcessLogType.WARNING) {
+                return true;
+            }
+
+            return ++sampleCounter % Math.max(1, logSamplingRate) == 0;
+        }
+
+        void add(BufferedLogEntry entry) {
+            entries.offer(entry);
+            size.incrementAndGet();
+            bufferedEntries.incrementAndGet();
+        }
+
+        void skip() {
+            skipped.incrementAndGet();
+            skippedEntries.inc();
+        }
+
+        BufferedLogEntry poll() {
+            BufferedLogEntry entry = entries.poll();
+            if (entry != null) {
+                size.decrementAndGet();
+                bufferedEntries.decrementAndGet();
+            }
+
+            return entry;
+        }
+
+        boolean isEmpty() {
+            return entries.isEmpty() && skipped.get() == 0;
+        }
+    }
+
+    /**
+     * Wraps a buffered log entry along with the number of failed attempts to store it.
+     */
+    private static class BufferedLogEntry {
+
+        private final ProcessLog logEntry;
+        private int failedAttempts;
+
+        BufferedLogEntry(ProcessLog logEntry) {
+            this.logEntry = logEntry;
+        }
+    }
+
+    @Nonnull
+    @Override
+    public String getName() {
+        return "process-log-buffers";
+    }
+
+    @Override
+    public double maxCallFrequency() {
+        return 1;
+    }
+
+    /**
+     * Buffers the given log entries of a process.
+     *
+     * @param processId  the process the entries belong to
+     * @param logEntries the entries to store. These have to be fully initialized already, as they are stored as is.
+     */
+    void offer(String processId, Collection<ProcessLog> logEntries) {
+        buffers.compute(processId, (ignored, buffer) -> {
+            ProcessLogBuffer effectiveBuffer = buffer == null ? new ProcessLogBuffer() : buffer;
+            logEntries.forEach(effectiveBuffer::offer);
+            return effectiveBuffer;
+        });
+    }
+
+    /**
+     * Stores all entries buffered for the given process.
+     * <p>
+     * This is invoked before a process (or a partial execution) completes, as the buffers are kept per node.
+     *
+     * @param processId the process to flush the buffer for
+     */
+    void flush(String processId) {
+        if (!buffers.containsKey(processId)) {
+            return;
+        }
+
+        try {
+            store(Collections.singletonMap(processId, drain(processId, Integer.MAX_VALUE)));
+        } catch (Exception e) {
+            Exceptions.handle()
+                      .to(Log.BACKGROUND)
+                      .error(e)
+                      .withSystemErrorMessage("Failed to store the buffered logs of process %s: %s (%s)", processId)
+                      .handle();
+        }
+    }
+
+    @Nullable
+    @Override
+    protected String doWork() throws Exception {
+        if (buffers.isEmpty()) {
+            return null;
+        }
+        if (frozenUntil != null) {
+            if (LocalDateTime.now().isBefore(frozenUntil)) {
+                return Strings.apply("Frozen until: %s", NLS.toUserString(frozenUntil));
+            }
+            frozenUntil = null;
+        }
+
+        // Each process only gets a limited share per run, so that a single chatty process doesn't delay the
+        // logs of all others...
+        Map<String, List<BufferedLogEntry>> entriesPerProcess = new HashMap<>();
+        for (String processId : new ArrayList<>(buffers.keySet())) {
+            entriesPerProcess.put(processId, drain(processId, MAX_ENTRIES_PER_PROCESS_AND_RUN));
+        }
+
+        int storedInRun = 0;
+        try {
+            storedInRun = store(entriesPerProcess);
+        } catch (Exception e) {
+            Exceptions.handle(Log.BACKGROUND, e);
+            frozenUntil = LocalDateTime.now().plusSeconds(FREEZE_ON_ERROR_SECONDS);
+        }
+
+        return Strings.apply("Stored %s log entries of %s processes...", storedInRun, entriesPerProcess.size());
+    }
+
+    /**
+     * Removes up to <tt>limit</tt> entries from the buffer of the given process.
+     * <p>
+     * If entries have been skipped, a summary entry is appended.
+     *
+     * @param processId the process to drain the buffer for
+     * @param limit     the maximal number of entries to drain
+     * @return the drained entries
+     */
+    private List<BufferedLogEntry> drain(String processId, int limit) {
+        List<BufferedLogEntry> result = new ArrayList<>();
+        ProcessLogBuffer buffer = buffers.get(processId);
+        if (buffer == null) {
+            return result;
+        }
+
+        BufferedLogEntry entry = buffer.poll();
+        while (entry != null) {
+            result.add(entry);
+            if (result.size() >= limit) {
+                break;
+            }
+            entry = buffer.poll();
+        }
+
+        int skipped = buffer.skipped.getAndSet(0);
+        if (skipped > 0) {
+            ProcessLog summary = ProcessLog.warn().withNLSKey("Processes.logsSkipped").withContext("count", skipped);
+            processes.prepareLogEntry(processId, summary);
+            result.add(new BufferedLogEntry(summary));
+        }
+
+        // Only remove the buffer if no entry has been offered in the meantime...
+        buffers.computeIfPresent(processId, (ignored, currentBuffer) -> currentBuffer.isEmpty() ? null : currentBuffer);
+
+        return result;
+    }
+
+    /**
+     * Stores the given entries in a single bulk request.
+     * <p>
+     * Entries which cannot be stored are put back into their buffer, so that they are retried with the next run.
+     * If the bulk request fails as a whole, all entries are put back and the exception is rethrown.
+     *
+     * @param entriesPerProcess the drained entries per process
+     * @return the number of entries which have been stored
+     */
+    private int store(Map<String, List<BufferedLogEntry>> entriesPerProcess) {
+        Set<String> failedIds;
+        try (BulkContext bulkContext = elastic.batch()) {
+            for (List<BufferedLogEntry> entries : entriesPerProcess.values()) {
+                entries.forEach(entry -> bulkContext.overwrite(entry.logEntry));
+            }
+            failedIds = bulkContext.commit();
+        } catch (Exception e) {
+            entriesPerProcess.forEach(this::requeue);
+            throw e;
+        }
+
+        int stored = 0;
+        for (Map.Entry<String, List<BufferedLogEntry>> processAndEntries : entriesPerProcess.entrySet()) {
+            List<BufferedLogEntry> failedEntries =
+                    processAndEntries.getValue()
+                                     .stream()
+                                     .filter(entry -> failedIds.contains(entry.logEntry.getId()))
+                                     .toList();
+            requeue(processAndEntries.getKey(), failedEntries);
+            stored += processAndEntries.getValue().size() - failedEntries.size();
+        }
+
+        storedEntries.add(stored);
+        return stored;
+    }
+
+    /**
+     * Puts entries which couldn't be stored back into the buffer of their process.
+     * <p>
+     * Entries which repeatedly failed are dropped and reported as skipped.
+     *
+     * @param processId     the process the entries belong to
+     * @param failedEntries the entries which couldn't be stored
+     */
+    private void requeue(String processId, List<BufferedLogEntry> failedEntries) {
+        if (failedEntries.isEmpty()) {
+            return;
+        }
+
+        buffers.compute(processId, (ignored, buffer) -> {
+            ProcessLogBuffer effectiveBuffer = buffer == null ? new ProcessLogBuffer() : buffer;
+            for (BufferedLogEntry entry : failedEntries) {
+                if (++entry.failedAttempts < MAX_ATTEMPTS) {
+                    effectiveBuffer.add(entry);
+                } else {
+                    effectiveBuffer.skip();
+                }
+            }
+            return effectiveBuffer;
+        });
+    }
+
+    @Override
+    public void gather(MetricsCollector metricsCollector) {
+        metricsCollector.metric("process_logs_buffered",
+                                "process-logs-buffered",
+                                "Buffered Process Logs",
+                                bufferedEntries.get(),
+                                null);
+        metricsCollector.differentialMetric("process_logs_stored",
+                                            "process-logs-stored",
+                                            "Stored Buffered Process Logs",
+                                            storedEntries.getCount(),
+                                            "/min");
+        metricsCollector.differentialMetric("process_logs_skipped",
+                                            "process-logs-skipped",
+                                            "Skipped Process Logs",
+                                            skippedEntries.getCount(),
+                                            "/min");
+    }
+}
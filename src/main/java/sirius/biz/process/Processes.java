@@ -53,11 +53,14 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.BiConsumer;
 import java.util.function.BiPredicate;
 import java.util.function.Consumer;
@@ -92,6 +95,11 @@ public class Processes {
 
     private static final String LOCK_CREATE_STANDBY_PROCESS = "lock-create-standby-process";
 
+    /**
+     * Contains the number of bits of a sort key which are used to (most probably) distinguish the nodes of a cluster.
+     */
+    private static final int SORT_KEY_NODE_BITS = 10;
+
     @Part
     private Elastic elastic;
 
@@ -101,6 +109,9 @@ public class Processes {
     @Part
     private AutoBatchLoop autoBatch;
 
+    @Part
+    private ProcessLogBufferLoop logBuffers;
+
     @Part
     private Locks locks;
 
@@ -110,6 +121,9 @@ public class Processes {
     @Part
     private TableProcessOutputType tableProcessOutputType;
 
+    private final AtomicLong lastSortKeyMicros = new AtomicLong();
+    private Long sortKeyNodeDiscriminator;
+
     /**
      * Due to some shortcomings in Elasticsearch (1-second delay until writes are visible), we need a layered cache
      * architecture here.
@@ -727,18 +741,13 @@ public class Processes {
                 markWarnings(processId);
             }
 
-            logEntry.setNode(CallContext.getNodeName());
-            logEntry.setTimestamp(LocalDateTime.now());
-            logEntry.setSortKey(computeSortKey());
-            logEntry.getProcess().setId(processId);
-            logEntry.getDescriptor().beforeSave(logEntry);
+            prepareLogEntry(processId, logEntry);
 
             // Use the auto batch to perform bulk inserts if possible
             if (!autoBatch.insertAsync(logEntry)) {
-                // but fallback to regular inserts if the auto batch loop is overloaded due to peak
-                // conditions This should automatically slow down the caller and let the auto batch loop
-                // recover in parallel...
-                elastic.override(logEntry);
+                // but fallback to the buffer of the process if the auto batch loop is overloaded due to peak
+                // conditions. This might skip some low-severity entries but never blocks the caller...
+                logBuffers.offer(processId, Collections.singletonList(logEntry));
             }
         } catch (Exception e) {
             Exceptions.handle()
@@ -750,28 +759,88 @@ public class Processes {
     }
 
     /**
-     * Tries to compute a monotonically increasing message number for each {@link ProcessLog} being recorded.
+     * Stores the given log entries for the given process.
      * <p>
-     * We cannot simply use the {@code System.currentTimeMillis()} call here, as in tight loops, we might
-     * insert several logs within one millisecond (as these inserts are lazily batched, this will work out).
+     * In contrast to {@link #log(String, ProcessLog)}, the entries are put into a buffer per process which is
+     * stored in bulk by the {@link ProcessLogBufferLoop}. If the buffer is full, low-severity entries are sampled
+     * and summarized rather than blocking the caller.
+     *
+     * @param processId  the process to store the entries for
+     * @param logEntries the entries to persist
+     * @see ProcessContext#logAll(Collection)
+     */
+    public void logAll(String processId, Collection<ProcessLog> logEntries) {
+        if (logEntries.isEmpty()) {
+            return;
+        }
+
+        try {
+            if (logEntries.stream().anyMatch(logEntry -> logEntry.getType() == ProcessLogType.ERROR)) {
+                markErrorneous(processId);
+            } else if (logEntries.stream().anyMatch(logEntry -> logEntry.getType() == ProcessLogType.WARNING)) {
+                markWarnings(processId);
+            }
+
+            for (ProcessLog logEntry : logEntries) {
+                prepareLogEntry(processId, logEntry);
+            }
+
+            logBuffers.offer(processId, logEntries);
+        } catch (Exception e) {
+            Exceptions.handle()
+                      .withSystemErrorMessage("Failed to record %s ProcessLogs: %s (%s)", logEntries.size())
+                      .error(e)
+                      .to(Log.BACKGROUND)
+                      .handle();
+        }
+    }
+
+    /**
+     * Fills the technical fields of a log entry so that it can be stored as is.
+     *
+     * @param processId the process the entry belongs to
+     * @param logEntry  the entry to prepare
+     */
+    protected void prepareLogEntry(String processId, ProcessLog logEntry) {
+        logEntry.setNode(CallContext.getNodeName());
+        logEntry.setTimestamp(LocalDateTime.now());
+        logEntry.setSortKey(computeSortKey());
+        logEntry.getProcess().setId(processId);
+        logEntry.getDescriptor().beforeSave(logEntry);
+    }
+
+    /**
+     * Stores all log entries of the given process which are still buffered on this node.
+     *
+     * @param processId the process to flush the logs for
+     */
+    protected void flushBufferedLogs(String processId) {
+        logBuffers.flush(processId);
+    }
+
+    /**
+     * Computes a strictly monotonically increasing message number for each {@link ProcessLog} being recorded.
+     * <p>
+     * We use the current time in microseconds, but ensure that each key is larger than the previous one
+     * generated by this node (so that even several logs within one microsecond remain in order). Note that this
+     * doesn't require any locking, as the last key is advanced atomically.
      * <p>
-     * Therefore, we try to combine {@link System#currentTimeMillis()} with {@link System#nanoTime()}. The former
-     * is a "realtime" clock, but only updated each couple of milliseconds, the latter is a system timer which is
-     * increased constantly, but its absolute value is somewhat random. Therefore, we use the "whole second" part
-     * of the {@link System#currentTimeMillis()} call, to get a stable offset, turn this into microseconds and then
-     * add the microsecond offset of {@link System#nanoTime()} to it. This should yield a strictly monotonically
-     * increasing counter if it isn't called more than once per microsecond (which is sort of unlikely in Java).
+     * The lower bits contain a discriminator which is derived from the hash of the node name. This makes it unlikely
+     * that logs recorded by different nodes within the same microsecond share a sort key, but as two node names can
+     * map to the same discriminator, this isn't guaranteed. In this case, the order of these entries is undefined,
+     * as they happened at the same time anyway. No entry is lost, as the sort key isn't used as ID.
+     *
+     * @return the sort key for the next log entry of this node
      */
-    private Long computeSortKey() {
-        //              ┌───────────────────────────────┐              ┌────────────────────────────────┐
-        //          ┌──▶│Current system time in seconds │          ┌──▶│System timing counter in micros │
-        //          │   └───────────────────────────────┘          │   └────────────────────────────────┘
-        //     ─────┴────────────────────────────               ───┴───────────────────────
-        return System.currentTimeMillis() / 1_000 * 1_000_000 + (System.nanoTime() / 1_000) % 1_000_000;
-        //     ──────────┬───────────────────────────────────   ──┬─────────────────────────────────────
-        //               │    ┌──────────────────────────────┐    │   ┌────────────────────────────────────────┐
-        //               └───▶│Current system time in micros │    └──▶│ System timing counter offset in micros │
-        //                    └──────────────────────────────┘        └────────────────────────────────────────┘
+    long computeSortKey() {
+        if (sortKeyNodeDiscriminator == null) {
+            sortKeyNodeDiscriminator = (long) Math.floorMod(CallContext.getNodeName().hashCode(),
+                                                            1 << SORT_KEY_NODE_BITS);
+        }
+
+        long micros = lastSortKeyMicros.accumulateAndGet(System.currentTimeMillis() * 1_000,
+                                                         (last, now) -> Math.max(last + 1, now));
+        return (micros << SORT_KEY_NODE_BITS) | sortKeyNodeDiscriminator;
     }
 
     protected long countMessagesForType(String processId, String messageType) {
@@ -801,6 +870,7 @@ public class Processes {
     }
 
     protected boolean awaitFlushedLogs(String processId) {
+        flushBufferedLogs(processId);
         if (!autoBatch.awaitNextFlush(Duration.ofSeconds(10))) {
             log(processId,
                 ProcessLog.error()
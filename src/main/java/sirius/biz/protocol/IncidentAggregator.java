@@ -0,0 +1,323 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.biz.protocol;
+
+import sirius.db.es.BulkContext;
+import sirius.db.es.Elastic;
+import sirius.kernel.async.BackgroundLoop;
+import sirius.kernel.async.CallContext;
+import sirius.kernel.commons.Strings;
+import sirius.kernel.commons.Tuple;
+import sirius.kernel.di.std.ConfigValue;
+import sirius.kernel.di.std.Part;
+import sirius.kernel.di.std.Register;
+import sirius.kernel.health.Counter;
+import sirius.kernel.health.Incident;
+import sirius.kernel.health.metrics.MetricProvider;
+import sirius.kernel.health.metrics.MetricsCollector;
+import sirius.kernel.nls.NLS;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Aggregates incidents per location and periodically stores them as {@link StoredIncident} in bulk.
+ * <p>
+ * During an incident storm, the same exception might occur thousands of times per minute. Instead of querying and
+ * updating the stored incident for each occurrence, all occurrences within <tt>protocols.incidentAggregationWindow</tt>
+ * are merged in memory (the number of occurrences is summed up and the MDC is merged). The number of distinct
+ * incidents being kept in memory is limited by <tt>protocols.maxPendingIncidents</tt> - once this limit is reached,
+ * incidents for new locations are dropped until the next flush.
+ * <p>
+ * Incidents which cannot be stored (e.g. as Elasticsearch is unavailable or as the stored incident has been updated
+ * concurrently) are put back and retried with the next flush.
+ */
+@Register(classes = {IncidentAggregator.class, BackgroundLoop.class, MetricProvider.class},
+        framework = Protocols.FRAMEWORK_PROTOCOLS)
+public class IncidentAggregator extends BackgroundLoop implements MetricProvider {
+
+    private static final int FREEZE_ON_ERROR_SECONDS = 60;
+
+    @Part
+    private Elastic elastic;
+
+    @ConfigValue("protocols.incidentAggregationWindow")
+    private Duration aggregationWindow;
+
+    @ConfigValue("protocols.maxPendingIncidents")
+    private int maxPendingIncidents;
+
+    private final Map<String, PendingIncident> pendingIncidents = new ConcurrentHashMap<>();
+    private LocalDateTime frozenUntil;
+
+    private final Counter persistedIncidents = new Counter();
+    private final Counter suppressedIncidents = new Counter();
+    private final Counter droppedIncidents = new Counter();
+
+    /**
+     * Collects all occurrences of an incident at a location during a single aggregation window.
+     */
+    private static class PendingIncident {
+
+        private final String key;
+        private final String location;
+        private LocalDateTime firstOccurrence = LocalDateTime.now();
+        private LocalDateTime lastOccurrence = firstOccurrence;
+        private int numberOfOccurrences;
+        private final Map<String, String> mdc = new LinkedHashMap<>();
+        private String user;
+        private String category;
+        private Throwable exception;
+
+        PendingIncident(String key, String location) {
+            this.key = key;
+            this.location = location;
+        }
+
+        PendingIncident merge(String category, Throwable exception, List<Tuple<String, String>> mdc, String user) {
+            this.numberOfOccurrences++;
+            this.lastOccurrence = LocalDateTime.now();
+            this.user = user;
+            this.category = category;
+            this.exception = exception;
+            for (Tuple<String, String> entry : mdc) {
+                this.mdc.put(entry.getFirst(), entry.getSecond());
+            }
+
+            return this;
+        }
+
+        /**
+         * Merges the occurrences of an incident which could not be stored into this one.
+         *
+         * @param failedIncident the incident which has to be stored again
+         * @return the merged incident
+         */
+        PendingIncident mergeFailed(PendingIncident failedIncident) {
+            this.numberOfOccurrences += failedIncident.numberOfOccurrences;
+            this.firstOccurrence = failedIncident.firstOccurrence;
+            failedIncident.mdc.forEach(this.mdc::putIfAbsent);
+
+            return this;
+        }
+    }
+
+    @Nonnull
+    @Override
+    public String getName() {
+        return "protocols-incident-aggregator";
+    }
+
+    @Override
+    public double maxCallFrequency() {
+        return 1d / Math.max(1, aggregationWindow.getSeconds());
+    }
+
+    /**
+     * Records the given incident so that it is stored with the next flush.
+     *
+     * @param incident the incident to record
+     * @param user     the name of the current user, which is determined by the caller, as it depends on the
+     *                 current thread
+     */
+    public void record(Incident incident, String user) {
+        record(incident.getLocation(), incident.getCategory(), incident.getException(), incident.getMDC(), user);
+    }
+
+    /**
+     * Records an incident with the given details so that it is stored with the next flush.
+     *
+     * @param location  the code location where the incident occurred
+     * @param category  the category or logger name which reported the incident
+     * @param exception the exception which occurred
+     * @param mdc       the mapped diagnostic context of the incident
+     * @param user      the name of the current user
+     */
+    void record(@Nullable String location,
+                String category,
+                Throwable exception,
+                List<Tuple<String, String>> mdc,
+                String user) {
+        // Incidents without a location are only merged with other occurrences of the very same error...
+        String key = location != null ? location : category + ":" + exception.getMessage();
+        if (pendingIncidents.size() >= maxPendingIncidents && !pendingIncidents.containsKey(key)) {
+            droppedIncidents.inc();
+            return;
+        }
+
+        pendingIncidents.compute(key, (ignored, pendingIncident) -> {
+            if (pendingIncident == null) {
+                return new PendingIncident(key, location).merge(category, exception, mdc, user);
+            }
+
+            suppressedIncidents.inc();
+            return pendingIncident.merge(category, exception, mdc, user);
+        });
+    }
+
+    @Nullable
+    @Override
+    protected String doWork() throws Exception {
+        if (pendingIncidents.isEmpty()) {
+            return null;
+        }
+        if (frozenUntil != null) {
+            if (LocalDateTime.now().isBefore(frozenUntil)) {
+                return Strings.apply("Frozen until: %s", NLS.toUserString(frozenUntil));
+            }
+            frozenUntil = null;
+        }
+
+        List<PendingIncident> incidentsToFlush = new ArrayList<>();
+        for (String key : new ArrayList<>(pendingIncidents.keySet())) {
+            PendingIncident pendingIncident = pendingIncidents.remove(key);
+            if (pendingIncident != null) {
+                incidentsToFlush.add(pendingIncident);
+            }
+        }
+
+        List<PendingIncident> failedIncidents;
+        try {
+            failedIncidents = flush(incidentsToFlush);
+        } catch (Exception e) {
+            Elastic.LOG.SEVERE(e);
+            frozenUntil = LocalDateTime.now().plusSeconds(FREEZE_ON_ERROR_SECONDS);
+            failedIncidents = incidentsToFlush;
+        }
+
+        failedIncidents.forEach(this::requeue);
+        int storedIncidents = incidentsToFlush.size() - failedIncidents.size();
+        persistedIncidents.add(storedIncidents);
+
+        if (failedIncidents.isEmpty()) {
+            return Strings.apply("Stored %s incidents...", storedIncidents);
+        }
+
+        return Strings.apply("Stored %s incidents, %s will be retried...", storedIncidents, failedIncidents.size());
+    }
+
+    /**
+     * Puts an incident which couldn't be stored back into the queue, so that its occurrences aren't lost.
+     * <p>
+     * If the incident occurred again in the meantime, both are merged.
+     *
+     * @param failedIncident the incident to store again
+     */
+    private void requeue(PendingIncident failedIncident) {
+        if (pendingIncidents.size() >= maxPendingIncidents && !pendingIncidents.containsKey(failedIncident.key)) {
+            droppedIncidents.inc();
+            return;
+        }
+
+        pendingIncidents.merge(failedIncident.key,
+                               failedIncident,
+                               (pendingIncident, ignored) -> pendingIncident.mergeFailed(failedIncident));
+    }
+
+    /**
+     * Stores the given incidents in a single bulk request.
+     * <p>
+     * An existing stored incident is updated using optimistic locking. If it has been modified concurrently (e.g. by
+     * another node flushing the same location), the update fails and the incident is retried with the next flush, so
+     * that the occurrences counted by the other node are not overwritten.
+     *
+     * @param incidentsToFlush the incidents to store
+     * @return the incidents which could not be stored
+     */
+    private List<PendingIncident> flush(List<PendingIncident> incidentsToFlush) {
+        Map<String, StoredIncident> storedIncidents = fetchStoredIncidents(incidentsToFlush);
+        Map<StoredIncident, PendingIncident> writtenIncidents = new IdentityHashMap<>();
+        Set<String> failedIds;
+        try (BulkContext bulkContext = elastic.batch()) {
+            for (PendingIncident pendingIncident : incidentsToFlush) {
+                StoredIncident storedIncident = pendingIncident.location == null ?
+                                                null :
+                                                storedIncidents.get(pendingIncident.location);
+                if (storedIncident == null) {
+                    storedIncident = new StoredIncident();
+                    storedIncident.setLocation(pendingIncident.location);
+                    storedIncident.setFirstOccurrence(pendingIncident.firstOccurrence);
+                }
+
+                storedIncident.setNumberOfOccurrences(storedIncident.getNumberOfOccurrences()
+                                                      + pendingIncident.numberOfOccurrences);
+                storedIncident.setNode(CallContext.getNodeName());
+                storedIncident.getMdc().modify().putAll(pendingIncident.mdc);
+                storedIncident.setUser(pendingIncident.user);
+                storedIncident.setMessage(pendingIncident.exception.getMessage());
+                storedIncident.setStack(NLS.toUserString(pendingIncident.exception));
+                storedIncident.setCategory(pendingIncident.category);
+                storedIncident.setLastOccurrence(pendingIncident.lastOccurrence);
+
+                bulkContext.tryUpdate(storedIncident);
+                writtenIncidents.put(storedIncident, pendingIncident);
+            }
+
+            failedIds = bulkContext.commit();
+        }
+
+        List<PendingIncident> failedIncidents = new ArrayList<>();
+        writtenIncidents.forEach((storedIncident, pendingIncident) -> {
+            if (failedIds.contains(storedIncident.getId())) {
+                failedIncidents.add(pendingIncident);
+            }
+        });
+
+        return failedIncidents;
+    }
+
+    private Map<String, StoredIncident> fetchStoredIncidents(List<PendingIncident> incidentsToFlush) {
+        List<String> locations = incidentsToFlush.stream()
+                                                 .map(pendingIncident -> pendingIncident.location)
+                                                 .filter(Strings::isFilled)
+                                                 .distinct()
+                                                 .toList();
+        Map<String, StoredIncident> result = new HashMap<>();
+        if (locations.isEmpty()) {
+            return result;
+        }
+
+        elastic.select(StoredIncident.class)
+               .where(Elastic.FILTERS.oneInField(StoredIncident.LOCATION, locations).build())
+               .where(Elastic.FILTERS.gt(StoredIncident.LAST_OCCURRENCE, LocalDate.now().minusDays(1)))
+               .iterateAll(storedIncident -> result.putIfAbsent(storedIncident.getLocation(), storedIncident));
+
+        return result;
+    }
+
+    @Override
+    public void gather(MetricsCollector metricsCollector) {
+        metricsCollector.differentialMetric("protocols_incidents_persisted",
+                                            "protocols-incidents-persisted",
+                                            "Persisted Incidents",
+                                            persistedIncidents.getCount(),
+                                            "/min");
+        metricsCollector.differentialMetric("protocols_incidents_suppressed",
+                                            "protocols-incidents-suppressed",
+                                            "Suppressed Incidents",
+                                            suppressedIncidents.getCount(),
+                                            "/min");
+        metricsCollector.differentialMetric("protocols_incidents_dropped",
+                                            "protocols-incidents-dropped",
+                                            "Dropped Incidents",
+                                            droppedIncidents.getCount(),
+                                            "/min");
+    }
+}
@@ -14,7 +14,6 @@ import sirius.kernel.Sirius;
 import sirius.kernel.async.CallContext;
 import sirius.kernel.commons.RateLimit;
 import sirius.kernel.commons.Strings;
-import sirius.kernel.commons.Tuple;
 import sirius.kernel.di.std.ConfigValue;
 import sirius.kernel.di.std.Part;
 import sirius.kernel.di.std.Register;
@@ -23,11 +22,9 @@ import sirius.kernel.health.Exceptions;
 import sirius.kernel.health.Incident;
 import sirius.kernel.health.LogMessage;
 import sirius.kernel.health.LogTap;
-import sirius.kernel.nls.NLS;
 import sirius.web.mails.MailLog;
 import sirius.web.security.UserContext;
 
-import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
@@ -68,6 +65,9 @@ public class Protocols implements LogTap, ExceptionHandler, MailLog {
     @Part
     private AutoBatchLoop autoBatch;
 
+    @Part
+    private IncidentAggregator incidentAggregator;
+
     @ConfigValue("protocols.maxLogMessageLength")
     private int maxMessageLength;
 
@@ -107,33 +107,7 @@ public class Protocols implements LogTap, ExceptionHandler, MailLog {
         }
 
         try {
-            LocalDate yesterday = LocalDate.now().minusDays(1);
-            StoredIncident si = null;
-            if (incident.getLocation() != null) {
-                si = elastic.select(StoredIncident.class)
-                            .eq(StoredIncident.LOCATION, incident.getLocation())
-                            .where(Elastic.FILTERS.gt(StoredIncident.LAST_OCCURRENCE, yesterday))
-                            .queryFirst();
-            }
-
-            if (si == null) {
-                si = new StoredIncident();
-                si.setLocation(incident.getLocation());
-                si.setFirstOccurrence(LocalDateTime.now());
-            }
-
-            si.setNumberOfOccurrences(si.getNumberOfOccurrences() + 1);
-            si.setNode(CallContext.getNodeName());
-            for (Tuple<String, String> t : incident.getMDC()) {
-                si.getMdc().put(t.getFirst(), t.getSecond());
-            }
-            si.setUser(UserContext.getCurrentUser().getProtocolUsername());
-            si.setMessage(incident.getException().getMessage());
-            si.setStack(NLS.toUserString(incident.getException()));
-            si.setCategory(incident.getCategory());
-            si.setLastOccurrence(LocalDateTime.now());
-
-            elastic.update(si);
+            incidentAggregator.record(incident, UserContext.getCurrentUser().getProtocolUsername());
         } catch (Exception e) {
             Elastic.LOG.SEVERE(e);
             disableForOneMinute();
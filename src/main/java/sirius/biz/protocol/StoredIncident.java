@@ -13,6 +13,7 @@ import sirius.biz.elastic.SearchableEntity;
 import sirius.db.es.annotations.ESOption;
 import sirius.db.es.annotations.IndexMode;
 import sirius.db.mixing.Mapping;
+import sirius.db.mixing.annotations.Versioned;
 import sirius.db.mixing.types.StringMap;
 import sirius.kernel.di.std.Framework;
 
@@ -20,8 +21,11 @@ import java.time.LocalDateTime;
 
 /**
  * Stores an exception along with some context.
+ * <p>
+ * This entity is versioned, so that the occurrences counted by several nodes do not overwrite each other.
  */
 @Framework(Protocols.FRAMEWORK_PROTOCOLS)
+@Versioned
 public class StoredIncident extends SearchableEntity {
 
     /**
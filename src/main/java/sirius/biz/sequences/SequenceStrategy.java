@@ -25,7 +25,23 @@ public interface SequenceStrategy extends Named {
      * instruct the framework to perform a retry
      * @throws Exception in case of a severe error
      */
-    Long tryGenerateId(String sequence) throws Exception;
+    default Long tryGenerateId(String sequence) throws Exception {
+        return tryReserveBlock(sequence, 1);
+    }
+
+    /**
+     * Tries to reserve a block of consecutive ids in the given sequence using a single atomic update.
+     * <p>
+     * If the sequence doesn't exist yet, it is created and the returned block starts with <tt>1</tt>.
+     *
+     * @param sequence  the sequence to reserve the ids in
+     * @param blockSize the number of ids to reserve
+     * @return either the first id of the reserved block (the block spans from this value up to
+     * <tt>result + blockSize - 1</tt>) or <tt>null</tt> if a race condition or conflict occurred. This will instruct
+     * the framework to perform a retry
+     * @throws Exception in case of a severe error
+     */
+    Long tryReserveBlock(String sequence, int blockSize) throws Exception;
 
     /**
      * Peeks at the next value in the sequence without using it.
@@ -21,6 +21,9 @@ import sirius.kernel.health.Log;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Provides a facility to generate unique consecutive numbers.
@@ -31,6 +34,11 @@ import java.util.List;
  * Note that these sequences are global and not tenant aware. Therefore care must be taken to generate unique names for
  * sequences. A viable option is to use {@link sirius.db.mixing.BaseEntity#getUniqueName()} of the entity which utilizes
  * this generator.
+ * <p>
+ * For sequences which generate a large number of ids (e.g. during bulk imports), {@link #generateId(String, int)} can
+ * be used to reserve a whole block of ids with a single update. These are then handed out locally. Note however, that
+ * this yields gaps in the sequence if a node is stopped before its block is used up and that ids are no longer
+ * strictly ascending across several nodes.
  */
 @Register(classes = Sequences.class, framework = Sequences.FRAMEWORK_SEQUENCES)
 public class Sequences {
@@ -54,6 +62,45 @@ public class Sequences {
     @Part(configPath = "sequences.strategy")
     private SequenceStrategy sequenceStrategy;
 
+    /**
+     * Contains the blocks of ids which have been reserved by {@link #generateId(String, int)} per sequence.
+     */
+    private final Map<String, ReservedBlock> reservedBlocks = new ConcurrentHashMap<>();
+
+    /**
+     * Represents a block of ids which has been reserved in the database and is handed out locally.
+     */
+    private static class ReservedBlock {
+
+        private final AtomicLong nextValue;
+        private final long lastValue;
+
+        ReservedBlock(long nextValue, long lastValue) {
+            this.nextValue = new AtomicLong(nextValue);
+            this.lastValue = lastValue;
+        }
+
+        /**
+         * Tries to take the next id of this block.
+         *
+         * @return the next id or <tt>null</tt> if the block is used up
+         */
+        Long tryAcquire() {
+            long result = nextValue.getAndIncrement();
+            return result <= lastValue ? result : null;
+        }
+
+        /**
+         * Returns the next id which would be handed out by this block.
+         *
+         * @return the next id or <tt>null</tt> if the block is used up
+         */
+        Long peek() {
+            long result = nextValue.get();
+            return result <= lastValue ? result : null;
+        }
+    }
+
     /**
      * Returns the next value in the given sequence.
      * <p>
@@ -67,10 +114,60 @@ public class Sequences {
      *                          extreme load conditions, as internally an optimistic locking algorithm is employed.
      */
     public long generateId(String sequence) {
+        return reserveBlock(sequence, 1);
+    }
+
+    /**
+     * Returns the next value in the given sequence while reserving ids in blocks of the given size.
+     * <p>
+     * Instead of updating the sequence for every single id, a block of <tt>blockSize</tt> ids is reserved with a
+     * single update and then handed out locally. Once the block is used up, the next one is reserved. This greatly
+     * reduces the load on the database and the chance of conflicts when generating lots of ids, but yields gaps if
+     * a node is stopped before using up its block.
+     *
+     * @param sequence  the name of the sequence which is counted up
+     * @param blockSize the number of ids to reserve at once. A value of <tt>1</tt> or less behaves exactly like
+     *                  {@link #generateId(String)}
+     * @return the next value (which has not yet been returned). If the sequence is unknown, <tt>1</tt> is returned.
+     * @throws HandledException If the system was unable to reserve a block of sequence numbers.
+     */
+    public long generateId(String sequence, int blockSize) {
+        if (blockSize <= 1) {
+            return generateId(sequence);
+        }
+
+        Long id = tryUseReservedBlock(sequence);
+        if (id != null) {
+            return id;
+        }
+
+        // Reserving a block is rare, therefore we do not bother to use a lock per sequence here...
+        synchronized (reservedBlocks) {
+            id = tryUseReservedBlock(sequence);
+            if (id != null) {
+                return id;
+            }
+
+            long firstId = reserveBlock(sequence, blockSize);
+            reservedBlocks.put(sequence, new ReservedBlock(firstId + 1, firstId + blockSize));
+            return firstId;
+        }
+    }
+
+    private Long tryUseReservedBlock(String sequence) {
+        ReservedBlock block = reservedBlocks.get(sequence);
+        if (block == null) {
+            return null;
+        }
+
+        return block.tryAcquire();
+    }
+
+    private long reserveBlock(String sequence, int blockSize) {
         try {
             int retries = 2;
             while (retries-- > 0) {
-                Long id = sequenceStrategy.tryGenerateId(sequence);
+                Long id = sequenceStrategy.tryReserveBlock(sequence, blockSize);
                 if (id != null) {
                     return id;
                 }
@@ -79,7 +176,7 @@ public class Sequences {
                 Wait.randomMillis(50, 100);
             }
 
-            return generateInLock(sequence);
+            return generateInLock(sequence, blockSize);
         } catch (Exception e) {
             throw Exceptions.handle()
                             .to(LOG)
@@ -89,10 +186,10 @@ public class Sequences {
         }
     }
 
-    private long generateInLock(String sequence) throws Exception {
+    private long generateInLock(String sequence, int blockSize) throws Exception {
         if (locks.tryLock("sequence-" + sequence, Duration.ofSeconds(5))) {
             try {
-                Long id = sequenceStrategy.tryGenerateId(sequence);
+                Long id = sequenceStrategy.tryReserveBlock(sequence, blockSize);
                 if (id == null) {
                     throw Exceptions.handle()
                                     .to(LOG)
@@ -128,9 +225,14 @@ public class Sequences {
      *                  value. This is rather dangerous, as it might lead to the generation of duplicate ids. If
      *                  set to <tt>false</tt>, the given <tt>nextValue</tt> has to be higher than the current sequence
      *                  value.
+     *                  <p>
+     *                  Note that the locally reserved block (see {@link #generateId(String, int)}) is discarded,
+     *                  blocks reserved by other nodes are still used up. As these are always below the counter value
+     *                  stored in the database, this is safe unless <tt>force</tt> is used.
      */
     public void setNextValue(String sequence, long nextValue, boolean force) {
         try {
+            reservedBlocks.remove(sequence);
             sequenceStrategy.setNextValue(sequence, nextValue, force);
         } catch (Exception e) {
             throw Exceptions.handle()
@@ -150,11 +252,20 @@ public class Sequences {
      * as there is no guarantee that there isn't a parallel thread which currently acquires the returned value while
      * this method is running.
      *
+     * If a block of ids has been reserved locally via {@link #generateId(String, int)}, the next value of this block is
+     * reported.
+     *
      * @param sequence the sequence to peek the next value for
      * @return the next value for the sequence (unless already acquired by another thread)
      */
     public long peekNextValue(String sequence) {
         try {
+            ReservedBlock block = reservedBlocks.get(sequence);
+            Long nextReservedValue = block == null ? null : block.peek();
+            if (nextReservedValue != null) {
+                return nextReservedValue;
+            }
+
             return sequenceStrategy.peekNextValue(sequence);
         } catch (Exception e) {
             throw Exceptions.handle()
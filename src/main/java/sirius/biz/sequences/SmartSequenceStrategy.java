@@ -69,6 +69,11 @@ public class SmartSequenceStrategy implements SequenceStrategy {
         return getDelegate().tryGenerateId(sequence);
     }
 
+    @Override
+    public Long tryReserveBlock(String sequence, int blockSize) throws Exception {
+        return getDelegate().tryReserveBlock(sequence, blockSize);
+    }
+
     @Override
     public long peekNextValue(String sequence) throws Exception {
         return getDelegate().peekNextValue(sequence);
@@ -45,17 +45,17 @@ public class SQLSequenceStrategy implements SequenceStrategy {
     }
 
     @Override
-    public Long tryGenerateId(String sequence) throws Exception {
+    public Long tryReserveBlock(String sequence, int blockSize) throws Exception {
         awaitReadiness();
 
         // Select the current value which will be returned if all goes well....
         SequenceCounter result = oma.select(SequenceCounter.class).eq(SequenceCounter.NAME, sequence).queryFirst();
         if (result == null) {
-            return createSequence(sequence);
+            return createSequence(sequence, blockSize);
         }
 
         int numRowsChanged = oma.updateStatement(SequenceCounter.class)
-                                .inc(SequenceCounter.NEXT_VALUE)
+                                .set(SequenceCounter.NEXT_VALUE, result.getNextValue() + blockSize)
                                 .where(SequenceCounter.NAME, sequence)
                                 .where(SequenceCounter.NEXT_VALUE, result.getNextValue())
                                 .executeUpdate();
@@ -73,12 +73,12 @@ public class SQLSequenceStrategy implements SequenceStrategy {
         }
     }
 
-    private Long createSequence(String sequence) {
+    private Long createSequence(String sequence, int blockSize) {
         try {
             // Try to create a new record, as no counter is yet present...
             SequenceCounter result = new SequenceCounter();
             result.setName(sequence);
-            result.setNextValue(2);
+            result.setNextValue(1L + blockSize);
             oma.update(result);
             return 1L;
         } catch (HandledException e) {
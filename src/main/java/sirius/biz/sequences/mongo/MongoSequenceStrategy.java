@@ -9,11 +9,16 @@
 package sirius.biz.sequences.mongo;
 
 import com.mongodb.MongoWriteException;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.Updates;
 import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
 import sirius.biz.sequences.SequenceStrategy;
 import sirius.biz.sequences.Sequences;
 import sirius.db.KeyGenerator;
-import sirius.db.mongo.Doc;
+import sirius.db.mixing.Mixing;
 import sirius.db.mongo.Mongo;
 import sirius.db.mongo.QueryBuilder;
 import sirius.db.mongo.Updater;
@@ -43,6 +48,9 @@ public class MongoSequenceStrategy implements SequenceStrategy {
     @Part
     private KeyGenerator keyGen;
 
+    @Part
+    private Mixing mixing;
+
     @Nonnull
     @Override
     public String getName() {
@@ -50,39 +58,28 @@ public class MongoSequenceStrategy implements SequenceStrategy {
     }
 
     @Override
-    public Long tryGenerateId(String sequence) throws Exception {
-        Doc counter = mongo.find()
-                           .where(MongoSequenceCounter.NAME, sequence)
-                           .singleIn(MongoSequenceCounter.class)
-                           .orElse(null);
+    public Long tryReserveBlock(String sequence, int blockSize) throws Exception {
+        // Atomically increments the counter and returns the value before the update, which is the first value of
+        // the reserved block...
+        Document counter = mongo.db()
+                                .getCollection(mixing.getDescriptor(MongoSequenceCounter.class).getRelationName())
+                                .findOneAndUpdate(Filters.eq(MongoSequenceCounter.NAME.toString(), sequence),
+                                                  Updates.inc(MongoSequenceCounter.NEXT_VALUE.toString(), blockSize),
+                                                  new FindOneAndUpdateOptions().returnDocument(ReturnDocument.BEFORE));
 
         if (counter == null) {
-            return createSequence(sequence);
-        }
-
-        long result = counter.get(MongoSequenceCounter.NEXT_VALUE).asLong(-1);
-
-        long numRowsChanged = mongo.update()
-                                   .where(MongoSequenceCounter.NAME, sequence)
-                                   .where(MongoSequenceCounter.NEXT_VALUE, result)
-                                   .set(MongoSequenceCounter.NEXT_VALUE, result + 1)
-                                   .executeForOne(MongoSequenceCounter.class)
-                                   .getModifiedCount();
-
-        if (numRowsChanged == 1) {
-            // Nobody else changed the counter, so we can savely return the determined value...
-            return result;
+            return createSequence(sequence, blockSize);
         }
 
-        return null;
+        return counter.get(MongoSequenceCounter.NEXT_VALUE.toString(), Number.class).longValue();
     }
 
-    private Long createSequence(String sequence) {
+    private Long createSequence(String sequence, int blockSize) {
         try {
             mongo.insert()
                  .set(MongoSequenceCounter.ID, keyGen.generateId())
                  .set(MongoSequenceCounter.NAME, sequence)
-                 .set(MongoSequenceCounter.NEXT_VALUE, 2)
+                 .set(MongoSequenceCounter.NEXT_VALUE, 1L + blockSize)
                  .into(MongoSequenceCounter.class);
 
             return 1L;
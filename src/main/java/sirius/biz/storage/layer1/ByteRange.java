@@ -0,0 +1,141 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.biz.storage.layer1;
+
+import sirius.kernel.commons.Strings;
+import sirius.kernel.commons.Value;
+
+import javax.annotation.Nullable;
+import java.util.Optional;
+
+/**
+ * Represents a single byte range as requested via the HTTP <tt>Range</tt> header.
+ * <p>
+ * Note that only a single range is supported. Requests for multiple ranges are ignored (which is permitted by
+ * RFC 7233), so that the whole object is delivered instead.
+ */
+public class ByteRange {
+
+    private static final String UNIT_BYTES = "bytes=";
+
+    private final long start;
+    private final long end;
+    private final long totalLength;
+
+    private ByteRange(long start, long end, long totalLength) {
+        this.start = start;
+        this.end = end;
+        this.totalLength = totalLength;
+    }
+
+    /**
+     * Parses the given <tt>Range</tt> header for an object of the given length.
+     *
+     * @param header      the header value to parse
+     * @param totalLength the total length of the object being delivered
+     * @return the requested range or an empty optional, if the header is missing, malformed or requests multiple
+     * ranges. If the range cannot be satisfied, a range is returned for which {@link #isSatisfiable()} is
+     * <tt>false</tt>.
+     */
+    public static Optional<ByteRange> parse(@Nullable String header, long totalLength) {
+        if (Strings.isEmpty(header) || !header.trim().startsWith(UNIT_BYTES) || header.contains(",")) {
+            return Optional.empty();
+        }
+
+        String rangeSpec = header.trim().substring(UNIT_BYTES.length()).trim();
+        int separator = rangeSpec.indexOf('-');
+        if (separator < 0) {
+            return Optional.empty();
+        }
+
+        Value firstPosition = Value.of(rangeSpec.substring(0, separator).trim());
+        Value lastPosition = Value.of(rangeSpec.substring(separator + 1).trim());
+        if (firstPosition.isEmptyString()) {
+            return parseSuffixRange(lastPosition, totalLength);
+        }
+
+        long start = firstPosition.asLong(-1);
+        long end = lastPosition.isEmptyString() ? totalLength - 1 : lastPosition.asLong(-1);
+        if (start < 0 || end < 0 || end < start) {
+            return Optional.empty();
+        }
+        if (start >= totalLength) {
+            return Optional.of(new ByteRange(-1, -1, totalLength));
+        }
+
+        return Optional.of(new ByteRange(start, Math.min(end, totalLength - 1), totalLength));
+    }
+
+    private static Optional<ByteRange> parseSuffixRange(Value lastPosition, long totalLength) {
+        long suffixLength = lastPosition.asLong(-1);
+        if (suffixLength < 0) {
+            return Optional.empty();
+        }
+        if (suffixLength == 0 || totalLength == 0) {
+            return Optional.of(new ByteRange(-1, -1, totalLength));
+        }
+
+        return Optional.of(new ByteRange(Math.max(0, totalLength - suffixLength), totalLength - 1, totalLength));
+    }
+
+    /**
+     * Determines if the range can be delivered.
+     *
+     * @return <tt>true</tt> if the range overlaps with the object, <tt>false</tt> if a
+     * <tt>416 Range Not Satisfiable</tt> has to be sent
+     */
+    public boolean isSatisfiable() {
+        return start >= 0;
+    }
+
+    /**
+     * Returns the position of the first byte to deliver.
+     *
+     * @return the (zero based) position of the first byte in the range
+     */
+    public long getStart() {
+        return start;
+    }
+
+    /**
+     * Returns the position of the last byte to deliver.
+     *
+     * @return the (zero based and inclusive) position of the last byte in the range
+     */
+    public long getEnd() {
+        return end;
+    }
+
+    /**
+     * Returns the number of bytes in this range.
+     *
+     * @return the number of bytes to deliver
+     */
+    public long getLength() {
+        return end - start + 1;
+    }
+
+    /**
+     * Creates the value of the <tt>Content-Range</tt> header to send.
+     *
+     * @return the value to send as <tt>Content-Range</tt>
+     */
+    public String toContentRange() {
+        if (!isSatisfiable()) {
+            return "bytes */" + totalLength;
+        }
+
+        return "bytes " + start + "-" + end + "/" + totalLength;
+    }
+
+    @Override
+    public String toString() {
+        return toContentRange();
+    }
+}
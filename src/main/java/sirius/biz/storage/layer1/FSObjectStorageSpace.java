@@ -8,6 +8,7 @@
 
 package sirius.biz.storage.layer1;
 
+import com.google.common.io.ByteStreams;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import sirius.biz.storage.layer1.transformer.ByteBlockTransformer;
 import sirius.biz.storage.layer1.transformer.TransformingInputStream;
@@ -28,9 +29,12 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Path;
 import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardOpenOption;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.time.Instant;
 import java.time.ZoneId;
@@ -280,6 +284,33 @@ public class FSObjectStorageSpace extends ObjectStorageSpace {
         return null;
     }
 
+    @Nullable
+    @Override
+    protected ObjectMetadata fetchPhysicalMetadata(String objectKey) throws IOException {
+        File file = getFile(objectKey);
+        if (file.isHidden() || !file.exists() || !file.isFile()) {
+            return null;
+        }
+
+        return new ObjectMetadata(objectKey,
+                                  Instant.ofEpochMilli(file.lastModified())
+                                         .atZone(ZoneId.systemDefault())
+                                         .toLocalDateTime(),
+                                  file.length());
+    }
+
+    @Override
+    protected InputStream getRangeAsStream(String objectKey, long start, long length) throws IOException {
+        FileChannel channel = FileChannel.open(getFile(objectKey).toPath(), StandardOpenOption.READ);
+        try {
+            channel.position(start);
+            return ByteStreams.limit(Channels.newInputStream(channel), length);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
     @Override
     public void iterateObjects(Predicate<ObjectMetadata> objectHandler) throws IOException {
         java.nio.file.Files.walkFileTree(baseDir.toPath(), new SimpleFileVisitor<Path>() {
@@ -8,6 +8,7 @@
 
 package sirius.biz.storage.layer1;
 
+import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import sirius.biz.storage.layer1.replication.ReplicationManager;
 import sirius.biz.storage.layer1.transformer.ByteBlockTransformer;
@@ -31,11 +32,18 @@ import sirius.kernel.health.Exceptions;
 import sirius.kernel.settings.Extension;
 import sirius.web.http.ChunkedOutputStream;
 import sirius.web.http.Response;
+import sirius.web.http.WebContext;
 
 import javax.annotation.Nullable;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
 import java.util.Optional;
 import java.util.function.BiConsumer;
 import java.util.function.IntConsumer;
@@ -67,10 +75,13 @@ public abstract class ObjectStorageSpace {
     @Part
     private static Tasks tasks;
 
+    private static final String EXECUTOR_DELIVER_LARGE_FILE = "storage-deliver-large-file";
+
     private static final Counter UPLOADS = new Counter();
     private static final Counter DOWNLOADS = new Counter();
     private static final Counter STREAMS = new Counter();
     private static final Counter DELIVERIES = new Counter();
+    private static final Counter PARTIAL_DELIVERIES = new Counter();
     private static final Counter FALLBACKS = new Counter();
     private static final Counter DELIVERY_CLIENT_FAILURES = new Counter();
     private static final Counter DELIVERY_SERVER_FAILURES = new Counter();
@@ -293,6 +304,58 @@ public abstract class ObjectStorageSpace {
     protected abstract void storePhysicalObject(String objectKey, InputStream data, ByteBlockTransformer transformer)
             throws IOException;
 
+    /**
+     * Tries to copy the given object into the given space without transferring its data through this node.
+     * <p>
+     * This is only possible, if both spaces store the data as is (without compression or encryption) and if the
+     * underlying storage engine supports copying objects between the two spaces (e.g. two buckets of the same
+     * S3 store).
+     *
+     * @param objectId      the physical storage key of the object to copy
+     * @param targetSpace   the space to copy the object to
+     * @param contentLength the expected content length of the object
+     * @return <tt>true</tt> if the object has been copied, <tt>false</tt> if the data has to be copied manually
+     */
+    public boolean tryServerSideCopy(String objectId, ObjectStorageSpace targetSpace, long contentLength) {
+        if (hasTransformer() || targetSpace.hasTransformer()) {
+            return false;
+        }
+
+        try {
+            if (!copyPhysicalObject(objectId, targetSpace)) {
+                return false;
+            }
+
+            UPLOADS.inc();
+            replicationManager.notifyAboutUpdate(targetSpace, objectId, contentLength);
+            return true;
+        } catch (IOException e) {
+            throw Exceptions.handle()
+                            .error(e)
+                            .to(StorageUtils.LOG)
+                            .withSystemErrorMessage("Layer 1: An error occurred when copying %s from %s to %s: %s (%s)",
+                                                    objectId,
+                                                    name,
+                                                    targetSpace.getName())
+                            .handle();
+        }
+    }
+
+    /**
+     * Copies the given object into the given space within the underlying storage engine.
+     * <p>
+     * By default, this isn't supported, so that the data is copied by reading and writing it.
+     *
+     * @param objectKey   the physical storage key of the object to copy
+     * @param targetSpace the space to copy the object to
+     * @return <tt>true</tt> if the object has been copied, <tt>false</tt> if copying between the two spaces isn't
+     * supported
+     * @throws IOException in case of an IO error
+     */
+    protected boolean copyPhysicalObject(String objectKey, ObjectStorageSpace targetSpace) throws IOException {
+        return false;
+    }
+
     /**
      * Downloads and provides the contents of the requested object.
      *
@@ -457,6 +520,11 @@ public abstract class ObjectStorageSpace {
      * <p>
      * If replication is active and delivery from the primary storage fails a delivery from the backup space is
      * attempted automatically (for 5XX HTTP errors).
+     * <p>
+     * If the request contains a <tt>Range</tt> header (and, if present, the <tt>If-Range</tt> condition is met), only
+     * the requested part of the object is delivered as <tt>206 Partial Content</tt>. Note that this is only
+     * supported for spaces without compression or encryption, as the transformed data cannot be accessed randomly.
+     * Therefore, only untransformed objects announce their support for ranges via <tt>Accept-Ranges</tt>.
      *
      * @param response          the response to populate
      * @param objectId          the id of the object to deliver
@@ -471,16 +539,111 @@ public abstract class ObjectStorageSpace {
                                       objectId,
                                       createReadTransformer(),
                                       status -> handleHttpError(response, objectId, status, largeFileExpected));
-            } else if (largeFileExpected) {
-                deliverLarge(response, objectId);
             } else {
-                deliverPhysicalObject(response, objectId, status -> handleHttpError(response, objectId, status, false));
+                response.addHeader(HttpHeaderNames.ACCEPT_RANGES, "bytes");
+                if (isRangeRequest(response)) {
+                    deliverRange(response, objectId, largeFileExpected);
+                } else if (largeFileExpected) {
+                    deliverLarge(response, objectId);
+                } else {
+                    deliverPhysicalObject(response,
+                                          objectId,
+                                          status -> handleHttpError(response, objectId, status, false));
+                }
+            }
+        } catch (Exception exception) {
+            handleDeliveryError(response, objectId, exception);
+        }
+    }
+
+    private boolean isRangeRequest(Response response) {
+        return Strings.isFilled(response.getWebContext().getHeader(HttpHeaderNames.RANGE));
+    }
+
+    private void deliverRange(Response response, String objectId, boolean largeFileExpected) {
+        if (!largeFileExpected) {
+            // Small objects (and ranges thereof) are delivered directly, just like a full delivery would be...
+            performRangeDelivery(response, objectId, false);
+            return;
+        }
+
+        response.getWebContext().markAsLongCall();
+        tasks.executor(EXECUTOR_DELIVER_LARGE_FILE).fork(() -> performRangeDelivery(response, objectId, true));
+    }
+
+    private void performRangeDelivery(Response response, String objectId, boolean largeFileExpected) {
+        try {
+            ObjectMetadata metadata = fetchPhysicalMetadata(objectId);
+            if (metadata == null) {
+                handleHttpError(response, objectId, HttpResponseStatus.NOT_FOUND.code(), largeFileExpected);
+                return;
+            }
+
+            WebContext webContext = response.getWebContext();
+            Optional<ByteRange> range =
+                    ByteRange.parse(webContext.getHeader(HttpHeaderNames.RANGE), metadata.getSize());
+            if (range.isEmpty() || !isIfRangeFulfilled(webContext, objectId, metadata)) {
+                deliverPhysicalObject(response,
+                                      objectId,
+                                      status -> handleHttpError(response, objectId, status, largeFileExpected));
+                return;
+            }
+
+            PARTIAL_DELIVERIES.inc();
+            response.addHeader(HttpHeaderNames.CONTENT_RANGE, range.get().toContentRange());
+            if (!range.get().isSatisfiable()) {
+                response.error(HttpResponseStatus.REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+
+            response.addHeader(HttpHeaderNames.ETAG, computeETag(objectId));
+            try (InputStream in = getRangeAsStream(objectId, range.get().getStart(), range.get().getLength());
+                 ChunkedOutputStream out = response.outputStream(HttpResponseStatus.PARTIAL_CONTENT, null)) {
+                out.enableContentionControl();
+                Streams.transfer(in, out);
             }
         } catch (Exception exception) {
             handleDeliveryError(response, objectId, exception);
         }
     }
 
+    /**
+     * Determines if the <tt>If-Range</tt> condition of the request (if present) is fulfilled.
+     * <p>
+     * The condition can either be the entity tag which we sent along with a previous partial response or the last
+     * modification date of the object.
+     *
+     * @param webContext the request to check
+     * @param objectId   the object being requested
+     * @param metadata   the metadata of the object being requested
+     * @return <tt>true</tt> if the requested range can be delivered, <tt>false</tt> if the whole object has to be sent
+     */
+    private boolean isIfRangeFulfilled(WebContext webContext, String objectId, ObjectMetadata metadata) {
+        String ifRange = webContext.getHeader(HttpHeaderNames.IF_RANGE);
+        if (Strings.isEmpty(ifRange)) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return Strings.areEqual(ifRange, computeETag(objectId));
+        }
+
+        try {
+            LocalDateTime validator = ZonedDateTime.parse(ifRange, DateTimeFormatter.RFC_1123_DATE_TIME)
+                                                   .withZoneSameInstant(ZoneId.systemDefault())
+                                                   .toLocalDateTime();
+            return metadata.getLastModified() != null && !metadata.getLastModified()
+                                                                  .truncatedTo(ChronoUnit.SECONDS)
+                                                                  .isAfter(validator);
+        } catch (DateTimeParseException e) {
+            Exceptions.ignore(e);
+            return false;
+        }
+    }
+
+    private String computeETag(String objectId) {
+        return "\"" + objectId + "\"";
+    }
+
     private void handleDeliveryError(Response response, String objectId, Exception exception) {
         try {
             response.error(HttpResponseStatus.INTERNAL_SERVER_ERROR);
@@ -500,7 +663,7 @@ public abstract class ObjectStorageSpace {
     private void deliverLarge(Response response, String objectId) {
         response.getWebContext().markAsLongCall();
 
-        tasks.executor("storage-deliver-large-file").fork(() -> {
+        tasks.executor(EXECUTOR_DELIVER_LARGE_FILE).fork(() -> {
             InputStream input = safeObtainInputStream(objectId, response);
             if (input != null) {
                 try (InputStream in = input; ChunkedOutputStream out = response.outputStream(HttpResponseStatus.OK, null)) {
@@ -565,6 +728,29 @@ public abstract class ObjectStorageSpace {
                                                   ByteBlockTransformer transformer,
                                                   @Nullable IntConsumer failureHandler) throws IOException;
 
+    /**
+     * Fetches the metadata of the given object.
+     * <p>
+     * This is used to determine the total size when delivering a range of the object.
+     *
+     * @param objectKey the object to fetch the metadata for
+     * @return the metadata of the object or <tt>null</tt> if the object doesn't exist
+     * @throws IOException in case of an IO error
+     */
+    @Nullable
+    protected abstract ObjectMetadata fetchPhysicalMetadata(String objectKey) throws IOException;
+
+    /**
+     * Provides the given range of the raw (untransformed) object as stream.
+     *
+     * @param objectKey the object to read
+     * @param start     the position of the first byte to read
+     * @param length    the number of bytes to read
+     * @return a stream which provides the requested range
+     * @throws IOException in case of an IO error
+     */
+    protected abstract InputStream getRangeAsStream(String objectKey, long start, long length) throws IOException;
+
     /**
      * Deletes the physical object in the given bucket with the given id
      *
@@ -697,6 +883,17 @@ public abstract class ObjectStorageSpace {
         return DELIVERIES.getCount();
     }
 
+    /**
+     * Counts the number of deliveries on this node which only delivered a range of the requested object.
+     * <p>
+     * This is mainly exposed by the used by {@link sirius.biz.storage.util.StorageMetrics}.
+     *
+     * @return the number of partial deliveries on this node
+     */
+    public static long getPartialDeliveries() {
+        return PARTIAL_DELIVERIES.getCount();
+    }
+
     /**
      * Counts the number of deliveries which had to use the fallback repository on this node.
      * <p>
@@ -8,7 +8,10 @@
 
 package sirius.biz.storage.layer1;
 
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.GetObjectRequest;
 import com.amazonaws.services.s3.model.S3ObjectInputStream;
+import io.netty.handler.codec.http.HttpResponseStatus;
 import sirius.biz.storage.layer1.transformer.ByteBlockTransformer;
 import sirius.biz.storage.layer1.transformer.TransformingInputStream;
 import sirius.biz.storage.s3.BucketName;
@@ -123,6 +126,16 @@ public class S3ObjectStorageSpace extends ObjectStorageSpace {
         store.deleteObject(bucketName(), objectKey);
     }
 
+    @Override
+    protected boolean copyPhysicalObject(String objectKey, ObjectStorageSpace targetSpace) throws IOException {
+        if (!(targetSpace instanceof S3ObjectStorageSpace s3TargetSpace) || s3TargetSpace.store != store) {
+            return false;
+        }
+
+        store.copyObject(bucketName(), objectKey, s3TargetSpace.bucketName(), objectKey);
+        return true;
+    }
+
     @Override
     protected void deliverPhysicalObject(Response response, String objectKey, IntConsumer failureHandler)
             throws IOException {
@@ -226,6 +239,36 @@ public class S3ObjectStorageSpace extends ObjectStorageSpace {
         return new TransformingInputStream(rawStream, transformer);
     }
 
+    @Nullable
+    @Override
+    protected ObjectMetadata fetchPhysicalMetadata(String objectKey) throws IOException {
+        try {
+            com.amazonaws.services.s3.model.ObjectMetadata metadata =
+                    store.getClient().getObjectMetadata(bucketName().getName(), objectKey);
+            return new ObjectMetadata(objectKey,
+                                      metadata.getLastModified() == null ?
+                                      null :
+                                      metadata.getLastModified()
+                                              .toInstant()
+                                              .atZone(ZoneId.systemDefault())
+                                              .toLocalDateTime(),
+                                      metadata.getContentLength());
+        } catch (AmazonS3Exception e) {
+            if (e.getStatusCode() == HttpResponseStatus.NOT_FOUND.code()) {
+                return null;
+            }
+
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    protected InputStream getRangeAsStream(String objectKey, long start, long length) throws IOException {
+        GetObjectRequest request =
+                new GetObjectRequest(bucketName().getName(), objectKey).withRange(start, start + length - 1);
+        return store.getClient().getObject(request).getObjectContent();
+    }
+
     @Override
     public void iterateObjects(Predicate<ObjectMetadata> objectHandler) throws IOException {
         store.listObjects(bucketName(), null, s3Object -> {
@@ -10,16 +10,23 @@ package sirius.biz.storage.layer1.replication;
 
 import com.alibaba.fastjson.JSONObject;
 import sirius.biz.cluster.work.DistributedTasks;
+import sirius.biz.storage.util.StorageUtils;
 import sirius.db.mixing.BaseEntity;
 import sirius.db.mixing.Mixing;
 import sirius.db.mixing.query.BaseQuery;
+import sirius.kernel.async.Tasks;
 import sirius.kernel.commons.Strings;
 import sirius.kernel.di.std.ConfigValue;
 import sirius.kernel.di.std.Part;
+import sirius.kernel.health.Counter;
+import sirius.kernel.health.Exceptions;
 
 import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 /**
  * Base class for implementing a {@link ReplicationTaskStorage}.
@@ -32,6 +39,11 @@ public abstract class BaseReplicationTaskStorage<T extends BaseEntity<?>, Q exte
 
     protected static final String TRANSACTION_ID = "transactionId";
 
+    /**
+     * Contains the name of the executor which is used to execute the tasks of a batch in parallel.
+     */
+    private static final String EXECUTOR_STORAGE_REPLICATION = "storage-replication";
+
     @ConfigValue("storage.layer1.replication.batchSize")
     protected int batchSize;
 
@@ -50,6 +62,12 @@ public abstract class BaseReplicationTaskStorage<T extends BaseEntity<?>, Q exte
     @ConfigValue("storage.layer1.replication.maxReplicationAttempts")
     protected int maxReplicationAttempts;
 
+    @ConfigValue("storage.layer1.replication.parallelTasks")
+    protected int parallelTasks;
+
+    @Part
+    protected Tasks tasks;
+
     @Part
     private Mixing mixing;
 
@@ -59,6 +77,8 @@ public abstract class BaseReplicationTaskStorage<T extends BaseEntity<?>, Q exte
     @Part
     protected DistributedTasks distributedTasks;
 
+    protected final Counter coalescedTasks = new Counter();
+
     @Override
     public int emitBatches() {
         AtomicInteger numberOfBatches = new AtomicInteger(maxBatches);
@@ -86,8 +106,49 @@ public abstract class BaseReplicationTaskStorage<T extends BaseEntity<?>, Q exte
 
     protected abstract Q queryExecutableTasks();
 
+    /**
+     * Executes the given replication tasks using up to <tt>storage.layer1.replication.parallelTasks</tt> threads.
+     * <p>
+     * Returns once all tasks have been executed.
+     *
+     * @param tasksToExecute the tasks of the batch to execute
+     * @param taskExecutor   the callback which actually executes a single task
+     */
+    protected void executeInParallel(List<T> tasksToExecute, Consumer<T> taskExecutor) {
+        if (parallelTasks <= 1 || tasksToExecute.size() <= 1) {
+            tasksToExecute.forEach(taskExecutor);
+            return;
+        }
+
+        Semaphore permits = new Semaphore(parallelTasks);
+        try {
+            for (T task : tasksToExecute) {
+                permits.acquire();
+                tasks.executor(EXECUTOR_STORAGE_REPLICATION).fork(() -> {
+                    try {
+                        taskExecutor.accept(task);
+                    } catch (Exception e) {
+                        Exceptions.handle(StorageUtils.LOG, e);
+                    } finally {
+                        permits.release();
+                    }
+                });
+            }
+
+            // Wait until all tasks have completed...
+            permits.acquire(parallelTasks);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
     protected abstract void markTaskAsScheduled(T task, String transactionId);
 
+    @Override
+    public long getNumberOfCoalescedTasks() {
+        return coalescedTasks.getCount();
+    }
+
     @Override
     public int countNumberOfScheduledTasks() {
         return distributedTasks.getQueueLength(ReplicationTaskExecutor.REPLICATION_TASK_QUEUE) * batchSize;
@@ -16,6 +16,7 @@ import sirius.kernel.commons.Watch;
 import sirius.kernel.di.std.Part;
 import sirius.kernel.di.std.Register;
 import sirius.kernel.health.Average;
+import sirius.kernel.health.Counter;
 
 import javax.annotation.Nullable;
 import java.io.InputStream;
@@ -48,6 +49,8 @@ public class ReplicationManager {
     private ReplicationTaskStorage taskStorage;
 
     private final Average replicationExecutionDuration = new Average();
+    private final Counter replicatedBytes = new Counter();
+    private final Counter serverSideCopies = new Counter();
 
     /**
      * Initializes the replication relations on the given set (map) of spaces.
@@ -161,11 +164,14 @@ public class ReplicationManager {
         Watch watch = Watch.start();
         if (performDelete) {
             primarySpace.getReplicationSpace().delete(objectId);
+        } else if (primarySpace.tryServerSideCopy(objectId, primarySpace.getReplicationSpace(), contentLength)) {
+            serverSideCopies.inc();
         } else {
             try (InputStream in = primarySpace.getInputStream(objectId)
                                               .orElseThrow(() -> new IllegalStateException("No InputStream is available"))) {
                 primarySpace.getReplicationSpace().upload(objectId, in, contentLength);
             }
+            replicatedBytes.add(contentLength);
         }
         replicationExecutionDuration.addValue(watch.elapsedMillis());
     }
@@ -189,4 +195,25 @@ public class ReplicationManager {
     public Average getReplicationExecutionDuration() {
         return replicationExecutionDuration;
     }
+
+    /**
+     * Returns the number of bytes which have been replicated by streaming them through this node.
+     * <p>
+     * Note that this only counts objects of a known size (spaces which compress or encrypt their data report a
+     * content length of 0).
+     *
+     * @return the number of bytes transferred by this node
+     */
+    public long getReplicatedBytes() {
+        return replicatedBytes.getCount();
+    }
+
+    /**
+     * Returns the number of objects which have been replicated using a server side copy.
+     *
+     * @return the number of replication tasks which didn't need to transfer any data through this node
+     */
+    public long getServerSideCopies() {
+        return serverSideCopies.getCount();
+    }
 }
@@ -11,6 +11,9 @@ package sirius.biz.storage.layer1.replication;
 import com.alibaba.fastjson.JSONObject;
 import sirius.kernel.di.std.AutoRegister;
 
+import java.time.LocalDateTime;
+import java.util.Optional;
+
 /**
  * Defines the database dependent storage repository.
  * <p>
@@ -39,7 +42,9 @@ public interface ReplicationTaskStorage {
     /**
      * Creates a replication task which copies the given object.
      * <p>
-     * Note that all preceeding tasks for this object are cancelled.
+     * Note that if an update of the object is already pending, it is updated instead of creating another task. This
+     * way, an object which is modified several times is only replicated once. Otherwise, all preceeding tasks for
+     * this object are cancelled.
      *
      * @param primarySpace  the space of the original object
      * @param objectId      the id of the original object
@@ -76,6 +81,20 @@ public interface ReplicationTaskStorage {
      */
     int countNumberOfExecutableTasks();
 
+    /**
+     * Determines the point in time at which the oldest executable replication task became due.
+     *
+     * @return the earliest execution timestamp of the oldest executable task or an empty optional if there is none
+     */
+    Optional<LocalDateTime> findOldestExecutableTask();
+
+    /**
+     * Returns the number of modifications which have been merged into an already pending task.
+     *
+     * @return the number of coalesced tasks on this node
+     */
+    long getNumberOfCoalescedTasks();
+
     /**
      * Computes the number of tasks queued for execution.
      *
@@ -21,6 +21,7 @@ import sirius.kernel.health.Exceptions;
 
 import java.sql.SQLException;
 import java.time.LocalDateTime;
+import java.util.Optional;
 
 /**
  * Provides a replication task storage based on the underlying JDBC database.
@@ -55,6 +56,11 @@ public class SQLReplicationTaskStorage
 
     @Override
     public void notifyAboutUpdate(String primarySpace, String objectId, long contentLength) {
+        if (coalesceWithPendingUpdate(primarySpace, objectId, contentLength)) {
+            coalescedTasks.inc();
+            return;
+        }
+
         oma.select(SQLReplicationTask.class)
            .eq(SQLReplicationTask.PRIMARY_SPACE, primarySpace)
            .eq(SQLReplicationTask.OBJECT_KEY, objectId)
@@ -69,6 +75,49 @@ public class SQLReplicationTaskStorage
         oma.update(task);
     }
 
+    /**
+     * Tries to merge the given modification into an update task which is still waiting to be scheduled.
+     * <p>
+     * Note that we keep the earliest execution of the pending task, so that an object which is modified over and over
+     * again is still replicated eventually.
+     *
+     * @param primarySpace  the space of the original object
+     * @param objectId      the id of the original object
+     * @param contentLength the expected content length
+     * @return <tt>true</tt> if a pending task has been updated, <tt>false</tt> if a new task has to be created
+     */
+    private boolean coalesceWithPendingUpdate(String primarySpace, String objectId, long contentLength) {
+        SQLReplicationTask pendingTask = oma.select(SQLReplicationTask.class)
+                                            .eq(SQLReplicationTask.PRIMARY_SPACE, primarySpace)
+                                            .eq(SQLReplicationTask.OBJECT_KEY, objectId)
+                                            .eq(SQLReplicationTask.FAILED, false)
+                                            .eq(SQLReplicationTask.PERFORM_DELETE, false)
+                                            .eq(SQLReplicationTask.SCHEDULED, null)
+                                            .first()
+                                            .orElse(null);
+        if (pendingTask == null) {
+            return false;
+        }
+
+        try {
+            // Only update the task if it hasn't been scheduled in the meantime...
+            return oma.updateStatement(SQLReplicationTask.class)
+                      .set(SQLReplicationTask.CONTENT_LENGTH, contentLength)
+                      .where(SQLReplicationTask.ID, pendingTask.getId())
+                      .where(SQLReplicationTask.SCHEDULED, null)
+                      .executeUpdate() == 1;
+        } catch (SQLException e) {
+            Exceptions.handle()
+                      .to(StorageUtils.LOG)
+                      .error(e)
+                      .withSystemErrorMessage(
+                              "Layer 1/replication: Failed to update SQL replication task %s: %s (%s)",
+                              pendingTask.getId())
+                      .handle();
+            return false;
+        }
+    }
+
     @Override
     protected SmartQuery<SQLReplicationTask> queryExecutableTasks() {
         SmartQuery<SQLReplicationTask> query = oma.select(SQLReplicationTask.class);
@@ -109,7 +158,7 @@ public class SQLReplicationTaskStorage
             SmartQuery<SQLReplicationTask> query = oma.select(SQLReplicationTask.class);
             query.eq(SQLReplicationTask.FAILED, false);
             query.eq(SQLReplicationTask.TRANSACTION_ID, txnId);
-            query.iterateAll(this::executeTask);
+            executeInParallel(query.queryList(), this::executeTask);
         }
     }
 
@@ -126,6 +175,17 @@ public class SQLReplicationTaskStorage
                         .count();
     }
 
+    @Override
+    public Optional<LocalDateTime> findOldestExecutableTask() {
+        return oma.select(SQLReplicationTask.class)
+                  .fields(SQLReplicationTask.EARLIEST_EXECUTION)
+                  .eq(SQLReplicationTask.FAILED, false)
+                  .where(OMA.FILTERS.lt(SQLReplicationTask.EARLIEST_EXECUTION, LocalDateTime.now()))
+                  .orderAsc(SQLReplicationTask.EARLIEST_EXECUTION)
+                  .first()
+                  .map(SQLReplicationTask::getEarliestExecution);
+    }
+
     private void executeTask(SQLReplicationTask task) {
         try {
             replicationManager.executeReplicationTask(task.getPrimarySpace(),
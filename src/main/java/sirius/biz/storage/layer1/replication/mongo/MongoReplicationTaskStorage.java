@@ -22,6 +22,7 @@ import sirius.kernel.di.std.Register;
 import sirius.kernel.health.Exceptions;
 
 import java.time.LocalDateTime;
+import java.util.Optional;
 
 /**
  * Provides a replication task storage based on the underlying MongoDB.
@@ -59,6 +60,11 @@ public class MongoReplicationTaskStorage
 
     @Override
     public void notifyAboutUpdate(String primarySpace, String objectId, long contentLength) {
+        if (coalesceWithPendingUpdate(primarySpace, objectId, contentLength)) {
+            coalescedTasks.inc();
+            return;
+        }
+
         mango.select(MongoReplicationTask.class)
              .eq(MongoReplicationTask.PRIMARY_SPACE, primarySpace)
              .eq(MongoReplicationTask.OBJECT_KEY, objectId)
@@ -73,6 +79,41 @@ public class MongoReplicationTaskStorage
         mango.update(task);
     }
 
+    /**
+     * Tries to merge the given modification into an update task which is still waiting to be scheduled.
+     * <p>
+     * Note that we keep the earliest execution of the pending task, so that an object which is modified over and over
+     * again is still replicated eventually.
+     *
+     * @param primarySpace  the space of the original object
+     * @param objectId      the id of the original object
+     * @param contentLength the expected content length
+     * @return <tt>true</tt> if a pending task has been updated, <tt>false</tt> if a new task has to be created
+     */
+    private boolean coalesceWithPendingUpdate(String primarySpace, String objectId, long contentLength) {
+        try {
+            return mongo.update()
+                        .set(MongoReplicationTask.CONTENT_LENGTH, contentLength)
+                        .where(MongoReplicationTask.PRIMARY_SPACE, primarySpace)
+                        .where(MongoReplicationTask.OBJECT_KEY, objectId)
+                        .where(MongoReplicationTask.FAILED, false)
+                        .where(MongoReplicationTask.PERFORM_DELETE, false)
+                        .where(MongoReplicationTask.SCHEDULED, null)
+                        .executeForOne(MongoReplicationTask.class)
+                        .getMatchedCount() > 0;
+        } catch (Exception e) {
+            Exceptions.handle()
+                      .to(StorageUtils.LOG)
+                      .error(e)
+                      .withSystemErrorMessage(
+                              "Layer 1/replication: Failed to update MongoDB replication task for %s in %s: %s (%s)",
+                              objectId,
+                              primarySpace)
+                      .handle();
+            return false;
+        }
+    }
+
     @Override
     protected MongoQuery<MongoReplicationTask> queryExecutableTasks() {
         MongoQuery<MongoReplicationTask> query = mango.select(MongoReplicationTask.class);
@@ -115,7 +156,7 @@ public class MongoReplicationTaskStorage
             MongoQuery<MongoReplicationTask> query = mango.select(MongoReplicationTask.class);
             query.eq(MongoReplicationTask.FAILED, false);
             query.eq(MongoReplicationTask.TRANSACTION_ID, txnId);
-            query.iterateAll(this::executeTask);
+            executeInParallel(query.queryList(), this::executeTask);
         }
     }
 
@@ -132,6 +173,17 @@ public class MongoReplicationTaskStorage
                           .count();
     }
 
+    @Override
+    public Optional<LocalDateTime> findOldestExecutableTask() {
+        return mango.select(MongoReplicationTask.class)
+                    .fields(MongoReplicationTask.EARLIEST_EXECUTION)
+                    .eq(MongoReplicationTask.FAILED, false)
+                    .where(QueryBuilder.FILTERS.lt(MongoReplicationTask.EARLIEST_EXECUTION, LocalDateTime.now()))
+                    .orderAsc(MongoReplicationTask.EARLIEST_EXECUTION)
+                    .first()
+                    .map(MongoReplicationTask::getEarliestExecution);
+    }
+
     private void executeTask(MongoReplicationTask task) {
         try {
             replicationManager.executeReplicationTask(task.getPrimarySpace(),
@@ -18,11 +18,18 @@ import java.util.Optional;
  * Transforms a given {@link ByteBuf} into another.
  * <p>
  * This can e.g. be used to encrypt or ZIP a chunk of data while transferring it.
+ * <p>
+ * The input buffers remain owned by the caller, which can therefore re-use them once the method returns. The result
+ * buffers are owned by the caller as well and have to be released once they have been processed. Transformers
+ * should obtain their result buffers from {@link TransformingInputStream#BUFFER_ALLOCATOR} so that these are
+ * pooled.
  */
 public interface ByteBlockTransformer {
 
     /**
      * Transforms the given input buffer.
+     * <p>
+     * Note that all readable bytes of the input buffer have to be consumed by this method.
      *
      * @param input the buffer to transform
      * @return either a result buffer or an empty optional if the transformer needs more input data to generate an
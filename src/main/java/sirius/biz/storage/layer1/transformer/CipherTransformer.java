@@ -9,12 +9,13 @@
 package sirius.biz.storage.layer1.transformer;
 
 import io.netty.buffer.ByteBuf;
-import io.netty.buffer.Unpooled;
 
 import javax.crypto.BadPaddingException;
 import javax.crypto.Cipher;
 import javax.crypto.IllegalBlockSizeException;
+import javax.crypto.ShortBufferException;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Optional;
 
 /**
@@ -22,6 +23,8 @@ import java.util.Optional;
  */
 public class CipherTransformer implements ByteBlockTransformer {
 
+    private static final ByteBuffer EMPTY_INPUT = ByteBuffer.allocate(0);
+
     private final Cipher cipher;
 
     /**
@@ -39,35 +42,43 @@ public class CipherTransformer implements ByteBlockTransformer {
             return Optional.empty();
         }
 
-        byte[] buffer = applyCipher(input);
-        if (buffer.length > 0) {
-            return Optional.of(Unpooled.wrappedBuffer(buffer));
-        } else {
-            return Optional.empty();
+        ByteBuf output =
+                TransformingInputStream.BUFFER_ALLOCATOR.heapBuffer(cipher.getOutputSize(input.readableBytes()));
+        try {
+            int outputLength = cipher.update(input.nioBuffer(), output.nioBuffer(0, output.capacity()));
+            input.skipBytes(input.readableBytes());
+            output.writerIndex(outputLength);
+        } catch (ShortBufferException e) {
+            output.release();
+            throw new IOException("Invalid cipher output size", e);
         }
-    }
 
-    protected byte[] applyCipher(ByteBuf input) {
-        if (input.hasArray()) {
-            return cipher.update(input.array(), input.arrayOffset(), input.readableBytes());
-        } else {
-            byte[] localBuffer = new byte[input.readableBytes()];
-            input.readBytes(localBuffer);
-            return cipher.update(localBuffer);
-        }
+        return emitIfReadable(output);
     }
 
     @Override
     public Optional<ByteBuf> complete() throws IOException {
+        ByteBuf output = TransformingInputStream.BUFFER_ALLOCATOR.heapBuffer(cipher.getOutputSize(0));
         try {
-            byte[] buffer = cipher.doFinal();
-            if (buffer.length > 0) {
-                return Optional.of(Unpooled.wrappedBuffer(buffer));
-            } else {
-                return Optional.empty();
-            }
+            int outputLength = cipher.doFinal(EMPTY_INPUT, output.nioBuffer(0, output.capacity()));
+            output.writerIndex(outputLength);
         } catch (IllegalBlockSizeException | BadPaddingException e) {
+            output.release();
             throw new IOException("Invalid cipher data", e);
+        } catch (ShortBufferException e) {
+            output.release();
+            throw new IOException("Invalid cipher output size", e);
         }
+
+        return emitIfReadable(output);
+    }
+
+    private Optional<ByteBuf> emitIfReadable(ByteBuf output) {
+        if (output.isReadable()) {
+            return Optional.of(output);
+        }
+
+        output.release();
+        return Optional.empty();
     }
 }
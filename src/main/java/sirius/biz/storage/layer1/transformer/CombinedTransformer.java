@@ -9,7 +9,6 @@
 package sirius.biz.storage.layer1.transformer;
 
 import io.netty.buffer.ByteBuf;
-import io.netty.buffer.Unpooled;
 
 import javax.annotation.Nonnull;
 import java.io.IOException;
@@ -44,7 +43,8 @@ public class CombinedTransformer implements ByteBlockTransformer {
         ByteBuf secondResult = second.complete().orElse(null);
 
         if (firstResult != null && secondResult != null) {
-            ByteBuf combinedResult = Unpooled.buffer(firstResult.readableBytes() + secondResult.readableBytes());
+            ByteBuf combinedResult = TransformingInputStream.BUFFER_ALLOCATOR.heapBuffer(firstResult.readableBytes()
+                                                                                         + secondResult.readableBytes());
             combinedResult.writeBytes(firstResult);
             combinedResult.writeBytes(secondResult);
             firstResult.release();
@@ -60,11 +60,22 @@ public class CombinedTransformer implements ByteBlockTransformer {
         }
     }
 
+    /**
+     * Applies the second transformer on the output of the first one.
+     * <p>
+     * Note that the intermediate buffer is released once it has been processed, so that it can be re-used by
+     * the buffer pool.
+     *
+     * @param intermediateBuffer the output of the first transformer
+     * @return the output of the second transformer
+     */
     protected Optional<ByteBuf> forwardToSecond(ByteBuf intermediateBuffer) {
         try {
             return second.apply(intermediateBuffer);
         } catch (IOException e) {
             throw new IllegalStateException(e);
+        } finally {
+            intermediateBuffer.release();
         }
     }
 }
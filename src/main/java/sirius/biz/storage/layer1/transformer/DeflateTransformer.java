@@ -9,7 +9,6 @@
 package sirius.biz.storage.layer1.transformer;
 
 import io.netty.buffer.ByteBuf;
-import io.netty.buffer.Unpooled;
 
 import java.io.IOException;
 import java.util.Optional;
@@ -17,17 +16,18 @@ import java.util.zip.Deflater;
 
 /**
  * Compresses the given input data using a {@link Deflater}.
+ * <p>
+ * The deflater directly reads from the input buffer and writes into a pooled output buffer, therefore no
+ * intermediate copies are required.
  */
 public class DeflateTransformer implements ByteBlockTransformer {
 
-    private final Deflater deflater;
-
     /**
-     * This is a shared buffer which is only used to transfer data from the deflater into the effective output buffer.
-     * Being oly used within a method call, we can keep a reusable instance around instead of re-creating one
-     * each time.
+     * Specifies the min number of bytes to make available in the output buffer before invoking the deflater.
      */
-    private final byte[] deflateBuffer = new byte[TransformingInputStream.DEFAULT_BUFFER_SIZE];
+    private static final int MIN_WRITABLE_BYTES = 1024;
+
+    private final Deflater deflater;
 
     /**
      * Creates a new trasformer using the given compression level.
@@ -40,25 +40,27 @@ public class DeflateTransformer implements ByteBlockTransformer {
 
     @Override
     public Optional<ByteBuf> apply(ByteBuf input) throws IOException {
-        if (input.hasArray()) {
-            deflater.setInput(input.array(), input.arrayOffset(), input.readableBytes());
-        } else {
-            byte[] localBuffer = new byte[input.readableBytes()];
-            input.readBytes(localBuffer);
-            deflater.setInput(localBuffer);
-        }
-
-        if (deflater.needsInput()) {
+        if (!input.isReadable()) {
             return Optional.empty();
         }
 
-        ByteBuf outputBuffer = Unpooled.buffer(TransformingInputStream.DEFAULT_BUFFER_SIZE);
+        deflater.setInput(input.nioBuffer());
+        input.skipBytes(input.readableBytes());
+
+        ByteBuf outputBuffer =
+                TransformingInputStream.BUFFER_ALLOCATOR.heapBuffer(TransformingInputStream.DEFAULT_BUFFER_SIZE);
         while (!deflater.needsInput()) {
-            int outputLength = deflater.deflate(deflateBuffer);
-            outputBuffer.writeBytes(deflateBuffer, 0, outputLength);
+            deflateInto(outputBuffer);
         }
 
-        return Optional.of(outputBuffer);
+        return emitIfReadable(outputBuffer);
+    }
+
+    private void deflateInto(ByteBuf outputBuffer) {
+        outputBuffer.ensureWritable(MIN_WRITABLE_BYTES);
+        int outputLength =
+                deflater.deflate(outputBuffer.nioBuffer(outputBuffer.writerIndex(), outputBuffer.writableBytes()));
+        outputBuffer.writerIndex(outputBuffer.writerIndex() + outputLength);
     }
 
     @Override
@@ -68,11 +70,21 @@ public class DeflateTransformer implements ByteBlockTransformer {
             return Optional.empty();
         }
 
-        ByteBuf outputBuffer = Unpooled.buffer(TransformingInputStream.DEFAULT_BUFFER_SIZE);
+        ByteBuf outputBuffer =
+                TransformingInputStream.BUFFER_ALLOCATOR.heapBuffer(TransformingInputStream.DEFAULT_BUFFER_SIZE);
         while (!deflater.finished()) {
-            int outputLength = deflater.deflate(deflateBuffer);
-            outputBuffer.writeBytes(deflateBuffer, 0, outputLength);
+            deflateInto(outputBuffer);
         }
-        return Optional.of(outputBuffer);
+
+        return emitIfReadable(outputBuffer);
+    }
+
+    private Optional<ByteBuf> emitIfReadable(ByteBuf outputBuffer) {
+        if (outputBuffer.isReadable()) {
+            return Optional.of(outputBuffer);
+        }
+
+        outputBuffer.release();
+        return Optional.empty();
     }
 }
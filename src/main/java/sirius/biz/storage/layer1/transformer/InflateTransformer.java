@@ -9,7 +9,6 @@
 package sirius.biz.storage.layer1.transformer;
 
 import io.netty.buffer.ByteBuf;
-import io.netty.buffer.Unpooled;
 
 import java.io.IOException;
 import java.util.Optional;
@@ -18,43 +17,47 @@ import java.util.zip.Inflater;
 
 /**
  * Uncompresses data which has previously been compressed by a {@link DeflateTransformer}.
+ * <p>
+ * The inflater directly reads from the input buffer and writes into a pooled output buffer, therefore no
+ * intermediate copies are required.
  */
 public class InflateTransformer implements ByteBlockTransformer {
 
-    private final Inflater inflater = new Inflater();
-
     /**
-     * This is a shared buffer which is only used to transfer data from the inflater into the effective output buffer.
-     * Being only used within a method call, we can keep a reusable instance around instead of re-creating one
-     * each time.
+     * Specifies the min number of bytes to make available in the output buffer before invoking the inflater.
      */
-    private final byte[] inflateBuffer = new byte[TransformingInputStream.DEFAULT_BUFFER_SIZE];
+    private static final int MIN_WRITABLE_BYTES = 4096;
+
+    private final Inflater inflater = new Inflater();
 
     @Override
     public Optional<ByteBuf> apply(ByteBuf input) throws IOException {
-        if (input.hasArray()) {
-            inflater.setInput(input.array(), input.arrayOffset(), input.readableBytes());
-        } else {
-            byte[] localBuffer = new byte[input.readableBytes()];
-            input.readBytes(localBuffer);
-            inflater.setInput(localBuffer);
-        }
-
-        if (inflater.needsInput()) {
+        if (!input.isReadable()) {
             return Optional.empty();
         }
 
-        ByteBuf outputBuffer = Unpooled.buffer(TransformingInputStream.DEFAULT_BUFFER_SIZE);
-        while (!inflater.needsInput()) {
-            try {
-                int outputLength = inflater.inflate(inflateBuffer);
-                outputBuffer.writeBytes(inflateBuffer, 0, outputLength);
-            } catch (DataFormatException e) {
-                throw new IOException(e);
-            }
+        inflater.setInput(input.nioBuffer());
+        input.skipBytes(input.readableBytes());
+
+        ByteBuf outputBuffer =
+                TransformingInputStream.BUFFER_ALLOCATOR.heapBuffer(TransformingInputStream.DEFAULT_BUFFER_SIZE);
+        while (!inflater.needsInput() && !inflater.finished()) {
+            inflateInto(outputBuffer);
         }
 
-        return Optional.of(outputBuffer);
+        return emitIfReadable(outputBuffer);
+    }
+
+    private void inflateInto(ByteBuf outputBuffer) throws IOException {
+        try {
+            outputBuffer.ensureWritable(MIN_WRITABLE_BYTES);
+            int outputLength =
+                    inflater.inflate(outputBuffer.nioBuffer(outputBuffer.writerIndex(), outputBuffer.writableBytes()));
+            outputBuffer.writerIndex(outputBuffer.writerIndex() + outputLength);
+        } catch (DataFormatException e) {
+            outputBuffer.release();
+            throw new IOException(e);
+        }
     }
 
     @Override
@@ -63,19 +66,25 @@ public class InflateTransformer implements ByteBlockTransformer {
             return Optional.empty();
         }
 
-        ByteBuf outputBuffer = Unpooled.buffer(TransformingInputStream.DEFAULT_BUFFER_SIZE);
+        ByteBuf outputBuffer =
+                TransformingInputStream.BUFFER_ALLOCATOR.heapBuffer(TransformingInputStream.DEFAULT_BUFFER_SIZE);
         while (!inflater.finished()) {
             if (inflater.needsInput()) {
+                outputBuffer.release();
                 throw new IllegalStateException("Inflater needs input in complete!");
             }
-            try {
-                int outputLength = inflater.inflate(inflateBuffer);
-                outputBuffer.writeBytes(inflateBuffer, 0, outputLength);
-            } catch (DataFormatException e) {
-                throw new IOException(e);
-            }
+            inflateInto(outputBuffer);
+        }
+
+        return emitIfReadable(outputBuffer);
+    }
+
+    private Optional<ByteBuf> emitIfReadable(ByteBuf outputBuffer) {
+        if (outputBuffer.isReadable()) {
+            return Optional.of(outputBuffer);
         }
 
-        return Optional.of(outputBuffer);
+        outputBuffer.release();
+        return Optional.empty();
     }
 }
@@ -9,6 +9,8 @@
 package sirius.biz.storage.layer1.transformer;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.buffer.Unpooled;
 
 import java.io.IOException;
@@ -16,6 +18,10 @@ import java.io.InputStream;
 
 /**
  * Wraps an {@link InputStream} and applies a {@link ByteBlockTransformer} while shoveling data.
+ * <p>
+ * The input data is read into a single pooled buffer which is re-used for each block. The buffers emitted by
+ * the transformer are released as soon as they have been consumed. Therefore, the stream should always be
+ * {@link #close() closed} so that all buffers are handed back to the pool.
  */
 public class TransformingInputStream extends InputStream {
 
@@ -24,8 +30,17 @@ public class TransformingInputStream extends InputStream {
      */
     public static final int DEFAULT_BUFFER_SIZE = 8192;
 
+    /**
+     * Contains the allocator used for all buffers created by the transformers and this stream.
+     * <p>
+     * Note that we use pooled heap buffers here, as both, the consumers of an input stream and the JCE ciphers,
+     * operate on byte arrays. Using direct buffers would therefore only add additional copies.
+     */
+    public static final ByteBufAllocator BUFFER_ALLOCATOR = PooledByteBufAllocator.DEFAULT;
+
     private InputStream sourceStream;
     private final ByteBlockTransformer transformer;
+    private ByteBuf inputBuffer;
     private ByteBuf buffer = Unpooled.EMPTY_BUFFER;
 
     /**
@@ -41,40 +56,75 @@ public class TransformingInputStream extends InputStream {
 
     @Override
     public int read() throws IOException {
-        byte[] singleByteBuffer = new byte[1];
-        int bytesRead = read(singleByteBuffer, 0, 1);
-        return bytesRead == 1 ? singleByteBuffer[0] : -1;
+        if (!ensureReadable()) {
+            return -1;
+        }
+
+        return buffer.readByte() & 0xFF;
     }
 
     @Override
     public int read(byte[] b, int off, int len) throws IOException {
-        if (sourceStream == null && !buffer.isReadable()) {
-            buffer.release();
+        if (len == 0) {
+            return 0;
+        }
+        if (!ensureReadable()) {
             return -1;
         }
 
-        while (sourceStream != null && !buffer.isReadable()) {
+        int bytesToRead = Math.min(len, buffer.readableBytes());
+        buffer.readBytes(b, off, bytesToRead);
+        return bytesToRead;
+    }
+
+    private boolean ensureReadable() throws IOException {
+        while (!buffer.isReadable()) {
             buffer.release();
+            buffer = Unpooled.EMPTY_BUFFER;
 
-            byte[] readBuffer = new byte[DEFAULT_BUFFER_SIZE];
-            int sourceBytesRead = sourceStream.read(readBuffer);
-            if (sourceBytesRead < 0) {
-                sourceStream.close();
-                sourceStream = null;
-                buffer = transformer.complete().orElse(Unpooled.EMPTY_BUFFER);
-                if (!buffer.isReadable()) {
-                    buffer.release();
-                    return -1;
-                }
-            } else if (sourceBytesRead > 0) {
-                ByteBuf input = Unpooled.wrappedBuffer(readBuffer, 0, sourceBytesRead);
-                buffer = transformer.apply(input).orElse(Unpooled.EMPTY_BUFFER);
-                input.release();
+            if (sourceStream == null) {
+                releaseInputBuffer();
+                return false;
             }
+
+            transformNextBlock();
         }
 
-        int bytesToRead = Math.min(len, buffer.readableBytes());
-        buffer.readBytes(b, off, bytesToRead);
-        return bytesToRead;
+        return true;
+    }
+
+    private void transformNextBlock() throws IOException {
+        if (inputBuffer == null) {
+            inputBuffer = BUFFER_ALLOCATOR.heapBuffer(DEFAULT_BUFFER_SIZE, DEFAULT_BUFFER_SIZE);
+        }
+
+        inputBuffer.clear();
+        int sourceBytesRead = inputBuffer.writeBytes(sourceStream, DEFAULT_BUFFER_SIZE);
+        if (sourceBytesRead < 0) {
+            sourceStream.close();
+            sourceStream = null;
+            buffer = transformer.complete().orElse(Unpooled.EMPTY_BUFFER);
+        } else if (sourceBytesRead > 0) {
+            buffer = transformer.apply(inputBuffer).orElse(Unpooled.EMPTY_BUFFER);
+        }
+    }
+
+    private void releaseInputBuffer() {
+        if (inputBuffer != null) {
+            inputBuffer.release();
+            inputBuffer = null;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        buffer.release();
+        buffer = Unpooled.EMPTY_BUFFER;
+        releaseInputBuffer();
+
+        if (sourceStream != null) {
+            sourceStream.close();
+            sourceStream = null;
+        }
     }
 }
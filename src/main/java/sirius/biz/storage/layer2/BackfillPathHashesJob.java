@@ -0,0 +1,71 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.biz.storage.layer2;
+
+import sirius.biz.jobs.batch.SimpleBatchProcessJobFactory;
+import sirius.biz.jobs.params.Parameter;
+import sirius.biz.jobs.params.SelectStringParameter;
+import sirius.biz.process.ProcessContext;
+import sirius.biz.storage.util.StorageUtils;
+import sirius.biz.tenants.TenantUserManager;
+import sirius.kernel.di.std.Part;
+import sirius.kernel.di.std.Register;
+import sirius.kernel.nls.NLS;
+import sirius.web.security.Permission;
+
+import javax.annotation.Nonnull;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Computes the path hashes of all {@link Directory directories} and {@link Blob blobs} of a given
+ * {@link BlobStorageSpace}.
+ * <p>
+ * This has to be executed once for each space which has been created before path hashes were introduced. Until then,
+ * paths are still resolved segment by segment (and the hashes of the resolved blobs are repaired along the way).
+ */
+@Register(framework = StorageUtils.FRAMEWORK_STORAGE)
+@Permission(TenantUserManager.PERMISSION_SYSTEM_ADMINISTRATOR)
+public class BackfillPathHashesJob extends SimpleBatchProcessJobFactory {
+
+    private static final String PARAMETER_SPACE = "space";
+
+    @Part
+    private BlobStorage blobStorage;
+
+    @Override
+    protected void collectParameters(Consumer<Parameter<?>> parameterCollector) {
+        SelectStringParameter spaceParameter =
+                new SelectStringParameter(PARAMETER_SPACE, "$BackfillPathHashesJob.space").markRequired();
+        blobStorage.getSpaces()
+                   .map(BlobStorageSpace::getName)
+                   .forEach(spaceName -> spaceParameter.withEntry(spaceName, spaceName));
+
+        parameterCollector.accept(spaceParameter.build());
+    }
+
+    @Override
+    protected String createProcessTitle(Map<String, String> context) {
+        return NLS.fmtr("BackfillPathHashesJob.jobTitle").set(PARAMETER_SPACE, context.get(PARAMETER_SPACE)).format();
+    }
+
+    @Override
+    protected void execute(ProcessContext process) throws Exception {
+        BlobStorageSpace space = blobStorage.getSpace(process.getContext().get(PARAMETER_SPACE));
+        if (space instanceof BasicBlobStorageSpace<?, ?, ?> basicSpace) {
+            basicSpace.backfillPathHashes(process);
+        }
+    }
+
+    @Nonnull
+    @Override
+    public String getName() {
+        return "backfill-layer2-path-hashes";
+    }
+}
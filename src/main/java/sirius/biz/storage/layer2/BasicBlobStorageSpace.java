@@ -8,9 +8,11 @@
 
 package sirius.biz.storage.layer2;
 
+import com.google.common.hash.Hashing;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import sirius.biz.analytics.events.EventRecorder;
 import sirius.biz.locks.Locks;
+import sirius.biz.process.ProcessContext;
 import sirius.biz.storage.layer1.FileHandle;
 import sirius.biz.storage.layer1.ObjectStorage;
 import sirius.biz.storage.layer1.ObjectStorageSpace;
@@ -32,6 +34,7 @@ import sirius.kernel.commons.Streams;
 import sirius.kernel.commons.Strings;
 import sirius.kernel.commons.Tuple;
 import sirius.kernel.commons.Wait;
+import sirius.kernel.commons.Watch;
 import sirius.kernel.di.std.ConfigValue;
 import sirius.kernel.di.std.Part;
 import sirius.kernel.health.Exceptions;
@@ -53,9 +56,11 @@ import java.net.ConnectException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
 import java.text.Normalizer;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -64,6 +69,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
+import java.util.stream.Stream;
 
 /**
  * Represents a base implementation for a layer 2 storage space which manages {@link Blob blobs} and
@@ -86,6 +92,14 @@ public abstract class BasicBlobStorageSpace<B extends Blob & OptimisticCreate, D
      */
     private static final int NUMBER_OF_ATTEMPTS_TO_WAIT_FOR_CONVERSION = 4;
 
+    /**
+     * Specifies the maximal number of candidates to verify when resolving a path via its path hash.
+     * <p>
+     * There might be more than one candidate per hash, as the hashes of the children of a renamed or moved directory
+     * are only updated by the {@link ProcessBlobChangesLoop}.
+     */
+    private static final int MAX_PATH_HASH_CANDIDATES = 5;
+
     /**
      * Specifies the number of milliseconds to wait for a conversion (note that we do this up to
      * NUMBER_OF_ATTEMPTS_TO_WAIT_FOR_CONVERSION times).
@@ -160,6 +174,13 @@ public abstract class BasicBlobStorageSpace<B extends Blob & OptimisticCreate, D
      */
     private static final String CONFIG_KEY_SORT_BY_LAST_MODIFIED = "sortByLastModified";
 
+    /**
+     * Separates the id and the sort value of a child within a continuation.
+     * <p>
+     * As ids never contain this character, we can safely split at its first occurrence.
+     */
+    private static final String CONTINUATION_SEPARATOR = "|";
+
     /**
      * Contains the name of the executor in which requests are moved which might be blocked while waiting for
      * a conversion to happen. We do not want to jam our main executor of the web server for this, therefore
@@ -226,6 +247,9 @@ public abstract class BasicBlobStorageSpace<B extends Blob & OptimisticCreate, D
     @Nullable
     protected static TouchWritebackLoop touchWritebackLoop;
 
+    @Part
+    protected static BlobPathCache blobPathCache;
+
     @ConfigValue("storage.layer2.conversion.enabled")
     protected static boolean conversionEnabled;
 
@@ -258,11 +282,6 @@ public abstract class BasicBlobStorageSpace<B extends Blob & OptimisticCreate, D
     protected static Cache<String, String> blobKeyToPhysicalCache =
             CacheManager.createCoherentCache("storage-physical-keys");
 
-    /**
-     * Caches the {@link Blob blobs} that belong to certain paths
-     */
-    protected static Cache<String, Blob> blobByPathCache = CacheManager.createCoherentCache("storage-paths");
-
     protected final Extension config;
     protected final String description;
     protected String spaceName;
@@ -423,16 +442,170 @@ public abstract class BasicBlobStorageSpace<B extends Blob & OptimisticCreate, D
             return Optional.empty();
         }
 
-        return Optional.ofNullable(blobByPathCache.get(determinePathCacheKey(tenantId, sanitizedPath),
-                                                       ignored -> fetchByPath(tenantId, sanitizedPath)));
+        return Optional.ofNullable(blobPathCache.get(spaceName,
+                                                     tenantId,
+                                                     determineEffectivePath(sanitizedPath),
+                                                     ignored -> fetchByPath(tenantId, sanitizedPath)));
     }
 
     @Nonnull
-    private String determinePathCacheKey(String tenantId, String path) {
-        return spaceName + "-" + tenantId + "-" + (useNormalizedNames ? path.toLowerCase() : path);
+    private String determineEffectivePath(String path) {
+        return useNormalizedNames ? path.toLowerCase() : path;
+    }
+
+    /**
+     * Determines the path of the given directory relative to the root directory of its tenant.
+     * <p>
+     * This is the path as used by {@link #findByPath(String, String)} and therefore by the {@link BlobPathCache}.
+     *
+     * @param directory the directory to determine the path for
+     * @return the effective path of the directory without a leading or trailing "/". The root directory is
+     * represented by an empty string
+     */
+    @Nonnull
+    private String determineCachedDirectoryPath(@Nonnull Directory directory) {
+        List<String> names = new ArrayList<>();
+        Directory current = directory;
+        while (current.getParent() != null) {
+            names.add(0, current.getName());
+            current = current.getParent();
+        }
+
+        return determineEffectivePath(String.join("/", names));
+    }
+
+    /**
+     * Invalidates the cached paths within the given directory.
+     *
+     * @param directory the directory to invalidate the cached paths for
+     * @param recursive <tt>true</tt> to also invalidate all sub directories
+     */
+    private void invalidateCachedPaths(@Nullable Directory directory, boolean recursive) {
+        if (directory != null) {
+            blobPathCache.invalidate(spaceName,
+                                     directory.getTenantId(),
+                                     determineCachedDirectoryPath(directory),
+                                     recursive);
+        }
+    }
+
+    /**
+     * Computes the path hash for the given path.
+     * <p>
+     * The path hash is a hash of the lowercase path relative to the root directory of the tenant. It is stored in
+     * each directory and blob, so that a path can be resolved using a single indexed lookup instead of one lookup per
+     * path segment.
+     *
+     * @param path the path to compute the hash for
+     * @return the hash of the given path
+     */
+    @Nonnull
+    private String computePathHash(@Nonnull String path) {
+        return Hashing.murmur3_128().hashString(path.toLowerCase(), StandardCharsets.UTF_8).toString();
+    }
+
+    /**
+     * Computes the path hash of a directory or blob with the given name in the given parent directory.
+     *
+     * @param parent the parent directory of the directory or blob
+     * @param name   the name of the directory or blob
+     * @return the path hash to store or <tt>null</tt> if there is no parent directory or name (e.g. for root
+     * directories or attached blobs)
+     */
+    @Nullable
+    protected String computePathHash(@Nullable Directory parent, @Nullable String name) {
+        String sanitizedName = utils.sanitizePath(name);
+        if (parent == null || Strings.isEmpty(sanitizedName)) {
+            return null;
+        }
+
+        String parentPath = determineCachedDirectoryPath(parent);
+        return computePathHash(Strings.isEmpty(parentPath) ? sanitizedName : parentPath + "/" + sanitizedName);
+    }
+
+    /**
+     * Determines the effective path of a directory or blob by walking up its parent directories.
+     * <p>
+     * In contrast to {@link #determineCachedDirectoryPath(Directory)} this also ensures that none of the parent
+     * directories has been deleted.
+     *
+     * @param parent the parent directory of the directory or blob
+     * @param name   the name of the directory or blob
+     * @return the effective path or <tt>null</tt> if one of the parents has been deleted or is detached
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    @Explain("All directories of this space are of type D.")
+    private String determineVerifiedPath(@Nullable Directory parent, @Nullable String name) {
+        if (parent == null || Strings.isEmpty(name)) {
+            return null;
+        }
+
+        List<String> names = new ArrayList<>();
+        names.add(name);
+        Directory current = parent;
+        while (!current.isRoot()) {
+            if (isDirectoryDeleted((D) current)) {
+                return null;
+            }
+            names.add(0, current.getName());
+            current = current.getParent();
+            if (current == null) {
+                return null;
+            }
+        }
+
+        return determineEffectivePath(String.join("/", names));
+    }
+
+    /**
+     * Tries to resolve the given path to a blob using a single lookup by its path hash.
+     *
+     * @param tenantId the tenant to resolve the path for
+     * @param path     the sanitized path to resolve
+     * @return the blob with the given path or <tt>null</tt> if no blob with a matching path hash exists
+     */
+    @Nullable
+    private B findBlobByPathHash(String tenantId, @Nonnull String path) {
+        String effectivePath = determineEffectivePath(path);
+        for (B candidate : findBlobsByPathHash(tenantId, computePathHash(path), MAX_PATH_HASH_CANDIDATES)) {
+            String candidatePath = determineVerifiedPath(candidate.getParent(), candidate.getFilename());
+            if (Strings.areEqual(effectivePath, candidatePath)) {
+                return candidate;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Tries to resolve the given path to a directory using a single lookup by its path hash.
+     *
+     * @param tenantId the tenant to resolve the path for
+     * @param path     the sanitized path to resolve
+     * @return the directory with the given path or <tt>null</tt> if no directory with a matching path hash exists
+     */
+    @Nullable
+    private D findDirectoryByPathHash(String tenantId, @Nonnull String path) {
+        String effectivePath = determineEffectivePath(path);
+        for (D candidate : findDirectoriesByPathHash(tenantId, computePathHash(path), MAX_PATH_HASH_CANDIDATES)) {
+            String candidatePath = determineVerifiedPath(candidate.getParent(), candidate.getName());
+            if (Strings.areEqual(effectivePath, candidatePath)) {
+                return candidate;
+            }
+        }
+
+        return null;
     }
 
     protected Blob fetchByPath(String tenantId, @Nonnull String path) {
+        Blob blob = findBlobByPathHash(tenantId, path);
+        if (blob != null) {
+            return blob;
+        }
+
+        // The path hash might be missing (not backfilled yet) or outdated (a parent directory has been renamed
+        // recently), therefore we resolve the path segment by segment and repair the hash of the resolved blob...
         String[] parts = path.split("/");
         Directory currentDirectory = getRoot(tenantId);
         int index = 0;
@@ -441,11 +614,16 @@ public abstract class BasicBlobStorageSpace<B extends Blob & OptimisticCreate, D
             index++;
         }
 
-        if (currentDirectory != null) {
-            return currentDirectory.findChildBlob(parts[index]).orElse(null);
-        } else {
+        if (currentDirectory == null) {
             return null;
         }
+
+        blob = currentDirectory.findChildBlob(parts[index]).orElse(null);
+        if (blob != null) {
+            refreshBlobPathHash(blob);
+        }
+
+        return blob;
     }
 
     @Override
@@ -461,30 +639,156 @@ public abstract class BasicBlobStorageSpace<B extends Blob & OptimisticCreate, D
             throw new IllegalArgumentException("An empty path was provided!");
         }
 
-        String key = determinePathCacheKey(tenantId, sanitizedPath);
-        Blob blob = blobByPathCache.get(key);
+        String effectivePath = determineEffectivePath(sanitizedPath);
+        Blob blob = blobPathCache.getIfPresent(spaceName, tenantId, effectivePath);
         if (blob == null) {
             // Ensure the cache entry is invalidated on all nodes
-            blobByPathCache.remove(key);
+            blobPathCache.remove(spaceName, tenantId, effectivePath);
 
             blob = fetchOrCreateByPath(tenantId, sanitizedPath);
-            blobByPathCache.put(key, blob);
+            blobPathCache.put(spaceName, tenantId, effectivePath, blob);
         }
         return blob;
     }
 
     protected Blob fetchOrCreateByPath(String tenantId, @Nonnull String path) {
+        Blob blob = findBlobByPathHash(tenantId, path);
+        if (blob != null) {
+            return blob;
+        }
+
         String[] parts = path.split("/");
-        Directory currentDirectory = getRoot(tenantId);
-        int index = 0;
-        while (index < parts.length - 1) {
-            currentDirectory = currentDirectory.findOrCreateChildDirectory(parts[index]);
-            index++;
+        int lastSeparator = path.lastIndexOf('/');
+        Directory currentDirectory = lastSeparator < 0 ?
+                                     getRoot(tenantId) :
+                                     findDirectoryByPathHash(tenantId, path.substring(0, lastSeparator));
+        if (currentDirectory == null) {
+            // The parent directory is either missing or its path hash is missing / outdated, therefore we resolve
+            // (and create) the directories segment by segment and repair their path hashes along the way...
+            currentDirectory = getRoot(tenantId);
+            for (int index = 0; index < parts.length - 1; index++) {
+                currentDirectory = currentDirectory.findOrCreateChildDirectory(parts[index]);
+                refreshDirectoryPathHash(currentDirectory);
+            }
+        }
+
+        blob = currentDirectory.findOrCreateChildBlob(parts[parts.length - 1]);
+        refreshBlobPathHash(blob);
+
+        return blob;
+    }
+
+    /**
+     * Recomputes and stores the path hash of the given blob if it is missing or outdated.
+     *
+     * @param blob the blob to refresh the path hash for
+     * @return <tt>true</tt> if the path hash has been updated, <tt>false</tt> if it was already up to date
+     */
+    @SuppressWarnings("unchecked")
+    @Explain("All blobs of this space are of type B.")
+    public boolean refreshBlobPathHash(@Nonnull Blob blob) {
+        return updateBlobPathHash((B) blob, computePathHash(blob.getParent(), blob.getFilename()));
+    }
+
+    /**
+     * Recomputes and stores the path hash of the given directory if it is missing or outdated.
+     *
+     * @param directory the directory to refresh the path hash for
+     * @return <tt>true</tt> if the path hash has been updated, <tt>false</tt> if it was already up to date
+     */
+    @SuppressWarnings("unchecked")
+    @Explain("All directories of this space are of type D.")
+    public boolean refreshDirectoryPathHash(@Nonnull Directory directory) {
+        if (directory.isRoot()) {
+            return false;
         }
 
-        return currentDirectory.findOrCreateChildBlob(parts[index]);
+        return updateDirectoryPathHash((D) directory, computePathHash(directory.getParent(), directory.getName()));
     }
 
+    /**
+     * Recomputes the path hashes of all directories and blobs in this space.
+     * <p>
+     * This is used to backfill the path hashes of spaces which have been created before path hashes were introduced.
+     * Note that outdated hashes are also repaired lazily once a path cannot be resolved via its hash.
+     *
+     * @param process the process used to report the progress
+     */
+    public void backfillPathHashes(ProcessContext process) {
+        streamPathHashedDirectories().forEach(directory -> {
+            Watch watch = Watch.start();
+            boolean updated = refreshDirectoryPathHash(directory);
+            process.addTiming(updated ? "Updated directories" : "Unchanged directories", watch.elapsedMillis());
+        });
+        streamPathHashedBlobs().forEach(blob -> {
+            Watch watch = Watch.start();
+            boolean updated = refreshBlobPathHash(blob);
+            process.addTiming(updated ? "Updated blobs" : "Unchanged blobs", watch.elapsedMillis());
+        });
+    }
+
+    /**
+     * Finds all committed and non-deleted blobs of the given tenant with the given path hash.
+     *
+     * @param tenantId      the tenant to search in
+     * @param pathHash      the path hash to search for
+     * @param maxCandidates the maximal number of blobs to return
+     * @return the blobs with the given path hash. Note that the caller has to verify the actual path of each blob,
+     * as the hashes are only updated eventually
+     */
+    protected abstract List<B> findBlobsByPathHash(String tenantId, String pathHash, int maxCandidates);
+
+    /**
+     * Finds all committed and non-deleted directories of the given tenant with the given path hash.
+     *
+     * @param tenantId      the tenant to search in
+     * @param pathHash      the path hash to search for
+     * @param maxCandidates the maximal number of directories to return
+     * @return the directories with the given path hash. Note that the caller has to verify the actual path of each
+     * directory, as the hashes are only updated eventually
+     */
+    protected abstract List<D> findDirectoriesByPathHash(String tenantId, String pathHash, int maxCandidates);
+
+    /**
+     * Stores the given path hash for the given blob unless it is already up to date.
+     *
+     * @param blob     the blob to update
+     * @param pathHash the path hash to store
+     * @return <tt>true</tt> if the path hash has been updated, <tt>false</tt> otherwise
+     */
+    protected abstract boolean updateBlobPathHash(B blob, @Nullable String pathHash);
+
+    /**
+     * Stores the given path hash for the given directory unless it is already up to date.
+     *
+     * @param directory the directory to update
+     * @param pathHash  the path hash to store
+     * @return <tt>true</tt> if the path hash has been updated, <tt>false</tt> otherwise
+     */
+    protected abstract boolean updateDirectoryPathHash(D directory, @Nullable String pathHash);
+
+    /**
+     * Determines if the given directory has been marked as deleted.
+     *
+     * @param directory the directory to check
+     * @return <tt>true</tt> if the directory has been deleted, <tt>false</tt> otherwise
+     */
+    protected abstract boolean isDirectoryDeleted(D directory);
+
+    /**
+     * Streams all non-deleted directories of this space which have a parent directory.
+     *
+     * @return a stream of all directories which carry a path hash
+     */
+    protected abstract Stream<D> streamPathHashedDirectories();
+
+    /**
+     * Streams all non-deleted blobs of this space which reside in a directory.
+     *
+     * @return a stream of all blobs which carry a path hash
+     */
+    protected abstract Stream<B> streamPathHashedBlobs();
+
     @Override
     public Blob findOrCreateByPath(String path) {
         return findOrCreateByPath(UserContext.getCurrentUser().getTenantId(), path);
@@ -702,6 +1006,54 @@ public abstract class BasicBlobStorageSpace<B extends Blob & OptimisticCreate, D
                                                                  .handle());
     }
 
+    /**
+     * Creates a continuation for a child directory or blob being listed.
+     * <p>
+     * Such a continuation is used as keyset to resume a listing after the given child. It is composed of the id of
+     * the child and the value of the field by which the listing is sorted.
+     *
+     * @param id        the id of the child
+     * @param sortValue the value of the sort field of the child
+     * @return the continuation which can later be parsed via {@link #parseContinuation(String)}
+     */
+    protected String createContinuation(Object id, Object sortValue) {
+        return id + CONTINUATION_SEPARATOR + Strings.toString(sortValue);
+    }
+
+    /**
+     * Parses a continuation created by {@link #createContinuation(Object, Object)}.
+     *
+     * @param continuation the continuation to parse
+     * @return a tuple of the id and the sort value of the child to resume after or <tt>null</tt> if no continuation
+     * was given
+     */
+    @Nullable
+    protected Tuple<String, String> parseContinuation(@Nullable String continuation) {
+        if (Strings.isEmpty(continuation)) {
+            return null;
+        }
+
+        return Strings.split(continuation, CONTINUATION_SEPARATOR);
+    }
+
+    /**
+     * Parses the last modification date stored in a continuation.
+     * <p>
+     * Note that blobs might not have a last modification date, in which case the continuation contains an empty
+     * string.
+     *
+     * @param sortValue the sort value of a continuation parsed via {@link #parseContinuation(String)}
+     * @return the last modification date or <tt>null</tt> if the child to resume after has none
+     */
+    @Nullable
+    protected LocalDateTime parseLastModifiedContinuation(@Nullable String sortValue) {
+        if (Strings.isEmpty(sortValue)) {
+            return null;
+        }
+
+        return LocalDateTime.parse(sortValue);
+    }
+
     /**
      * Tries to find the child blob with the given name in the given directory.
      * <p>
@@ -814,10 +1166,11 @@ public abstract class BasicBlobStorageSpace<B extends Blob & OptimisticCreate, D
 
         detectAndPreventCircularReference(directory, newParent);
 
+        invalidateCachedPaths(directory, true);
         updateDirectoryParent(directory, newParent);
 
         directoryByIdCache.remove(directory.getIdAsString());
-        blobByPathCache.clear();
+        invalidateCachedPaths(directory, true);
     }
 
     /**
@@ -855,7 +1208,10 @@ public abstract class BasicBlobStorageSpace<B extends Blob & OptimisticCreate, D
     public void deleteDirectory(D directory) {
         markDirectoryAsDeleted(directory);
 
-        blobByPathCache.clear();
+        // Ensure that resolving a path via its path hash notices the deletion...
+        directoryByIdCache.remove(directory.getIdAsString());
+
+        invalidateCachedPaths(directory, true);
     }
 
     /**
@@ -890,10 +1246,11 @@ public abstract class BasicBlobStorageSpace<B extends Blob & OptimisticCreate, D
             throw Exceptions.createHandled().withNLSKey("BasicBlobStorageSpace.cannotRenameDuplicateName").handle();
         }
 
+        invalidateCachedPaths(directory, true);
         updateDirectoryName(directory, newName);
 
         directoryByIdCache.remove(directory.getIdAsString());
-        blobByPathCache.clear();
+        invalidateCachedPaths(directory, true);
     }
 
     /**
@@ -923,9 +1280,11 @@ public abstract class BasicBlobStorageSpace<B extends Blob & OptimisticCreate, D
             throw Exceptions.createHandled().withNLSKey("BasicBlobStorageSpace.cannotMoveDuplicateName").handle();
         }
 
+        Directory previousParent = blob.getParent();
         updateBlobParent(blob, newParent);
 
-        blobByPathCache.clear();
+        invalidateCachedPaths(previousParent, false);
+        invalidateCachedPaths(newParent, false);
     }
 
     /**
@@ -946,7 +1305,7 @@ public abstract class BasicBlobStorageSpace<B extends Blob & OptimisticCreate, D
     public void delete(B blob) {
         markBlobAsDeleted(blob);
 
-        blobByPathCache.clear();
+        invalidateCachedPaths(blob.getParent(), false);
     }
 
     /**
@@ -970,7 +1329,7 @@ public abstract class BasicBlobStorageSpace<B extends Blob & OptimisticCreate, D
         updateBlobName(blob, newName);
 
         blobKeyToFilenameCache.remove(blob.getBlobKey());
-        blobByPathCache.clear();
+        invalidateCachedPaths(blob.getParent(), false);
     }
 
     /**
@@ -1123,7 +1482,7 @@ public abstract class BasicBlobStorageSpace<B extends Blob & OptimisticCreate, D
             }
 
             if (Strings.isFilled(filename)) {
-                blobByPathCache.clear();
+                invalidateCachedPaths(blob.getParent(), false);
             }
         } catch (Exception e) {
             try {
@@ -1178,7 +1537,7 @@ public abstract class BasicBlobStorageSpace<B extends Blob & OptimisticCreate, D
             }
 
             if (Strings.isFilled(filename)) {
-                blobByPathCache.clear();
+                invalidateCachedPaths(blob.getParent(), false);
             }
         } catch (Exception e) {
             try {
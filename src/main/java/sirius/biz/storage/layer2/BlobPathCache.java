@@ -0,0 +1,338 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.biz.storage.layer2;
+
+import com.alibaba.fastjson.JSONObject;
+import sirius.biz.cluster.Interconnect;
+import sirius.biz.cluster.InterconnectHandler;
+import sirius.biz.storage.util.StorageUtils;
+import sirius.kernel.async.CallContext;
+import sirius.kernel.cache.Cache;
+import sirius.kernel.cache.CacheManager;
+import sirius.kernel.commons.Strings;
+import sirius.kernel.di.std.Part;
+import sirius.kernel.di.std.Register;
+import sirius.kernel.health.Counter;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Collections;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Caches the {@link Blob blobs} resolved via {@link BlobStorageSpace#findByPath(String, String)}.
+ * <p>
+ * In contrast to a plain coherent cache, this keeps a local index of all cached paths, grouped by space, tenant and
+ * directory. This permits to only invalidate the paths below a modified directory instead of flushing the whole
+ * cache. The invalidation is distributed via the {@link Interconnect} and only carries the affected directory prefix,
+ * each node then uses its own index to determine the keys to remove.
+ */
+@Register(classes = {BlobPathCache.class, InterconnectHandler.class}, framework = StorageUtils.FRAMEWORK_STORAGE)
+public class BlobPathCache implements InterconnectHandler {
+
+    private static final String CACHE_NAME = "storage-paths";
+
+    /**
+     * Limits the number of keys being tracked by the local index.
+     * <p>
+     * As entries might be evicted from the underlying cache without us being notified, the index might accumulate
+     * stale keys over time. Once this limit is reached, we simply drop the index along with the local cache contents.
+     */
+    private static final int MAX_INDEXED_KEYS = 65_536;
+
+    private static final String MESSAGE_TYPE = "type";
+    private static final String TYPE_INVALIDATE = "invalidate";
+    private static final String MESSAGE_PREFIX = "prefix";
+    private static final String MESSAGE_RECURSIVE = "recursive";
+    private static final String MESSAGE_SPACE = "space";
+    private static final String MESSAGE_NODE = "node";
+
+    /**
+     * Separates the segments of a cache key (space, tenant, path).
+     */
+    private static final String KEY_SEPARATOR = "-";
+
+    private final Cache<String, Blob> blobByPathCache = CacheManager.createCoherentCache(CACHE_NAME);
+
+    /**
+     * Contains all locally cached keys, grouped by their directory key (space, tenant and parent path).
+     * <p>
+     * A sorted map is used, so that a whole sub-tree can be determined by a range query on the directory prefix.
+     */
+    private final NavigableMap<String, Set<String>> keysByDirectory = new ConcurrentSkipListMap<>();
+    private final AtomicInteger numberOfIndexedKeys = new AtomicInteger();
+
+    /**
+     * Is incremented for each local invalidation.
+     * <p>
+     * Keys are only indexed once their entry has been put into the cache. If an invalidation happens in between,
+     * it cannot see the key, therefore we compare the generation before and after the put and drop the entry if in
+     * doubt.
+     */
+    private final AtomicLong invalidationGeneration = new AtomicLong();
+
+    private final Map<String, PathCacheStatistics> statistics = new ConcurrentHashMap<>();
+
+    @Part
+    private Interconnect interconnect;
+
+    /**
+     * Collects the usage statistics of the path cache for a single storage space.
+     */
+    public static class PathCacheStatistics {
+
+        private final Counter lookups = new Counter();
+        private final Counter misses = new Counter();
+        private final Counter invalidations = new Counter();
+
+        /**
+         * Returns the number of lookups which were answered by the cache.
+         *
+         * @return the number of cache hits
+         */
+        public long getHits() {
+            return lookups.getCount() - misses.getCount();
+        }
+
+        /**
+         * Returns the number of lookups which required to resolve the path against the database.
+         *
+         * @return the number of cache misses
+         */
+        public long getMisses() {
+            return misses.getCount();
+        }
+
+        /**
+         * Returns the number of cache entries which were removed by a (local or remote) invalidation.
+         *
+         * @return the number of invalidated entries
+         */
+        public long getInvalidations() {
+            return invalidations.getCount();
+        }
+    }
+
+    /**
+     * Resolves the blob for the given path using the cache or the given loader.
+     *
+     * @param spaceName the space to resolve the path in
+     * @param tenantId  the tenant which owns the path
+     * @param path      the effective (sanitized and possibly normalized) path to resolve
+     * @param loader    the loader used to resolve the path in case of a cache miss
+     * @return the resolved blob or <tt>null</tt> if no blob exists for the given path
+     */
+    @Nullable
+    public Blob get(String spaceName, String tenantId, String path, Function<String, Blob> loader) {
+        PathCacheStatistics spaceStatistics = getStatistics(spaceName);
+        String key = buildKey(spaceName, tenantId, path);
+        long generation = invalidationGeneration.get();
+        AtomicBoolean loaded = new AtomicBoolean();
+        Blob result = blobByPathCache.get(key, ignored -> {
+            spaceStatistics.misses.inc();
+            loaded.set(true);
+            return loader.apply(path);
+        });
+        spaceStatistics.lookups.inc();
+        if (loaded.get()) {
+            register(spaceName, tenantId, path, key, generation);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the cached blob for the given path.
+     *
+     * @param spaceName the space to resolve the path in
+     * @param tenantId  the tenant which owns the path
+     * @param path      the effective (sanitized and possibly normalized) path to resolve
+     * @return the cached blob or <tt>null</tt> if the path isn't cached
+     */
+    @Nullable
+    public Blob getIfPresent(String spaceName, String tenantId, String path) {
+        PathCacheStatistics spaceStatistics = getStatistics(spaceName);
+        Blob result = blobByPathCache.get(buildKey(spaceName, tenantId, path));
+        spaceStatistics.lookups.inc();
+        if (result == null) {
+            spaceStatistics.misses.inc();
+        }
+
+        return result;
+    }
+
+    /**
+     * Stores the given blob for the given path.
+     *
+     * @param spaceName the space which contains the blob
+     * @param tenantId  the tenant which owns the path
+     * @param path      the effective (sanitized and possibly normalized) path of the blob
+     * @param blob      the blob to cache
+     */
+    public void put(String spaceName, String tenantId, String path, Blob blob) {
+        String key = buildKey(spaceName, tenantId, path);
+        long generation = invalidationGeneration.get();
+        blobByPathCache.put(key, blob);
+        register(spaceName, tenantId, path, key, generation);
+    }
+
+    /**
+     * Removes the given path from the cache on all nodes.
+     *
+     * @param spaceName the space which contains the blob
+     * @param tenantId  the tenant which owns the path
+     * @param path      the effective (sanitized and possibly normalized) path of the blob
+     */
+    public void remove(String spaceName, String tenantId, String path) {
+        blobByPathCache.remove(buildKey(spaceName, tenantId, path));
+    }
+
+    /**
+     * Invalidates all cached paths within the given directory on all nodes.
+     *
+     * @param spaceName     the space which contains the directory
+     * @param tenantId      the tenant which owns the directory
+     * @param directoryPath the effective (sanitized and possibly normalized) path of the directory. An empty string
+     *                      represents the root directory
+     * @param recursive     <tt>true</tt> to also invalidate all paths in sub directories, <tt>false</tt> to only
+     *                      invalidate the blobs placed directly in the given directory
+     */
+    public void invalidate(String spaceName, String tenantId, String directoryPath, boolean recursive) {
+        String prefix = buildDirectoryKey(spaceName, tenantId, directoryPath);
+        interconnect.dispatchIdempotent(getName(),
+                                        new JSONObject().fluentPut(MESSAGE_TYPE, TYPE_INVALIDATE)
+                                                        .fluentPut(MESSAGE_SPACE, spaceName)
+                                                        .fluentPut(MESSAGE_PREFIX, prefix)
+                                                        .fluentPut(MESSAGE_RECURSIVE, recursive)
+                                                        .fluentPut(MESSAGE_NODE, CallContext.getNodeName()));
+        invalidateLocally(spaceName, prefix, recursive);
+    }
+
+    private void invalidateLocally(String spaceName, String prefix, boolean recursive) {
+        invalidationGeneration.incrementAndGet();
+
+        Map<String, Set<String>> affectedDirectories;
+        if (recursive) {
+            affectedDirectories = keysByDirectory.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+        } else {
+            Set<String> keys = keysByDirectory.get(prefix);
+            affectedDirectories = keys == null ? Collections.emptyMap() : Collections.singletonMap(prefix, keys);
+        }
+
+        PathCacheStatistics spaceStatistics = getStatistics(spaceName);
+        for (String directoryKey : affectedDirectories.keySet().toArray(String[]::new)) {
+            Set<String> keys = keysByDirectory.remove(directoryKey);
+            if (keys != null) {
+                numberOfIndexedKeys.addAndGet(-keys.size());
+                keys.forEach(key -> {
+                    CacheManager.removeCoherentCacheKeyLocally(CACHE_NAME, key);
+                    spaceStatistics.invalidations.inc();
+                });
+            }
+        }
+    }
+
+    /**
+     * Adds the given key (which has just been put into the cache) to the local index.
+     *
+     * @param spaceName  the space which contains the blob
+     * @param tenantId   the tenant which owns the path
+     * @param path       the effective path of the blob
+     * @param key        the cache key of the blob
+     * @param generation the invalidation generation observed before the entry was loaded and put into the cache
+     */
+    private void register(String spaceName, String tenantId, String path, String key, long generation) {
+        index(spaceName, tenantId, path, key);
+
+        // An invalidation which ran concurrently might have missed our key, as it wasn't indexed yet...
+        if (invalidationGeneration.get() != generation) {
+            CacheManager.removeCoherentCacheKeyLocally(CACHE_NAME, key);
+        }
+    }
+
+    private void index(String spaceName, String tenantId, String path, String key) {
+        if (numberOfIndexedKeys.get() >= MAX_INDEXED_KEYS) {
+            keysByDirectory.clear();
+            numberOfIndexedKeys.set(0);
+            CacheManager.clearCoherentCacheLocally(CACHE_NAME);
+        }
+
+        int lastSlash = path.lastIndexOf('/');
+        String directoryPath = lastSlash < 0 ? "" : path.substring(0, lastSlash);
+        if (keysByDirectory.computeIfAbsent(buildDirectoryKey(spaceName, tenantId, directoryPath),
+                                            ignored -> ConcurrentHashMap.newKeySet()).add(key)) {
+            numberOfIndexedKeys.incrementAndGet();
+        }
+    }
+
+    @Nonnull
+    private String buildKey(String spaceName, String tenantId, String path) {
+        return spaceName + KEY_SEPARATOR + tenantId + KEY_SEPARATOR + path;
+    }
+
+    /**
+     * Builds the key used by the index for the given directory.
+     * <p>
+     * Each directory key starts with a "/" and ends with a "/" so that the key of a parent directory is always
+     * a prefix of the keys of all its children (and not of siblings which share a common name prefix).
+     *
+     * @param spaceName     the space which contains the directory
+     * @param tenantId      the tenant which owns the directory
+     * @param directoryPath the path of the directory without leading or trailing "/"
+     * @return the key used to index the blobs of the given directory
+     */
+    @Nonnull
+    private String buildDirectoryKey(String spaceName, String tenantId, String directoryPath) {
+        if (Strings.isEmpty(directoryPath)) {
+            return spaceName + KEY_SEPARATOR + tenantId + KEY_SEPARATOR + "/";
+        }
+
+        return spaceName + KEY_SEPARATOR + tenantId + KEY_SEPARATOR + "/" + directoryPath + "/";
+    }
+
+    private PathCacheStatistics getStatistics(String spaceName) {
+        return statistics.computeIfAbsent(spaceName, ignored -> new PathCacheStatistics());
+    }
+
+    /**
+     * Returns the cache statistics per storage space.
+     *
+     * @return the statistics of all spaces which used the path cache so far
+     */
+    public Map<String, PathCacheStatistics> getStatistics() {
+        return Collections.unmodifiableMap(statistics);
+    }
+
+    @Override
+    public void handleEvent(JSONObject event) {
+        // Ignore our own messages, as we already have executed them...
+        if (Strings.areEqual(CallContext.getNodeName(), event.getString(MESSAGE_NODE))) {
+            return;
+        }
+
+        if (Strings.areEqual(event.getString(MESSAGE_TYPE), TYPE_INVALIDATE)) {
+            invalidateLocally(event.getString(MESSAGE_SPACE),
+                              event.getString(MESSAGE_PREFIX),
+                              event.getBooleanValue(MESSAGE_RECURSIVE));
+        }
+    }
+
+    @Nonnull
+    @Override
+    public String getName() {
+        return "storage-layer2-path-cache";
+    }
+}
@@ -16,6 +16,7 @@ import sirius.web.http.WebContext;
 import javax.annotation.Nullable;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.BiPredicate;
 import java.util.function.Predicate;
 
 /**
@@ -129,9 +130,29 @@ public interface Directory {
      * @param maxResults     the maximal number of results to return or 0 to indicate that there is no upper limit
      * @param childProcessor the processor which is used to iterate over the result
      */
+    default void listChildDirectories(@Nullable String prefixFilter,
+                                      int maxResults,
+                                      Predicate<? super Directory> childProcessor) {
+        listChildDirectories(prefixFilter, maxResults, null, (child, continuation) -> childProcessor.test(child));
+    }
+
+    /**
+     * Lists all child directories starting after the given continuation.
+     * <p>
+     * In contrast to skipping over already seen children, this uses a keyset query and therefore permits to
+     * enumerate even very large directories in a blockwise manner in linear time.
+     *
+     * @param prefixFilter   the prefix filer to apply on the name
+     * @param maxResults     the maximal number of results to return or 0 to indicate that there is no upper limit
+     * @param continuation   the continuation of the last child seen in a previous call (as supplied to the
+     *                       <tt>childProcessor</tt>) or <tt>null</tt> to start with the first child
+     * @param childProcessor the processor which is used to iterate over the result. This is supplied with each child
+     *                       along with the continuation which permits to resume the enumeration after this child
+     */
     void listChildDirectories(@Nullable String prefixFilter,
                               int maxResults,
-                              Predicate<? super Directory> childProcessor);
+                              @Nullable String continuation,
+                              BiPredicate<? super Directory, String> childProcessor);
 
     /**
      * Lists all child blobs.
@@ -141,10 +162,32 @@ public interface Directory {
      * @param maxResults     the maximal number of results to return or 0 to indicate that there is no upper limit
      * @param childProcessor the processor which is used to iterate over the result
      */
+    default void listChildBlobs(@Nullable String prefixFilter,
+                                @Nullable Set<String> fileTypes,
+                                int maxResults,
+                                Predicate<? super Blob> childProcessor) {
+        listChildBlobs(prefixFilter, fileTypes, maxResults, null, (child, continuation) -> childProcessor.test(child));
+    }
+
+    /**
+     * Lists all child blobs starting after the given continuation.
+     * <p>
+     * In contrast to skipping over already seen children, this uses a keyset query and therefore permits to
+     * enumerate even very large directories in a blockwise manner in linear time.
+     *
+     * @param prefixFilter   the prefix filter to apply on the name
+     * @param fileTypes      the list of accepted file types
+     * @param maxResults     the maximal number of results to return or 0 to indicate that there is no upper limit
+     * @param continuation   the continuation of the last child seen in a previous call (as supplied to the
+     *                       <tt>childProcessor</tt>) or <tt>null</tt> to start with the first child
+     * @param childProcessor the processor which is used to iterate over the result. This is supplied with each child
+     *                       along with the continuation which permits to resume the enumeration after this child
+     */
     void listChildBlobs(@Nullable String prefixFilter,
                         @Nullable Set<String> fileTypes,
                         int maxResults,
-                        Predicate<? super Blob> childProcessor);
+                        @Nullable String continuation,
+                        BiPredicate<? super Blob, String> childProcessor);
 
     /**
      * Executes a query for child blobs based on the filter settings given in the web context.
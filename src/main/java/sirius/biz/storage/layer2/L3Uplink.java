@@ -51,6 +51,16 @@ import java.util.function.Supplier;
 @Register(classes = {VFSRoot.class, L3Uplink.class}, framework = StorageUtils.FRAMEWORK_STORAGE)
 public class L3Uplink implements VFSRoot {
 
+    /**
+     * Marks a continuation which resumes the enumeration within the child directories.
+     */
+    private static final String DIRECTORY_CONTINUATION_PREFIX = "d:";
+
+    /**
+     * Marks a continuation which resumes the enumeration within the child blobs.
+     */
+    private static final String BLOB_CONTINUATION_PREFIX = "b:";
+
     @Part
     private BlobStorage storage;
 
@@ -214,21 +224,46 @@ public class L3Uplink implements VFSRoot {
         @Override
         public void enumerate(VirtualFile parent, FileSearch search) {
             Optional<Directory> parentDirectory = parent.tryAs(Directory.class);
-            if (parentDirectory.isPresent()) {
+            if (parentDirectory.isEmpty()) {
+                return;
+            }
+
+            // Directories are always listed before blobs, therefore a continuation also has to determine in which
+            // of both listings the enumeration is to be resumed...
+            String continuation = search.getContinuation().orElse(null);
+            if (continuation == null || continuation.startsWith(DIRECTORY_CONTINUATION_PREFIX)) {
                 parentDirectory.get()
                                .listChildDirectories(search.getPrefixFilter().orElse(null),
                                                      search.getMaxRemainingItems().orElse(0),
-                                                     directory -> search.processResult(wrapDirectory(parent,
-                                                                                                     directory,
-                                                                                                     false)));
-                if (!search.isOnlyDirectories()) {
-                    parentDirectory.get()
-                                   .listChildBlobs(search.getPrefixFilter().orElse(null),
-                                                   search.getFileExtensionFilters(),
-                                                   search.getMaxRemainingItems().orElse(0),
-                                                   blob -> search.processResult(wrapBlob(parent, blob, false)));
-                }
+                                                     stripContinuationPrefix(continuation,
+                                                                             DIRECTORY_CONTINUATION_PREFIX),
+                                                     (directory, directoryContinuation) -> search.processResult(
+                                                             wrapDirectory(parent, directory, false),
+                                                             DIRECTORY_CONTINUATION_PREFIX + directoryContinuation));
+                continuation = null;
             }
+
+            if (!search.isOnlyDirectories() && !search.isLimitReached()) {
+                parentDirectory.get()
+                               .listChildBlobs(search.getPrefixFilter().orElse(null),
+                                               search.getFileExtensionFilters(),
+                                               search.getMaxRemainingItems().orElse(0),
+                                               stripContinuationPrefix(continuation, BLOB_CONTINUATION_PREFIX),
+                                               (blob, blobContinuation) -> search.processResult(wrapBlob(parent,
+                                                                                                         blob,
+                                                                                                         false),
+                                                                                                BLOB_CONTINUATION_PREFIX
+                                                                                                + blobContinuation));
+            }
+        }
+
+        @Nullable
+        private String stripContinuationPrefix(@Nullable String continuation, String prefix) {
+            if (continuation == null || !continuation.startsWith(prefix)) {
+                return null;
+            }
+
+            return continuation.substring(prefix.length());
         }
     }
 
@@ -8,41 +8,99 @@
 
 package sirius.biz.storage.layer2;
 
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
 import sirius.biz.storage.util.StorageUtils;
+import sirius.db.redis.Redis;
 import sirius.kernel.async.BackgroundLoop;
-import sirius.kernel.commons.RateLimit;
 import sirius.kernel.commons.Strings;
-import sirius.kernel.commons.Tuple;
 import sirius.kernel.commons.Watch;
+import sirius.kernel.di.std.ConfigValue;
 import sirius.kernel.di.std.Part;
 import sirius.kernel.di.std.Register;
+import sirius.kernel.health.Counter;
+import sirius.kernel.health.Exceptions;
+import sirius.kernel.health.metrics.MetricProvider;
+import sirius.kernel.health.metrics.MetricsCollector;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Aggregates to block-commits touch events.
  * <p>
- * This way we limit the max number of events being recorded, as in an overload condition, we rather want to simply
- * interrupt tracking instead of taking the whole system down.
+ * The <tt>lastTouched</tt> timestamp of a blob is only updated once per <tt>storage.layer2.touchGranularity</tt>
+ * (e.g. once per day). Each node therefore keeps a compact (probabilistic) filter of the blobs touched within the
+ * current interval and skips all further touches of these. The remaining touches are coalesced in a set per space and
+ * written every 30s. If <b>Redis</b> is available, the touches are also de-duplicated across the cluster, so that
+ * only one node writes a blob per interval. If writing the touches fails, the node which claimed them retries to write
+ * them in its next run.
+ * <p>
+ * Note that the filter might yield a false positive, in which case a touch is skipped. As the filter is reset for
+ * each interval, a blob which is used regularly will still be touched in time.
  */
-@Register(classes = {TouchWritebackLoop.class, BackgroundLoop.class}, framework = StorageUtils.FRAMEWORK_STORAGE)
-public class TouchWritebackLoop extends BackgroundLoop {
+@Register(classes = {TouchWritebackLoop.class, BackgroundLoop.class, MetricProvider.class},
+        framework = StorageUtils.FRAMEWORK_STORAGE)
+public class TouchWritebackLoop extends BackgroundLoop implements MetricProvider {
 
-    private final BlockingQueue<Tuple<String, String>> touchedBlobs = new LinkedBlockingQueue<>(32768);
-    private final RateLimit logLimit = RateLimit.timeInterval(10, TimeUnit.MINUTES);
+    private static final String REDIS_TOUCHED_BLOBS_PREFIX = "storage-layer2-touched-";
+    private static final int REDIS_BATCH_SIZE = 1024;
+    private static final double FILTER_FALSE_POSITIVE_PROBABILITY = 0.001;
 
     @Part
     private BlobStorage blobStorage;
 
+    @Part
+    private Redis redis;
+
+    @ConfigValue("storage.layer2.touchGranularity")
+    private Duration touchGranularity;
+
+    @ConfigValue("storage.layer2.touchFilterCapacity")
+    private int touchFilterCapacity;
+
+    private final Map<String, Set<String>> touchedBlobs = new ConcurrentHashMap<>();
+
+    /**
+     * Contains the touches which couldn't be written in the last run.
+     * <p>
+     * These have already been claimed within the cluster, therefore they must not be de-duplicated again, as the
+     * claim of this node would suppress them otherwise.
+     */
+    private final Map<String, Set<String>> failedBlobs = new ConcurrentHashMap<>();
+    private volatile TouchFilter touchFilter;
+
+    private final Counter filteredTouches = new Counter();
+    private final Counter deduplicatedTouches = new Counter();
+    private final Counter writtenTouches = new Counter();
+
+    /**
+     * Keeps track of the blobs touched within a single interval.
+     */
+    private class TouchFilter {
+
+        private final long interval;
+        private final BloomFilter<CharSequence> touchedKeys =
+                BloomFilter.create(Funnels.stringFunnel(StandardCharsets.UTF_8),
+                                   Math.max(1, touchFilterCapacity),
+                                   FILTER_FALSE_POSITIVE_PROBABILITY);
+
+        TouchFilter(long interval) {
+            this.interval = interval;
+        }
+    }
+
     /**
      * Queues a touch event for the given space and blob.
      *
@@ -58,9 +116,43 @@ public class TouchWritebackLoop extends BackgroundLoop {
             return;
         }
 
-        boolean added = touchedBlobs.offer(Tuple.create(space, blobKey));
-        if (!added && logLimit.check()) {
-            StorageUtils.LOG.WARN("Layer2: Dropping touch events as the internal queue is full!");
+        // BloomFilter.put only reports true if the key has definitely not been added within this interval...
+        if (isFilterEnabled() && !determineTouchFilter().touchedKeys.put(space + "/" + blobKey)) {
+            filteredTouches.inc();
+            return;
+        }
+
+        touchedBlobs.computeIfAbsent(space, ignored -> ConcurrentHashMap.newKeySet()).add(blobKey);
+    }
+
+    private boolean isFilterEnabled() {
+        return touchGranularity != null && !touchGranularity.isZero();
+    }
+
+    /**
+     * Determines the current interval.
+     * <p>
+     * As the intervals are aligned to the epoch, all nodes agree on the current interval.
+     *
+     * @return the number of the current interval
+     */
+    private long determineInterval() {
+        return System.currentTimeMillis() / touchGranularity.toMillis();
+    }
+
+    private TouchFilter determineTouchFilter() {
+        long interval = determineInterval();
+        TouchFilter currentFilter = touchFilter;
+        if (currentFilter != null && currentFilter.interval == interval) {
+            return currentFilter;
+        }
+
+        synchronized (this) {
+            if (touchFilter == null || touchFilter.interval != interval) {
+                touchFilter = new TouchFilter(interval);
+            }
+
+            return touchFilter;
         }
     }
 
@@ -78,30 +170,122 @@ public class TouchWritebackLoop extends BackgroundLoop {
     @Nullable
     @Override
     protected String doWork() throws Exception {
+        if (blobStorage == null || (touchedBlobs.isEmpty() && failedBlobs.isEmpty())) {
+            return null;
+        }
+
         Watch w = Watch.start();
-        List<Tuple<String, String>> unitOfWork = new ArrayList<>();
-        touchedBlobs.drainTo(unitOfWork);
+        int numberOfSpaces = 0;
+        int numberOfBlobs = 0;
+        Set<String> spaces = new HashSet<>(touchedBlobs.keySet());
+        spaces.addAll(failedBlobs.keySet());
+        for (String space : spaces) {
+            Set<String> blobKeys = deduplicateWithinCluster(space, drain(touchedBlobs, space));
+            blobKeys.addAll(drain(failedBlobs, space));
+            if (!blobKeys.isEmpty() && writeTouches(space, blobKeys)) {
+                writtenTouches.add(blobKeys.size());
+                numberOfBlobs += blobKeys.size();
+                numberOfSpaces++;
+            }
+        }
 
-        if (blobStorage == null) {
+        if (numberOfBlobs == 0) {
             return null;
         }
 
-        Map<String, Set<String>> blobsPerSpace = unitOfWork.stream()
-                                                           .collect(Collectors.groupingBy(Tuple::getFirst,
-                                                                                          Collectors.mapping(Tuple::getSecond,
-                                                                                                             Collectors.toSet())));
+        return Strings.apply("Touched %s blobs in %s spaces within %s", numberOfBlobs, numberOfSpaces, w.duration());
+    }
 
-        blobsPerSpace.forEach((space, keys) -> {
-            blobStorage.getSpace(space).markTouched(keys);
-        });
+    private boolean writeTouches(String space, Set<String> blobKeys) {
+        try {
+            blobStorage.getSpace(space).markTouched(blobKeys);
+            return true;
+        } catch (Exception e) {
+            failedBlobs.computeIfAbsent(space, ignored -> ConcurrentHashMap.newKeySet()).addAll(blobKeys);
+            Exceptions.handle()
+                      .to(StorageUtils.LOG)
+                      .error(e)
+                      .withSystemErrorMessage("Layer 2: Failed to write %s touches of space '%s': %s (%s)",
+                                              blobKeys.size(),
+                                              space)
+                      .handle();
+            return false;
+        }
+    }
 
-        if (blobsPerSpace.isEmpty()) {
-            return null;
-        } else {
-            return Strings.apply("Touched %s blobs in %s spaces within %s",
-                                 unitOfWork.size(),
-                                 blobsPerSpace.entrySet().size(),
-                                 w.duration());
+    private Set<String> drain(Map<String, Set<String>> blobsPerSpace, String space) {
+        Set<String> result = new HashSet<>();
+        Set<String> pendingBlobKeys = blobsPerSpace.get(space);
+        if (pendingBlobKeys != null) {
+            // Removing each key via the iterator ensures that keys added concurrently are kept for the next run...
+            Iterator<String> iterator = pendingBlobKeys.iterator();
+            while (iterator.hasNext()) {
+                result.add(iterator.next());
+                iterator.remove();
+            }
         }
+
+        return result;
+    }
+
+    /**
+     * Removes all blob keys which have already been written by another node within the current interval.
+     *
+     * @param space    the space which contains the blobs
+     * @param blobKeys the keys of the blobs to write
+     * @return the keys of the blobs which have to be written by this node
+     */
+    private Set<String> deduplicateWithinCluster(String space, Set<String> blobKeys) {
+        if (blobKeys.isEmpty() || !isFilterEnabled() || redis == null || !redis.isConfigured()) {
+            return blobKeys;
+        }
+
+        String setName = REDIS_TOUCHED_BLOBS_PREFIX + space + "-" + determineInterval();
+        try {
+            return redis.query(() -> "Deduplicate touched blobs of " + space, db -> {
+                List<String> keys = new ArrayList<>(blobKeys);
+                Set<String> result = new HashSet<>();
+                for (int offset = 0; offset < keys.size(); offset += REDIS_BATCH_SIZE) {
+                    List<String> batch = keys.subList(offset, Math.min(keys.size(), offset + REDIS_BATCH_SIZE));
+                    Pipeline pipeline = db.pipelined();
+                    List<Response<Long>> responses = batch.stream().map(key -> pipeline.sadd(setName, key)).toList();
+                    pipeline.expire(setName, 2 * touchGranularity.toSeconds());
+                    pipeline.sync();
+
+                    for (int index = 0; index < batch.size(); index++) {
+                        if (responses.get(index).get() == 1L) {
+                            result.add(batch.get(index));
+                        } else {
+                            deduplicatedTouches.inc();
+                        }
+                    }
+                }
+
+                return result;
+            });
+        } catch (Exception e) {
+            // If in doubt, we rather write a touch twice than not at all...
+            Exceptions.handle(StorageUtils.LOG, e);
+            return blobKeys;
+        }
+    }
+
+    @Override
+    public void gather(MetricsCollector metricsCollector) {
+        metricsCollector.differentialMetric("storage_layer2_touches_filtered",
+                                            "storage-layer2-touches-filtered",
+                                            "Layer 2 Filtered Touches",
+                                            filteredTouches.getCount(),
+                                            "/min");
+        metricsCollector.differentialMetric("storage_layer2_touches_deduplicated",
+                                            "storage-layer2-touches-deduplicated",
+                                            "Layer 2 Touches Deduplicated in Cluster",
+                                            deduplicatedTouches.getCount(),
+                                            "/min");
+        metricsCollector.differentialMetric("storage_layer2_touches_written",
+                                            "storage-layer2-touches-written",
+                                            "Layer 2 Written Touches",
+                                            writtenTouches.getCount(),
+                                            "/min");
     }
 }
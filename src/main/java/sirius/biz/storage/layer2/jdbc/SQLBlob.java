@@ -55,6 +55,7 @@ import java.util.Optional;
         columns = {"spaceName", "deleted", "parent", "normalizedFilename", "committed"})
 @Index(name = "blob_sort_by_last_modified", columns = {"spaceName", "deleted", "parent", "lastModified"})
 @Index(name = "blob_filename_lookup", columns = {"spaceName", "deleted", "filename", "parent", "committed"})
+@Index(name = "blob_path_lookup", columns = {"spaceName", "deleted", "tenantId", "pathHash", "committed"})
 @Index(name = "blob_reference_lookup", columns = {"spaceName", "deleted", "reference", "referenceDesignator"})
 @Index(name = "blob_created_renamed_loop", columns = "createdOrRenamed")
 @Index(name = "blob_deleted_loop", columns = "deleted")
@@ -156,6 +157,17 @@ public class SQLBlob extends SQLEntity implements Blob, OptimisticCreate {
     private final SQLEntityRef<SQLDirectory> parent =
             SQLEntityRef.on(SQLDirectory.class, BaseEntityRef.OnDelete.IGNORE);
 
+    /**
+     * Contains a hash of the lowercase path of this blob relative to the root directory of its tenant.
+     * <p>
+     * This permits to resolve a path using a single lookup. Note that this is only updated eventually for the
+     * children of a renamed or moved directory.
+     */
+    public static final Mapping PATH_HASH = Mapping.named("pathHash");
+    @NullAllowed
+    @Length(32)
+    private String pathHash;
+
     /**
      * Stores if the blob was moved into another folder.
      */
@@ -445,6 +457,10 @@ public class SQLBlob extends SQLEntity implements Blob, OptimisticCreate {
         return filename;
     }
 
+    public String getNormalizedFilename() {
+        return normalizedFilename;
+    }
+
     @Override
     public long getSize() {
         return size;
@@ -464,6 +480,14 @@ public class SQLBlob extends SQLEntity implements Blob, OptimisticCreate {
         this.committed = committed;
     }
 
+    public String getPathHash() {
+        return pathHash;
+    }
+
+    public void setPathHash(String pathHash) {
+        this.pathHash = pathHash;
+    }
+
     public boolean isDeleted() {
         return deleted;
     }
@@ -22,6 +22,7 @@ import sirius.db.jdbc.SmartQuery;
 import sirius.db.jdbc.UpdateStatement;
 import sirius.db.jdbc.batch.BatchContext;
 import sirius.db.jdbc.batch.UpdateQuery;
+import sirius.db.jdbc.constraints.SQLConstraint;
 import sirius.db.mixing.DateRange;
 import sirius.db.mixing.Mapping;
 import sirius.db.mixing.Mixing;
@@ -30,6 +31,7 @@ import sirius.kernel.async.CallContext;
 import sirius.kernel.commons.Files;
 import sirius.kernel.commons.Strings;
 import sirius.kernel.commons.Tuple;
+import sirius.kernel.commons.Value;
 import sirius.kernel.di.std.Part;
 import sirius.kernel.health.Exceptions;
 import sirius.kernel.nls.NLS;
@@ -45,7 +47,8 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
-import java.util.function.Predicate;
+import java.util.function.BiPredicate;
+import java.util.stream.Stream;
 
 /**
  * Provides a storage facility which stores blobs and directories as {@link SQLBlob} and {@link SQLDirectory} in a
@@ -471,12 +474,14 @@ public class SQLBlobStorageSpace extends BasicBlobStorageSpace<SQLBlob, SQLDirec
     @Override
     protected void updateBlobName(SQLBlob blob, String newName) {
         blob.setFilename(newName);
+        blob.setPathHash(computePathHash(fetchBlobParent(blob), newName));
         oma.update(blob);
     }
 
     @Override
     protected void updateBlobParent(SQLBlob blob, SQLDirectory newParent) {
         blob.getParentRef().setValue(newParent);
+        blob.setPathHash(computePathHash(newParent, blob.getFilename()));
         oma.update(blob);
     }
 
@@ -501,15 +506,114 @@ public class SQLBlobStorageSpace extends BasicBlobStorageSpace<SQLBlob, SQLDirec
     @Override
     protected void updateDirectoryParent(SQLDirectory directory, SQLDirectory newParent) {
         directory.getParentRef().setValue(newParent);
+        directory.setPathHash(computePathHash(newParent, directory.getDirectoryName()));
         oma.update(directory);
     }
 
     @Override
     protected void updateDirectoryName(SQLDirectory directory, String newName) {
         directory.setDirectoryName(newName);
+        directory.setPathHash(computePathHash(fetchDirectoryParent(directory), newName));
         oma.update(directory);
     }
 
+    @Override
+    protected List<SQLBlob> findBlobsByPathHash(String tenantId, String pathHash, int maxCandidates) {
+        return oma.select(SQLBlob.class)
+                  .eq(SQLBlob.SPACE_NAME, spaceName)
+                  .eq(SQLBlob.DELETED, false)
+                  .eq(SQLBlob.TENANT_ID, tenantId)
+                  .eq(SQLBlob.PATH_HASH, pathHash)
+                  .eq(SQLBlob.COMMITTED, true)
+                  .limit(maxCandidates)
+                  .queryList();
+    }
+
+    @Override
+    protected List<SQLDirectory> findDirectoriesByPathHash(String tenantId, String pathHash, int maxCandidates) {
+        return oma.select(SQLDirectory.class)
+                  .eq(SQLDirectory.SPACE_NAME, spaceName)
+                  .eq(SQLDirectory.DELETED, false)
+                  .eq(SQLDirectory.TENANT_ID, tenantId)
+                  .eq(SQLDirectory.PATH_HASH, pathHash)
+                  .eq(SQLDirectory.COMMITTED, true)
+                  .limit(maxCandidates)
+                  .queryList();
+    }
+
+    @Override
+    protected boolean updateBlobPathHash(SQLBlob blob, @Nullable String pathHash) {
+        if (Strings.areEqual(blob.getPathHash(), pathHash)) {
+            return false;
+        }
+
+        try {
+            // We use a plain update statement, as a changed path hash must not trigger any change handlers...
+            oma.updateStatement(SQLBlob.class)
+               .set(SQLBlob.PATH_HASH, pathHash)
+               .where(SQLBlob.ID, blob.getId())
+               .executeUpdate();
+            blob.setPathHash(pathHash);
+            return true;
+        } catch (SQLException e) {
+            Exceptions.handle()
+                      .to(StorageUtils.LOG)
+                      .error(e)
+                      .withSystemErrorMessage("Layer 2/SQL: Failed to update the path hash of the blob '%s': %s (%s)",
+                                              blob.getBlobKey())
+                      .handle();
+            return false;
+        }
+    }
+
+    @Override
+    protected boolean updateDirectoryPathHash(SQLDirectory directory, @Nullable String pathHash) {
+        if (Strings.areEqual(directory.getPathHash(), pathHash)) {
+            return false;
+        }
+
+        try {
+            oma.updateStatement(SQLDirectory.class)
+               .set(SQLDirectory.PATH_HASH, pathHash)
+               .where(SQLDirectory.ID, directory.getId())
+               .executeUpdate();
+            directory.setPathHash(pathHash);
+            return true;
+        } catch (SQLException e) {
+            Exceptions.handle()
+                      .to(StorageUtils.LOG)
+                      .error(e)
+                      .withSystemErrorMessage(
+                              "Layer 2/SQL: Failed to update the path hash of the directory '%s': %s (%s)",
+                              directory.getId())
+                      .handle();
+            return false;
+        }
+    }
+
+    @Override
+    protected boolean isDirectoryDeleted(SQLDirectory directory) {
+        return directory.isDeleted();
+    }
+
+    @Override
+    protected Stream<SQLDirectory> streamPathHashedDirectories() {
+        return oma.select(SQLDirectory.class)
+                  .eq(SQLDirectory.SPACE_NAME, spaceName)
+                  .eq(SQLDirectory.DELETED, false)
+                  .ne(SQLDirectory.PARENT, null)
+                  .streamBlockwise();
+    }
+
+    @Override
+    protected Stream<SQLBlob> streamPathHashedBlobs() {
+        return oma.select(SQLBlob.class)
+                  .eq(SQLBlob.SPACE_NAME, spaceName)
+                  .eq(SQLBlob.DELETED, false)
+                  .ne(SQLBlob.PARENT, null)
+                  .streamBlockwise();
+    }
+
     protected SQLDirectory fetchDirectoryParent(SQLDirectory directory) {
         return (SQLDirectory) fetchDirectoryById(directory.getParentRef().getIdAsString());
     }
@@ -534,7 +638,8 @@ public class SQLBlobStorageSpace extends BasicBlobStorageSpace<SQLBlob, SQLDirec
                 filename = filename.trim();
                 updateStatement.set(SQLBlob.FILENAME, filename)
                                .set(SQLBlob.NORMALIZED_FILENAME, filename.toLowerCase())
-                               .set(SQLBlob.FILE_EXTENSION, Files.getFileExtension(filename.toLowerCase()));
+                               .set(SQLBlob.FILE_EXTENSION, Files.getFileExtension(filename.toLowerCase()))
+                               .set(SQLBlob.PATH_HASH, computePathHash(fetchBlobParent(blob), filename));
             }
 
             int numUpdated = updateStatement.where(SQLBlob.ID, blob.getId())
@@ -546,6 +651,7 @@ public class SQLBlobStorageSpace extends BasicBlobStorageSpace<SQLBlob, SQLDirec
                 blob.setPhysicalObjectKey(nextPhysicalId);
                 if (Strings.isFilled(filename)) {
                     blob.setFilename(filename);
+                    blob.setPathHash(computePathHash(fetchBlobParent(blob), filename));
                 }
                 blob.updateFilenameFields();
                 blob.setSize(size);
@@ -607,6 +713,7 @@ public class SQLBlobStorageSpace extends BasicBlobStorageSpace<SQLBlob, SQLDirec
         newDirectory.getParentRef().setValue(parent);
         newDirectory.setTenantId(parent.getTenantId());
         newDirectory.setDirectoryName(childName);
+        newDirectory.setPathHash(computePathHash(parent, childName));
         newDirectory.setCommitted(false);
         oma.update(newDirectory);
 
@@ -626,19 +733,33 @@ public class SQLBlobStorageSpace extends BasicBlobStorageSpace<SQLBlob, SQLDirec
     protected void listChildDirectories(SQLDirectory parent,
                                         String prefixFilter,
                                         int maxResults,
-                                        Predicate<? super Directory> childProcessor) {
-        oma.select(SQLDirectory.class)
-           .eq(SQLDirectory.SPACE_NAME, spaceName)
-           .eq(SQLDirectory.PARENT, parent)
-           .eq(SQLDirectory.COMMITTED, true)
-           .eq(SQLDirectory.DELETED, false)
-           .where(OMA.FILTERS.like(SQLDirectory.NORMALIZED_DIRECTORY_NAME)
-                             .startsWith(prefixFilter)
-                             .ignoreEmpty()
-                             .build())
-           .limit(maxResults)
-           .orderAsc(SQLDirectory.NORMALIZED_DIRECTORY_NAME)
-           .iterate(childProcessor::test);
+                                        @Nullable String continuation,
+                                        BiPredicate<? super Directory, String> childProcessor) {
+        SmartQuery<SQLDirectory> query = oma.select(SQLDirectory.class)
+                                            .eq(SQLDirectory.SPACE_NAME, spaceName)
+                                            .eq(SQLDirectory.PARENT, parent)
+                                            .eq(SQLDirectory.COMMITTED, true)
+                                            .eq(SQLDirectory.DELETED, false)
+                                            .where(OMA.FILTERS.like(SQLDirectory.NORMALIZED_DIRECTORY_NAME)
+                                                              .startsWith(prefixFilter)
+                                                              .ignoreEmpty()
+                                                              .build());
+
+        Tuple<String, String> lastChild = parseContinuation(continuation);
+        if (lastChild != null) {
+            query.where(OMA.FILTERS.or(OMA.FILTERS.gt(SQLDirectory.NORMALIZED_DIRECTORY_NAME, lastChild.getSecond()),
+                                       OMA.FILTERS.and(OMA.FILTERS.eq(SQLDirectory.NORMALIZED_DIRECTORY_NAME,
+                                                                      lastChild.getSecond()),
+                                                       OMA.FILTERS.gt(SQLDirectory.ID,
+                                                                      Value.of(lastChild.getFirst()).asLong(0)))));
+        }
+
+        query.limit(maxResults)
+             .orderAsc(SQLDirectory.NORMALIZED_DIRECTORY_NAME)
+             .orderAsc(SQLDirectory.ID)
+             .iterate(directory -> childProcessor.test(directory,
+                                                       createContinuation(directory.getId(),
+                                                                          directory.getNormalizedDirectoryName())));
     }
 
     protected Optional<SQLBlob> findExistingChildBlob(SQLDirectory parent, String childName) {
@@ -671,6 +792,7 @@ public class SQLBlobStorageSpace extends BasicBlobStorageSpace<SQLBlob, SQLDirec
         newBlob.getParentRef().setValue(parent);
         newBlob.setTenantId(parent.getTenantId());
         newBlob.setFilename(childName);
+        newBlob.setPathHash(computePathHash(parent, childName));
         newBlob.setCommitted(false);
         oma.update(newBlob);
 
@@ -736,7 +858,8 @@ public class SQLBlobStorageSpace extends BasicBlobStorageSpace<SQLBlob, SQLDirec
                                   String prefixFilter,
                                   Set<String> fileTypes,
                                   int maxResults,
-                                  Predicate<? super Blob> childProcessor) {
+                                  @Nullable String continuation,
+                                  BiPredicate<? super Blob, String> childProcessor) {
         SmartQuery<SQLBlob> query = oma.select(SQLBlob.class)
                                        .eq(SQLBlob.SPACE_NAME, spaceName)
                                        .eq(SQLBlob.PARENT, parent)
@@ -757,13 +880,49 @@ public class SQLBlobStorageSpace extends BasicBlobStorageSpace<SQLBlob, SQLDirec
 
         query.limit(maxResults);
 
+        Tuple<String, String> lastChild = parseContinuation(continuation);
         if (sortByLastModified) {
-            query.orderDesc(SQLBlob.LAST_MODIFIED);
+            if (lastChild != null) {
+                query.where(buildLastModifiedContinuationConstraint(lastChild));
+            }
+            query.orderDesc(SQLBlob.LAST_MODIFIED).orderDesc(SQLBlob.ID);
+            query.iterate(blob -> childProcessor.test(blob, createContinuation(blob.getId(), blob.getLastModified())));
         } else {
-            query.orderAsc(SQLBlob.NORMALIZED_FILENAME);
+            if (lastChild != null) {
+                query.where(OMA.FILTERS.or(OMA.FILTERS.gt(SQLBlob.NORMALIZED_FILENAME, lastChild.getSecond()),
+                                           OMA.FILTERS.and(OMA.FILTERS.eq(SQLBlob.NORMALIZED_FILENAME,
+                                                                          lastChild.getSecond()),
+                                                           OMA.FILTERS.gt(SQLBlob.ID,
+                                                                          Value.of(lastChild.getFirst())
+                                                                               .asLong(0)))));
+            }
+            query.orderAsc(SQLBlob.NORMALIZED_FILENAME).orderAsc(SQLBlob.ID);
+            query.iterate(blob -> childProcessor.test(blob,
+                                                      createContinuation(blob.getId(),
+                                                                         blob.getNormalizedFilename())));
+        }
+    }
+
+    /**
+     * Builds the constraint which resumes a listing sorted by the last modification date (descending).
+     * <p>
+     * Blobs without a last modification date are sorted last, therefore they have to be included when resuming after
+     * a blob with a date. When resuming after such a blob, only the remaining blobs without a date are listed.
+     *
+     * @param lastChild the id and sort value of the child to resume after
+     * @return the constraint which matches all children after the given one
+     */
+    private SQLConstraint buildLastModifiedContinuationConstraint(Tuple<String, String> lastChild) {
+        LocalDateTime lastModified = parseLastModifiedContinuation(lastChild.getSecond());
+        long lastId = Value.of(lastChild.getFirst()).asLong(0);
+        if (lastModified == null) {
+            return OMA.FILTERS.and(OMA.FILTERS.eq(SQLBlob.LAST_MODIFIED, null), OMA.FILTERS.lt(SQLBlob.ID, lastId));
         }
 
-        query.iterate(childProcessor::test);
+        return OMA.FILTERS.or(OMA.FILTERS.lt(SQLBlob.LAST_MODIFIED, lastModified),
+                              OMA.FILTERS.and(OMA.FILTERS.eq(SQLBlob.LAST_MODIFIED, lastModified),
+                                              OMA.FILTERS.lt(SQLBlob.ID, lastId)),
+                              OMA.FILTERS.eq(SQLBlob.LAST_MODIFIED, null));
     }
 
     protected BasePageHelper<? extends Blob, ?, ?, ?> queryChildBlobsAsPage(SQLDirectory parent,
@@ -31,7 +31,7 @@ import sirius.web.http.WebContext;
 import javax.annotation.Nullable;
 import java.util.Optional;
 import java.util.Set;
-import java.util.function.Predicate;
+import java.util.function.BiPredicate;
 
 /**
  * Stores the metadata of a {@link Directory} in the underlying JDBC database.
@@ -43,6 +43,7 @@ import java.util.function.Predicate;
 @Index(name = "directory_name_lookup", columns = {"spaceName", "parent", "deleted", "directoryName"})
 @Index(name = "directory_normalized_name_lookup",
         columns = {"spaceName", "parent", "deleted", "normalizedDirectoryName"})
+@Index(name = "directory_path_lookup", columns = {"spaceName", "deleted", "tenantId", "pathHash", "committed"})
 @Index(name = "directory_renamed_loop", columns = "renamed")
 public class SQLDirectory extends SQLEntity implements Directory, OptimisticCreate {
 
@@ -90,6 +91,17 @@ public class SQLDirectory extends SQLEntity implements Directory, OptimisticCrea
     private final SQLEntityRef<SQLDirectory> parent =
             SQLEntityRef.on(SQLDirectory.class, BaseEntityRef.OnDelete.IGNORE);
 
+    /**
+     * Contains a hash of the lowercase path of this directory relative to the root directory of its tenant.
+     * <p>
+     * This permits to resolve a path using a single lookup. Note that this is only updated eventually for the
+     * children of a renamed or moved directory.
+     */
+    public static final Mapping PATH_HASH = Mapping.named("pathHash");
+    @NullAllowed
+    @Length(32)
+    private String pathHash;
+
     /**
      * Stores if a directory has been fully initialized.
      * <p>
@@ -106,7 +118,7 @@ public class SQLDirectory extends SQLEntity implements Directory, OptimisticCrea
     private boolean deleted;
 
     /**
-     * Stores if the directory has been renamed.
+     * Stores if the directory has been renamed or moved.
      */
     public static final Mapping RENAMED = Mapping.named("renamed");
     private boolean renamed;
@@ -138,7 +150,7 @@ public class SQLDirectory extends SQLEntity implements Directory, OptimisticCrea
             }
         }
 
-        if (!isNew() && isChanged(DIRECTORY_NAME)) {
+        if (!isNew() && isChanged(DIRECTORY_NAME, PARENT)) {
             renamed = true;
         }
     }
@@ -200,16 +212,18 @@ public class SQLDirectory extends SQLEntity implements Directory, OptimisticCrea
     @Override
     public void listChildDirectories(@Nullable String prefixFilter,
                                      int maxResults,
-                                     Predicate<? super Directory> childProcessor) {
-        getStorageSpace().listChildDirectories(this, prefixFilter, maxResults, childProcessor);
+                                     @Nullable String continuation,
+                                     BiPredicate<? super Directory, String> childProcessor) {
+        getStorageSpace().listChildDirectories(this, prefixFilter, maxResults, continuation, childProcessor);
     }
 
     @Override
     public void listChildBlobs(@Nullable String prefixFilter,
                                @Nullable Set<String> fileTypes,
                                int maxResults,
-                               Predicate<? super Blob> childProcessor) {
-        getStorageSpace().listChildBlobs(this, prefixFilter, fileTypes, maxResults, childProcessor);
+                               @Nullable String continuation,
+                               BiPredicate<? super Blob, String> childProcessor) {
+        getStorageSpace().listChildBlobs(this, prefixFilter, fileTypes, maxResults, continuation, childProcessor);
     }
 
     @Override
@@ -254,6 +268,10 @@ public class SQLDirectory extends SQLEntity implements Directory, OptimisticCrea
         return directoryName;
     }
 
+    public String getNormalizedDirectoryName() {
+        return normalizedDirectoryName;
+    }
+
     public void setDirectoryName(String directoryName) {
         this.directoryName = directoryName;
     }
@@ -267,6 +285,14 @@ public class SQLDirectory extends SQLEntity implements Directory, OptimisticCrea
         this.committed = committed;
     }
 
+    public String getPathHash() {
+        return pathHash;
+    }
+
+    public void setPathHash(String pathHash) {
+        this.pathHash = pathHash;
+    }
+
     public boolean isDeleted() {
         return deleted;
     }
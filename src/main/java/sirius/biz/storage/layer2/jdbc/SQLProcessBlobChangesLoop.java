@@ -98,6 +98,7 @@ public class SQLProcessBlobChangesLoop extends ProcessBlobChangesLoop {
     protected void processRenamedDirectories(Runnable counter) {
         oma.select(SQLDirectory.class).eq(SQLDirectory.RENAMED, true).limit(CURSOR_LIMIT).iterateAll(dir -> {
             try {
+                dir.getStorageSpace().refreshDirectoryPathHash(dir);
                 propagateRename(dir);
                 oma.updateStatement(SQLDirectory.class)
                    .set(SQLDirectory.RENAMED, false)
@@ -135,6 +136,7 @@ public class SQLProcessBlobChangesLoop extends ProcessBlobChangesLoop {
     protected void processParentChangedBlobs(Runnable counter) {
         oma.select(SQLBlob.class).eq(SQLBlob.PARENT_CHANGED, true).limit(CURSOR_LIMIT).iterateAll(blob -> {
             invokeParentChangedHandlers(blob);
+            blob.getStorageSpace().refreshBlobPathHash(blob);
             try {
                 oma.updateStatement(SQLBlob.class)
                    .set(SQLBlob.PARENT_CHANGED, false)
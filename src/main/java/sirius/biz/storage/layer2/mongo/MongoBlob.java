@@ -68,6 +68,13 @@ import java.util.Optional;
                           Mango.INDEX_ASCENDING,
                           Mango.INDEX_ASCENDING,
                           Mango.INDEX_ASCENDING})
+@Index(name = "blob_path_lookup",
+        columns = {"spaceName", "deleted", "tenantId", "pathHash", "committed"},
+        columnSettings = {Mango.INDEX_ASCENDING,
+                          Mango.INDEX_ASCENDING,
+                          Mango.INDEX_ASCENDING,
+                          Mango.INDEX_ASCENDING,
+                          Mango.INDEX_ASCENDING})
 @Index(name = "blob_reference_lookup",
         columns = {"spaceName", "deleted", "reference", "referenceDesignator"},
         columnSettings = {Mango.INDEX_ASCENDING, Mango.INDEX_ASCENDING, Mango.INDEX_ASCENDING, Mango.INDEX_ASCENDING})
@@ -163,6 +170,16 @@ public class MongoBlob extends MongoEntity implements Blob, OptimisticCreate {
     @NullAllowed
     private final MongoRef<MongoDirectory> parent = MongoRef.on(MongoDirectory.class, BaseEntityRef.OnDelete.IGNORE);
 
+    /**
+     * Contains a hash of the lowercase path of this blob relative to the root directory of its tenant.
+     * <p>
+     * This permits to resolve a path using a single lookup. Note that this is only updated eventually for the
+     * children of a renamed or moved directory.
+     */
+    public static final Mapping PATH_HASH = Mapping.named("pathHash");
+    @NullAllowed
+    private String pathHash;
+
     /**
      * Stores if the blob was moved into another folder.
      */
@@ -448,6 +465,10 @@ public class MongoBlob extends MongoEntity implements Blob, OptimisticCreate {
         return filename;
     }
 
+    public String getNormalizedFilename() {
+        return normalizedFilename;
+    }
+
     @Override
     public long getSize() {
         return size;
@@ -467,6 +488,14 @@ public class MongoBlob extends MongoEntity implements Blob, OptimisticCreate {
         this.committed = committed;
     }
 
+    public String getPathHash() {
+        return pathHash;
+    }
+
+    public void setPathHash(String pathHash) {
+        this.pathHash = pathHash;
+    }
+
     public boolean isDeleted() {
         return deleted;
     }
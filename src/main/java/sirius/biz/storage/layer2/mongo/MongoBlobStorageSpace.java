@@ -25,6 +25,7 @@ import sirius.db.mongo.Mongo;
 import sirius.db.mongo.MongoQuery;
 import sirius.db.mongo.QueryBuilder;
 import sirius.db.mongo.Updater;
+import sirius.db.mongo.constraints.MongoConstraint;
 import sirius.kernel.async.CallContext;
 import sirius.kernel.commons.Files;
 import sirius.kernel.commons.Strings;
@@ -41,7 +42,8 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
-import java.util.function.Predicate;
+import java.util.function.BiPredicate;
+import java.util.stream.Stream;
 
 /**
  * Provides a storage facility which stores blobs and directories as {@link MongoBlob} and {@link MongoDirectory} in a
@@ -399,6 +401,7 @@ public class MongoBlobStorageSpace extends BasicBlobStorageSpace<MongoBlob, Mong
     @Override
     protected void updateBlobName(MongoBlob blob, String newName) {
         blob.setFilename(newName);
+        blob.setPathHash(computePathHash(fetchBlobParent(blob), newName));
         // Trigger a conventional update to ensure that last modified get updated and a changelog is triggered
         mango.update(blob);
     }
@@ -406,6 +409,7 @@ public class MongoBlobStorageSpace extends BasicBlobStorageSpace<MongoBlob, Mong
     @Override
     protected void updateBlobParent(MongoBlob blob, MongoDirectory newParent) {
         blob.getParentRef().setValue(newParent);
+        blob.setPathHash(computePathHash(newParent, blob.getFilename()));
         // Trigger a conventional update to ensure that last modified get updated and a changelog is triggered
         mango.update(blob);
     }
@@ -421,6 +425,7 @@ public class MongoBlobStorageSpace extends BasicBlobStorageSpace<MongoBlob, Mong
     @Override
     protected void updateDirectoryParent(MongoDirectory directory, MongoDirectory newParent) {
         directory.getParentRef().setValue(newParent);
+        directory.setPathHash(computePathHash(newParent, directory.getDirectoryName()));
         // Trigger a conventional update to ensure that last modified get updated and a changelog is triggered
         mango.update(directory);
     }
@@ -428,10 +433,87 @@ public class MongoBlobStorageSpace extends BasicBlobStorageSpace<MongoBlob, Mong
     @Override
     protected void updateDirectoryName(MongoDirectory directory, String newName) {
         directory.setDirectoryName(newName);
+        directory.setPathHash(computePathHash(fetchDirectoryParent(directory), newName));
         // Trigger a conventional update to ensure that last modified get updated and a changelog is triggered
         mango.update(directory);
     }
 
+    @Override
+    protected List<MongoBlob> findBlobsByPathHash(String tenantId, String pathHash, int maxCandidates) {
+        return mango.select(MongoBlob.class)
+                    .eq(MongoBlob.SPACE_NAME, spaceName)
+                    .eq(MongoBlob.DELETED, false)
+                    .eq(MongoBlob.TENANT_ID, tenantId)
+                    .eq(MongoBlob.PATH_HASH, pathHash)
+                    .eq(MongoBlob.COMMITTED, true)
+                    .limit(maxCandidates)
+                    .queryList();
+    }
+
+    @Override
+    protected List<MongoDirectory> findDirectoriesByPathHash(String tenantId, String pathHash, int maxCandidates) {
+        return mango.select(MongoDirectory.class)
+                    .eq(MongoDirectory.SPACE_NAME, spaceName)
+                    .eq(MongoDirectory.DELETED, false)
+                    .eq(MongoDirectory.TENANT_ID, tenantId)
+                    .eq(MongoDirectory.PATH_HASH, pathHash)
+                    .eq(MongoDirectory.COMMITTED, true)
+                    .limit(maxCandidates)
+                    .queryList();
+    }
+
+    @Override
+    protected boolean updateBlobPathHash(MongoBlob blob, @Nullable String pathHash) {
+        if (Strings.areEqual(blob.getPathHash(), pathHash)) {
+            return false;
+        }
+
+        // We use a plain update, as a changed path hash must not trigger any change handlers...
+        mongo.update()
+             .set(MongoBlob.PATH_HASH, pathHash)
+             .where(MongoBlob.ID, blob.getId())
+             .executeForOne(MongoBlob.class);
+        blob.setPathHash(pathHash);
+        return true;
+    }
+
+    @Override
+    protected boolean updateDirectoryPathHash(MongoDirectory directory, @Nullable String pathHash) {
+        if (Strings.areEqual(directory.getPathHash(), pathHash)) {
+            return false;
+        }
+
+        mongo.update()
+             .set(MongoDirectory.PATH_HASH, pathHash)
+             .where(MongoDirectory.ID, directory.getId())
+             .executeForOne(MongoDirectory.class);
+        directory.setPathHash(pathHash);
+        return true;
+    }
+
+    @Override
+    protected boolean isDirectoryDeleted(MongoDirectory directory) {
+        return directory.isDeleted();
+    }
+
+    @Override
+    protected Stream<MongoDirectory> streamPathHashedDirectories() {
+        return mango.select(MongoDirectory.class)
+                    .eq(MongoDirectory.SPACE_NAME, spaceName)
+                    .eq(MongoDirectory.DELETED, false)
+                    .ne(MongoDirectory.PARENT, null)
+                    .streamBlockwise();
+    }
+
+    @Override
+    protected Stream<MongoBlob> streamPathHashedBlobs() {
+        return mango.select(MongoBlob.class)
+                    .eq(MongoBlob.SPACE_NAME, spaceName)
+                    .eq(MongoBlob.DELETED, false)
+                    .ne(MongoBlob.PARENT, null)
+                    .streamBlockwise();
+    }
+
     protected MongoDirectory fetchDirectoryParent(MongoDirectory directory) {
         return (MongoDirectory) fetchDirectoryById(directory.getParentRef().getIdAsString());
     }
@@ -456,7 +538,8 @@ public class MongoBlobStorageSpace extends BasicBlobStorageSpace<MongoBlob, Mong
                 filename = filename.trim();
                 updater.set(MongoBlob.FILENAME, filename)
                        .set(MongoBlob.NORMALIZED_FILENAME, filename.toLowerCase())
-                       .set(MongoBlob.FILE_EXTENSION, Files.getFileExtension(filename.toLowerCase()));
+                       .set(MongoBlob.FILE_EXTENSION, Files.getFileExtension(filename.toLowerCase()))
+                       .set(MongoBlob.PATH_HASH, computePathHash(fetchBlobParent(blob), filename));
             }
 
             long numUpdated = updater.where(MongoBlob.ID, blob.getId())
@@ -469,6 +552,7 @@ public class MongoBlobStorageSpace extends BasicBlobStorageSpace<MongoBlob, Mong
                 blob.setPhysicalObjectKey(nextPhysicalId);
                 if (Strings.isFilled(filename)) {
                     blob.setFilename(filename);
+                    blob.setPathHash(computePathHash(fetchBlobParent(blob), filename));
                 }
                 blob.updateFilenameFields();
                 blob.setSize(size);
@@ -531,6 +615,7 @@ public class MongoBlobStorageSpace extends BasicBlobStorageSpace<MongoBlob, Mong
         newDirectory.getParentRef().setValue(parent);
         newDirectory.setTenantId(parent.getTenantId());
         newDirectory.setDirectoryName(childName);
+        newDirectory.setPathHash(computePathHash(parent, childName));
         newDirectory.setCommitted(false);
         mango.update(newDirectory);
 
@@ -550,16 +635,32 @@ public class MongoBlobStorageSpace extends BasicBlobStorageSpace<MongoBlob, Mong
     protected void listChildDirectories(MongoDirectory parent,
                                         String prefixFilter,
                                         int maxResults,
-                                        Predicate<? super Directory> childProcessor) {
-        mango.select(MongoDirectory.class)
-             .eq(MongoDirectory.SPACE_NAME, spaceName)
-             .eq(MongoDirectory.PARENT, parent)
-             .eq(MongoDirectory.COMMITTED, true)
-             .eq(MongoDirectory.DELETED, false)
-             .where(QueryBuilder.FILTERS.prefix(MongoDirectory.NORMALIZED_DIRECTORY_NAME, prefixFilter))
-             .limit(maxResults)
+                                        @Nullable String continuation,
+                                        BiPredicate<? super Directory, String> childProcessor) {
+        MongoQuery<MongoDirectory> query = mango.select(MongoDirectory.class)
+                                                .eq(MongoDirectory.SPACE_NAME, spaceName)
+                                                .eq(MongoDirectory.PARENT, parent)
+                                                .eq(MongoDirectory.COMMITTED, true)
+                                                .eq(MongoDirectory.DELETED, false)
+                                                .where(QueryBuilder.FILTERS.prefix(MongoDirectory.NORMALIZED_DIRECTORY_NAME,
+                                                                                   prefixFilter));
+
+        Tuple<String, String> lastChild = parseContinuation(continuation);
+        if (lastChild != null) {
+            query.where(QueryBuilder.FILTERS.or(QueryBuilder.FILTERS.gt(MongoDirectory.NORMALIZED_DIRECTORY_NAME,
+                                                                        lastChild.getSecond()),
+                                                QueryBuilder.FILTERS.and(QueryBuilder.FILTERS.eq(MongoDirectory.NORMALIZED_DIRECTORY_NAME,
+                                                                                                 lastChild.getSecond()),
+                                                                         QueryBuilder.FILTERS.gt(MongoDirectory.ID,
+                                                                                                 lastChild.getFirst()))));
+        }
+
+        query.limit(maxResults)
              .orderAsc(MongoDirectory.NORMALIZED_DIRECTORY_NAME)
-             .iterate(childProcessor::test);
+             .orderAsc(MongoDirectory.ID)
+             .iterate(directory -> childProcessor.test(directory,
+                                                       createContinuation(directory.getId(),
+                                                                          directory.getNormalizedDirectoryName())));
     }
 
     protected Optional<MongoBlob> findExistingChildBlob(MongoDirectory parent, String childName) {
@@ -592,6 +693,7 @@ public class MongoBlobStorageSpace extends BasicBlobStorageSpace<MongoBlob, Mong
         newBlob.getParentRef().setValue(parent);
         newBlob.setTenantId(parent.getTenantId());
         newBlob.setFilename(childName);
+        newBlob.setPathHash(computePathHash(parent, childName));
         newBlob.setCommitted(false);
         mango.update(newBlob);
 
@@ -661,7 +763,8 @@ public class MongoBlobStorageSpace extends BasicBlobStorageSpace<MongoBlob, Mong
                                   String prefixFilter,
                                   Set<String> fileTypes,
                                   int maxResults,
-                                  Predicate<? super Blob> childProcessor) {
+                                  @Nullable String continuation,
+                                  BiPredicate<? super Blob, String> childProcessor) {
         MongoQuery<MongoBlob> blobsQuery = mango.select(MongoBlob.class)
                                                 .eq(MongoBlob.SPACE_NAME, spaceName)
                                                 .eq(MongoBlob.PARENT, parent)
@@ -676,13 +779,52 @@ public class MongoBlobStorageSpace extends BasicBlobStorageSpace<MongoBlob, Mong
                                                  QueryBuilder.FILTERS.prefix(MongoBlob.FILE_EXTENSION, prefixFilter)));
         blobsQuery.limit(maxResults);
 
+        Tuple<String, String> lastChild = parseContinuation(continuation);
         if (sortByLastModified) {
-            blobsQuery.orderDesc(MongoBlob.LAST_MODIFIED);
+            if (lastChild != null) {
+                blobsQuery.where(buildLastModifiedContinuationConstraint(lastChild));
+            }
+            blobsQuery.orderDesc(MongoBlob.LAST_MODIFIED).orderDesc(MongoBlob.ID);
+            blobsQuery.iterate(blob -> childProcessor.test(blob,
+                                                           createContinuation(blob.getId(), blob.getLastModified())));
         } else {
-            blobsQuery.orderAsc(MongoBlob.NORMALIZED_FILENAME);
+            if (lastChild != null) {
+                blobsQuery.where(QueryBuilder.FILTERS.or(QueryBuilder.FILTERS.gt(MongoBlob.NORMALIZED_FILENAME,
+                                                                                 lastChild.getSecond()),
+                                                         QueryBuilder.FILTERS.and(QueryBuilder.FILTERS.eq(MongoBlob.NORMALIZED_FILENAME,
+                                                                                                          lastChild.getSecond()),
+                                                                                  QueryBuilder.FILTERS.gt(MongoBlob.ID,
+                                                                                                          lastChild.getFirst()))));
+            }
+            blobsQuery.orderAsc(MongoBlob.NORMALIZED_FILENAME).orderAsc(MongoBlob.ID);
+            blobsQuery.iterate(blob -> childProcessor.test(blob,
+                                                           createContinuation(blob.getId(),
+                                                                              blob.getNormalizedFilename())));
+        }
+    }
+
+    /**
+     * Builds the constraint which resumes a listing sorted by the last modification date (descending).
+     * <p>
+     * Blobs without a last modification date are sorted last, therefore they have to be included when resuming after
+     * a blob with a date. When resuming after such a blob, only the remaining blobs without a date are listed.
+     *
+     * @param lastChild the id and sort value of the child to resume after
+     * @return the constraint which matches all children after the given one
+     */
+    private MongoConstraint buildLastModifiedContinuationConstraint(Tuple<String, String> lastChild) {
+        LocalDateTime lastModified = parseLastModifiedContinuation(lastChild.getSecond());
+        if (lastModified == null) {
+            return QueryBuilder.FILTERS.and(QueryBuilder.FILTERS.eq(MongoBlob.LAST_MODIFIED, null),
+                                            QueryBuilder.FILTERS.lt(MongoBlob.ID, lastChild.getFirst()));
         }
 
-        blobsQuery.iterate(childProcessor::test);
+        return QueryBuilder.FILTERS.or(QueryBuilder.FILTERS.lt(MongoBlob.LAST_MODIFIED, lastModified),
+                                       QueryBuilder.FILTERS.and(QueryBuilder.FILTERS.eq(MongoBlob.LAST_MODIFIED,
+                                                                                        lastModified),
+                                                                QueryBuilder.FILTERS.lt(MongoBlob.ID,
+                                                                                        lastChild.getFirst())),
+                                       QueryBuilder.FILTERS.eq(MongoBlob.LAST_MODIFIED, null));
     }
 
     protected BasePageHelper<? extends Blob, ?, ?, ?> queryChildBlobsAsPage(MongoDirectory parent,
@@ -31,7 +31,7 @@ import sirius.web.http.WebContext;
 import javax.annotation.Nullable;
 import java.util.Optional;
 import java.util.Set;
-import java.util.function.Predicate;
+import java.util.function.BiPredicate;
 
 /**
  * Stores the metadata of a {@link Directory} in the underlying MongoDB.
@@ -48,6 +48,13 @@ import java.util.function.Predicate;
 @Index(name = "directory_normalized_name_lookup",
         columns = {"spaceName", "parent", "deleted", "normalizedDirectoryName"},
         columnSettings = {Mango.INDEX_ASCENDING, Mango.INDEX_ASCENDING, Mango.INDEX_ASCENDING, Mango.INDEX_ASCENDING})
+@Index(name = "directory_path_lookup",
+        columns = {"spaceName", "deleted", "tenantId", "pathHash", "committed"},
+        columnSettings = {Mango.INDEX_ASCENDING,
+                          Mango.INDEX_ASCENDING,
+                          Mango.INDEX_ASCENDING,
+                          Mango.INDEX_ASCENDING,
+                          Mango.INDEX_ASCENDING})
 @Index(name = "directory_renamed_loop", columns = "renamed", columnSettings = Mango.INDEX_ASCENDING)
 public class MongoDirectory extends MongoEntity implements Directory, OptimisticCreate {
 
@@ -90,6 +97,16 @@ public class MongoDirectory extends MongoEntity implements Directory, Optimistic
     @NullAllowed
     private final MongoRef<MongoDirectory> parent = MongoRef.on(MongoDirectory.class, BaseEntityRef.OnDelete.IGNORE);
 
+    /**
+     * Contains a hash of the lowercase path of this directory relative to the root directory of its tenant.
+     * <p>
+     * This permits to resolve a path using a single lookup. Note that this is only updated eventually for the
+     * children of a renamed or moved directory.
+     */
+    public static final Mapping PATH_HASH = Mapping.named("pathHash");
+    @NullAllowed
+    private String pathHash;
+
     /**
      * Stores if a directory has been fully initialized.
      * <p>
@@ -106,7 +123,7 @@ public class MongoDirectory extends MongoEntity implements Directory, Optimistic
     private boolean deleted;
 
     /**
-     * Stores if the directory has been renamed.
+     * Stores if the directory has been renamed or moved.
      */
     public static final Mapping RENAMED = Mapping.named("renamed");
     private boolean renamed;
@@ -138,7 +155,7 @@ public class MongoDirectory extends MongoEntity implements Directory, Optimistic
             }
         }
 
-        if (!isNew() && isChanged(DIRECTORY_NAME)) {
+        if (!isNew() && isChanged(DIRECTORY_NAME, PARENT)) {
             renamed = true;
         }
     }
@@ -200,16 +217,18 @@ public class MongoDirectory extends MongoEntity implements Directory, Optimistic
     @Override
     public void listChildDirectories(@Nullable String prefixFilter,
                                      int maxResults,
-                                     Predicate<? super Directory> childProcessor) {
-        getStorageSpace().listChildDirectories(this, prefixFilter, maxResults, childProcessor);
+                                     @Nullable String continuation,
+                                     BiPredicate<? super Directory, String> childProcessor) {
+        getStorageSpace().listChildDirectories(this, prefixFilter, maxResults, continuation, childProcessor);
     }
 
     @Override
     public void listChildBlobs(@Nullable String prefixFilter,
                                @Nullable Set<String> fileTypes,
                                int maxResults,
-                               Predicate<? super Blob> childProcessor) {
-        getStorageSpace().listChildBlobs(this, prefixFilter, fileTypes, maxResults, childProcessor);
+                               @Nullable String continuation,
+                               BiPredicate<? super Blob, String> childProcessor) {
+        getStorageSpace().listChildBlobs(this, prefixFilter, fileTypes, maxResults, continuation, childProcessor);
     }
 
     @Override
@@ -254,6 +273,10 @@ public class MongoDirectory extends MongoEntity implements Directory, Optimistic
         return directoryName;
     }
 
+    public String getNormalizedDirectoryName() {
+        return normalizedDirectoryName;
+    }
+
     public void setDirectoryName(String directoryName) {
         this.directoryName = directoryName;
     }
@@ -267,6 +290,14 @@ public class MongoDirectory extends MongoEntity implements Directory, Optimistic
         this.committed = committed;
     }
 
+    public String getPathHash() {
+        return pathHash;
+    }
+
+    public void setPathHash(String pathHash) {
+        this.pathHash = pathHash;
+    }
+
     public boolean isDeleted() {
         return deleted;
     }
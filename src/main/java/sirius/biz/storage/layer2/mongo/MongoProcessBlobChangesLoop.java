@@ -86,6 +86,7 @@ public class MongoProcessBlobChangesLoop extends ProcessBlobChangesLoop {
     protected void processRenamedDirectories(Runnable counter) {
         mango.select(MongoDirectory.class).eq(MongoDirectory.RENAMED, true).limit(CURSOR_LIMIT).iterateAll(dir -> {
             try {
+                dir.getStorageSpace().refreshDirectoryPathHash(dir);
                 propagateRename(dir);
                 mongo.update()
                      .set(MongoDirectory.RENAMED, false)
@@ -115,6 +116,7 @@ public class MongoProcessBlobChangesLoop extends ProcessBlobChangesLoop {
     protected void processParentChangedBlobs(Runnable counter) {
         mango.select(MongoBlob.class).eq(MongoBlob.PARENT_CHANGED, true).limit(CURSOR_LIMIT).iterateAll(blob -> {
             invokeParentChangedHandlers(blob);
+            blob.getStorageSpace().refreshBlobPathHash(blob);
             mongo.update()
                  .set(MongoBlob.PARENT_CHANGED, false)
                  .where(MongoBlob.ID, blob.getId())
@@ -20,6 +20,10 @@ import java.util.NoSuchElementException;
  * <p>
  * This permits to safely process even very large directories with the downside that a file might
  * be skipped or processed twice if a concurrent iteration happens (which should almost never be the case).
+ * <p>
+ * If the underlying provider supports {@link FileSearch#getLastContinuation() continuations}, each block is resumed
+ * right after the last child of the previous block, so that enumerating a directory takes linear time. Otherwise,
+ * we fall back to skipping over all children which have already been seen.
  */
 class BlockwiseIterator implements Iterator<VirtualFile> {
 
@@ -27,6 +31,7 @@ class BlockwiseIterator implements Iterator<VirtualFile> {
 
     private final VirtualFile virtualFile;
     private int nextStart;
+    private String continuation;
     private Iterator<VirtualFile> currentBlock;
 
     protected BlockwiseIterator(VirtualFile virtualFile) {
@@ -36,12 +41,20 @@ class BlockwiseIterator implements Iterator<VirtualFile> {
 
     private Iterator<VirtualFile> fetchNextBlock() {
         List<VirtualFile> buffer = new ArrayList<>();
-        virtualFile.children(new FileSearch(buffer::add).withLimit(new Limit(nextStart, BLOCK_SIZE)));
+        FileSearch search = new FileSearch(buffer::add).withResumptionExpected();
+        if (continuation != null) {
+            search.withContinuation(continuation).withLimit(new Limit(0, BLOCK_SIZE));
+        } else {
+            search.withLimit(new Limit(nextStart, BLOCK_SIZE));
+        }
+
+        virtualFile.children(search);
         if (buffer.isEmpty()) {
             return null;
         }
 
         nextStart += buffer.size();
+        continuation = search.getLastContinuation().orElse(null);
         return buffer.iterator();
     }
 
@@ -20,9 +20,11 @@ import sirius.biz.storage.layer1.FileHandle;
 import sirius.biz.storage.util.StorageUtils;
 import sirius.biz.util.ArchiveExtractor;
 import sirius.biz.util.ExtractedFile;
+import sirius.kernel.commons.Callback;
 import sirius.kernel.commons.Files;
 import sirius.kernel.commons.Strings;
 import sirius.kernel.commons.Watch;
+import sirius.kernel.di.std.ConfigValue;
 import sirius.kernel.di.std.Part;
 import sirius.kernel.di.std.Register;
 import sirius.kernel.nls.NLS;
@@ -30,15 +32,23 @@ import sirius.web.http.QueryString;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
+import java.util.zip.ZipException;
 
 /**
  * Provides a job able to extract archives from the {@link VirtualFileSystem}.
  * <p>
  * This uses the {@link ArchiveExtractor} so depending on if 7-ZIP is enabled this supports either a bunch
  * of formats (rar, 7z, tar etc.) or "just" ZIP files using the Java API.
+ * <p>
+ * As storing the extracted files is mostly limited by the latency of the storage, several files are stored in
+ * parallel (see {@link ArchiveExtractor#extractAllInParallel}). ZIP archives are read directly from the storage
+ * if <tt>archives.streamZipArchives</tt> is enabled, so that no local copy of the whole archive is required.
  */
 @Register(classes = {JobFactory.class, ExtractArchiveJob.class}, framework = StorageUtils.FRAMEWORK_STORAGE)
 public class ExtractArchiveJob extends SimpleBatchProcessJobFactory {
@@ -69,6 +79,9 @@ public class ExtractArchiveJob extends SimpleBatchProcessJobFactory {
     @Part
     private ArchiveExtractor extractor;
 
+    @ConfigValue("archives.streamZipArchives")
+    private boolean streamZipArchives;
+
     private Parameter<VirtualFile> sourceParameter;
     private final Parameter<VirtualFile> destinationParameter;
     private final Parameter<ArchiveExtractor.OverrideMode> overwriteExistingFilesParameter;
@@ -78,6 +91,31 @@ public class ExtractArchiveJob extends SimpleBatchProcessJobFactory {
     private static final String FILE_SKIPPED_COUNTER = "ExtractArchiveJob.fileSkipped";
     private static final String FILE_EMPTY_COUNTER = "ExtractArchiveJob.fileEmpty";
 
+    /**
+     * Keeps track of the files being stored by all workers so that the throughput can be reported.
+     */
+    private static class ExtractionStatistics {
+
+        private final Watch watch = Watch.start();
+        private final AtomicInteger files = new AtomicInteger();
+        private final AtomicLong bytes = new AtomicLong();
+
+        void fileStored(long size) {
+            files.incrementAndGet();
+            bytes.addAndGet(size);
+        }
+
+        String formatProgress(ExtractedFile extractedFile) {
+            long elapsedSeconds = Math.max(1, watch.elapsedMillis() / 1000);
+            return NLS.fmtr("ExtractArchiveJob.progressWithThroughput")
+                      .set("progress", extractedFile.getProgressInPercent().toPercentString())
+                      .set("files", files.get())
+                      .set("size", NLS.formatSize(bytes.get()))
+                      .set("throughput", NLS.formatSize(bytes.get() / elapsedSeconds))
+                      .format();
+        }
+    }
+
     /**
      * Creates the job factory so that it can be invoked by the framework.
      * <p>
@@ -125,20 +163,25 @@ public class ExtractArchiveJob extends SimpleBatchProcessJobFactory {
         boolean flattenDirs = process.getParameter(flattenDirectoriesParameter).orElse(false);
         ArchiveExtractor.OverrideMode overrideMode = process.require(overwriteExistingFilesParameter);
 
-        process.log(ProcessLog.info()
-                              .withNLSKey("FileImportJob.downloadingFile")
-                              .withContext("file", sourceFile.name())
-                              .withContext("size", NLS.formatSize(sourceFile.size())));
-
-        try (FileHandle archive = sourceFile.download()) {
-            extractor.extractAll(sourceFile.name(),
-                                 archive.getFile(),
-                                 null,
-                                 file -> handleExtractedFile(file,
-                                                             process,
-                                                             overrideMode,
-                                                             targetDirectory,
-                                                             flattenDirs));
+        ExtractionStatistics statistics = new ExtractionStatistics();
+        Callback<ExtractedFile> fileHandler = file -> handleExtractedFile(file,
+                                                                          process,
+                                                                          overrideMode,
+                                                                          targetDirectory,
+                                                                          flattenDirs,
+                                                                          statistics);
+
+        if (!streamZipArchives
+            || !extractor.isZipFile(sourceFile.fileExtension())
+            || !tryStreamArchive(process, sourceFile, fileHandler)) {
+            process.log(ProcessLog.info()
+                                  .withNLSKey("FileImportJob.downloadingFile")
+                                  .withContext("file", sourceFile.name())
+                                  .withContext("size", NLS.formatSize(sourceFile.size())));
+
+            try (FileHandle archive = sourceFile.download()) {
+                extractor.extractAllInParallel(sourceFile.name(), archive.getFile(), null, fileHandler);
+            }
         }
 
         process.forceUpdateState(NLS.get("ExtractArchiveJob.completed"));
@@ -149,11 +192,30 @@ public class ExtractArchiveJob extends SimpleBatchProcessJobFactory {
         }
     }
 
+    private boolean tryStreamArchive(ProcessContext process,
+                                     VirtualFile sourceFile,
+                                     Callback<ExtractedFile> fileHandler) throws Exception {
+        try (InputStream archive = sourceFile.createInputStream()) {
+            extractor.extractZipStreamInParallel(sourceFile.name(), archive, sourceFile.size(), null, fileHandler);
+            return true;
+        } catch (ZipException zipException) {
+            // Some archives can only be read using their central directory. As all files are stored using the
+            // selected override mode, we can safely start over using a local copy...
+            process.debug(ProcessLog.warn()
+                                    .withFormattedMessage(
+                                            "Cannot stream the archive '%s': %s - Falling back to a local copy...",
+                                            sourceFile.name(),
+                                            zipException.getMessage()));
+            return false;
+        }
+    }
+
     private void handleExtractedFile(ExtractedFile extractedFile,
                                      ProcessContext process,
                                      ArchiveExtractor.OverrideMode overrideMode,
                                      VirtualFile targetDirectory,
-                                     boolean flattenDirectory) throws Exception {
+                                     boolean flattenDirectory,
+                                     ExtractionStatistics statistics) throws Exception {
         Watch watch = Watch.start();
 
         if (extractedFile == null) {
@@ -163,9 +225,7 @@ public class ExtractArchiveJob extends SimpleBatchProcessJobFactory {
             return;
         }
 
-        process.tryUpdateState(NLS.fmtr("ExtractArchiveJob.progress")
-                                  .set("progress", extractedFile.getProgressInPercent().toPercentString())
-                                  .format());
+        process.tryUpdateState(statistics.formatProgress(extractedFile));
 
         if (extractedFile.size() == 0) {
             process.log(ProcessLog.warn()
@@ -178,6 +238,9 @@ public class ExtractArchiveJob extends SimpleBatchProcessJobFactory {
         String targetPath = getTargetPath(extractedFile, flattenDirectory);
         VirtualFile targetFile = targetDirectory.resolve(targetPath);
         ArchiveExtractor.UpdateResult result = extractor.updateFile(extractedFile, targetFile, overrideMode);
+        if (result != ArchiveExtractor.UpdateResult.SKIPPED) {
+            statistics.fileStored(extractedFile.size());
+        }
         switch (result) {
             case CREATED -> process.addTiming("ExtractArchiveJob.fileCreated", watch.elapsedMillis());
             case UPDATED -> process.addTiming("ExtractArchiveJob.fileOverwritten", watch.elapsedMillis());
@@ -11,6 +11,7 @@ package sirius.biz.storage.layer3;
 import sirius.kernel.commons.Limit;
 import sirius.kernel.commons.Strings;
 
+import javax.annotation.Nullable;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Objects;
@@ -26,6 +27,11 @@ import java.util.function.Predicate;
  * <p>
  * These criteria can also be queried and extracted to be applied in a more efficient manner (if possible). In this
  * case the filters should be disabled here.
+ * <p>
+ * Providers which can efficiently resume an enumeration (e.g. by using a keyset query) should supply a
+ * <b>continuation</b> along with each result via {@link #processResult(VirtualFile, String)}. The last continuation
+ * can then be passed into a subsequent search via {@link #withContinuation(String)} so that the provider resumes
+ * right after the last processed child instead of skipping over all previously seen children.
  */
 public class FileSearch {
 
@@ -33,6 +39,9 @@ public class FileSearch {
     private String prefixFilter;
     private Set<String> fileExtensionFilters;
     private Limit limit = Limit.UNLIMITED;
+    private boolean resumptionExpected;
+    private String continuation;
+    private String lastContinuation;
     private final Predicate<VirtualFile> resultProcessor;
 
     protected FileSearch(Predicate<VirtualFile> resultProcessor) {
@@ -177,6 +186,89 @@ public class FileSearch {
         return Optional.ofNullable(limit.getRemainingItems());
     }
 
+    /**
+     * Specifies the continuation after which the enumeration is to be resumed.
+     * <p>
+     * Note that continuations are opaque and only understood by the provider which created them.
+     *
+     * @param continuation the continuation as reported by {@link #getLastContinuation()} of a previous search
+     * @return the search itself for fluent method calls
+     */
+    public FileSearch withContinuation(@Nullable String continuation) {
+        this.continuation = continuation;
+        this.resumptionExpected = true;
+        return this;
+    }
+
+    /**
+     * Signals that this enumeration will most probably be resumed via {@link #withContinuation(String)}.
+     * <p>
+     * Providers which can only compute the complete listing at once (e.g. remote uplinks) can use this to keep
+     * the remaining children around for a short period of time.
+     *
+     * @return the search itself for fluent method calls
+     */
+    public FileSearch withResumptionExpected() {
+        this.resumptionExpected = true;
+        return this;
+    }
+
+    /**
+     * Determines if this enumeration will most probably be resumed.
+     *
+     * @return <tt>true</tt> if the enumeration is either resumed or expected to be resumed, <tt>false</tt> otherwise
+     */
+    public boolean isResumptionExpected() {
+        return resumptionExpected;
+    }
+
+    /**
+     * Returns the continuation after which the enumeration is to be resumed.
+     *
+     * @return the continuation to resume after or an empty optional to start with the first child
+     */
+    public Optional<String> getContinuation() {
+        return Optional.ofNullable(continuation);
+    }
+
+    /**
+     * Returns the continuation of the last child which has been processed.
+     *
+     * @return the continuation which can be passed into {@link #withContinuation(String)} to resume this enumeration
+     * or an empty optional if the provider doesn't support continuations (or didn't process any children)
+     */
+    public Optional<String> getLastContinuation() {
+        return Optional.ofNullable(lastContinuation);
+    }
+
+    /**
+     * Determines if more results are accepted by the limit of this search.
+     *
+     * @return <tt>true</tt> if more results can be processed, <tt>false</tt> if the limit has been reached
+     */
+    public boolean isLimitReached() {
+        return !limit.shouldContinue();
+    }
+
+    /**
+     * Processes a result and applies the given filters and limit.
+     * <p>
+     * In contrast to {@link #processResult(VirtualFile)} this also records the continuation of the given file, so that
+     * the enumeration can be resumed after it.
+     *
+     * @param file         the file to process
+     * @param continuation the continuation which permits to resume the enumeration right after the given file
+     * @return <tt>true</tt> if more results can be processed <tt>false</tt> if the enumeration should be aborted
+     */
+    public boolean processResult(VirtualFile file, String continuation) {
+        if (isLimitReached()) {
+            return false;
+        }
+
+        this.lastContinuation = continuation;
+        return processResult(file);
+    }
+
     /**
      * Processes a result and applies the given filters and limit.
      *
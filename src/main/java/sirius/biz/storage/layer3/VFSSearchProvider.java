@@ -10,6 +10,7 @@ package sirius.biz.storage.layer3;
 
 import sirius.biz.tycho.search.OpenSearchProvider;
 import sirius.biz.tycho.search.OpenSearchResult;
+import sirius.kernel.async.TaskContext;
 import sirius.kernel.commons.Limit;
 import sirius.kernel.commons.Strings;
 import sirius.kernel.di.std.Part;
@@ -18,6 +19,7 @@ import sirius.kernel.nls.NLS;
 
 import javax.annotation.Nullable;
 import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 /**
  * Makes root directories of the {@link VirtualFileSystem} visible to the
@@ -48,10 +50,12 @@ public class VFSSearchProvider implements OpenSearchProvider {
     @Override
     public void query(String query, int maxResults, Consumer<OpenSearchResult> resultCollector) {
         Limit limit = new Limit(0, maxResults);
+        TaskContext taskContext = TaskContext.get();
         vfs.root()
            .tree()
            .directChildrenOnly()
            .stream()
+           .takeWhile(ignored -> taskContext.isActive())
            .filter(file -> file.name().toLowerCase().contains(query))
            .forEach(file -> {
                OpenSearchResult result = new OpenSearchResult();
@@ -64,6 +68,12 @@ public class VFSSearchProvider implements OpenSearchProvider {
            });
     }
 
+    @Override
+    public Predicate<OpenSearchResult> createRefinementFilter(String refinedQuery) {
+        // We only search in the label, therefore cached results can be filtered the same way...
+        return result -> result.getLabel().toLowerCase().contains(refinedQuery);
+    }
+
     @Override
     public int getPriority() {
         return 90;
@@ -8,18 +8,15 @@
 
 package sirius.biz.storage.layer3.downlink.ssh;
 
-import sirius.biz.storage.layer3.FileSearch;
 import sirius.biz.storage.layer3.VirtualFile;
 
 import java.io.IOException;
 import java.nio.file.DirectoryStream;
 import java.nio.file.Path;
-import java.util.ArrayList;
 import java.util.Iterator;
-import java.util.List;
 
 /**
- * Provides an interface between NIO and the <tt>FileSystem</tt> API torwards {@link VirtualFile#children(FileSearch)}.
+ * Provides an interface between NIO and the <tt>FileSystem</tt> API torwards {@link VirtualFile#allChildren()}.
  */
 public class BridgeDirectoryStream implements DirectoryStream<Path> {
 
@@ -39,10 +36,12 @@ public class BridgeDirectoryStream implements DirectoryStream<Path> {
 
     @Override
     public Iterator<Path> iterator() {
-        List<Path> result = new ArrayList<>();
-        virtualFile.children(FileSearch.iterateAll(child -> result.add(new BridgePath(child, fileSystem))));
-
-        return result.iterator();
+        // We stream the children blockwise so that even huge directories neither have to be loaded into memory
+        // at once nor keep a database cursor open while the client is consuming the listing...
+        return virtualFile.allChildren()
+                          .stream()
+                          .map(child -> (Path) new BridgePath(child, fileSystem))
+                          .iterator();
     }
 
     @Override
@@ -12,7 +12,10 @@ import sirius.biz.storage.layer3.ChildProvider;
 import sirius.biz.storage.layer3.FileSearch;
 import sirius.biz.storage.layer3.MutableVirtualFile;
 import sirius.biz.storage.layer3.VirtualFile;
+import sirius.kernel.cache.Cache;
+import sirius.kernel.cache.CacheManager;
 import sirius.kernel.commons.Strings;
+import sirius.kernel.commons.Tuple;
 import sirius.kernel.commons.Value;
 import sirius.kernel.nls.NLS;
 import sirius.web.security.ScopeInfo;
@@ -21,6 +24,10 @@ import sirius.web.security.UserInfo;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
 import java.util.function.Function;
 import java.util.function.Predicate;
 
@@ -31,6 +38,21 @@ import java.util.function.Predicate;
  */
 public abstract class ConfigBasedUplink {
 
+    /**
+     * Separates the id of a listing and the number of consumed children within a continuation.
+     */
+    private static final String CONTINUATION_SEPARATOR = "|";
+
+    /**
+     * Keeps the remaining children of listings which are expected to be resumed.
+     * <p>
+     * Most uplinks can only fetch the complete listing of a directory at once. Without keeping the remaining
+     * children around, each block of a {@link FileSearch#withResumptionExpected() blockwise} enumeration would
+     * fetch the whole listing again, which would result in quadratic runtime for large directories.
+     */
+    private static final Cache<String, Iterator<VirtualFile>> pendingListings =
+            CacheManager.createLocalCache("storage-uplink-listings");
+
     protected String description;
     protected String permission;
     protected String name;
@@ -47,10 +69,56 @@ public abstract class ConfigBasedUplink {
 
         @Override
         public void enumerate(VirtualFile parent, FileSearch search) {
-            enumerateDirectoryChildren(parent, search);
+            if (search.isResumptionExpected()) {
+                enumerateResumable(parent, search);
+            } else {
+                enumerateDirectoryChildren(parent, search);
+            }
         }
     };
 
+    /**
+     * Enumerates the children of the given directory so that the enumeration can be resumed via a continuation.
+     * <p>
+     * The remaining children of the listing are kept in {@link #pendingListings} so that resuming the enumeration
+     * doesn't require to fetch the listing again. If the listing has been evicted in the meantime, we fetch it
+     * again and skip over all children which have already been consumed.
+     *
+     * @param parent the directory to enumerate
+     * @param search the search which defines all filters and collects results
+     */
+    private void enumerateResumable(VirtualFile parent, FileSearch search) {
+        String listingId = Strings.generateCode(16);
+        int position = 0;
+        Iterator<VirtualFile> children = null;
+
+        Optional<String> continuation = search.getContinuation();
+        if (continuation.isPresent()) {
+            Tuple<String, String> listingAndPosition = Strings.split(continuation.get(), CONTINUATION_SEPARATOR);
+            listingId = listingAndPosition.getFirst();
+            position = Value.of(listingAndPosition.getSecond()).asInt(0);
+            children = pendingListings.get(continuation.get());
+            pendingListings.remove(continuation.get());
+        }
+
+        if (children == null) {
+            List<VirtualFile> listing = new ArrayList<>();
+            enumerateDirectoryChildren(parent, FileSearch.iterateAll(listing::add));
+            children = listing.subList(Math.min(position, listing.size()), listing.size()).iterator();
+        }
+
+        while (children.hasNext() && !search.isLimitReached()) {
+            position++;
+            if (!search.processResult(children.next(), listingId + CONTINUATION_SEPARATOR + position)) {
+                break;
+            }
+        }
+
+        if (children.hasNext()) {
+            pendingListings.put(listingId + CONTINUATION_SEPARATOR + position, children);
+        }
+    }
+
     /**
      * Creates a new instance based on the config section.
      *
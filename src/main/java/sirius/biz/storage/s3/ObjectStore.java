@@ -33,7 +33,6 @@ import com.amazonaws.services.s3.transfer.Upload;
 import com.amazonaws.services.s3.transfer.internal.S3ProgressListener;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufInputStream;
-import io.netty.buffer.Unpooled;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import sirius.biz.storage.layer1.FileHandle;
 import sirius.kernel.async.CallContext;
@@ -41,6 +40,7 @@ import sirius.kernel.async.Operation;
 import sirius.kernel.async.Promise;
 import sirius.kernel.async.TaskContext;
 import sirius.kernel.async.Tasks;
+import sirius.kernel.commons.Explain;
 import sirius.kernel.commons.Files;
 import sirius.kernel.commons.Streams;
 import sirius.kernel.commons.Strings;
@@ -61,7 +61,11 @@ import java.io.InterruptedIOException;
 import java.time.Duration;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
@@ -76,26 +80,14 @@ public class ObjectStore {
     public static final String EXECUTOR_S3 = "s3";
 
     /**
-     * When performing a multipart upload in {@link #upload(BucketName, String, InputStream)} we keep
-     * a local aggregation buffer around to collect a large enough chunk to be uploaded to S3. This specifies the
-     * initial size of this buffer.
-     */
-    private static final int INITIAL_LOCAL_AGGREGATION_BUFFER_SIZE = 32 * 1024;
-
-    /**
-     * Specifies the maximal size of the local aggregation buffer (as described in
-     * {@link #INITIAL_LOCAL_AGGREGATION_BUFFER_SIZE}) before a chunk is uploaded to S3. Note that a single multipart
-     * upload can at most consist of 10.000 parts - therefore this size limits the maximal total object size.
+     * When performing a multipart upload in {@link #upload(BucketName, String, InputStream)} we read the data into
+     * buffers of this size, which are then uploaded as single parts. Note that a single multipart upload can at most
+     * consist of 10.000 parts - therefore this size limits the maximal total object size.
      * The resulting limit should be 10 * 1024 * 1024 * 10000 bytes = 104,8576 GB.
+     * <p>
+     * The buffers are obtained from a shared and bounded {@link PartBufferPool pool}.
      */
-    private static final int MAXIMAL_LOCAL_AGGREGATION_BUFFER_SIZE = 10 * 1024 * 1024;
-
-    /**
-     * When reading from an input stream into the local aggregation buffer (as described in
-     * {@link #INITIAL_LOCAL_AGGREGATION_BUFFER_SIZE}), this specifies the size of the byte array used to shovel
-     * chunks of data from the input stream into the aggregation buffer.
-     */
-    private static final int LOCAL_TRANSFER_BUFFER_SIZE = 8192;
+    static final int MAXIMAL_LOCAL_AGGREGATION_BUFFER_SIZE = 10 * 1024 * 1024;
 
     protected final ObjectStores stores;
     protected final String name;
@@ -350,6 +342,50 @@ public class ObjectStore {
         }
     }
 
+    /**
+     * Copies the given object into another bucket without transferring the data through this node.
+     * <p>
+     * Note that both buckets have to be accessible using the credentials of this store.
+     *
+     * @param sourceBucket   the bucket which contains the object to copy
+     * @param sourceObjectId the object to copy
+     * @param targetBucket   the bucket to copy the object to
+     * @param targetObjectId the object id to use in the target bucket
+     */
+    public void copyObject(BucketName sourceBucket,
+                           String sourceObjectId,
+                           BucketName targetBucket,
+                           String targetObjectId) {
+        ensureBucketExists(targetBucket);
+        try (Operation operation = new Operation(() -> Strings.apply("S3: Copying object %s from %s to %s",
+                                                                     sourceObjectId,
+                                                                     sourceBucket,
+                                                                     targetBucket), Duration.ofHours(1))) {
+            // The transfer manager automatically switches to a multipart copy for large objects...
+            transferManager.copy(sourceBucket.getName(), sourceObjectId, targetBucket.getName(), targetObjectId)
+                           .waitForCopyResult();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw Exceptions.handle()
+                            .to(ObjectStores.LOG)
+                            .error(e)
+                            .withSystemErrorMessage(
+                                    "Got interrupted while waiting for a copy to complete: %s/%s - %s (%s)",
+                                    sourceBucket,
+                                    sourceObjectId)
+                            .handle();
+        } catch (Exception e) {
+            throw Exceptions.handle()
+                            .to(ObjectStores.LOG)
+                            .error(e)
+                            .withSystemErrorMessage("Failed to copy object %s from bucket %s to %s - %s (%s)",
+                                                    sourceObjectId,
+                                                    sourceBucket,
+                                                    targetBucket)
+                            .handle();
+        }
+    }
+
     /**
      * Deletes the given bucket.
      * <p>
@@ -732,9 +768,12 @@ public class ObjectStore {
                                                                                    multipartUpload.getUploadId(),
                                                                                    eTags));
         } catch (Exception e) {
-            getClient().abortMultipartUpload(new AbortMultipartUploadRequest(bucket.getName(),
-                                                                             objectId,
-                                                                             multipartUpload.getUploadId()));
+            // Failed parts have already been counted, all other errors (reading the data, completing the upload)
+            // are counted here...
+            if (!(e instanceof PartUploadFailedException)) {
+                stores.failedUploads.inc();
+            }
+            abortMultipartUpload(bucket, objectId, multipartUpload.getUploadId());
             if (e instanceof InterruptedIOException || e.getCause() instanceof InterruptedIOException) {
                 throw Exceptions.createHandled()
                                 .error(e)
@@ -753,6 +792,49 @@ public class ObjectStore {
         }
     }
 
+    private void abortMultipartUpload(BucketName bucket, String objectId, String multipartUploadId) {
+        try {
+            getClient().abortMultipartUpload(new AbortMultipartUploadRequest(bucket.getName(),
+                                                                             objectId,
+                                                                             multipartUploadId));
+        } catch (Exception e) {
+            // Only log this error, as the original one is reported by the caller...
+            Exceptions.handle()
+                      .to(ObjectStores.LOG)
+                      .error(e)
+                      .withSystemErrorMessage("Failed to abort the multipart upload of %s (%s): %s (%s)",
+                                              objectId,
+                                              bucket.getName())
+                      .handle();
+        }
+    }
+
+    /**
+     * Signals that at least one part of a multipart upload failed.
+     */
+    private static class PartUploadFailedException extends IOException {
+
+        private static final long serialVersionUID = 1797329152616712460L;
+
+        PartUploadFailedException(Exception cause) {
+            super("Failed to upload a part: " + cause.getMessage(), cause);
+        }
+    }
+
+    /**
+     * Reads the given input stream into parts and uploads them.
+     * <p>
+     * The data is read ahead into buffers obtained from the shared {@link PartBufferPool} so that up to
+     * {@link ObjectStores#getParallelParts()} parts are uploaded concurrently using the {@link #EXECUTOR_S3 s3}
+     * executor while the next part is being read.
+     *
+     * @param bucket            the bucket to upload the data to
+     * @param objectId          the object id to use
+     * @param inputStream       the data to upload
+     * @param multipartUploadId the id of the multipart upload which has already been initiated
+     * @return the ETags of all uploaded parts, sorted by their part number
+     * @throws IOException in case of an error when reading the data or when uploading a part
+     */
     @Nonnull
     protected List<PartETag> uploadInChunks(BucketName bucket,
                                             String objectId,
@@ -762,31 +844,109 @@ public class ObjectStore {
             ObjectStores.LOG.FINE("Uploading %s to %s", objectId, bucket);
         }
 
-        List<PartETag> eTags = new ArrayList<>();
-        int partNumber = 1;
+        List<PartETag> eTags = Collections.synchronizedList(new ArrayList<>());
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        int parallelParts = stores.getParallelParts();
+        Semaphore partsInFlight = new Semaphore(parallelParts);
+        PartBufferPool bufferPool = stores.getPartBufferPool();
 
-        ByteBuf localAggregationBuffer = Unpooled.buffer(INITIAL_LOCAL_AGGREGATION_BUFFER_SIZE);
         try {
-            byte[] transferBuffer = new byte[LOCAL_TRANSFER_BUFFER_SIZE];
-            int bytesRead = inputStream.read(transferBuffer);
-            while (bytesRead > 0) {
-                localAggregationBuffer.writeBytes(transferBuffer, 0, bytesRead);
-                if (localAggregationBuffer.readableBytes() > MAXIMAL_LOCAL_AGGREGATION_BUFFER_SIZE) {
-                    eTags.add(uploadChunk(bucket, objectId, multipartUploadId, localAggregationBuffer, partNumber++));
-                    localAggregationBuffer.clear();
+            int partNumber = 1;
+            boolean endOfStream = false;
+            while (!endOfStream && failure.get() == null) {
+                partsInFlight.acquire();
+                ByteBuf buffer = null;
+                boolean handedOver = false;
+                try {
+                    buffer = bufferPool.acquire();
+                    endOfStream = fillBuffer(inputStream, buffer);
+                    if (buffer.isReadable()) {
+                        ByteBuf partBuffer = buffer;
+                        uploadChunkAsync(bucket,
+                                         objectId,
+                                         multipartUploadId,
+                                         partBuffer,
+                                         partNumber++,
+                                         eTags,
+                                         failure,
+                                         () -> {
+                                             bufferPool.release(partBuffer);
+                                             partsInFlight.release();
+                                         });
+                        handedOver = true;
+                    }
+                } finally {
+                    if (!handedOver) {
+                        if (buffer != null) {
+                            bufferPool.release(buffer);
+                        }
+                        partsInFlight.release();
+                    }
                 }
-
-                bytesRead = inputStream.read(transferBuffer);
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for an upload buffer");
+        } finally {
+            // Wait until all parts which are still being uploaded are completed...
+            partsInFlight.acquireUninterruptibly(parallelParts);
+        }
 
-            if (localAggregationBuffer.isReadable()) {
-                eTags.add(uploadChunk(bucket, objectId, multipartUploadId, localAggregationBuffer, partNumber++));
+        if (failure.get() != null) {
+            throw new PartUploadFailedException(failure.get());
+        }
+
+        List<PartETag> result = new ArrayList<>(eTags);
+        result.sort(Comparator.comparingInt(PartETag::getPartNumber));
+        return result;
+    }
+
+    /**
+     * Reads from the given input stream until either the buffer is full or the end of the stream is reached.
+     *
+     * @param inputStream the stream to read from
+     * @param buffer      the buffer to fill
+     * @return <tt>true</tt> if the end of the stream has been reached, <tt>false</tt> otherwise
+     * @throws IOException in case of an error while reading from the stream
+     */
+    private boolean fillBuffer(InputStream inputStream, ByteBuf buffer) throws IOException {
+        while (buffer.isWritable()) {
+            if (buffer.writeBytes(inputStream, buffer.writableBytes()) < 0) {
+                return true;
             }
-        } finally {
-            localAggregationBuffer.release();
         }
 
-        return eTags;
+        return false;
+    }
+
+    @SuppressWarnings("java:S107")
+    @Explain("We rather keep all parameters explicit than introducing a parameter object for a private method.")
+    private void uploadChunkAsync(BucketName bucket,
+                                  String objectId,
+                                  String multipartUploadId,
+                                  ByteBuf buffer,
+                                  int partNumber,
+                                  List<PartETag> eTags,
+                                  AtomicReference<Exception> failure,
+                                  Runnable completionHandler) {
+        int partSize = buffer.readableBytes();
+        stores.inFlightUploadBytes.addAndGet(partSize);
+        tasks.executor(EXECUTOR_S3).fork(() -> {
+            try {
+                if (failure.get() == null) {
+                    eTags.add(uploadChunk(bucket, objectId, multipartUploadId, buffer, partNumber));
+                    stores.uploadedBytes.add(partSize);
+                }
+            } catch (Exception e) {
+                // Only the first failing part is counted, as all others belong to the same (failed) upload...
+                if (failure.compareAndSet(null, e)) {
+                    stores.failedUploads.inc();
+                }
+            } finally {
+                stores.inFlightUploadBytes.addAndGet(-partSize);
+                completionHandler.run();
+            }
+        });
     }
 
     protected PartETag uploadChunk(BucketName bucket,
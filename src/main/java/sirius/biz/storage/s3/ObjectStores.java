@@ -20,11 +20,14 @@ import sirius.kernel.Sirius;
 import sirius.kernel.cache.Cache;
 import sirius.kernel.cache.CacheManager;
 import sirius.kernel.commons.Tuple;
+import sirius.kernel.di.std.ConfigValue;
 import sirius.kernel.di.std.Register;
 import sirius.kernel.health.Average;
 import sirius.kernel.health.Counter;
 import sirius.kernel.health.Exceptions;
 import sirius.kernel.health.Log;
+import sirius.kernel.health.metrics.MetricProvider;
+import sirius.kernel.health.metrics.MetricsCollector;
 import sirius.kernel.settings.Extension;
 import sirius.kernel.settings.PortMapper;
 import sirius.kernel.settings.Settings;
@@ -32,14 +35,15 @@ import sirius.kernel.settings.Settings;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Provides a thin layer above S3 (or compatible stores).
  * <p>
  * The configuration is read from <tt>s3.stores.[name]</tt> in the system configuration.
  */
-@Register(classes = ObjectStores.class)
-public class ObjectStores {
+@Register(classes = {ObjectStores.class, MetricProvider.class})
+public class ObjectStores implements MetricProvider {
 
     /*
      * Extended socket timeout when talkting to our S3 store
@@ -80,6 +84,16 @@ public class ObjectStores {
     protected Average tunnels = new Average();
     protected Counter tunnelledBytes = new Counter();
 
+    protected AtomicLong inFlightUploadBytes = new AtomicLong();
+
+    @ConfigValue("s3.multipartUpload.parallelParts")
+    private int parallelParts;
+
+    @ConfigValue("s3.multipartUpload.maxBuffers")
+    private int maxBuffers;
+
+    private PartBufferPool partBufferPool;
+
     /**
      * Provides acccess to the default or <tt>system</tt> store.
      *
@@ -123,6 +137,29 @@ public class ObjectStores {
         return extension.get(KEY_END_POINT).isFilled();
     }
 
+    /**
+     * Returns the number of parts which are uploaded concurrently by a single multipart upload.
+     *
+     * @return the max number of parts of a single upload being in flight at the same time
+     */
+    protected int getParallelParts() {
+        return Math.max(1, parallelParts);
+    }
+
+    /**
+     * Returns the pool of buffers shared by all multipart uploads.
+     *
+     * @return the pool used to collect the parts of multipart uploads
+     */
+    protected synchronized PartBufferPool getPartBufferPool() {
+        if (partBufferPool == null) {
+            partBufferPool = new PartBufferPool(ObjectStore.MAXIMAL_LOCAL_AGGREGATION_BUFFER_SIZE,
+                                                Math.max(1, maxBuffers));
+        }
+
+        return partBufferPool;
+    }
+
     protected synchronized ObjectStore createAndStore(String name) {
         ObjectStore result = stores.get(name);
         if (result != null) {
@@ -191,4 +228,23 @@ public class ObjectStores {
                        Integer.valueOf(defaultPort).equals(hostAndPort.getSecond()) ? -1 : hostAndPort.getSecond(),
                        endpoint.getFile()).toString();
     }
+
+    @Override
+    public void gather(MetricsCollector metricsCollector) {
+        metricsCollector.differentialMetric("s3_uploaded_bytes",
+                                            "s3-uploaded-bytes",
+                                            "S3 Upload Throughput",
+                                            uploadedBytes.getCount() / 1024 / 1024,
+                                            "MB/min");
+        metricsCollector.metric("s3_upload_in_flight",
+                                "s3-upload-in-flight",
+                                "S3 Upload In-Flight",
+                                inFlightUploadBytes.get() / 1024d / 1024d,
+                                "MB");
+        metricsCollector.differentialMetric("s3_failed_uploads",
+                                            "s3-failed-uploads",
+                                            "S3 Failed Uploads",
+                                            failedUploads.getCount(),
+                                            "/min");
+    }
 }
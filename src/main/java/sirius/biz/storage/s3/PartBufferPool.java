@@ -0,0 +1,69 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.biz.storage.s3;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Provides a bounded pool of direct buffers which are used to collect the parts of a multipart upload.
+ * <p>
+ * As parts are rather large (see {@link ObjectStore#upload(BucketName, String, java.io.InputStream)}), allocating
+ * a fresh buffer per part would put quite some pressure on the garbage collector. Therefore, buffers are kept and
+ * re-used once a part has been uploaded. As the number of buffers is limited, this also limits the total amount of
+ * memory being used for read-ahead by all concurrent uploads.
+ */
+class PartBufferPool {
+
+    private final int bufferSize;
+    private final Semaphore availableBuffers;
+    private final Queue<ByteBuf> idleBuffers = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Creates a new pool.
+     *
+     * @param bufferSize the size of each buffer
+     * @param maxBuffers the max number of buffers which can be in use at the same time
+     */
+    PartBufferPool(int bufferSize, int maxBuffers) {
+        this.bufferSize = bufferSize;
+        this.availableBuffers = new Semaphore(maxBuffers);
+    }
+
+    /**
+     * Obtains an empty buffer, blocking until one becomes available.
+     *
+     * @return an empty buffer which has to be handed back via {@link #release(ByteBuf)}
+     * @throws InterruptedException if the calling thread was interrupted while waiting for a buffer
+     */
+    ByteBuf acquire() throws InterruptedException {
+        availableBuffers.acquire();
+        ByteBuf buffer = idleBuffers.poll();
+        if (buffer == null) {
+            buffer = Unpooled.directBuffer(bufferSize, bufferSize);
+        }
+
+        return buffer;
+    }
+
+    /**
+     * Hands a buffer back to the pool.
+     *
+     * @param buffer the buffer which has previously been obtained via {@link #acquire()}
+     */
+    void release(ByteBuf buffer) {
+        buffer.clear();
+        idleBuffers.offer(buffer);
+        availableBuffers.release();
+    }
+}
@@ -10,6 +10,7 @@ package sirius.biz.storage.util;
 
 import sirius.biz.storage.layer1.ObjectStorageSpace;
 import sirius.biz.storage.layer1.replication.ReplicationManager;
+import sirius.biz.storage.layer2.BlobPathCache;
 import sirius.biz.storage.layer2.variants.ConversionEngine;
 import sirius.kernel.di.std.Part;
 import sirius.kernel.di.std.Register;
@@ -18,6 +19,8 @@ import sirius.kernel.health.metrics.MetricsCollector;
 import sirius.web.health.CachingLoadInfoProvider;
 import sirius.web.health.LoadInfo;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.function.Consumer;
 
 /**
@@ -32,6 +35,9 @@ public class StorageMetrics extends CachingLoadInfoProvider implements MetricPro
     @Part
     private ConversionEngine conversionEngine;
 
+    @Part
+    private BlobPathCache blobPathCache;
+
     @Override
     public void gather(MetricsCollector metricsCollector) {
         metricsCollector.differentialMetric("storage_uploads",
@@ -54,6 +60,11 @@ public class StorageMetrics extends CachingLoadInfoProvider implements MetricPro
                                             "Storage Deliveries",
                                             ObjectStorageSpace.getDeliveries(),
                                             "/min");
+        metricsCollector.differentialMetric("storage_partial_deliveries",
+                                            "storage-partial-deliveries",
+                                            "Storage Partial Deliveries",
+                                            ObjectStorageSpace.getPartialDeliveries(),
+                                            "/min");
         metricsCollector.differentialMetric("storage_fallbacks",
                                             "storage-fallbacks",
                                             "Storage Fallbacks",
@@ -81,6 +92,38 @@ public class StorageMetrics extends CachingLoadInfoProvider implements MetricPro
                                 replicationManager.getReplicationExecutionDuration().getAndClear(),
                                 "ms");
 
+        metricsCollector.differentialMetric("storage_replication_throughput",
+                                            "storage-replication-throughput",
+                                            "Storage Replication Throughput",
+                                            replicationManager.getReplicatedBytes() / 1024 / 1024,
+                                            "MB/min");
+        metricsCollector.differentialMetric("storage_replication_server_side_copies",
+                                            "storage-replication-server-side-copies",
+                                            "Storage Replication Server Side Copies",
+                                            replicationManager.getServerSideCopies(),
+                                            "/min");
+        replicationManager.getReplicationTaskStorage().ifPresent(replicationTaskStorage -> {
+            metricsCollector.differentialMetric("storage_replication_coalesced",
+                                                "storage-replication-coalesced",
+                                                "Storage Replication Tasks Coalesced",
+                                                replicationTaskStorage.getNumberOfCoalescedTasks(),
+                                                "/min");
+            metricsCollector.metric("storage_replication_backlog",
+                                    "storage-replication-backlog",
+                                    "Storage Replication Backlog",
+                                    replicationTaskStorage.countNumberOfExecutableTasks(),
+                                    null);
+            metricsCollector.metric("storage_replication_backlog_age",
+                                    "storage-replication-backlog-age",
+                                    "Storage Replication Backlog Age",
+                                    replicationTaskStorage.findOldestExecutableTask()
+                                                          .map(oldestTask -> Duration.between(oldestTask,
+                                                                                              LocalDateTime.now())
+                                                                                     .toMinutes())
+                                                          .orElse(0L),
+                                    "min");
+        });
+
         metricsCollector.metric("storage_conversions",
                                 "storage-conversions",
                                 "Storage Conversions",
@@ -91,6 +134,24 @@ public class StorageMetrics extends CachingLoadInfoProvider implements MetricPro
                                 "Storage Conversion Duration",
                                 conversionEngine.getConversionDuration().getAndClear(),
                                 "ms");
+
+        blobPathCache.getStatistics().forEach((space, statistics) -> {
+            metricsCollector.differentialMetric("storage_path_cache_hits",
+                                                "storage-path-cache-hits-" + space,
+                                                "Storage Path Cache Hits (" + space + ")",
+                                                statistics.getHits(),
+                                                "/min");
+            metricsCollector.differentialMetric("storage_path_cache_misses",
+                                                "storage-path-cache-misses-" + space,
+                                                "Storage Path Cache Misses (" + space + ")",
+                                                statistics.getMisses(),
+                                                "/min");
+            metricsCollector.differentialMetric("storage_path_cache_invalidations",
+                                                "storage-path-cache-invalidations-" + space,
+                                                "Storage Path Cache Invalidations (" + space + ")",
+                                                statistics.getInvalidations(),
+                                                "/min");
+        });
     }
 
     @Override
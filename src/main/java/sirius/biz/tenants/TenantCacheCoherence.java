@@ -0,0 +1,63 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.biz.tenants;
+
+import com.alibaba.fastjson.JSONObject;
+import sirius.biz.cluster.Interconnect;
+import sirius.biz.cluster.InterconnectHandler;
+import sirius.kernel.async.CallContext;
+import sirius.kernel.commons.Strings;
+import sirius.kernel.di.std.Part;
+import sirius.kernel.di.std.Register;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Distributes the flush of all cached data of a tenant across the cluster.
+ * <p>
+ * Instead of broadcasting a {@link sirius.kernel.cache.Cache#removeAll(String, String)} which has to inspect all
+ * cached entries, each node uses its local {@link TenantCacheIndex} to only remove the entries of the given tenant.
+ */
+@Register(classes = {TenantCacheCoherence.class, InterconnectHandler.class})
+public class TenantCacheCoherence implements InterconnectHandler {
+
+    private static final String MESSAGE_TENANT = "tenant";
+    private static final String MESSAGE_NODE = "node";
+
+    @Part
+    private Interconnect interconnect;
+
+    /**
+     * Removes all cached entries of the given tenant on all nodes.
+     *
+     * @param tenantUniqueName the unique name of the tenant to flush
+     */
+    public void flushTenant(String tenantUniqueName) {
+        TenantUserManager.flushTenantCachesLocally(tenantUniqueName);
+        interconnect.dispatchIdempotent(getName(),
+                                        new JSONObject().fluentPut(MESSAGE_TENANT, tenantUniqueName)
+                                                        .fluentPut(MESSAGE_NODE, CallContext.getNodeName()));
+    }
+
+    @Override
+    public void handleEvent(JSONObject event) {
+        // Ignore our own messages, as we already have executed them...
+        if (Strings.areEqual(CallContext.getNodeName(), event.getString(MESSAGE_NODE))) {
+            return;
+        }
+
+        TenantUserManager.flushTenantCachesLocally(event.getString(MESSAGE_TENANT));
+    }
+
+    @Nonnull
+    @Override
+    public String getName() {
+        return "TenantCaches";
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.biz.tenants;
+
+import sirius.kernel.cache.Cache;
+import sirius.kernel.cache.CacheManager;
+import sirius.kernel.commons.Strings;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Keeps track of which keys of a coherent cache belong to which tenant.
+ * <p>
+ * Using {@link Cache#removeAll(String, String)} to remove all entries of a tenant has to check every cached entry on
+ * every node. Using this index, only the entries of the given tenant have to be touched. Note that each node
+ * maintains its own index, as it only knows about the entries which have been computed locally.
+ * <p>
+ * Therefore, all entries of the cache should be put and removed via this index. Still, the index might contain keys
+ * of entries which have already been evicted from the cache or removed by another node. As removing a non-existent
+ * key is a no-op, this is harmless. To prevent the index from growing without bounds, these keys are pruned once
+ * the index contains twice as many keys as the cache may hold (see {@link Cache#getMaxSize()}). As the cache itself
+ * is bounded, this always frees at least half of the index, therefore pruning is rare and the cache contents are
+ * never dropped.
+ * <p>
+ * Note that all changes of the index are synchronized, so that pruning cannot drop a key which is being registered
+ * concurrently. As these are only a few map operations, this is way cheaper than computing any cache entry.
+ *
+ * @param <V> the type of values stored in the cache
+ */
+class TenantCacheIndex<V> {
+
+    /**
+     * Contains the minimal number of keys to index before pruning is attempted.
+     * <p>
+     * This is used for caches which have a very small or no max size at all.
+     */
+    private static final int MIN_PRUNE_THRESHOLD = 256;
+
+    private final Cache<String, V> cache;
+    private final int initialPruneThreshold;
+    private int pruneThreshold;
+    private final Map<String, Set<String>> keysPerTenant = new ConcurrentHashMap<>();
+    private final Map<String, String> tenantPerKey = new ConcurrentHashMap<>();
+
+    /**
+     * Is incremented for each tenant being removed.
+     * <p>
+     * Keys are only registered once their entry has been put into the cache. If a tenant is removed in between, its
+     * removal cannot see the key, therefore we compare the generation before and after the put and drop the entry if
+     * in doubt.
+     */
+    private final AtomicLong removalGeneration = new AtomicLong();
+
+    /**
+     * Creates a new index for the given cache.
+     *
+     * @param cache the coherent cache to index
+     */
+    TenantCacheIndex(Cache<String, V> cache) {
+        this.cache = cache;
+        this.initialPruneThreshold = Math.max(MIN_PRUNE_THRESHOLD, 2 * cache.getMaxSize());
+        this.pruneThreshold = initialPruneThreshold;
+    }
+
+    /**
+     * Fetches the entry with the given key from the cache, computes it if necessary and records its tenant.
+     *
+     * @param key              the key of the entry to fetch
+     * @param tenantUniqueName the unique name of the tenant which owns the entry
+     * @param computer         the function used to compute the entry if it isn't cached yet
+     * @return the cached or computed entry
+     */
+    V get(String key, @Nullable String tenantUniqueName, Function<String, V> computer) {
+        long generation = removalGeneration.get();
+        V result = cache.get(key, computer);
+        register(tenantUniqueName, key, generation);
+        return result;
+    }
+
+    /**
+     * Puts the given entry into the cache and records its tenant.
+     *
+     * @param key              the key of the entry
+     * @param tenantUniqueName the unique name of the tenant which owns the entry
+     * @param value            the entry to cache
+     */
+    void put(String key, @Nullable String tenantUniqueName, V value) {
+        long generation = removalGeneration.get();
+        cache.put(key, value);
+        register(tenantUniqueName, key, generation);
+    }
+
+    /**
+     * Removes the entry with the given key from the cache (on all nodes) and from the index.
+     *
+     * @param key the key of the entry to remove
+     */
+    void remove(String key) {
+        cache.remove(key);
+        unregister(key);
+    }
+
+    private synchronized void register(@Nullable String tenantUniqueName, String key, long generation) {
+        if (Strings.isEmpty(tenantUniqueName)) {
+            unregister(key);
+            return;
+        }
+        if (Strings.areEqual(tenantPerKey.get(key), tenantUniqueName)) {
+            return;
+        }
+
+        if (tenantPerKey.size() >= pruneThreshold) {
+            prune();
+        }
+
+        String previousTenant = tenantPerKey.put(key, tenantUniqueName);
+        if (previousTenant != null && !Strings.areEqual(previousTenant, tenantUniqueName)) {
+            removeFromTenant(previousTenant, key);
+        }
+        keysPerTenant.compute(tenantUniqueName, (ignored, keys) -> {
+            Set<String> effectiveKeys = keys == null ? ConcurrentHashMap.newKeySet() : keys;
+            effectiveKeys.add(key);
+            return effectiveKeys;
+        });
+
+        // A tenant which has been removed concurrently might have missed our key, as it wasn't registered yet...
+        if (removalGeneration.get() != generation) {
+            CacheManager.removeCoherentCacheKeyLocally(cache.getName(), key);
+            unregister(key);
+        }
+    }
+
+    private synchronized void unregister(String key) {
+        String tenantUniqueName = tenantPerKey.remove(key);
+        if (tenantUniqueName != null) {
+            removeFromTenant(tenantUniqueName, key);
+        }
+    }
+
+    private void removeFromTenant(String tenantUniqueName, String key) {
+        keysPerTenant.computeIfPresent(tenantUniqueName, (ignored, keys) -> {
+            keys.remove(key);
+            return keys.isEmpty() ? null : keys;
+        });
+    }
+
+    /**
+     * Removes all keys from the index whose entry has been evicted from the cache or removed by another node.
+     * <p>
+     * If the cache isn't bounded, all keys might still be present. In this case, the threshold is raised so that
+     * pruning isn't attempted over and over again.
+     */
+    synchronized void prune() {
+        new ArrayList<>(tenantPerKey.keySet()).stream().filter(key -> !cache.contains(key)).forEach(this::unregister);
+        pruneThreshold = Math.max(initialPruneThreshold, 2 * tenantPerKey.size());
+    }
+
+    /**
+     * Removes all entries of the given tenant from the local cache.
+     * <p>
+     * Note that this doesn't notify other nodes, which is the duty of the caller.
+     *
+     * @param tenantUniqueName the unique name of the tenant to flush
+     * @return the number of keys which have been removed
+     */
+    synchronized int removeTenantLocally(String tenantUniqueName) {
+        removalGeneration.incrementAndGet();
+        Set<String> keys = keysPerTenant.remove(tenantUniqueName);
+        if (keys == null) {
+            return 0;
+        }
+
+        keys.forEach(key -> {
+            tenantPerKey.remove(key, tenantUniqueName);
+            CacheManager.removeCoherentCacheKeyLocally(cache.getName(), key);
+        });
+        return keys.size();
+    }
+
+    /**
+     * Returns the number of indexed keys.
+     *
+     * @return the total number of keys in this index
+     */
+    int size() {
+        return tenantPerKey.size();
+    }
+}
@@ -12,6 +12,7 @@ import sirius.biz.tycho.search.OpenSearchProvider;
 import sirius.biz.tycho.search.OpenSearchResult;
 import sirius.db.mixing.BaseEntity;
 import sirius.db.mixing.query.Query;
+import sirius.kernel.async.TaskContext;
 import sirius.kernel.di.std.Part;
 import sirius.kernel.nls.Formatter;
 import sirius.kernel.nls.NLS;
@@ -59,7 +60,8 @@ public abstract class TenantSearchProvider<I extends Serializable, T extends Bas
         Query<?, T, ?> tenantQuery = createBaseQuery(query);
         tenantQuery.limit(maxResults);
 
-        tenantQuery.iterateAll(tenant -> {
+        TaskContext taskContext = TaskContext.get();
+        tenantQuery.iterate(tenant -> {
             OpenSearchResult openSearchResult = new OpenSearchResult().withLabel(tenant.getTenantData().getName());
             openSearchResult.withDescription(Formatter.create("[${zip}][ ${city}]")
                                                       .set("zip", tenant.getTenantData().getAddress().getZip())
@@ -77,6 +79,9 @@ public abstract class TenantSearchProvider<I extends Serializable, T extends Bas
                                                               """, tenant);
             }
             resultCollector.accept(openSearchResult);
+
+            // Stop once the search has been aborted, e.g. as it has been superseded by a newer one...
+            return taskContext.isActive();
         });
     }
 
@@ -155,6 +155,7 @@ public abstract class TenantUserManager<I extends Serializable, T extends BaseEn
 
     protected final String systemTenant;
     protected final boolean acceptApiTokens;
+    protected final boolean cacheVerifiedCredentials;
     protected final List<String> availableLanguages;
 
     @Part
@@ -173,28 +174,39 @@ public abstract class TenantUserManager<I extends Serializable, T extends BaseEn
     @Parts(AdditionalRolesProvider.class)
     private static PartCollection<AdditionalRolesProvider> additionalRolesProviders;
 
-    private static final String REMOVE_BY_TENANT_UNIQUE_NAME = "tenant-unique-name";
+    @Part
+    private static TenantCacheCoherence tenantCacheCoherence;
+
+    @Part
+    private static VerifiedCredentialCache verifiedCredentialCache;
 
     protected static Cache<String, Tuple<Set<String>, String>> rolesCache =
-            CacheManager.<Tuple<Set<String>, String>>createCoherentCache("tenants-roles")
-                        .addRemover(REMOVE_BY_TENANT_UNIQUE_NAME,
-                                    (uniqueTenantName, entry) -> Strings.areEqual(uniqueTenantName,
-                                                                                  entry.getValue().getSecond()));
+            CacheManager.createCoherentCache("tenants-roles");
 
     protected static Cache<String, UserAccount<?, ?>> userAccountCache =
             CacheManager.createCoherentCache("tenants-users");
     protected static Cache<String, Tenant<?>> tenantsCache = CacheManager.createCoherentCache("tenants-tenants");
 
     protected static Cache<String, Tuple<UserSettings, String>> configCache =
-            CacheManager.<Tuple<UserSettings, String>>createCoherentCache("tenants-configs")
-                        .addRemover(REMOVE_BY_TENANT_UNIQUE_NAME,
-                                    (uniqueTenantName, entry) -> Strings.areEqual(uniqueTenantName,
-                                                                                  entry.getValue().getSecond()));
+            CacheManager.createCoherentCache("tenants-configs");
+
+    /**
+     * Keeps track of the entries in {@link #rolesCache} per tenant, so that these can be flushed efficiently.
+     */
+    private static final TenantCacheIndex<Tuple<Set<String>, String>> rolesCacheIndex =
+            new TenantCacheIndex<>(rolesCache);
+
+    /**
+     * Keeps track of the entries in {@link #configCache} per tenant, so that these can be flushed efficiently.
+     */
+    private static final TenantCacheIndex<Tuple<UserSettings, String>> configCacheIndex =
+            new TenantCacheIndex<>(configCache);
 
     protected TenantUserManager(ScopeInfo scope, Extension config) {
         super(scope, config);
         this.systemTenant = config.get("system-tenant").asString();
         this.acceptApiTokens = config.get("accept-api-tokens").asBoolean(true);
+        this.cacheVerifiedCredentials = config.get("cache-verified-credentials").asBoolean(false);
         this.availableLanguages = scope.getDisplayLanguages().stream().toList();
     }
 
@@ -204,9 +216,10 @@ public abstract class TenantUserManager<I extends Serializable, T extends BaseEn
      * @param account the account to flush
      */
     public static void flushCacheForUserAccount(UserAccount<?, ?> account) {
-        rolesCache.remove(account.getUniqueName());
+        rolesCacheIndex.remove(account.getUniqueName());
         userAccountCache.remove(account.getUniqueName());
-        configCache.remove(account.getUniqueName());
+        configCacheIndex.remove(account.getUniqueName());
+        verifiedCredentialCache.forget(account.getUniqueName());
     }
 
     /**
@@ -216,9 +229,20 @@ public abstract class TenantUserManager<I extends Serializable, T extends BaseEn
      */
     public static void flushCacheForTenant(Tenant<?> tenant) {
         tenantsCache.remove(tenant.getIdAsString());
-        configCache.remove(tenant.getUniqueName());
-        configCache.removeAll(REMOVE_BY_TENANT_UNIQUE_NAME, tenant.getUniqueName());
-        rolesCache.removeAll(REMOVE_BY_TENANT_UNIQUE_NAME, tenant.getUniqueName());
+        configCacheIndex.remove(tenant.getUniqueName());
+        tenantCacheCoherence.flushTenant(tenant.getUniqueName());
+    }
+
+    /**
+     * Removes all cached configs and roles of users of the given tenant from the local caches.
+     * <p>
+     * This is invoked by {@link TenantCacheCoherence} on each node.
+     *
+     * @param tenantUniqueName the unique name of the tenant to flush
+     */
+    static void flushTenantCachesLocally(String tenantUniqueName) {
+        configCacheIndex.removeTenantLocally(tenantUniqueName);
+        rolesCacheIndex.removeTenantLocally(tenantUniqueName);
     }
 
     @Override
@@ -450,8 +474,8 @@ public abstract class TenantUserManager<I extends Serializable, T extends BaseEn
 
         userAccountCache.put(account.getUniqueName(), account);
         tenantsCache.put(account.getTenant().fetchValue().getIdAsString(), account.getTenant().fetchValue());
-        rolesCache.remove(account.getUniqueName());
-        configCache.remove(account.getUniqueName());
+        rolesCacheIndex.remove(account.getUniqueName());
+        configCacheIndex.remove(account.getUniqueName());
 
         if (account.getUserAccountData().getLogin().isAccountLocked()) {
             throw Exceptions.createHandled().withNLSKey("LoginData.accountIsLocked").handle();
@@ -566,8 +590,8 @@ public abstract class TenantUserManager<I extends Serializable, T extends BaseEn
             }
             userAccountCache.put(account.getUniqueName(), account);
             tenantsCache.put(account.getTenant().fetchValue().getIdAsString(), account.getTenant().fetchValue());
-            rolesCache.remove(account.getUniqueName());
-            configCache.remove(account.getUniqueName());
+            rolesCacheIndex.remove(account.getUniqueName());
+            configCacheIndex.remove(account.getUniqueName());
 
             return account;
         }
@@ -644,8 +668,20 @@ public abstract class TenantUserManager<I extends Serializable, T extends BaseEn
             throw Exceptions.createHandled().withNLSKey("UserAccount.externalLoginMustBePerformed").handle();
         }
 
+        String verifiedType = cacheVerifiedCredentials ?
+                              verifiedCredentialCache.findVerifiedType(account.getUniqueName(), user, password) :
+                              null;
+        if (verifiedType != null) {
+            completeAuditLogForUser(auditLog.neutral(VerifiedCredentialCache.TYPE_API_TOKEN.equals(verifiedType) ?
+                                                     "AuditLog.apiTokenLogin" :
+                                                     "AuditLog.passwordLogin"), account);
+            recordLogin(result, false);
+            return result;
+        }
+
         LoginData loginData = account.getUserAccountData().getLogin();
         if (acceptApiTokens && checkApiToken(loginData, password)) {
+            rememberVerifiedCredentials(account, user, password, VerifiedCredentialCache.TYPE_API_TOKEN);
             completeAuditLogForUser(auditLog.neutral("AuditLog.apiTokenLogin"), account);
             recordLogin(result, false);
             return result;
@@ -662,6 +698,7 @@ public abstract class TenantUserManager<I extends Serializable, T extends BaseEn
                 return rehashingResult.get();
             }
 
+            rememberVerifiedCredentials(account, user, password, VerifiedCredentialCache.TYPE_PASSWORD);
             recordLogin(result, false);
             return result;
         }
@@ -675,6 +712,12 @@ public abstract class TenantUserManager<I extends Serializable, T extends BaseEn
         return null;
     }
 
+    private void rememberVerifiedCredentials(U account, String user, String secret, String type) {
+        if (cacheVerifiedCredentials) {
+            verifiedCredentialCache.markVerified(account.getUniqueName(), user, secret, type);
+        }
+    }
+
     protected boolean checkApiToken(LoginData loginData, String givenApiToken) {
         if (Strings.isEmpty(loginData.getApiToken())) {
             return false;
@@ -792,14 +835,15 @@ public abstract class TenantUserManager<I extends Serializable, T extends BaseEn
                 return scopeSettings;
             }
 
-            return configCache.get(user.getTenant().getUniqueObjectName(), ignored -> {
+            String tenantUniqueName = user.getTenant().getUniqueObjectName();
+            return configCacheIndex.get(tenantUniqueName, tenantUniqueName, key -> {
                 Config config = scopeSettings.getConfig();
                 config = tenantConfig.withFallback(config);
-                return Tuple.create(new UserSettings(config, false), user.getTenant().getUniqueObjectName());
+                return Tuple.create(new UserSettings(config, false), tenantUniqueName);
             }).getFirst();
         }
 
-        return configCache.get(user.getUniqueName(), ignored -> {
+        return configCacheIndex.get(user.getUniqueName(), user.getTenant().getUniqueObjectName(), key -> {
             Config config = scopeSettings.getConfig();
 
             if (tenantConfig != null) {
@@ -945,7 +989,7 @@ public abstract class TenantUserManager<I extends Serializable, T extends BaseEn
 
         U user = fetchAccount(accountUniqueName);
         if (user == null) {
-            rolesCache.put(accountUniqueName, Tuple.create(Collections.emptySet(), null));
+            rolesCacheIndex.put(accountUniqueName, null, Tuple.create(Collections.emptySet(), null));
             return Collections.emptySet();
         }
 
@@ -953,7 +997,8 @@ public abstract class TenantUserManager<I extends Serializable, T extends BaseEn
                                          user.getTenant().fetchValue(),
                                          Strings.areEqual(systemTenant, String.valueOf(user.getTenant().getId())));
 
-        rolesCache.put(accountUniqueName, Tuple.create(roles, user.getTenant().getUniqueObjectName()));
+        String tenantUniqueName = user.getTenant().getUniqueObjectName();
+        rolesCacheIndex.put(accountUniqueName, tenantUniqueName, Tuple.create(roles, tenantUniqueName));
         return roles;
     }
 
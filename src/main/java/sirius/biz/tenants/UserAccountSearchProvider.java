@@ -13,6 +13,7 @@ import sirius.biz.tycho.search.OpenSearchProvider;
 import sirius.biz.tycho.search.OpenSearchResult;
 import sirius.db.mixing.BaseEntity;
 import sirius.db.mixing.query.Query;
+import sirius.kernel.async.TaskContext;
 import sirius.kernel.commons.Strings;
 import sirius.kernel.di.std.Part;
 import sirius.kernel.nls.NLS;
@@ -78,7 +79,8 @@ public abstract class UserAccountSearchProvider<I extends Serializable, T extend
             userAccountQuery.ne(SQLUserAccount.TENANT, currentTenant);
         }
 
-        userAccountQuery.iterateAll(userAccount -> {
+        TaskContext taskContext = TaskContext.get();
+        userAccountQuery.iterate(userAccount -> {
             OpenSearchResult openSearchResult =
                     new OpenSearchResult().withLabel(userAccount.getUserAccountData().getLogin().getUsername());
             if (Objects.equals(currentTenant.getIdAsString(), userAccount.getTenant().getIdAsString())) {
@@ -105,6 +107,9 @@ public abstract class UserAccountSearchProvider<I extends Serializable, T extend
                                                               """, userAccount);
             }
             resultCollector.accept(openSearchResult);
+
+            // Stop once the search has been aborted, e.g. as it has been superseded by a newer one...
+            return taskContext.isActive();
         });
     }
 
@@ -0,0 +1,143 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.biz.tenants;
+
+import sirius.kernel.cache.Cache;
+import sirius.kernel.cache.CacheManager;
+import sirius.kernel.commons.Tuple;
+import sirius.kernel.di.std.Register;
+import sirius.kernel.health.Counter;
+import sirius.kernel.health.metrics.MetricProvider;
+import sirius.kernel.health.metrics.MetricsCollector;
+
+import javax.annotation.Nullable;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * Remembers successfully verified credentials for a short period of time.
+ * <p>
+ * Verifying a password (using PBKDF2) is quite expensive by design. As API clients tend to authenticate on each
+ * request, we remember the last successfully verified secret per user account. Note that the secret itself is
+ * never stored - we only keep a HMAC of the user name and the secret, which is computed using a random key which
+ * is generated on each node during startup.
+ * <p>
+ * Only successful verifications are cached, therefore a failed login attempt still has to perform a full
+ * verification and the costs for a brute-force attack remain unchanged.
+ * <p>
+ * The cache is coherent, so that {@link TenantUserManager#flushCacheForUserAccount(UserAccount)} (which is invoked
+ * once a user account is changed or deleted) removes the entry on all nodes. Whether the cache is used at all, is
+ * controlled via <tt>cache-verified-credentials</tt> in the scope config.
+ */
+@Register(classes = {VerifiedCredentialCache.class, MetricProvider.class})
+public class VerifiedCredentialCache implements MetricProvider {
+
+    /**
+     * Marks a verified API token.
+     */
+    public static final String TYPE_API_TOKEN = "api-token";
+
+    /**
+     * Marks a verified password.
+     */
+    public static final String TYPE_PASSWORD = "password";
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final int KEY_LENGTH = 32;
+
+    private final Cache<String, Tuple<String, String>> cache =
+            CacheManager.createCoherentCache("tenants-verified-credentials");
+    private final SecretKeySpec key;
+    private final Counter hits = new Counter();
+    private final Counter misses = new Counter();
+
+    /**
+     * Creates a new cache along with a new random HMAC key.
+     */
+    public VerifiedCredentialCache() {
+        byte[] keyBytes = new byte[KEY_LENGTH];
+        new SecureRandom().nextBytes(keyBytes);
+        this.key = new SecretKeySpec(keyBytes, HMAC_ALGORITHM);
+    }
+
+    /**
+     * Determines if the given secret has recently been verified for the given user account.
+     *
+     * @param accountUniqueName the unique name of the user account
+     * @param username          the user name used to log in
+     * @param secret            the password or API token given by the user
+     * @return the type of the credential ({@link #TYPE_API_TOKEN} or {@link #TYPE_PASSWORD}) which has been verified or
+     * <tt>null</tt> if no matching verification is known
+     */
+    @Nullable
+    public String findVerifiedType(String accountUniqueName, String username, String secret) {
+        Tuple<String, String> entry = cache.get(accountUniqueName);
+        if (entry != null && MessageDigest.isEqual(entry.getSecond().getBytes(StandardCharsets.UTF_8),
+                                                   computeDigest(username, secret).getBytes(StandardCharsets.UTF_8))) {
+            hits.inc();
+            return entry.getFirst();
+        }
+
+        misses.inc();
+        return null;
+    }
+
+    /**
+     * Records that the given secret has successfully been verified for the given user account.
+     *
+     * @param accountUniqueName the unique name of the user account
+     * @param username          the user name used to log in
+     * @param secret            the password or API token which has been verified
+     * @param type              the type of the verified credential ({@link #TYPE_API_TOKEN} or {@link #TYPE_PASSWORD})
+     */
+    public void markVerified(String accountUniqueName, String username, String secret, String type) {
+        cache.put(accountUniqueName, Tuple.create(type, computeDigest(username, secret)));
+    }
+
+    /**
+     * Forgets all verified credentials of the given user account on all nodes.
+     *
+     * @param accountUniqueName the unique name of the user account
+     */
+    public void forget(String accountUniqueName) {
+        cache.remove(accountUniqueName);
+    }
+
+    private String computeDigest(String username, String secret) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(key);
+            mac.update(username.getBytes(StandardCharsets.UTF_8));
+            // Separate the user name from the secret so that "ab" + "c" and "a" + "bc" yield different digests...
+            mac.update((byte) 0);
+            return Base64.getEncoder().encodeToString(mac.doFinal(secret.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public void gather(MetricsCollector metricsCollector) {
+        metricsCollector.differentialMetric("tenants_credential_cache_hits",
+                                            "tenants-credential-cache-hits",
+                                            "Verified Credential Cache Hits",
+                                            hits.getCount(),
+                                            "/min");
+        metricsCollector.differentialMetric("tenants_credential_cache_misses",
+                                            "tenants-credential-cache-misses",
+                                            "Verified Credential Cache Misses",
+                                            misses.getCount(),
+                                            "/min");
+    }
+}
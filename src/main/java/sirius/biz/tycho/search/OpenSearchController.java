@@ -13,10 +13,14 @@ import io.netty.handler.codec.http.HttpResponseStatus;
 import sirius.biz.web.BizController;
 import sirius.kernel.async.CombinedFuture;
 import sirius.kernel.async.Future;
+import sirius.kernel.async.TaskContext;
 import sirius.kernel.async.Tasks;
+import sirius.kernel.cache.Cache;
+import sirius.kernel.cache.CacheManager;
 import sirius.kernel.commons.Explain;
 import sirius.kernel.commons.Strings;
 import sirius.kernel.commons.Timeout;
+import sirius.kernel.commons.Watch;
 import sirius.kernel.di.PartCollection;
 import sirius.kernel.di.std.Part;
 import sirius.kernel.di.std.Parts;
@@ -26,14 +30,22 @@ import sirius.kernel.health.Log;
 import sirius.web.controller.Routed;
 import sirius.web.http.WebContext;
 import sirius.web.security.LoginRequired;
+import sirius.web.security.UserContext;
+import sirius.web.security.UserInfo;
 import sirius.web.services.JSONStructuredOutput;
 
+import javax.annotation.Nullable;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
 
 /**
  * Contains the main parts of the OpenSearch engine for the Tycho UI.
@@ -50,6 +62,13 @@ import java.util.List;
  * <p>
  * On the client side we use the <tt>oboe</tt> library which handles this kind of incoming JSON objects and renders
  * any incoming results as fast as possible.
+ * <p>
+ * As a search is triggered for each keystroke, a new search cancels the one which is still running for the same
+ * search session (that is a single search page of a user, see {@link #searchAPI(WebContext)}). Also,
+ * the results are cached per user and provider for a short time, so that refining a query (e.g. from "abc" to
+ * "abcd") can be answered by filtering the cached results (see {@link OpenSearchProvider#createRefinementFilter}).
+ * Finally, each provider is only waited for as long as its budget, which is derived from its observed latency (see
+ * {@link OpenSearchStatistics}), permits.
  */
 @Register(framework = OpenSearchController.FRAMEWORK_TYCHO_OPEN_SEARCH)
 public class OpenSearchController extends BizController {
@@ -76,7 +95,12 @@ public class OpenSearchController extends BizController {
      * this is not supported by the JVM - we however can close the connection to the client and free up the spot
      * in the main thread pool.
      */
-    private static final Duration SEARCH_TIMEOUT = Duration.ofSeconds(5);
+    static final Duration SEARCH_TIMEOUT = Duration.ofSeconds(5);
+
+    /**
+     * Specifies how often a running search checks whether it has been cancelled.
+     */
+    private static final long CANCELLATION_CHECK_INTERVAL_MILLIS = 100;
 
     /**
      * To ensure that all possible results are rendered properly, we limit each provider to only 8 results at most.
@@ -95,6 +119,7 @@ public class OpenSearchController extends BizController {
     private static final String TYCHO_OPEN_SEARCH_TASK_POOL = "tycho-open-search-task";
 
     private static final String PARAM_QUERY = "query";
+    private static final String PARAM_SESSION = "session";
     private static final String RESPONSE_OVERLOAD = "overload";
     private static final String CONTENT_TYPE_APPLICATION_JSON = "application/json";
     private static final byte[] RESPONSE_COMPLETED_MESSAGE = "{\"completed\":true}\n".getBytes(StandardCharsets.UTF_8);
@@ -111,6 +136,88 @@ public class OpenSearchController extends BizController {
     @Part
     private Tasks tasks;
 
+    @Part
+    private OpenSearchStatistics statistics;
+
+    /**
+     * Keeps the results per user, provider and query, so that repeated and refined queries can be answered without
+     * querying the provider again.
+     */
+    private final Cache<String, CachedResults> resultCache = CacheManager.createLocalCache("tycho-open-search-results");
+
+    /**
+     * Contains the search which is currently being executed per search session.
+     */
+    private final Map<String, SearchRequest> activeSearches = new ConcurrentHashMap<>();
+
+    /**
+     * Represents a single search of a user.
+     * <p>
+     * A search is aborted, once it has been superseded by another search of the same session, once the search timeout
+     * is reached or once its response has been completed.
+     */
+    private static class SearchRequest {
+
+        private final String userKey;
+        private final String sessionKey;
+        private final String query;
+        private final Timeout timeout = new Timeout(SEARCH_TIMEOUT);
+        private volatile boolean cancelled;
+        private volatile boolean completed;
+        private final Set<TaskContext> runningQueries = ConcurrentHashMap.newKeySet();
+
+        SearchRequest(String userKey, String sessionKey, String query) {
+            this.userKey = userKey;
+            this.sessionKey = sessionKey;
+            this.query = query;
+        }
+
+        void cancel() {
+            this.cancelled = true;
+            cancelRunningQueries();
+        }
+
+        void complete() {
+            this.completed = true;
+            cancelRunningQueries();
+        }
+
+        /**
+         * Registers the task which executes the query of a provider, so that it can be cancelled with the search.
+         *
+         * @param taskContext the context of the task which executes the query
+         */
+        void registerQuery(TaskContext taskContext) {
+            runningQueries.add(taskContext);
+            if (isAborted()) {
+                taskContext.cancel();
+            }
+        }
+
+        void unregisterQuery(TaskContext taskContext) {
+            runningQueries.remove(taskContext);
+        }
+
+        private void cancelRunningQueries() {
+            runningQueries.forEach(TaskContext::cancel);
+        }
+
+        boolean isAborted() {
+            return cancelled || completed || timeout.isReached();
+        }
+    }
+
+    private static class CachedResults {
+
+        private final List<OpenSearchResult> results;
+        private final boolean complete;
+
+        CachedResults(List<OpenSearchResult> results, boolean complete) {
+            this.results = results;
+            this.complete = complete;
+        }
+    }
+
     /**
      * Renders the search UI.
      *
@@ -125,6 +232,11 @@ public class OpenSearchController extends BizController {
 
     /**
      * Actually performs the search passed in as <b>query</b> and yields a comet response.
+     * <p>
+     * Starting a new search cancels the search which is still running for the same search session, as the client
+     * isn't interested in its results anymore. The session is identified by the <b>session</b> parameter, which is
+     * generated once per search page. Therefore, searches of the same user in several tabs don't cancel each other.
+     * If a client doesn't provide this parameter, all of its searches are treated as a single session per user.
      *
      * @param webContext the request to handle.
      * @return a future so that the framework know when to release the underlying connection and resources
@@ -140,37 +252,58 @@ public class OpenSearchController extends BizController {
             return new Future().success();
         }
 
-        Timeout timeout = new Timeout(SEARCH_TIMEOUT);
+        UserInfo currentUser = UserContext.getCurrentUser();
+        String userKey = currentUser.getUserId() + "|" + currentUser.getTenantId();
+        String sessionKey = userKey + "|" + webContext.get(PARAM_SESSION).asString();
+        SearchRequest request = new SearchRequest(userKey, sessionKey, query);
+        SearchRequest supersededRequest = activeSearches.put(sessionKey, request);
+        if (supersededRequest != null) {
+            supersededRequest.cancel();
+            statistics.recordCancelledSearch();
+        }
+
         return tasks.executor(TYCHO_OPEN_SEARCH_POOL).dropOnOverload(() -> {
+            activeSearches.remove(sessionKey, request);
             JSONStructuredOutput json = webContext.respondWith().json();
             json.beginResult();
             json.property(RESPONSE_OVERLOAD, true);
             json.endResult();
-        }).fork(() -> executeQuery(query, webContext, timeout));
+        }).fork(() -> executeQuery(request, webContext));
     }
 
-    private void executeQuery(String query, WebContext webContext, Timeout timeout) {
+    @SuppressWarnings("java:S2445")
+    @Explain("We actually have to synchronize on this output stream as otherwise the response might be messed up.")
+    private void executeQuery(SearchRequest request, WebContext webContext) {
         OutputStream outputStream =
                 webContext.respondWith().outputStream(HttpResponseStatus.OK, CONTENT_TYPE_APPLICATION_JSON);
         try {
             CombinedFuture allTasksCompleted = new CombinedFuture();
+            long maxBudgetMillis = 0;
 
-            for (OpenSearchProvider provider : providers) {
-                if (provider.ensureAccess()) {
-                    allTasksCompleted.add(tasks.executor(TYCHO_OPEN_SEARCH_TASK_POOL)
-                                               .dropOnOverload(() -> performSearch(query,
-                                                                                   provider,
-                                                                                   outputStream,
-                                                                                   timeout))
-                                               .fork(() -> performSearch(query, provider, outputStream, timeout)));
+            // A search which has been superseded while waiting in the queue is skipped entirely...
+            if (!request.isAborted()) {
+                for (OpenSearchProvider provider : providers) {
+                    if (provider.ensureAccess()) {
+                        long budgetMillis = statistics.computeBudget(provider, SEARCH_TIMEOUT).toMillis();
+                        maxBudgetMillis = Math.max(maxBudgetMillis, budgetMillis);
+                        allTasksCompleted.add(tasks.executor(TYCHO_OPEN_SEARCH_TASK_POOL)
+                                                   .dropOnOverload(() -> performSearch(request,
+                                                                                       provider,
+                                                                                       outputStream))
+                                                   .fork(() -> performSearch(request, provider, outputStream)));
+                    }
                 }
             }
 
-            allTasksCompleted.asFuture().await(SEARCH_TIMEOUT);
-            outputStream.write(RESPONSE_COMPLETED_MESSAGE);
+            awaitResults(request, allTasksCompleted.asFuture(), maxBudgetMillis);
+            synchronized (outputStream) {
+                request.complete();
+                outputStream.write(RESPONSE_COMPLETED_MESSAGE);
+            }
         } catch (IOException e) {
             Exceptions.ignore(e);
         } finally {
+            activeSearches.remove(request.sessionKey, request);
             try {
                 outputStream.close();
             } catch (IOException e) {
@@ -179,26 +312,39 @@ public class OpenSearchController extends BizController {
         }
     }
 
+    private void awaitResults(SearchRequest request, Future allTasksCompleted, long maxBudgetMillis) {
+        // Waits until either all providers are completed, the largest budget of all providers is exhausted or the
+        // search has been cancelled...
+        Watch watch = Watch.start();
+        while (!allTasksCompleted.isCompleted() && !request.isAborted()) {
+            long remainingMillis = Math.min(maxBudgetMillis, SEARCH_TIMEOUT.toMillis()) - watch.elapsedMillis();
+            if (remainingMillis <= 0) {
+                return;
+            }
+            allTasksCompleted.await(Duration.ofMillis(Math.min(remainingMillis, CANCELLATION_CHECK_INTERVAL_MILLIS)));
+        }
+    }
+
     @SuppressWarnings("java:S2445")
     @Explain("We actually have to synchronize on this output stream as otherwise the response might be messed up.")
-    private void performSearch(String query, OpenSearchProvider provider, OutputStream outputStream, Timeout timeout) {
+    private void performSearch(SearchRequest request, OpenSearchProvider provider, OutputStream outputStream) {
+        TaskContext taskContext = TaskContext.get();
         try {
-            if (timeout.isReached()) {
+            if (request.isAborted()) {
                 return;
             }
 
-            List<OpenSearchResult> results = new ArrayList<>(MAX_RESULTS_PER_CATEGORY);
-            provider.query(query, MAX_RESULTS_PER_CATEGORY, result -> {
-                if (results.size() < MAX_RESULTS_PER_CATEGORY) {
-                    results.add(result);
-                }
-            });
-
-            if (timeout.isReached() || results.isEmpty()) {
+            // Aborting the request cancels our task context, so that the provider can stop early...
+            request.registerQuery(taskContext);
+            List<OpenSearchResult> results = fetchResults(request, provider);
+            if (request.isAborted() || results.isEmpty()) {
                 return;
             }
 
             synchronized (outputStream) {
+                if (request.isAborted()) {
+                    return;
+                }
                 for (OpenSearchResult result : results) {
                     outputStream.write(transformToJson(provider, result).toJSONString()
                                                                         .getBytes(StandardCharsets.UTF_8));
@@ -215,9 +361,78 @@ public class OpenSearchController extends BizController {
                       .withSystemErrorMessage("Failed to execute an OpenSearchProvider (%s): %s (%s)",
                                               provider.getClass().getName())
                       .handle();
+        } finally {
+            request.unregisterQuery(taskContext);
         }
     }
 
+    /**
+     * Determines the results of the given provider, either by executing a query or by using the cache.
+     * <p>
+     * If the same user searched for the same query recently, the cached results are used as is. If the user searched
+     * for a prefix of the query and the provider delivered all of its results (less than
+     * {@link #MAX_RESULTS_PER_CATEGORY}), the cached results are filtered using
+     * {@link OpenSearchProvider#createRefinementFilter(String)} if the provider supports this.
+     * <p>
+     * Results are only cached if the provider finished before the search was aborted, as the collected results would
+     * be incomplete otherwise.
+     */
+    private List<OpenSearchResult> fetchResults(SearchRequest request, OpenSearchProvider provider) {
+        String cacheKeyPrefix = request.userKey + "|" + provider.getClass().getName() + "|";
+        CachedResults cachedResults = resultCache.get(cacheKeyPrefix + request.query);
+        if (cachedResults != null) {
+            statistics.recordCacheHit();
+            return cachedResults.results;
+        }
+
+        List<OpenSearchResult> refinedResults = refineCachedResults(request.query, provider, cacheKeyPrefix);
+        if (refinedResults != null) {
+            statistics.recordCacheHit();
+            return refinedResults;
+        }
+
+        List<OpenSearchResult> results = new ArrayList<>(MAX_RESULTS_PER_CATEGORY);
+        AtomicInteger numberOfResults = new AtomicInteger();
+        Watch watch = Watch.start();
+        provider.query(request.query, MAX_RESULTS_PER_CATEGORY, result -> {
+            // Once the search is aborted, we ignore all further results, as these wouldn't be sent anyway...
+            if (results.size() < MAX_RESULTS_PER_CATEGORY && !request.isAborted()) {
+                results.add(result);
+            }
+            numberOfResults.incrementAndGet();
+        });
+        statistics.recordLatency(provider, watch.elapsedMillis(), SEARCH_TIMEOUT);
+
+        if (!request.isAborted()) {
+            // The results are only complete if we kept every result the provider delivered and it delivered less
+            // than requested...
+            boolean complete =
+                    results.size() == numberOfResults.get() && numberOfResults.get() < MAX_RESULTS_PER_CATEGORY;
+            resultCache.put(cacheKeyPrefix + request.query, new CachedResults(results, complete));
+        }
+
+        return results;
+    }
+
+    @Nullable
+    private List<OpenSearchResult> refineCachedResults(String query,
+                                                       OpenSearchProvider provider,
+                                                       String cacheKeyPrefix) {
+        for (int length = query.length() - 1; length > 0; length--) {
+            CachedResults cachedResults = resultCache.get(cacheKeyPrefix + query.substring(0, length));
+            if (cachedResults != null && cachedResults.complete) {
+                Predicate<OpenSearchResult> refinementFilter = provider.createRefinementFilter(query);
+                if (refinementFilter == null) {
+                    return null;
+                }
+
+                return cachedResults.results.stream().filter(refinementFilter).toList();
+            }
+        }
+
+        return null;
+    }
+
     private JSONObject transformToJson(OpenSearchProvider provider, OpenSearchResult result) {
         JSONObject object = new JSONObject();
         object.put(RESPONSE_CATEGORY, provider.getLabel());
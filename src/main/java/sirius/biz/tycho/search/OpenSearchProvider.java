@@ -13,6 +13,7 @@ import sirius.kernel.di.std.Priorized;
 
 import javax.annotation.Nullable;
 import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 /**
  * Represents a provider which participates in the system wide search of the Tycho UI.
@@ -51,10 +52,31 @@ public interface OpenSearchProvider extends Priorized {
 
     /**
      * Actually executes query for this provider.
+     * <p>
+     * The query is executed in a task of its own. Once the search is aborted (e.g. as the user already typed the
+     * next character), the {@link sirius.kernel.async.TaskContext} of this task is cancelled. Therefore, providers
+     * which iterate over many entities should check {@link sirius.kernel.async.TaskContext#isActive()} and stop
+     * early, as their results are discarded anyway.
      *
      * @param query           the query to search by. This is guaranteed to be non-empty and lowercased.
      * @param maxResults      the maximal number of search results to fetch
      * @param resultCollector the collector to pass search results to
      */
     void query(String query, int maxResults, Consumer<OpenSearchResult> resultCollector);
+
+    /**
+     * Creates a filter which determines which results of a previous (shorter) query also match the given query.
+     * <p>
+     * If a user refines a query (e.g. from "abc" to "abcd") and the provider delivered all results for the previous
+     * query, the cached results are filtered instead of querying the provider again. This is only possible if the
+     * provider can decide whether a result matches based on the result itself (e.g. if only the label is searched).
+     *
+     * @param refinedQuery the refined query. This is guaranteed to be non-empty and lowercased.
+     * @return a filter which accepts all results matching the refined query or <tt>null</tt> to indicate that the
+     * provider has to be queried again
+     */
+    @Nullable
+    default Predicate<OpenSearchResult> createRefinementFilter(String refinedQuery) {
+        return null;
+    }
 }
@@ -0,0 +1,158 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.biz.tycho.search;
+
+import sirius.kernel.di.std.Register;
+import sirius.kernel.health.Average;
+import sirius.kernel.health.Counter;
+import sirius.kernel.health.metrics.MetricProvider;
+import sirius.kernel.health.metrics.MetricsCollector;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Observes the latency of each {@link OpenSearchProvider} and derives a latency budget from it.
+ * <p>
+ * Also this counts cancelled searches and results which have been served from the cache of the
+ * {@link OpenSearchController}.
+ * <p>
+ * The budget of a provider is a multiple of the (exponentially smoothed) latency observed so far. A search waits for
+ * its providers at most as long as the largest budget among them. Therefore, as long as all providers are fast, a
+ * single slow query doesn't block the search (and its slot in the <tt>tycho-open-search</tt> pool) for the whole
+ * search timeout, whereas a provider which is slow in general is still given enough time to deliver its results.
+ */
+@Register(classes = {OpenSearchStatistics.class, MetricProvider.class},
+        framework = OpenSearchController.FRAMEWORK_TYCHO_OPEN_SEARCH)
+public class OpenSearchStatistics implements MetricProvider {
+
+    /**
+     * Contains the minimal budget granted to any provider.
+     */
+    private static final long MIN_BUDGET_MILLIS = 250;
+
+    /**
+     * Contains the factor applied to the observed latency to determine the budget.
+     */
+    private static final int BUDGET_FACTOR = 3;
+
+    /**
+     * Determines how much weight a new measurement has when updating the observed latency.
+     */
+    private static final double SMOOTHING_FACTOR = 0.2;
+
+    private final Map<String, ProviderStatistics> statistics = new ConcurrentHashMap<>();
+    private final Counter cancelledSearches = new Counter();
+    private final Counter cacheHits = new Counter();
+
+    private static class ProviderStatistics {
+
+        private double observedLatency = -1;
+        private final Average latency = new Average();
+        private final Counter exceededBudgets = new Counter();
+
+        synchronized void record(long durationMillis) {
+            latency.addValue(durationMillis);
+            if (observedLatency < 0) {
+                observedLatency = durationMillis;
+            } else {
+                observedLatency = (1 - SMOOTHING_FACTOR) * observedLatency + SMOOTHING_FACTOR * durationMillis;
+            }
+        }
+
+        synchronized long computeBudget(long maxBudgetMillis) {
+            if (observedLatency < 0) {
+                return maxBudgetMillis;
+            }
+
+            return Math.min(maxBudgetMillis, Math.max(MIN_BUDGET_MILLIS, Math.round(BUDGET_FACTOR * observedLatency)));
+        }
+    }
+
+    /**
+     * Records the duration of a query executed by the given provider.
+     *
+     * @param provider       the provider which executed the query
+     * @param durationMillis the duration of the query in milliseconds
+     * @param maxBudget      the maximal budget, which is used to determine if the query exceeded its budget
+     */
+    public void recordLatency(OpenSearchProvider provider, long durationMillis, Duration maxBudget) {
+        ProviderStatistics providerStatistics = fetchStatistics(provider);
+        if (durationMillis > providerStatistics.computeBudget(maxBudget.toMillis())) {
+            providerStatistics.exceededBudgets.inc();
+        }
+        providerStatistics.record(durationMillis);
+    }
+
+    /**
+     * Determines how long a search waits for the results of the given provider.
+     *
+     * @param provider  the provider to determine the budget for
+     * @param maxBudget the maximal budget to grant (the timeout of the whole search)
+     * @return the budget for the given provider. As long as no latency has been observed, <tt>maxBudget</tt> is
+     * returned.
+     */
+    public Duration computeBudget(OpenSearchProvider provider, Duration maxBudget) {
+        return Duration.ofMillis(fetchStatistics(provider).computeBudget(maxBudget.toMillis()));
+    }
+
+    /**
+     * Records that a search has been cancelled as it was superseded by another search of the same session.
+     */
+    public void recordCancelledSearch() {
+        cancelledSearches.inc();
+    }
+
+    /**
+     * Records that the results of a provider have been served from the cache.
+     */
+    public void recordCacheHit() {
+        cacheHits.inc();
+    }
+
+    private ProviderStatistics fetchStatistics(OpenSearchProvider provider) {
+        return statistics.computeIfAbsent(determineName(provider), ignored -> new ProviderStatistics());
+    }
+
+    private String determineName(OpenSearchProvider provider) {
+        return provider.getClass().getSimpleName().toLowerCase();
+    }
+
+    @Override
+    public void gather(MetricsCollector metricsCollector) {
+        metricsCollector.differentialMetric("tycho_open_search_cancelled",
+                                            "tycho-open-search-cancelled",
+                                            "OpenSearch Cancelled Searches",
+                                            cancelledSearches.getCount(),
+                                            "/min");
+        metricsCollector.differentialMetric("tycho_open_search_cache_hits",
+                                            "tycho-open-search-cache-hits",
+                                            "OpenSearch Cache Hits",
+                                            cacheHits.getCount(),
+                                            "/min");
+        statistics.forEach((name, providerStatistics) -> {
+            metricsCollector.metric("tycho_open_search_latency_" + name,
+                                    "tycho-open-search-latency",
+                                    "OpenSearch Latency (" + name + ")",
+                                    providerStatistics.latency.getAndClear(),
+                                    "ms");
+            metricsCollector.metric("tycho_open_search_budget_" + name,
+                                    "tycho-open-search-budget",
+                                    "OpenSearch Budget (" + name + ")",
+                                    providerStatistics.computeBudget(OpenSearchController.SEARCH_TIMEOUT.toMillis()),
+                                    "ms");
+            metricsCollector.differentialMetric("tycho_open_search_exceeded_" + name,
+                                                "tycho-open-search-exceeded",
+                                                "OpenSearch Exceeded Budgets (" + name + ")",
+                                                providerStatistics.exceededBudgets.getCount(),
+                                                "/min");
+        });
+    }
+}
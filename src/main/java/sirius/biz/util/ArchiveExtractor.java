@@ -8,6 +8,7 @@
 
 package sirius.biz.util;
 
+import com.google.common.io.CountingInputStream;
 import net.sf.sevenzipjbinding.ArchiveFormat;
 import net.sf.sevenzipjbinding.IInArchive;
 import net.sf.sevenzipjbinding.SevenZip;
@@ -16,12 +17,15 @@ import net.sf.sevenzipjbinding.impl.RandomAccessFileInStream;
 import sirius.biz.storage.layer3.VirtualFile;
 import sirius.kernel.Sirius;
 import sirius.kernel.async.TaskContext;
+import sirius.kernel.async.Tasks;
 import sirius.kernel.commons.Amount;
 import sirius.kernel.commons.Callback;
 import sirius.kernel.commons.Explain;
 import sirius.kernel.commons.Files;
 import sirius.kernel.commons.Processor;
 import sirius.kernel.commons.Strings;
+import sirius.kernel.di.std.ConfigValue;
+import sirius.kernel.di.std.Part;
 import sirius.kernel.di.std.Register;
 import sirius.kernel.health.Exceptions;
 import sirius.kernel.health.Log;
@@ -32,15 +36,20 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.RandomAccessFile;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipException;
 import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
 
 /**
  * Utility to handle and extract archive files.
@@ -58,12 +67,24 @@ import java.util.zip.ZipFile;
  * <p>
  * Note that {@link #getSupportedFileExtensions()} honors the framework selection and always returns an appropriate
  * list.
+ * <p>
+ * If the extracted files are processed in a way which mostly waits for IO (e.g. uploading them into the storage),
+ * {@link #extractAllInParallel(String, File, Predicate, Callback)} can be used to process several files at once while
+ * the archive is still being decoded.
  */
 @Register(classes = ArchiveExtractor.class)
 public class ArchiveExtractor {
 
     private static final String FRAMEWORK_SEVEN_ZIP = "biz.seven-zip";
     private static final String ZIP_EXTENSION = "zip";
+    private static final String EXECUTOR_ARCHIVE_EXTRACTION = "archive-extraction";
+    private static final int STREAM_BUFFER_SIZE = 8192;
+
+    @Part
+    private Tasks tasks;
+
+    @ConfigValue("archives.parallelism")
+    private int parallelism;
 
     private Set<String> supportedExtensions;
     private Boolean sevenZipEnabled = null;
@@ -204,9 +225,17 @@ public class ArchiveExtractor {
                         File archiveFile,
                         @Nullable Predicate<String> filter,
                         Processor<ExtractedFile, Boolean> extractedFileConsumer) {
+        extract(filename, archiveFile, filter, extractedFileConsumer, null);
+    }
+
+    private void extract(String filename,
+                         File archiveFile,
+                         @Nullable Predicate<String> filter,
+                         Processor<ExtractedFile, Boolean> extractedFileConsumer,
+                         @Nullable Runnable beforeClose) {
         try {
             if (isZipFile(Files.getFileExtension(filename)) || !isSevenZipEnabled()) {
-                extractZip(archiveFile, enhanceFileFilter(filter), extractedFileConsumer);
+                extractZip(archiveFile, enhanceFileFilter(filter), extractedFileConsumer, beforeClose);
             } else {
                 extract7z(archiveFile, enhanceFileFilter(filter), extractedFileConsumer);
             }
@@ -234,9 +263,18 @@ public class ArchiveExtractor {
 
     private void extractZip(File archiveFile,
                             Predicate<String> filter,
-                            Processor<ExtractedFile, Boolean> extractedFileConsumer) throws Exception {
+                            Processor<ExtractedFile, Boolean> extractedFileConsumer,
+                            @Nullable Runnable beforeClose) throws Exception {
         try (ZipFile zipFile = new ZipFile(archiveFile)) {
-            extractZipEntriesFromZipFile(filter, extractedFileConsumer, zipFile);
+            try {
+                extractZipEntriesFromZipFile(filter, extractedFileConsumer, zipFile);
+            } finally {
+                // Entries which are processed in parallel might still read from the archive, therefore we must not
+                // close it yet...
+                if (beforeClose != null) {
+                    beforeClose.run();
+                }
+            }
         } catch (ZipException zipException) {
             if (!isSevenZipEnabled()) {
                 // This is most probably an error indicating an inconsistent ZIP archive. We therefore directly throw
@@ -319,6 +357,189 @@ public class ArchiveExtractor {
         });
     }
 
+    /**
+     * Iterates over all items of an archive file and processes up to <tt>archives.parallelism</tt> of them in parallel.
+     * <p>
+     * In contrast to {@link #extractAll(String, File, Predicate, Callback)}, the consumer is invoked using the
+     * <tt>archive-extraction</tt> executor while the archive itself is still being decoded. Entries of ZIP archives
+     * are decompressed by the workers themselves, whereas files extracted by 7-ZIP are kept in their buffer
+     * (see <tt>archives.maxInMemoryBuffers</tt>) until they have been processed. Note that the consumer therefore
+     * has to be thread-safe.
+     * <p>
+     * If the consumer fails for a file, no further files are handed out and the first error is thrown once all
+     * running workers have completed.
+     *
+     * @param filename              the filename of the archive to extract
+     * @param archiveFile           the archive file to extract
+     * @param filter                determines which files will be processed
+     * @param extractedFileConsumer invoked for each extracted file
+     * @see #extractAll(String, File, Predicate, Callback)
+     */
+    public void extractAllInParallel(String filename,
+                                     File archiveFile,
+                                     @Nullable Predicate<String> filter,
+                                     Callback<ExtractedFile> extractedFileConsumer) {
+        ParallelExtraction parallelExtraction = new ParallelExtraction(extractedFileConsumer);
+        try {
+            extract(filename, archiveFile, filter, parallelExtraction, parallelExtraction::awaitCompletion);
+        } finally {
+            parallelExtraction.awaitCompletion();
+        }
+
+        parallelExtraction.throwFailureIfPresent(filename);
+    }
+
+    /**
+     * Iterates over all items of a ZIP archive which is read from the given stream and processes them in parallel.
+     * <p>
+     * In contrast to {@link #extractAllInParallel(String, File, Predicate, Callback)}, this doesn't require a local
+     * copy of the archive, so that it can be read directly from the storage. However, as the entries are decompressed
+     * one after another, each entry is buffered until a worker has processed it.
+     * <p>
+     * Note that this relies on the local headers of the entries rather than on the central directory of the archive.
+     * Some archives (e.g. ones containing stored entries with a data descriptor) can therefore not be read as stream,
+     * in which case a {@link ZipException} is thrown so that the caller can fall back to a local copy.
+     *
+     * @param filename              the filename of the archive to extract
+     * @param zipStream             the stream providing the contents of the archive
+     * @param length                the length of the archive in bytes which is used to compute the progress
+     * @param filter                determines which files will be processed
+     * @param extractedFileConsumer invoked for each extracted file
+     * @throws ZipException in case the archive cannot be read as stream
+     */
+    public void extractZipStreamInParallel(String filename,
+                                           InputStream zipStream,
+                                           long length,
+                                           @Nullable Predicate<String> filter,
+                                           Callback<ExtractedFile> extractedFileConsumer) throws ZipException {
+        ParallelExtraction parallelExtraction = new ParallelExtraction(extractedFileConsumer);
+        Predicate<String> effectiveFilter = enhanceFileFilter(filter);
+        TaskContext taskContext = TaskContext.get();
+        try (CountingInputStream countingStream = new CountingInputStream(zipStream);
+             ZipInputStream zipInputStream = new ZipInputStream(countingStream)) {
+            ZipEntry entry = zipInputStream.getNextEntry();
+            while (entry != null && taskContext.isActive()) {
+                if (!entry.isDirectory() && effectiveFilter.test(entry.getName())) {
+                    Amount progress = Amount.of(countingStream.getCount()).divideBy(Amount.of(length));
+                    if (!handOver(parallelExtraction, bufferZipEntry(zipInputStream, entry, progress))) {
+                        break;
+                    }
+                }
+                entry = zipInputStream.getNextEntry();
+            }
+        } catch (ZipException zipException) {
+            throw zipException;
+        } catch (Exception e) {
+            throw Exceptions.handle()
+                            .error(e)
+                            .withSystemErrorMessage("An error occurred while unzipping an archive (%s): %s (%s)",
+                                                    filename)
+                            .handle();
+        } finally {
+            parallelExtraction.awaitCompletion();
+        }
+
+        parallelExtraction.throwFailureIfPresent(filename);
+    }
+
+    private BufferedExtractedFile bufferZipEntry(ZipInputStream zipInputStream, ZipEntry entry, Amount progress)
+            throws IOException {
+        ExtractedFileBuffer buffer = new ExtractedFileBuffer();
+        try {
+            byte[] chunk = new byte[STREAM_BUFFER_SIZE];
+            int bytesRead = zipInputStream.read(chunk);
+            while (bytesRead >= 0) {
+                buffer.write(chunk, 0, bytesRead);
+                bytesRead = zipInputStream.read(chunk);
+            }
+        } catch (IOException e) {
+            buffer.cleanup();
+            throw e;
+        }
+
+        LocalDateTime lastModified = entry.getLastModifiedTime() == null ?
+                                     LocalDateTime.now() :
+                                     LocalDateTime.ofInstant(entry.getLastModifiedTime().toInstant(),
+                                                             ZoneId.systemDefault());
+        return new BufferedExtractedFile(buffer, entry.getName(), lastModified, progress);
+    }
+
+    private boolean handOver(ParallelExtraction parallelExtraction, BufferedExtractedFile extractedFile)
+            throws Exception {
+        try {
+            return parallelExtraction.apply(extractedFile);
+        } finally {
+            // If the file hasn't been handed over to a worker, we have to release its buffer ourselves...
+            if (!extractedFile.isDetached()) {
+                extractedFile.release();
+            }
+        }
+    }
+
+    /**
+     * Hands the extracted files over to a bounded number of workers.
+     *
+     * @see #extractAllInParallel(String, File, Predicate, Callback)
+     */
+    private class ParallelExtraction implements Processor<ExtractedFile, Boolean> {
+
+        private final Callback<ExtractedFile> extractedFileConsumer;
+        private final int maxWorkers = Math.max(1, parallelism);
+        private final Semaphore permits = new Semaphore(maxWorkers);
+        private final AtomicReference<Exception> failure = new AtomicReference<>();
+
+        ParallelExtraction(Callback<ExtractedFile> extractedFileConsumer) {
+            this.extractedFileConsumer = extractedFileConsumer;
+        }
+
+        @Override
+        public Boolean apply(ExtractedFile extractedFile) throws Exception {
+            if (failure.get() != null) {
+                return false;
+            }
+
+            permits.acquire();
+            if (extractedFile instanceof BufferedExtractedFile bufferedFile) {
+                bufferedFile.detach();
+            }
+            tasks.executor(EXECUTOR_ARCHIVE_EXTRACTION).fork(() -> process(extractedFile));
+
+            return true;
+        }
+
+        private void process(ExtractedFile extractedFile) {
+            try {
+                extractedFileConsumer.invoke(extractedFile);
+            } catch (Exception e) {
+                failure.compareAndSet(null, e);
+            } finally {
+                if (extractedFile instanceof BufferedExtractedFile bufferedFile) {
+                    bufferedFile.release();
+                }
+                permits.release();
+            }
+        }
+
+        /**
+         * Blocks until all files which have been handed out are processed.
+         */
+        void awaitCompletion() {
+            permits.acquireUninterruptibly(maxWorkers);
+            permits.release(maxWorkers);
+        }
+
+        void throwFailureIfPresent(String filename) {
+            Exception e = failure.get();
+            if (e != null) {
+                throw Exceptions.handle()
+                                .error(e)
+                                .withSystemErrorMessage("An error occurred while unzipping an archive (%s): %s (%s)",
+                                                        filename)
+                                .handle();
+            }
+        }
+    }
+
     /**
      * Provides a helper when storing an extracted file in the {@link sirius.biz.storage.layer3.VirtualFileSystem}.
      * <p>
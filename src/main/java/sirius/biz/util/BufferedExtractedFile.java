@@ -0,0 +1,87 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.biz.util;
+
+import sirius.kernel.commons.Amount;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+
+/**
+ * Represents a file which has been extracted into an {@link ExtractedFileBuffer}.
+ * <p>
+ * This is used for files extracted by 7-ZIP as well as for files read from a streamed ZIP archive.
+ */
+class BufferedExtractedFile implements ExtractedFile {
+
+    private final ExtractedFileBuffer data;
+    private final String filePath;
+    private final Amount progress;
+    private final LocalDateTime lastModified;
+    private boolean detached;
+
+    BufferedExtractedFile(ExtractedFileBuffer data, String filePath, LocalDateTime lastModified, Amount progress) {
+        this.data = data;
+        this.filePath = filePath;
+        this.progress = progress;
+        this.lastModified = lastModified;
+    }
+
+    @Override
+    public InputStream openInputStream() throws IOException {
+        return data.getInputStream();
+    }
+
+    @Override
+    public long size() {
+        return data.getSize();
+    }
+
+    @Override
+    public String getFilePath() {
+        return filePath;
+    }
+
+    @Override
+    public Amount getProgressInPercent() {
+        return progress.toPercent();
+    }
+
+    @Override
+    public LocalDateTime lastModified() {
+        return lastModified;
+    }
+
+    /**
+     * Signals that the buffer of this file is still required once the extraction callback returned.
+     * <p>
+     * The buffer then has to be released via {@link #release()} by whoever invoked this method.
+     */
+    void detach() {
+        this.detached = true;
+    }
+
+    /**
+     * Determines if the buffer has been detached from the extraction loop.
+     *
+     * @return <tt>true</tt> if the buffer is released via {@link #release()} by someone else, <tt>false</tt>
+     * if the extractor has to release it
+     */
+    boolean isDetached() {
+        return detached;
+    }
+
+    /**
+     * Releases the underlying buffer along with its temporary file (if present).
+     */
+    void release() {
+        data.cleanup();
+    }
+}
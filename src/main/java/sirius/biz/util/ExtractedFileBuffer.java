@@ -10,6 +10,7 @@ package sirius.biz.util;
 
 import org.apache.commons.io.output.DeferredFileOutputStream;
 import sirius.kernel.commons.Files;
+import sirius.kernel.di.std.ConfigValue;
 import sirius.kernel.health.Exceptions;
 import sirius.kernel.health.Log;
 
@@ -18,10 +19,15 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Wraps a {@link DeferredFileOutputStream stream} that contains an extracted file either retained in memory or in
  * a temporary file.
+ * <p>
+ * As several files might be buffered at the same time (e.g. when extracting in parallel), the number of buffers
+ * which may keep their data in memory is limited globally by <tt>archives.maxInMemoryBuffers</tt>. Once this limit
+ * is reached, new buffers directly write into a temporary file.
  */
 class ExtractedFileBuffer {
 
@@ -29,7 +35,13 @@ class ExtractedFileBuffer {
     private static final int DEFAULT_INITIAL_BUFFER_SIZE = 1024 * 128;
     private static final String DEFAULT_TMP_FILE_PREFIX = "sirius_archive_";
 
+    @ConfigValue("archives.maxInMemoryBuffers")
+    private static int maxInMemoryBuffers;
+
+    private static final AtomicInteger inMemoryBuffers = new AtomicInteger();
+
     private final DeferredFileOutputStream buffer;
+    private boolean holdsMemoryReservation;
 
     /**
      * Creates a buffer with the default settings.
@@ -46,7 +58,30 @@ class ExtractedFileBuffer {
      * @param tempFilePrefix    the prefix of the temporary file which will be created if the memory threshold is reached
      */
     ExtractedFileBuffer(int memoryThreshold, int initialBufferSize, String tempFilePrefix) {
-        buffer = new DeferredFileOutputStream(memoryThreshold, initialBufferSize, tempFilePrefix, null, null);
+        holdsMemoryReservation = tryReserveMemory();
+        if (holdsMemoryReservation) {
+            buffer = new DeferredFileOutputStream(memoryThreshold, initialBufferSize, tempFilePrefix, null, null);
+        } else {
+            buffer = new DeferredFileOutputStream(0, 0, tempFilePrefix, null, null);
+        }
+    }
+
+    private static boolean tryReserveMemory() {
+        if (inMemoryBuffers.incrementAndGet() <= maxInMemoryBuffers) {
+            return true;
+        }
+
+        inMemoryBuffers.decrementAndGet();
+        return false;
+    }
+
+    /**
+     * Returns the number of buffers which are currently permitted to keep their data in memory.
+     *
+     * @return the number of buffers holding a memory reservation
+     */
+    static int getNumberOfInMemoryBuffers() {
+        return inMemoryBuffers.get();
     }
 
     /**
@@ -59,6 +94,18 @@ class ExtractedFileBuffer {
         buffer.write(bytes);
     }
 
+    /**
+     * Adds the given range of bytes to the buffer which may write the contents into a file.
+     *
+     * @param bytes  the array containing the bytes to add
+     * @param offset the offset of the first byte to add
+     * @param length the number of bytes to add
+     * @throws IOException in case the bytes couldn't be written to the stream or file.
+     */
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        buffer.write(bytes, offset, length);
+    }
+
     /**
      * Returns a new input stream from either the in memory kept byte array or the temporary file.
      * <p>
@@ -92,8 +139,15 @@ class ExtractedFileBuffer {
 
     /**
      * Releases all internally acquired resources.
+     * <p>
+     * Note that this may safely be invoked several times.
      */
     public void cleanup() {
+        if (holdsMemoryReservation) {
+            holdsMemoryReservation = false;
+            inMemoryBuffers.decrementAndGet();
+        }
+
         try {
             buffer.close();
             if (!buffer.isInMemory()) {
@@ -147,13 +147,18 @@ class SevenZipAdapter implements IArchiveExtractCallback {
                 Amount progress = Amount.of(filesExtracted).divideBy(Amount.of(totalFiles));
                 LocalDateTime lastModified = LocalDateTime.ofInstant(currentLastModified, ZoneId.systemDefault());
 
-                Extracted7ZFile extracted7ZFile = currentBuffer == null ?
-                                                  null :
-                                                  new Extracted7ZFile(currentBuffer,
-                                                                      currentFilePath,
-                                                                      lastModified,
-                                                                      progress);
-                stop = !extractCallback.apply(extracted7ZFile);
+                BufferedExtractedFile extractedFile = currentBuffer == null ?
+                                                      null :
+                                                      new BufferedExtractedFile(currentBuffer,
+                                                                                currentFilePath,
+                                                                                lastModified,
+                                                                                progress);
+                stop = !extractCallback.apply(extractedFile);
+
+                // If the file is still being processed in the background, the buffer must not be released here...
+                if (extractedFile != null && extractedFile.isDetached()) {
+                    currentBuffer = null;
+                }
             } catch (Exception e) {
                 throw Exceptions.handle()
                                 .to(Log.SYSTEM)
@@ -12,14 +12,24 @@ import sirius.db.jdbc.Databases;
 import sirius.db.mixing.BaseEntity;
 import sirius.db.mixing.DateRange;
 import sirius.db.mixing.Mapping;
+import sirius.db.mixing.Property;
+import sirius.db.mixing.query.FilterFactory;
 import sirius.db.mixing.query.Query;
 import sirius.db.mixing.query.QueryField;
 import sirius.db.mixing.query.constraints.Constraint;
+import sirius.kernel.async.Future;
+import sirius.kernel.async.Tasks;
+import sirius.kernel.cache.Cache;
+import sirius.kernel.cache.CacheManager;
 import sirius.kernel.cache.ValueComputer;
 import sirius.kernel.commons.Strings;
 import sirius.kernel.commons.Tuple;
 import sirius.kernel.commons.Value;
 import sirius.kernel.commons.Watch;
+import sirius.kernel.di.std.ConfigValue;
+import sirius.kernel.di.std.Part;
+import sirius.kernel.health.Exceptions;
+import sirius.kernel.health.Log;
 import sirius.kernel.nls.NLS;
 import sirius.web.controller.Facet;
 import sirius.web.controller.FacetItem;
@@ -30,18 +40,32 @@ import sirius.web.security.UserContext;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.Callable;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Helper class to build a query, bind it to values given in a {@link WebContext} and create a resulting {@link Page}
  * which can be used to render a resulting table and filter box.
+ * <p>
+ * By default, pages are fetched using an offset (<tt>skip</tt>) which gets slower the deeper a user navigates into
+ * a large result. Using {@link #withKeysetPaging(Mapping, boolean)} the position of the last row of each page is
+ * remembered per query, so that the next page can be fetched by seeking past this row instead. Also, the total count
+ * can be cached for a short time via {@link #withCachedTotalCount()} so that it isn't re-computed for each page.
+ * <p>
+ * Facets which require additional queries to determine their items (e.g.
+ * {@link SQLPageHelper#addQueryFacet(String, String, Function)}) are computed concurrently to the main query (see
+ * {@link #computeFacetItemsConcurrently(Facet, Callable)}). Their items are cached briefly per tenant, language,
+ * query and facet and if a computation takes longer than <tt>pageHelper.facetTimeout</tt>, the facet is shown
+ * without them.
  *
  * @param <E> the generic type of the entities being queried
  * @param <Q> the effective type of the generated query
@@ -52,6 +76,32 @@ public abstract class BasePageHelper<E extends BaseEntity<?>, C extends Constrai
 
     protected static final int DEFAULT_PAGE_SIZE = 25;
     protected static final String SORT_FACET = "sort";
+
+    /**
+     * Keeps the total count per query fingerprint if {@link #withCachedTotalCount()} is used.
+     */
+    private static final Cache<String, Long> totalCounts = CacheManager.createLocalCache("page-helper-counts");
+
+    /**
+     * Keeps the sort value and id of the last row of a page per query fingerprint and start of the next page.
+     */
+    private static final Cache<String, Tuple<Object, Object>> keysetPositions =
+            CacheManager.createLocalCache("page-helper-keysets");
+
+    /**
+     * Keeps the concurrently computed items per tenant, language, query fingerprint and facet.
+     */
+    private static final Cache<String, List<ComputedFacetItem>> facetItems =
+            CacheManager.createLocalCache("page-helper-facets");
+
+    private static final String EXECUTOR_PAGE_HELPER_FACETS = "page-helper-facets";
+
+    @Part
+    private static Tasks tasks;
+
+    @ConfigValue("pageHelper.facetTimeout")
+    private static Duration facetTimeout;
+
     protected WebContext webContext;
     protected Function<String, Value> parameterProvider;
     protected Q baseQuery;
@@ -60,7 +110,84 @@ public abstract class BasePageHelper<E extends BaseEntity<?>, C extends Constrai
     protected int pageSize = DEFAULT_PAGE_SIZE;
     protected int customStart = -1;
     protected boolean withTotalCount;
+    protected boolean cacheTotalCount;
+    protected Mapping keysetField;
+    protected boolean keysetAscending;
+    protected String queryFingerprint;
+    protected Long totalCount;
     protected boolean debugging;
+    private boolean computeFacetItems;
+    private final List<ConcurrentFacet> concurrentFacets = new ArrayList<>();
+
+    /**
+     * Represents an item of a facet which has been computed via
+     * {@link #computeFacetItemsConcurrently(Facet, Callable)}.
+     */
+    protected static class ComputedFacetItem {
+
+        private final String key;
+        private final String label;
+        private final int count;
+
+        /**
+         * Creates a new item.
+         *
+         * @param key   the filter value represented by the item
+         * @param label the label to show
+         * @param count the number of matches or -1 if unknown
+         */
+        public ComputedFacetItem(String key, String label, int count) {
+            this.key = key;
+            this.label = label;
+            this.count = count;
+        }
+    }
+
+    /**
+     * Keeps track of a facet whose items are computed in the background.
+     */
+    private static class ConcurrentFacet {
+
+        private final Facet facet;
+        private final Watch watch = Watch.start();
+        private Future completion;
+        private volatile List<ComputedFacetItem> items;
+        private volatile long durationMillis = -1;
+        private boolean cached;
+
+        ConcurrentFacet(Facet facet) {
+            this.facet = facet;
+        }
+
+        void compute(Callable<List<ComputedFacetItem>> computer, String cacheKey) {
+            try {
+                List<ComputedFacetItem> computedItems = computer.call();
+                facetItems.put(cacheKey, computedItems);
+                this.items = computedItems;
+            } catch (Exception e) {
+                Exceptions.handle()
+                          .to(Log.APPLICATION)
+                          .error(e)
+                          .withSystemErrorMessage("Failed to compute the items of the facet %s: %s (%s)",
+                                                  facet.getName())
+                          .handle();
+            } finally {
+                this.durationMillis = watch.elapsedMillis();
+            }
+        }
+
+        @Override
+        public String toString() {
+            if (cached) {
+                return facet.getName() + ": cached";
+            }
+            if (durationMillis < 0) {
+                return facet.getName() + ": timeout";
+            }
+
+            return facet.getName() + ": " + durationMillis + " ms";
+        }
+    }
 
     protected BasePageHelper(Q query) {
         this.baseQuery = query;
@@ -121,6 +248,49 @@ public abstract class BasePageHelper<E extends BaseEntity<?>, C extends Constrai
         return (B) this;
     }
 
+    /**
+     * Adds a flag, that the total count should be supplied to the Page, but may be re-used for a short period of time.
+     * <p>
+     * The count is cached per query fingerprint (the entity type and all filters but without the paging) for the
+     * duration configured for the cache <tt>page-helper-counts</tt>. Therefore, the count is approximate, as
+     * changes performed within this period aren't reflected, but it is only computed once when navigating through
+     * the pages of a large result.
+     *
+     * @return the helper itself for fluent method calls
+     */
+    @SuppressWarnings("unchecked")
+    public B withCachedTotalCount() {
+        this.withTotalCount = true;
+        this.cacheTotalCount = true;
+        return (B) this;
+    }
+
+    /**
+     * Enables keyset pagination for the given field.
+     * <p>
+     * The result is sorted by the given field and the id of the entities. For each page, the sort value and id of
+     * its last row is remembered, so that the next page is fetched by seeking past this row (using <tt>&gt;</tt>
+     * or <tt>&lt;</tt>) rather than by skipping all previous rows. If no position is known for the requested page
+     * (e.g. when jumping to a page directly or on another node), the page is fetched using an offset as usual.
+     * <p>
+     * Note that the order is determined by the given field, therefore this cannot be combined with a sort facet. If a
+     * sort facet is present, the helper falls back to offset based paging. For the same reason, the base query must
+     * not be ordered at all: its order would take precedence over the one applied here, so that seeking past the last
+     * row of a page would skip or repeat rows. As the order of a query cannot be inspected, this isn't checked.
+     * Therefore, queries which have to be pre-ordered must not use keyset pagination.
+     *
+     * @param sortField the field to sort by. This should be (nearly) unique and must not contain <tt>null</tt> values
+     *                  to profit from keyset pagination
+     * @param ascending determines if the result is sorted ascending or descending
+     * @return the helper itself for fluent method calls
+     */
+    @SuppressWarnings("unchecked")
+    public B withKeysetPaging(Mapping sortField, boolean ascending) {
+        this.keysetField = sortField;
+        this.keysetAscending = ascending;
+        return (B) this;
+    }
+
     /**
      * Adds a filter facet which will show distinct values of the given property.
      *
@@ -380,21 +550,26 @@ public abstract class BasePageHelper<E extends BaseEntity<?>, C extends Constrai
 
         applyQuery(result.getQuery());
 
+        computeFacetItems = true;
         applyFacets(result);
 
         try {
             setupPaging(result);
             List<E> items = executeQuery();
             enforcePaging(result, items);
+            completeConcurrentFacets();
             fillPage(w, result, items);
 
             if (debugging) {
                 UserContext.message(Message.info()
                                            .withTextMessage(Strings.apply(
-                                                   "Effective Query: %s (Matches: %s, Duration: %s ms)",
+                                                   "Effective Query: %s (Matches: %s, Duration: %s ms, Facets: %s)",
                                                    baseQuery,
-                                                   baseQuery.count(),
-                                                   w.elapsedMillis())));
+                                                   determineTotalCount(),
+                                                   w.elapsedMillis(),
+                                                   concurrentFacets.stream()
+                                                                   .map(ConcurrentFacet::toString)
+                                                                   .collect(Collectors.joining(", ")))));
             }
         } catch (Exception e) {
             UserContext.handle(e);
@@ -442,8 +617,9 @@ public abstract class BasePageHelper<E extends BaseEntity<?>, C extends Constrai
         if (items.size() > pageSize) {
             result.withHasMore(true);
             items.remove(items.size() - 1);
+            rememberKeysetPosition(result, items.get(items.size() - 1));
             if (withTotalCount) {
-                result.withTotalItems((int) baseQuery.count());
+                result.withTotalItems((int) determineTotalCount());
             }
         } else if (withTotalCount) {
             // we don't have any more items, so total items is end of the current page
@@ -455,11 +631,166 @@ public abstract class BasePageHelper<E extends BaseEntity<?>, C extends Constrai
         return baseQuery.queryList();
     }
 
+    /**
+     * Computes the items of the given facet in the background while the main query is executed.
+     * <p>
+     * The given computer must not access the query of this helper, as it is modified concurrently. Rather, everything
+     * required should be derived from the query before invoking this method. The computed items are cached per
+     * tenant, language, query and facet for the duration configured for the cache <tt>page-helper-facets</tt>. If the
+     * computation doesn't complete within <tt>pageHelper.facetTimeout</tt> or fails, the facet only contains its
+     * active filter value (if any), so that it can still be removed.
+     *
+     * @param facet    the facet to compute the items for
+     * @param computer the computer which determines the items of the facet
+     */
+    protected void computeFacetItemsConcurrently(Facet facet, Callable<List<ComputedFacetItem>> computer) {
+        if (!computeFacetItems) {
+            // The items aren't visible when only building the underlying query...
+            return;
+        }
+
+        ConcurrentFacet concurrentFacet = new ConcurrentFacet(facet);
+        concurrentFacets.add(concurrentFacet);
+
+        // The labels of the items might be translated, therefore the language is part of the key...
+        String cacheKey = UserContext.getCurrentUser().getTenantId()
+                          + " | "
+                          + NLS.getCurrentLanguage()
+                          + " | "
+                          + getQueryFingerprint()
+                          + " | "
+                          + facet.getName();
+        List<ComputedFacetItem> cachedItems = facetItems.get(cacheKey);
+        if (cachedItems != null) {
+            concurrentFacet.items = cachedItems;
+            concurrentFacet.cached = true;
+            return;
+        }
+
+        // If the executor is overloaded, the items are computed in the calling thread, which provides a proper
+        // back pressure...
+        concurrentFacet.completion = tasks.executor(EXECUTOR_PAGE_HELPER_FACETS)
+                                          .dropOnOverload(() -> concurrentFacet.compute(computer, cacheKey))
+                                          .fork(() -> concurrentFacet.compute(computer, cacheKey));
+    }
+
+    private void completeConcurrentFacets() {
+        for (ConcurrentFacet concurrentFacet : concurrentFacets) {
+            if (concurrentFacet.completion != null) {
+                long remainingMillis = facetTimeout.toMillis() - concurrentFacet.watch.elapsedMillis();
+                concurrentFacet.completion.await(Duration.ofMillis(Math.max(0, remainingMillis)));
+            }
+
+            List<ComputedFacetItem> items = concurrentFacet.items;
+            if (items != null) {
+                items.forEach(item -> concurrentFacet.facet.addItem(item.key, item.label, item.count));
+            } else if (Strings.isFilled(concurrentFacet.facet.getValue())) {
+                // Counts are unavailable, but the active filter value has to remain visible so that it can be
+                // disabled...
+                concurrentFacet.facet.addItem(concurrentFacet.facet.getValue(), concurrentFacet.facet.getValue(), -1);
+            }
+        }
+    }
+
+    /**
+     * Returns the fingerprint of the query which consists of the entity type and all constraints.
+     * <p>
+     * This is determined before the paging is set up and is used as cache key for counts, positions and facets.
+     *
+     * @return the fingerprint of the query
+     */
+    protected String getQueryFingerprint() {
+        if (queryFingerprint == null) {
+            queryFingerprint = baseQuery.getDescriptor().getType().getName() + ": " + baseQuery;
+        }
+
+        return queryFingerprint;
+    }
+
     protected void setupPaging(Page<E> result) {
-        baseQuery.skip(result.getStart() - 1);
+        getQueryFingerprint();
+
+        if (isKeysetPagingApplicable()) {
+            setupKeysetPaging(result);
+        } else {
+            baseQuery.skip(result.getStart() - 1);
+        }
         baseQuery.limit(pageSize + 1);
     }
 
+    /**
+     * Determines if keyset pagination can be used for the current query.
+     * <p>
+     * This can be overwritten by subclasses if the query performs additional computations (e.g. aggregations) which
+     * would be affected by the seek constraint.
+     *
+     * @return <tt>true</tt> if keyset pagination has been requested and is applicable, <tt>false</tt> otherwise
+     */
+    protected boolean isKeysetPagingApplicable() {
+        return keysetField != null
+               && facets.stream().map(Tuple::getFirst).noneMatch(facet -> SORT_FACET.equals(facet.getName()));
+    }
+
+    private void setupKeysetPaging(Page<E> result) {
+        // The base query is unordered (see withKeysetPaging), therefore this order is the one the seek relies on...
+        if (keysetAscending) {
+            baseQuery.orderAsc(keysetField).orderAsc(BaseEntity.ID);
+        } else {
+            baseQuery.orderDesc(keysetField).orderDesc(BaseEntity.ID);
+        }
+
+        Tuple<Object, Object> position =
+                result.getStart() > 1 ? keysetPositions.get(keysetCacheKey(result.getStart())) : null;
+        if (position == null) {
+            baseQuery.skip(result.getStart() - 1);
+            return;
+        }
+
+        // The count has to be determined before the seek constraint is applied...
+        if (withTotalCount) {
+            totalCount = determineTotalCount();
+        }
+
+        FilterFactory<C> filters = baseQuery.filters();
+        if (keysetAscending) {
+            baseQuery.where(filters.or(filters.gt(keysetField, position.getFirst()),
+                                       filters.and(filters.eq(keysetField, position.getFirst()),
+                                                   filters.gt(BaseEntity.ID, position.getSecond()))));
+        } else {
+            baseQuery.where(filters.or(filters.lt(keysetField, position.getFirst()),
+                                       filters.and(filters.eq(keysetField, position.getFirst()),
+                                                   filters.lt(BaseEntity.ID, position.getSecond()))));
+        }
+    }
+
+    private void rememberKeysetPosition(Page<E> result, E lastItem) {
+        if (!isKeysetPagingApplicable()) {
+            return;
+        }
+
+        Property property = baseQuery.getDescriptor().getProperty(keysetField.toString());
+        Object sortValue = property.getValue(lastItem);
+        if (sortValue != null) {
+            keysetPositions.put(keysetCacheKey(result.getStart() + pageSize),
+                                Tuple.create(sortValue, lastItem.getId()));
+        }
+    }
+
+    private String keysetCacheKey(int start) {
+        return getQueryFingerprint() + " | " + pageSize + " | " + start;
+    }
+
+    private long determineTotalCount() {
+        if (totalCount != null) {
+            return totalCount;
+        }
+        if (!cacheTotalCount) {
+            return baseQuery.count();
+        }
+
+        return totalCounts.get(getQueryFingerprint(), ignored -> baseQuery.count());
+    }
+
     protected void applyFacets(@Nullable Page<E> result) {
         for (Tuple<Facet, BiConsumer<Facet, Q>> f : facets) {
             if (f.getSecond() != null) {
@@ -201,6 +201,12 @@ public class ElasticPageHelper<E extends ElasticEntity>
         return this;
     }
 
+    @Override
+    protected boolean isKeysetPagingApplicable() {
+        // Aggregations are computed along with the query itself and would therefore only see the remaining rows...
+        return super.isKeysetPagingApplicable() && aggregatingFacets.isEmpty();
+    }
+
     @Override
     protected void fillPage(Watch w, Page<E> result, List<E> items) {
         super.fillPage(w, result, items);
@@ -20,7 +20,6 @@ import sirius.kernel.cache.ValueComputer;
 import sirius.kernel.commons.Strings;
 import sirius.kernel.commons.Tuple;
 import sirius.kernel.commons.Value;
-import sirius.kernel.commons.Watch;
 import sirius.kernel.di.std.PriorityParts;
 import sirius.kernel.nls.NLS;
 import sirius.web.controller.Facet;
@@ -233,11 +232,12 @@ public class MongoPageHelper<E extends MongoEntity>
     }
 
     @Override
-    protected void fillPage(Watch w, Page<E> result, List<E> items) {
+    protected void setupPaging(Page<E> result) {
+        // The facets are computed before the paging is set up, so that these aren't affected by a keyset constraint...
         if (!baseQuery.isForceFail()) {
             baseQuery.executeFacets();
         }
-        super.fillPage(w, result, items);
+        super.setupPaging(result);
     }
 
     /**
@@ -8,7 +8,6 @@
 
 package sirius.biz.web;
 
-import sirius.db.jdbc.OMA;
 import sirius.db.jdbc.SQLEntity;
 import sirius.db.jdbc.SQLQuery;
 import sirius.db.jdbc.SmartQuery;
@@ -19,10 +18,10 @@ import sirius.kernel.commons.Strings;
 import sirius.kernel.commons.Tuple;
 import sirius.kernel.commons.Value;
 import sirius.kernel.di.std.PriorityParts;
-import sirius.kernel.health.Exceptions;
 import sirius.web.controller.Facet;
 
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.function.Function;
@@ -55,6 +54,10 @@ public class SQLPageHelper<E extends SQLEntity>
 
     /**
      * Adds a query based filter which uses the given query to determine which filter items are shown.
+     * <p>
+     * The filter items are determined concurrently to the main query and are cached briefly (see
+     * {@link #computeFacetItemsConcurrently(Facet, java.util.concurrent.Callable)}). Therefore the given transformer
+     * has to create an independent query (e.g. by using {@link SmartQuery#copy()}).
      *
      * @param name             the name of the field to filter on
      * @param title            the title of the filter shown to the user
@@ -69,26 +72,29 @@ public class SQLPageHelper<E extends SQLEntity>
                 query.eq(Mapping.named(facet.getName()), facet.getValue());
             }
         }, (facet, query) -> {
-            try {
-                SQLQuery qry = queryTransformer.apply(query);
-                qry.iterateAll(r -> {
-                    Iterator<Tuple<String, Object>> iter = r.getFieldsList().iterator();
-                    if (!iter.hasNext()) {
-                        return;
-                    }
-                    String key = Value.of(iter.next().getSecond()).asString();
-                    String label = key;
-                    if (iter.hasNext()) {
-                        label = Value.of(iter.next().getSecond()).asString();
-                    }
-                    facet.addItem(key, label, -1);
-                }, new Limit(0, 100));
-            } catch (SQLException e) {
-                Exceptions.handle(OMA.LOG, e);
-            }
+            SQLQuery qry = queryTransformer.apply(query);
+            computeFacetItemsConcurrently(facet, () -> queryFacetItems(qry));
         });
     }
 
+    private List<ComputedFacetItem> queryFacetItems(SQLQuery qry) throws SQLException {
+        List<ComputedFacetItem> items = new ArrayList<>();
+        qry.iterateAll(r -> {
+            Iterator<Tuple<String, Object>> iter = r.getFieldsList().iterator();
+            if (!iter.hasNext()) {
+                return;
+            }
+            String key = Value.of(iter.next().getSecond()).asString();
+            String label = key;
+            if (iter.hasNext()) {
+                label = Value.of(iter.next().getSecond()).asString();
+            }
+            items.add(new ComputedFacetItem(key, label, -1));
+        }, new Limit(0, 100));
+
+        return items;
+    }
+
     /**
      * Applies all {@link SQLPageHelperExtender extenders} which are registered for the given name and the target
      * type of this page helper.
@@ -0,0 +1,115 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.biz.analytics.events
+
+import sirius.kernel.BaseSpecification
+
+import java.time.Duration
+
+class EventBufferSpec extends BaseSpecification {
+
+    def "a buffer rejects events once its capacity is reached"() {
+        given:
+        EventBuffer buffer = new EventBuffer(TestEvent1.class, 2)
+        expect:
+        buffer.offer(new TestEvent1())
+        buffer.offer(new TestEvent1())
+        !buffer.offer(new TestEvent1())
+        buffer.size() == 2
+        and:
+        buffer.poll() != null
+        buffer.offer(new TestEvent1())
+    }
+
+    def "a flush is due once enough events are present"() {
+        given:
+        EventBuffer buffer = new EventBuffer(TestEvent1.class, 16)
+        expect:
+        !buffer.isFlushDue(2, Duration.ofHours(1))
+        when:
+        buffer.offer(new TestEvent1())
+        then:
+        !buffer.isFlushDue(2, Duration.ofHours(1))
+        when:
+        buffer.offer(new TestEvent1())
+        then:
+        buffer.isFlushDue(2, Duration.ofHours(1))
+    }
+
+    def "a flush is due once the oldest event is old enough"() {
+        given:
+        EventBuffer buffer = new EventBuffer(TestEvent1.class, 16)
+        when:
+        buffer.offer(new TestEvent1())
+        and:
+        Thread.sleep(20)
+        then:
+        buffer.isFlushDue(100, Duration.ofMillis(10))
+        !buffer.isFlushDue(100, Duration.ofHours(1))
+    }
+
+    def "draining a buffer resets its age"() {
+        given:
+        EventBuffer buffer = new EventBuffer(TestEvent1.class, 16)
+        buffer.offer(new TestEvent1())
+        Thread.sleep(20)
+        when:
+        while (buffer.poll() != null) {
+            // Drain all events...
+        }
+        and:
+        buffer.offer(new TestEvent1())
+        then:
+        !buffer.isFlushDue(100, Duration.ofMillis(10))
+    }
+
+    def "an event offered while the buffer is drained keeps a timestamp"() {
+        given:
+        EventBuffer buffer = new EventBuffer(TestEvent1.class, 1024 * 1024)
+        int numberOfEvents = 100_000
+        when:
+        Thread producer = Thread.start {
+            for (int i = 0; i < numberOfEvents; i++) {
+                buffer.offer(new TestEvent1())
+            }
+        }
+        int polledEvents = 0
+        while (producer.isAlive() || buffer.size() > 0) {
+            if (buffer.poll() != null) {
+                polledEvents++
+            }
+            if (polledEvents == numberOfEvents - 1) {
+                break
+            }
+        }
+        producer.join()
+        and:
+        Thread.sleep(20)
+        then: "the remaining event becomes due by its age"
+        buffer.size() == 1
+        buffer.isFlushDue(100, Duration.ofMillis(10))
+    }
+
+    def "only one flush can be started at a time"() {
+        given:
+        EventBuffer buffer = new EventBuffer(TestEvent1.class, 16)
+        expect:
+        buffer.tryStartFlush()
+        !buffer.tryStartFlush()
+        !buffer.awaitStartFlush(Duration.ofMillis(50))
+        when:
+        Thread.start {
+            Thread.sleep(50)
+            buffer.completeFlush()
+        }
+        then:
+        buffer.awaitStartFlush(Duration.ofSeconds(10))
+        !buffer.tryStartFlush()
+    }
+}
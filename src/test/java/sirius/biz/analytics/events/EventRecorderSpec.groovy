@@ -87,7 +87,7 @@ class EventRecorderSpec extends BaseSpecification {
         when:
         recorder.record(new TestEvent3ThrowsExceptionOnSave())
         then:
-        recorder.buffer.poll() == null
+        recorder.buffers.get(TestEvent3ThrowsExceptionOnSave.class) == null
         recorder.bufferedEvents.get() == 0
         and:
         recorder.process() == 0
@@ -0,0 +1,68 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.biz.analytics.events
+
+import sirius.kernel.BaseSpecification
+
+import java.nio.file.Files
+
+class EventSpillSpec extends BaseSpecification {
+
+    private static File directory
+
+    def setup() {
+        directory = Files.createTempDirectory("event-spill").toFile()
+    }
+
+    def cleanup() {
+        directory.deleteDir()
+    }
+
+    def "spilled events are replayed with their data and the segment is deleted"() {
+        given:
+        EventSpill spill = new EventSpill(directory, 100)
+        TestEvent1 event = new TestEvent1()
+        event.setaNumber(42)
+        when:
+        spill.spill(event)
+        then:
+        spill.hasSpilledEvents()
+        when:
+        List<Event> replayedEvents = []
+        int numberOfEvents = spill.replayOldestSegment({ replayedEvents.add(it) })
+        then:
+        numberOfEvents == 1
+        replayedEvents.size() == 1
+        replayedEvents.get(0) instanceof TestEvent1
+        ((TestEvent1) replayedEvents.get(0)).getaNumber() == 42
+        and:
+        !spill.hasSpilledEvents()
+    }
+
+    def "segments are rolled over and replayed oldest first"() {
+        given:
+        EventSpill spill = new EventSpill(directory, 2)
+        when:
+        for (int i = 1; i <= 5; i++) {
+            TestEvent1 event = new TestEvent1()
+            event.setaNumber(i)
+            spill.spill(event)
+        }
+        then:
+        directory.list().length == 3
+        when:
+        List<Integer> replayedNumbers = []
+        while (spill.hasSpilledEvents()) {
+            spill.replayOldestSegment({ replayedNumbers.add(((TestEvent1) it).getaNumber()) })
+        }
+        then:
+        replayedNumbers == [1, 2, 3, 4, 5]
+        directory.list().length == 0
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.biz.analytics.metrics.jdbc
+
+import sirius.biz.analytics.metrics.Metrics
+import sirius.db.jdbc.OMA
+import sirius.kernel.BaseSpecification
+import sirius.kernel.di.std.Part
+
+import java.time.LocalDate
+
+class SQLMetricsSpec extends BaseSpecification {
+
+    private static final String TARGET_TYPE = "test"
+
+    @Part
+    private static Metrics metrics
+
+    @Part
+    private static OMA oma
+
+    private static String uniqueName(String prefix) {
+        return prefix + "-" + System.nanoTime()
+    }
+
+    def "daily values are fetched for both boundaries and gaps are filled with zeros"() {
+        given:
+        String name = uniqueName("daily")
+        metrics.updateDailyMetric(TARGET_TYPE, "1", name, 2020, 1, 30, 99)
+        metrics.updateDailyMetric(TARGET_TYPE, "1", name, 2020, 1, 31, 1)
+        metrics.updateDailyMetric(TARGET_TYPE, "1", name, 2020, 2, 2, 3)
+        metrics.updateDailyMetric(TARGET_TYPE, "1", name, 2020, 2, 3, 4)
+        metrics.updateDailyMetric(TARGET_TYPE, "1", name, 2020, 2, 4, 99)
+        expect:
+        metrics.query()
+               .daily(name)
+               .of(TARGET_TYPE, "1")
+               .values(LocalDate.of(2020, 1, 31), LocalDate.of(2020, 2, 3)) == [1, 0, 3, 4]
+    }
+
+    def "monthly values are fetched across a year boundary"() {
+        given:
+        String name = uniqueName("monthly")
+        metrics.updateMonthlyMetric(TARGET_TYPE, "1", name, 2020, 10, 99)
+        metrics.updateMonthlyMetric(TARGET_TYPE, "1", name, 2020, 11, 1)
+        metrics.updateMonthlyMetric(TARGET_TYPE, "1", name, 2021, 2, 2)
+        metrics.updateMonthlyMetric(TARGET_TYPE, "1", name, 2021, 3, 99)
+        expect: "the start date is normalized to the first day of its month"
+        metrics.query()
+               .monthly(name)
+               .of(TARGET_TYPE, "1")
+               .values(LocalDate.of(2020, 11, 15), LocalDate.of(2021, 2, 1)) == [1, 0, 0, 2]
+    }
+
+    def "yearly values are fetched and gaps are filled with zeros"() {
+        given:
+        String name = uniqueName("yearly")
+        metrics.updateYearlyMetric(TARGET_TYPE, "1", name, 2015, 99)
+        metrics.updateYearlyMetric(TARGET_TYPE, "1", name, 2016, 1)
+        metrics.updateYearlyMetric(TARGET_TYPE, "1", name, 2018, 3)
+        expect:
+        metrics.query().yearly(name).of(TARGET_TYPE, "1").valuesUntil(LocalDate.of(2019, 6, 1), 4) == [1, 0, 3, 0]
+    }
+
+    def "values of several targets are fetched at once"() {
+        given:
+        String name = uniqueName("targets")
+        metrics.updateDailyMetric(TARGET_TYPE, "1", name, 2020, 3, 1, 1)
+        metrics.updateDailyMetric(TARGET_TYPE, "2", name, 2020, 3, 2, 2)
+        when:
+        Map<String, List<Integer>> values = metrics.query()
+                                                   .daily(name)
+                                                   .ofAll(TARGET_TYPE, ["1", "2", "3"])
+                                                   .valuesPerTarget(LocalDate.of(2020, 3, 1),
+                                                                    LocalDate.of(2020, 3, 2))
+        then:
+        values.keySet().toList() == ["1", "2", "3"]
+        values.get("1") == [1, 0]
+        values.get("2") == [0, 2]
+        values.get("3") == [0, 0]
+    }
+
+    def "buildDateRangeConstraint includes both boundaries and excludes all other days"() {
+        given:
+        String name = uniqueName("constraint")
+        LocalDate date = LocalDate.of(2019, 12, 29)
+        while (!date.isAfter(LocalDate.of(2020, 3, 2))) {
+            metrics.updateDailyMetric(TARGET_TYPE,
+                                      "1",
+                                      name,
+                                      date.getYear(),
+                                      date.getMonthValue(),
+                                      date.getDayOfMonth(),
+                                      1)
+            date = date.plusDays(1)
+        }
+        when:
+        List<DailyMetric> matches = oma.select(DailyMetric.class)
+                                       .eq(Fact.NAME, name)
+                                       .where(((SQLMetrics) metrics).buildDateRangeConstraint(OMA.FILTERS,
+                                                                                               YearlyMetric.YEAR,
+                                                                                               MonthlyMetric.MONTH,
+                                                                                               DailyMetric.DAY,
+                                                                                               startDate,
+                                                                                               endDate))
+                                       .queryList()
+        then:
+        matches.size() == expectedNumberOfDays
+        matches.every {
+            LocalDate matchedDate = LocalDate.of(it.getYear(), it.getMonth(), it.getDay())
+            !matchedDate.isBefore(startDate) && !matchedDate.isAfter(endDate)
+        }
+        where:
+        startDate                  | endDate                   | expectedNumberOfDays
+        LocalDate.of(2019, 12, 31) | LocalDate.of(2020, 1, 1)  | 2
+        LocalDate.of(2020, 1, 31)  | LocalDate.of(2020, 3, 1)  | 31
+        LocalDate.of(2020, 2, 29)  | LocalDate.of(2020, 2, 29) | 1
+    }
+}
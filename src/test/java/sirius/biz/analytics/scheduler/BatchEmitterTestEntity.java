@@ -0,0 +1,28 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.biz.analytics.scheduler;
+
+import sirius.db.jdbc.SQLEntity;
+import sirius.db.mixing.Mapping;
+import sirius.db.mixing.annotations.Length;
+
+public class BatchEmitterTestEntity extends SQLEntity {
+
+    public static final Mapping RUN = Mapping.named("run");
+    @Length(50)
+    private String run;
+
+    public String getRun() {
+        return run;
+    }
+
+    public void setRun(String run) {
+        this.run = run;
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.biz.analytics.scheduler
+
+import com.alibaba.fastjson.JSONObject
+import sirius.db.jdbc.OMA
+import sirius.kernel.BaseSpecification
+import sirius.kernel.di.Injector
+import sirius.kernel.di.std.Part
+
+class EntityBatchEmitterSpec extends BaseSpecification {
+
+    @Part
+    private static OMA oma
+
+    /**
+     * Simulates a database which limits the number of entities to skip (like the max_result_window of Elastic).
+     */
+    private static class LimitedSkipEmitter extends SQLEntityBatchEmitter {
+
+        private final int maxSkip
+
+        LimitedSkipEmitter(int maxSkip) {
+            this.maxSkip = maxSkip
+        }
+
+        @Override
+        protected int getMaxSkip() {
+            return maxSkip
+        }
+    }
+
+    private static SQLEntityBatchEmitter createEmitter(int maxSkip) {
+        SQLEntityBatchEmitter emitter = new LimitedSkipEmitter(maxSkip)
+        Injector.context().wire(emitter)
+        return emitter
+    }
+
+    def "batch boundaries are computed correctly even if the number of entities to skip is limited"() {
+        given:
+        String run = "run-" + System.nanoTime()
+        List<Long> ids = []
+        for (int i = 0; i < 25; i++) {
+            BatchEmitterTestEntity entity = new BatchEmitterTestEntity()
+            entity.setRun(run)
+            oma.update(entity)
+            ids.add(entity.getId())
+        }
+        when:
+        List<JSONObject> batches = []
+        createEmitter(maxSkip).computeBatches(BatchEmitterTestEntity.class,
+                                              { query -> query.eq(BatchEmitterTestEntity.RUN, run) },
+                                              10,
+                                              { batch -> batches.add(batch) })
+        then:
+        batches.collect { it.getLong(BaseEntityBatchEmitter.START_ID) } == [null, ids.get(9), ids.get(19)]
+        batches.collect { it.getLong(BaseEntityBatchEmitter.END_ID) } == [ids.get(9), ids.get(19), ids.get(24)]
+        where:
+        maxSkip << [Integer.MAX_VALUE, 9, 4, 0]
+    }
+
+    def "no batches are emitted if there are no entities"() {
+        when:
+        List<JSONObject> batches = []
+        createEmitter(maxSkip).computeBatches(BatchEmitterTestEntity.class,
+                                              { query -> query.eq(BatchEmitterTestEntity.RUN, "unknown") },
+                                              10,
+                                              { batch -> batches.add(batch) })
+        then:
+        batches.isEmpty()
+        where:
+        maxSkip << [Integer.MAX_VALUE, 0]
+    }
+
+    def "the Elastic emitter never skips beyond the max result window"() {
+        expect:
+        new ElasticEntityBatchEmitter().getMaxSkip() < 10_000
+    }
+}
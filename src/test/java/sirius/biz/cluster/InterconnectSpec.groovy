@@ -0,0 +1,80 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.biz.cluster
+
+import com.alibaba.fastjson.JSONObject
+import sirius.kernel.BaseSpecification
+import sirius.kernel.commons.Wait
+import sirius.kernel.di.std.Part
+
+class InterconnectSpec extends BaseSpecification {
+
+    @Part
+    private static Interconnect interconnect
+
+    @Part
+    private static RecordingInterconnectHandler handler
+
+    def "messages which are not idempotent are never coalesced and the order is kept"() {
+        given:
+        OutgoingMessageBuffer buffer = new OutgoingMessageBuffer()
+        expect:
+        buffer.add("A", false)
+        buffer.add("A", false)
+        buffer.add("B", false)
+        buffer.add("A", false)
+        and:
+        buffer.drain() == ["A", "A", "B", "A"]
+        buffer.isEmpty()
+    }
+
+    def "idempotent messages are coalesced with any identical idempotent message"() {
+        given:
+        OutgoingMessageBuffer buffer = new OutgoingMessageBuffer()
+        expect:
+        buffer.add("A", true)
+        buffer.add("B", false)
+        !buffer.add("A", true)
+        and: "a message which has not been marked as idempotent is always added"
+        buffer.add("C", false)
+        buffer.add("B", true)
+        buffer.add("B", false)
+        buffer.add("D", false)
+        buffer.add("B", false)
+        and:
+        buffer.drain() == ["A", "B", "C", "B", "B", "D", "B"]
+    }
+
+    def "draining a buffer resets the coalescing"() {
+        given:
+        OutgoingMessageBuffer buffer = new OutgoingMessageBuffer()
+        buffer.add("A", true)
+        when:
+        buffer.drain()
+        then:
+        buffer.add("A", true)
+        buffer.drain() == ["A"]
+    }
+
+    def "dispatched messages are delivered in order"() {
+        given:
+        handler.getReceivedValues().clear()
+        when:
+        ["A", "A", "B", "A", "C"].each {
+            interconnect.dispatch(handler.getName(), new JSONObject().fluentPut("value", it))
+        }
+        and:
+        int attempts = 0
+        while (handler.getReceivedValues().size() < 5 && attempts++ < 50) {
+            Wait.millis(100)
+        }
+        then:
+        handler.getReceivedValues() == ["A", "A", "B", "A", "C"]
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.biz.cluster;
+
+import com.alibaba.fastjson.JSONObject;
+import sirius.kernel.di.std.Register;
+
+import javax.annotation.Nonnull;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+@Register
+public class RecordingInterconnectHandler implements InterconnectHandler {
+
+    private final List<String> receivedValues = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void handleEvent(JSONObject event) {
+        receivedValues.add(event.getString("value"));
+    }
+
+    public List<String> getReceivedValues() {
+        return receivedValues;
+    }
+
+    @Nonnull
+    @Override
+    public String getName() {
+        return "test-recording-handler";
+    }
+}
@@ -13,6 +13,11 @@ import sirius.db.redis.Redis
 import sirius.kernel.BaseSpecification
 import sirius.kernel.di.std.Part
 
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
 class PrioritizedQueueSpec extends BaseSpecification {
 
     @Part
@@ -47,4 +52,61 @@ class PrioritizedQueueSpec extends BaseSpecification {
         queue.poll() == null
     }
 
+    def "redis prioritized queue supports polling batches"() {
+        when:
+        def queue = new RedisPrioritizedQueue(redis, "prioritized_batch_test")
+        and:
+        queue.offer(30, new JSONObject().fluentPut("value", 30))
+        queue.offer(20, new JSONObject().fluentPut("value", 20))
+        queue.offer(10, new JSONObject().fluentPut("value", 10))
+        then:
+        queue.pollBatch(2).collect { it.get("value") } == [10, 20]
+        queue.pollBatch(2).collect { it.get("value") } == [30]
+        queue.pollBatch(2).isEmpty()
+    }
+
+    def "redis prioritized queue hands out each task exactly once to concurrent pollers"() {
+        given:
+        def queue = new RedisPrioritizedQueue(redis, "prioritized_concurrency_test")
+        def numberOfTasks = 2000
+        def numberOfPollers = 8
+        def batchSize = 16
+        def polledTasks = ConcurrentHashMap.newKeySet()
+        def duplicateTasks = ConcurrentHashMap.newKeySet()
+        def batchSizes = new CopyOnWriteArrayList<Integer>()
+        def latch = new CountDownLatch(numberOfPollers)
+        when:
+        for (int i = 0; i < numberOfTasks; i++) {
+            queue.offer(i, new JSONObject().fluentPut("value", i))
+        }
+        and:
+        for (int i = 0; i < numberOfPollers; i++) {
+            Thread.start {
+                try {
+                    def batch = queue.pollBatch(batchSize)
+                    while (!batch.isEmpty()) {
+                        batchSizes.add(batch.size())
+                        batch.each {
+                            if (!polledTasks.add(it.get("value"))) {
+                                duplicateTasks.add(it.get("value"))
+                            }
+                        }
+                        batch = queue.pollBatch(batchSize)
+                    }
+                } finally {
+                    latch.countDown()
+                }
+            }
+        }
+        then:
+        latch.await(1, TimeUnit.MINUTES)
+        and: "each task is handed out exactly once"
+        polledTasks.size() == numberOfTasks
+        duplicateTasks.isEmpty()
+        batchSizes.sum() == numberOfTasks
+        queue.size() == 0
+        and: "all batches are full, except for the last one of each poller"
+        batchSizes.every { it >= 1 && it <= batchSize }
+        batchSizes.count { it < batchSize } <= numberOfPollers
+    }
 }
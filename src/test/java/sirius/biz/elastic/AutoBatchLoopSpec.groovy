@@ -0,0 +1,89 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.biz.elastic
+
+import sirius.db.es.Elastic
+import sirius.kernel.BaseSpecification
+import sirius.kernel.commons.Wait
+import sirius.kernel.di.Injector
+import sirius.kernel.di.std.Part
+
+import java.time.Duration
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.TimeUnit
+
+class AutoBatchLoopSpec extends BaseSpecification {
+
+    @Part
+    private static Elastic elastic
+
+    private static AutoBatchLoop createLoop() {
+        // We use a separate instance, so that only the test itself executes the loop...
+        AutoBatchLoop loop = new AutoBatchLoop()
+        Injector.context().wire(loop)
+        return loop
+    }
+
+    private static void awaitFlushRequest(AutoBatchLoop loop, long generation) {
+        int attempts = 0
+        while (loop.requestedFlushGeneration.get() < generation && attempts++ < 100) {
+            Wait.millis(10)
+        }
+    }
+
+    def "awaitNextFlush times out if the loop doesn't run"() {
+        expect:
+        !createLoop().awaitNextFlush(Duration.ofMillis(100))
+    }
+
+    def "awaitNextFlush only returns once a run observed the request"() {
+        given:
+        AutoBatchLoop loop = createLoop()
+        and: "a run starts before the flush is requested"
+        long observedGeneration = loop.requestedFlushGeneration.get()
+        when:
+        CompletableFuture<Boolean> flushed = CompletableFuture.supplyAsync({
+            loop.awaitNextFlush(Duration.ofSeconds(10))
+        })
+        awaitFlushRequest(loop, observedGeneration + 1)
+        and: "the run which didn't observe the request completes"
+        loop.signalBatchRun(observedGeneration)
+        Wait.millis(200)
+        then:
+        !flushed.isDone()
+        when: "the next run completes"
+        loop.doWork()
+        then:
+        flushed.get(10, TimeUnit.SECONDS)
+    }
+
+    def "retried entities don't make the pipeline overdue before they may be retried"() {
+        given:
+        AutoBatchLoop loop = createLoop()
+        SearchableTestEntity entity = new SearchableTestEntity()
+        entity.setTest("auto-batch-retry-" + System.nanoTime())
+        loop.insertAsync(entity)
+        def pipeline = loop.pipelines.get(SearchableTestEntity.class)
+        when: "storing the entity fails"
+        loop.elastic = null
+        long failedAt = System.currentTimeMillis()
+        pipeline.flush(failedAt)
+        then: "it is queued again, with its age counted from the earliest retry"
+        pipeline.queueLength.get() == 1
+        pipeline.retried.getCount() == 1
+        !pipeline.isFlushDue(failedAt + loop.retryDelay.toMillis() + loop.maxAge.toMillis() - 500, false)
+        pipeline.isFlushDue(failedAt + loop.retryDelay.toMillis() + loop.maxAge.toMillis() + 500, false)
+        when: "the entity is retried once its backoff elapsed"
+        loop.elastic = elastic
+        int stored = pipeline.flush(failedAt + loop.retryDelay.toMillis() + 500)
+        then:
+        stored == 1
+        pipeline.queueLength.get() == 0
+    }
+}
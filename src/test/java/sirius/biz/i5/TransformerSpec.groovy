@@ -0,0 +1,61 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.biz.i5
+
+import sirius.kernel.BaseSpecification
+
+class TransformerSpec extends BaseSpecification {
+
+    private static final int CCSID = 273
+
+    private static final int RECORD_LENGTH = 10 + 9 + 4 + 20
+
+    def "a record survives a roundtrip through its byte representation"() {
+        given:
+        Transformer transformer = new Transformer(TransformerTestRecord.class)
+        TransformerTestRecord record = new TransformerTestRecord()
+        record.setArticleNumber("A-4711")
+        record.setPrice(new BigDecimal("1234.56"))
+        record.setFlags([1, 2, 3, 4] as byte[])
+        record.setDescription("Screwdriver")
+        byte[] data = new byte[RECORD_LENGTH]
+        when:
+        transformer.toBytes(record, data, CCSID)
+        and:
+        TransformerTestRecord parsed = new TransformerTestRecord()
+        transformer.fromBytes(parsed, data, CCSID)
+        then:
+        parsed.getArticleNumber() == "A-4711"
+        parsed.getPrice() == new BigDecimal("1234.56")
+        parsed.getFlags() == [1, 2, 3, 4] as byte[]
+        parsed.getDescription() == "Screwdriver"
+    }
+
+    def "the same transformer can be used with several CCSIDs"() {
+        given:
+        Transformer transformer = new Transformer(TransformerTestRecord.class)
+        TransformerTestRecord record = new TransformerTestRecord()
+        record.setArticleNumber("B-0815")
+        record.setPrice(BigDecimal.ONE)
+        byte[] data273 = new byte[RECORD_LENGTH]
+        byte[] data37 = new byte[RECORD_LENGTH]
+        when:
+        transformer.toBytes(record, data273, CCSID)
+        transformer.toBytes(record, data37, 37)
+        and:
+        TransformerTestRecord parsed273 = new TransformerTestRecord()
+        transformer.fromBytes(parsed273, data273, CCSID)
+        TransformerTestRecord parsed37 = new TransformerTestRecord()
+        transformer.fromBytes(parsed37, data37, 37)
+        then:
+        parsed273.getArticleNumber() == "B-0815"
+        parsed37.getArticleNumber() == "B-0815"
+        parsed37.getPrice() == new BigDecimal("1.00")
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.biz.i5;
+
+import com.ibm.as400.access.AS400Text;
+import com.ibm.as400.access.AS400ZonedDecimal;
+
+import java.math.BigDecimal;
+
+public class TransformerTestRecord extends Transformable {
+
+    @Transform(position = 1, targetType = AS400Text.class, length = 10)
+    private String articleNumber;
+
+    @Transform(position = 2, targetType = AS400ZonedDecimal.class, length = 9, decimal = 2)
+    private BigDecimal price;
+
+    @Transform(position = 3, targetType = Byte.class, length = 4)
+    private byte[] flags;
+
+    @Transform(position = 4, targetType = AS400Text.class, length = 20)
+    private String description;
+
+    public String getArticleNumber() {
+        return articleNumber;
+    }
+
+    public void setArticleNumber(String articleNumber) {
+        this.articleNumber = articleNumber;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public void setPrice(BigDecimal price) {
+        this.price = price;
+    }
+
+    public byte[] getFlags() {
+        return flags;
+    }
+
+    public void setFlags(byte[] flags) {
+        this.flags = flags;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.biz.jobs.scheduler
+
+import sirius.kernel.BaseSpecification
+
+import java.time.LocalDateTime
+
+class SchedulerDataSpec extends BaseSpecification {
+
+    private static SchedulerData create(String month, String dayOfMonth, String dayOfWeek, String hour, String minute) {
+        SchedulerData data = new SchedulerData()
+        data.setYear("*")
+        data.setMonth(month)
+        data.setDayOfMonth(dayOfMonth)
+        data.setDayOfWeek(dayOfWeek)
+        data.setHourOfDay(hour)
+        data.setMinute(minute)
+        return data
+    }
+
+    def "computeNextExecution finds the next matching minute"(String month,
+                                                              String dayOfMonth,
+                                                              String dayOfWeek,
+                                                              String hour,
+                                                              String minute,
+                                                              String expected) {
+        given:
+        SchedulerData data = create(month, dayOfMonth, dayOfWeek, hour, minute)
+        and:
+        // 2023-03-15 is a wednesday
+        LocalDateTime from = LocalDateTime.of(2023, 3, 15, 10, 30, 42)
+        expect:
+        data.computeNextExecution(from) == LocalDateTime.parse(expected)
+        where:
+        month | dayOfMonth | dayOfWeek | hour | minute | expected
+        "*"   | "*"        | "*"       | "*"  | "*"    | "2023-03-15T10:30"
+        "*"   | "*"        | "*"       | "*"  | "45"   | "2023-03-15T10:45"
+        "*"   | "*"        | "*"       | "*"  | "15"   | "2023-03-15T11:15"
+        "*"   | "*"        | "*"       | "8"  | "0"    | "2023-03-16T08:00"
+        "*"   | "*"        | "1"       | "8"  | "0"    | "2023-03-20T08:00"
+        "*"   | "1"        | "*"       | "0"  | "0"    | "2023-04-01T00:00"
+        "2"   | "29"       | "*"       | "0"  | "0"    | "2024-02-29T00:00"
+        "*"   | "*"        | "*"       | "/6" | "/15"  | "2023-03-15T12:00"
+    }
+
+    def "disabled entries have no next execution"() {
+        given:
+        SchedulerData data = create("*", "*", "*", "*", "*")
+        data.setEnabled(false)
+        expect:
+        data.computeNextExecution(LocalDateTime.now()) == null
+    }
+
+    def "entries without runs left have no next execution"() {
+        given:
+        SchedulerData data = create("*", "*", "*", "*", "*")
+        data.setRuns(0)
+        expect:
+        data.computeNextExecution(LocalDateTime.now()) == null
+    }
+}
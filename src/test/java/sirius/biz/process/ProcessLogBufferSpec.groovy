@@ -0,0 +1,103 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.biz.process
+
+import sirius.biz.process.logs.ProcessLog
+import sirius.db.es.Elastic
+import sirius.kernel.BaseSpecification
+import sirius.kernel.di.Injector
+import sirius.kernel.di.std.Part
+
+class ProcessLogBufferSpec extends BaseSpecification {
+
+    @Part
+    private static Elastic elastic
+
+    @Part
+    private static Processes processes
+
+    private static ProcessLogBufferLoop createLoop(int bufferSize, int samplingRate) {
+        // We use a separate instance, so that the background loop doesn't flush our entries...
+        ProcessLogBufferLoop loop = new ProcessLogBufferLoop()
+        Injector.context().wire(loop)
+        loop.logBufferSize = bufferSize
+        loop.logSamplingRate = samplingRate
+        return loop
+    }
+
+    private static List<ProcessLog> createEntries(String processId, int count, Closure<ProcessLog> factory) {
+        List<ProcessLog> result = []
+        for (int i = 0; i < count; i++) {
+            ProcessLog logEntry = factory()
+            processes.prepareLogEntry(processId, logEntry)
+            result.add(logEntry)
+        }
+        return result
+    }
+
+    private static long countStoredEntries(String processId) {
+        elastic.refresh(ProcessLog.class)
+        return elastic.select(ProcessLog.class).eq(ProcessLog.PROCESS, processId).count()
+    }
+
+    def "a full buffer only keeps a sample of infos but all warnings and errors"() {
+        given:
+        ProcessLogBufferLoop loop = createLoop(10, 5)
+        String processId = "buffer-sampling-" + System.nanoTime()
+        when: "the buffer is filled"
+        loop.offer(processId, createEntries(processId, 10, { ProcessLog.info().withMessage("info") }))
+        then:
+        loop.buffers.get(processId).size.get() == 10
+        when: "further infos are sampled"
+        loop.offer(processId, createEntries(processId, 20, { ProcessLog.info().withMessage("info") }))
+        then:
+        loop.buffers.get(processId).size.get() == 14
+        loop.buffers.get(processId).skipped.get() == 16
+        when: "errors are kept until twice the buffer size is reached"
+        loop.offer(processId, createEntries(processId, 10, { ProcessLog.error().withMessage("error") }))
+        then:
+        loop.buffers.get(processId).size.get() == 20
+        loop.buffers.get(processId).skipped.get() == 20
+        when: "the buffer is flushed"
+        loop.flush(processId)
+        then: "all kept entries and a summary of the skipped ones are stored"
+        countStoredEntries(processId) == 21
+        !loop.buffers.containsKey(processId)
+    }
+
+    def "entries of a failed bulk request are put back into the buffer"() {
+        given:
+        ProcessLogBufferLoop loop = createLoop(100, 10)
+        String processId = "buffer-retry-" + System.nanoTime()
+        and:
+        loop.offer(processId, createEntries(processId, 5, { ProcessLog.info().withMessage("info") }))
+        when: "storing the entries fails"
+        loop.elastic = null
+        loop.doWork()
+        then:
+        loop.buffers.get(processId).size.get() == 5
+        when: "storing succeeds again"
+        loop.elastic = elastic
+        loop.frozenUntil = null
+        String result = loop.doWork()
+        then:
+        result == "Stored 5 log entries of 1 processes..."
+        countStoredEntries(processId) == 5
+        !loop.buffers.containsKey(processId)
+    }
+
+    def "sort keys are strictly increasing and carry the node discriminator"() {
+        when:
+        List<Long> sortKeys = (1..1000).collect { processes.computeSortKey() }
+        then:
+        (1..<sortKeys.size()).every { sortKeys[it] > sortKeys[it - 1] }
+        and:
+        sortKeys.collect { it & ((1L << 10) - 1) }.unique().size() == 1
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.biz.protocol
+
+import sirius.db.es.Elastic
+import sirius.kernel.BaseSpecification
+import sirius.kernel.di.Injector
+import sirius.kernel.di.std.Part
+
+class IncidentAggregatorSpec extends BaseSpecification {
+
+    @Part
+    private static Elastic elastic
+
+    private static IncidentAggregator createAggregator() {
+        // We use a separate instance, so that the background loop doesn't flush our incidents...
+        IncidentAggregator aggregator = new IncidentAggregator()
+        Injector.context().wire(aggregator)
+        return aggregator
+    }
+
+    private static void record(IncidentAggregator aggregator, String location, int times) {
+        for (int i = 0; i < times; i++) {
+            aggregator.record(location, "test", new IllegalStateException("Test error"), [], "test-user")
+        }
+    }
+
+    private static StoredIncident findStoredIncident(String location) {
+        elastic.refresh(StoredIncident.class)
+        return elastic.select(StoredIncident.class).eq(StoredIncident.LOCATION, location).queryOne()
+    }
+
+    def "occurrences are aggregated and added to the stored incident"() {
+        given:
+        IncidentAggregator aggregator = createAggregator()
+        String location = "incident-aggregator-" + System.nanoTime()
+        when:
+        record(aggregator, location, 5)
+        and:
+        aggregator.doWork()
+        then:
+        findStoredIncident(location).getNumberOfOccurrences() == 5
+        when:
+        record(aggregator, location, 3)
+        and:
+        aggregator.doWork()
+        then:
+        findStoredIncident(location).getNumberOfOccurrences() == 8
+        and:
+        elastic.select(StoredIncident.class).eq(StoredIncident.LOCATION, location).count() == 1
+    }
+
+    def "incidents are retried if they cannot be stored"() {
+        given:
+        IncidentAggregator aggregator = createAggregator()
+        String location = "incident-aggregator-" + System.nanoTime()
+        and:
+        record(aggregator, location, 2)
+        when: "storing the incidents fails"
+        aggregator.elastic = null
+        String failedResult = aggregator.doWork()
+        then:
+        failedResult == "Stored 0 incidents, 1 will be retried..."
+        when: "the incident occurs again and storing succeeds"
+        record(aggregator, location, 3)
+        aggregator.elastic = elastic
+        aggregator.frozenUntil = null
+        String result = aggregator.doWork()
+        then:
+        result == "Stored 1 incidents..."
+        findStoredIncident(location).getNumberOfOccurrences() == 5
+    }
+}
@@ -73,4 +73,24 @@ class SequencesSpec extends BaseSpecification {
         notThrown(HandledException)
     }
 
+    def "ids can be generated in reserved blocks"() {
+        setup:
+        def id = "__generated" + ThreadLocalRandom.current().nextInt()
+        when:
+        def values = (1..25).collect { sequences.generateId(id, 10) }
+        then:
+        values == (1L..25L).toList()
+        and:
+        sequences.peekNextValue(id) == 26
+    }
+
+    def "setting the next value discards a locally reserved block"() {
+        setup:
+        def id = "__generated" + ThreadLocalRandom.current().nextInt()
+        when:
+        sequences.generateId(id, 10)
+        sequences.setNextValue(id, 1000, false)
+        then:
+        sequences.generateId(id, 10) == 1000
+    }
 }
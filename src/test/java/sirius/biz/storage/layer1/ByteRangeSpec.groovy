@@ -0,0 +1,39 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.biz.storage.layer1
+
+import sirius.kernel.BaseSpecification
+
+class ByteRangeSpec extends BaseSpecification {
+
+    def "parsing range headers works"(String header, String expectedContentRange, long expectedLength) {
+        when:
+        ByteRange range = ByteRange.parse(header, 1000).orElseThrow()
+        then:
+        range.toContentRange() == expectedContentRange
+        and:
+        !range.isSatisfiable() || range.getLength() == expectedLength
+        where:
+        header             | expectedContentRange | expectedLength
+        "bytes=0-99"       | "bytes 0-99/1000"    | 100
+        "bytes=100-"       | "bytes 100-999/1000" | 900
+        "bytes=-200"       | "bytes 800-999/1000" | 200
+        "bytes=-2000"      | "bytes 0-999/1000"   | 1000
+        "bytes=900-5000"   | "bytes 900-999/1000" | 100
+        "bytes=1000-1200"  | "bytes */1000"       | 0
+        "bytes=-0"         | "bytes */1000"       | 0
+    }
+
+    def "malformed or multiple ranges are ignored"(String header) {
+        expect:
+        ByteRange.parse(header, 1000).isEmpty()
+        where:
+        header << [null, "", "items=0-10", "bytes=10-5", "bytes=a-b", "bytes=0-10,20-30", "bytes=10"]
+    }
+}
@@ -9,6 +9,9 @@
 package sirius.biz.storage.layer1
 
 import sirius.biz.storage.layer1.replication.ReplicationBackgroundLoop
+import sirius.biz.storage.layer1.replication.ReplicationManager
+import sirius.biz.storage.layer1.replication.jdbc.SQLReplicationTask
+import sirius.db.jdbc.OMA
 import sirius.kernel.BaseSpecification
 import sirius.kernel.Tags
 import org.junit.jupiter.api.Tag
@@ -24,6 +27,12 @@ class ReplicationSpec extends BaseSpecification {
     @Part
     private static ObjectStorage storage
 
+    @Part
+    private static ReplicationManager replicationManager
+
+    @Part
+    private static OMA oma
+
     def awaitReplication() {
         BackgroundLoop.nextExecution(ReplicationBackgroundLoop.class).await(Duration.ofMinutes(1))
         // extra wait required due to asynchronous data transfers in replication
@@ -44,6 +53,33 @@ class ReplicationSpec extends BaseSpecification {
         new InputStreamReader(downloaded.get().getInputStream(), StandardCharsets.UTF_8).readLine() == "test"
     }
 
+    def "repeated updates are coalesced and the latest state is replicated"() {
+        given:
+        def firstVersion = "first".getBytes(StandardCharsets.UTF_8)
+        def secondVersion = "second".getBytes(StandardCharsets.UTF_8)
+        def coalescedTasks = replicationManager.getReplicationTaskStorage().get().getNumberOfCoalescedTasks()
+        def replicatedBytes = replicationManager.getReplicatedBytes()
+        when:
+        storage.getSpace("repl-primary")
+               .upload("repl-coalesce-test", new ByteArrayInputStream(firstVersion), firstVersion.length)
+        storage.getSpace("repl-primary")
+               .upload("repl-coalesce-test", new ByteArrayInputStream(secondVersion), secondVersion.length)
+        then: "only a single task is pending"
+        replicationManager.getReplicationTaskStorage().get().getNumberOfCoalescedTasks() == coalescedTasks + 1
+        oma.select(SQLReplicationTask.class)
+           .eq(SQLReplicationTask.PRIMARY_SPACE, "repl-primary")
+           .eq(SQLReplicationTask.OBJECT_KEY, "repl-coalesce-test")
+           .count() == 1
+        when:
+        awaitReplication()
+        def downloaded = storage.getSpace("reply-secondary").download("repl-coalesce-test")
+        then: "the object has been written once, using its latest state"
+        replicationManager.getReplicatedBytes() == replicatedBytes + secondVersion.length
+        downloaded.isPresent()
+        and:
+        new InputStreamReader(downloaded.get().getInputStream(), StandardCharsets.UTF_8).readLine() == "second"
+    }
+
     def "deletes are replicated correctly"() {
         given:
         def testData = "test".getBytes(StandardCharsets.UTF_8)
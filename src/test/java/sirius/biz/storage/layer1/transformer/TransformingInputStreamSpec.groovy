@@ -0,0 +1,114 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.biz.storage.layer1.transformer
+
+import io.netty.buffer.ByteBuf
+import sirius.kernel.BaseSpecification
+import sirius.kernel.commons.Streams
+
+import javax.crypto.KeyGenerator
+
+class TransformingInputStreamSpec extends BaseSpecification {
+
+    private static CipherProvider cipherProvider = new SecretKeyCipherProvider(KeyGenerator.getInstance("AES").
+            generateKey(), "AES/ECB/PKCS5Padding")
+
+    /**
+     * Passes all data through unchanged, so that the stream itself can be tested.
+     */
+    private static class IdentityTransformer implements ByteBlockTransformer {
+
+        @Override
+        Optional<ByteBuf> apply(ByteBuf input) throws IOException {
+            return Optional.of(input.readRetainedSlice(input.readableBytes()))
+        }
+
+        @Override
+        Optional<ByteBuf> complete() throws IOException {
+            return Optional.empty()
+        }
+    }
+
+    private static byte[] generateData(int length) {
+        // Generate somewhat compressible data...
+        Random rnd = new Random(42)
+        byte[] result = new byte[length]
+        for (int i = 0; i < length; i++) {
+            result[i] = (byte) ('a' + rnd.nextInt(16))
+        }
+
+        return result
+    }
+
+    private static ByteBlockTransformer createWriteTransformer(String chain) {
+        switch (chain) {
+            case "plain": return new IdentityTransformer()
+            case "deflate": return new DeflateTransformer(CompressionLevel.DEFAULT)
+            case "aes": return new CipherTransformer(cipherProvider.createEncryptionCipher())
+            default: return new CombinedTransformer(new DeflateTransformer(CompressionLevel.DEFAULT),
+                                                    new CipherTransformer(cipherProvider.createEncryptionCipher()))
+        }
+    }
+
+    private static ByteBlockTransformer createReadTransformer(String chain) {
+        switch (chain) {
+            case "plain": return new IdentityTransformer()
+            case "deflate": return new InflateTransformer()
+            case "aes": return new CipherTransformer(cipherProvider.createDecryptionChiper())
+            default: return new CombinedTransformer(new CipherTransformer(cipherProvider.createDecryptionChiper()),
+                                                    new InflateTransformer())
+        }
+    }
+
+    private static byte[] transform(byte[] data, ByteBlockTransformer transformer) {
+        TransformingInputStream input = new TransformingInputStream(new ByteArrayInputStream(data), transformer)
+        try {
+            return Streams.toByteArray(input)
+        } finally {
+            input.close()
+        }
+    }
+
+    def "transforming and re-transforming data yields the original data"(String chain, int length) {
+        given:
+        byte[] data = generateData(length)
+        when:
+        byte[] transformed = transform(data, createWriteTransformer(chain))
+        byte[] restored = transform(transformed, createReadTransformer(chain))
+        then:
+        restored == data
+        where:
+        chain      | length
+        "plain"    | 0
+        "plain"    | 10000
+        "deflate"  | 0
+        "deflate"  | 128
+        "deflate"  | 100000
+        "aes"      | 15
+        "aes"      | 100000
+        "combined" | 128
+        "combined" | 100000
+    }
+
+    def "reading single bytes yields unsigned values"() {
+        given:
+        byte[] data = [(byte) 0xFF, (byte) 0x80, (byte) 0x7F, (byte) 0x00]
+        when:
+        TransformingInputStream input = new TransformingInputStream(new ByteArrayInputStream(data),
+                                                                    new IdentityTransformer())
+        then:
+        input.read() == 0xFF
+        input.read() == 0x80
+        input.read() == 0x7F
+        input.read() == 0x00
+        input.read() == -1
+        cleanup:
+        input.close()
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.biz.storage.layer2
+
+import com.alibaba.fastjson.JSONObject
+import sirius.biz.tenants.TenantsHelper
+import sirius.kernel.BaseSpecification
+import sirius.kernel.di.std.Part
+import sirius.web.security.UserContext
+
+class BlobPathCacheSpec extends BaseSpecification {
+
+    private static final String SPACE = "blob-files"
+
+    @Part
+    private static BlobStorage blobStorage
+
+    @Part
+    private static BlobPathCache blobPathCache
+
+    private static String tenantId
+
+    private static String basePath
+
+    def setup() {
+        TenantsHelper.installTestTenant()
+        tenantId = UserContext.getCurrentUser().getTenantId()
+        basePath = "path-cache-" + System.nanoTime()
+    }
+
+    private static boolean isCached(String path) {
+        return blobPathCache.getIfPresent(SPACE, tenantId, path) != null
+    }
+
+    def "renaming a parent directory only invalidates the paths below it"() {
+        given:
+        BlobStorageSpace space = blobStorage.getSpace(SPACE)
+        Blob blob = space.findOrCreateByPath(tenantId, basePath + "/a/b/file.txt")
+        space.findOrCreateByPath(tenantId, basePath + "/ab/file.txt")
+        space.findByPath(tenantId, basePath + "/a/b/file.txt")
+        space.findByPath(tenantId, basePath + "/ab/file.txt")
+        when:
+        blob.getParent().getParent().rename("c")
+        then:
+        !isCached(basePath + "/a/b/file.txt")
+        and: "a sibling sharing a common name prefix is kept"
+        isCached(basePath + "/ab/file.txt")
+        and:
+        !space.findByPath(tenantId, basePath + "/a/b/file.txt").isPresent()
+        space.findByPath(tenantId, basePath + "/c/b/file.txt").get().getBlobKey() == blob.getBlobKey()
+    }
+
+    def "moving a parent directory invalidates the paths below it"() {
+        given:
+        BlobStorageSpace space = blobStorage.getSpace(SPACE)
+        Blob blob = space.findOrCreateByPath(tenantId, basePath + "/a/b/file.txt")
+        Blob target = space.findOrCreateByPath(tenantId, basePath + "/target/file.txt")
+        space.findByPath(tenantId, basePath + "/a/b/file.txt")
+        when:
+        blob.getParent().move(target.getParent())
+        then:
+        !isCached(basePath + "/a/b/file.txt")
+        !space.findByPath(tenantId, basePath + "/a/b/file.txt").isPresent()
+        space.findByPath(tenantId, basePath + "/target/b/file.txt").get().getBlobKey() == blob.getBlobKey()
+    }
+
+    def "deleting a parent directory invalidates the paths below it"() {
+        given:
+        BlobStorageSpace space = blobStorage.getSpace(SPACE)
+        Blob blob = space.findOrCreateByPath(tenantId, basePath + "/a/b/file.txt")
+        space.findByPath(tenantId, basePath + "/a/b/file.txt")
+        when:
+        blob.getParent().getParent().delete()
+        then:
+        !isCached(basePath + "/a/b/file.txt")
+        !space.findByPath(tenantId, basePath + "/a/b/file.txt").isPresent()
+    }
+
+    def "invalidations received via the interconnect remove the affected prefix"() {
+        given:
+        BlobStorageSpace space = blobStorage.getSpace(SPACE)
+        space.findOrCreateByPath(tenantId, basePath + "/a/b/file.txt")
+        space.findOrCreateByPath(tenantId, basePath + "/a/file.txt")
+        space.findOrCreateByPath(tenantId, basePath + "/other/file.txt")
+        space.findByPath(tenantId, basePath + "/a/b/file.txt")
+        space.findByPath(tenantId, basePath + "/a/file.txt")
+        space.findByPath(tenantId, basePath + "/other/file.txt")
+        when:
+        blobPathCache.handleEvent(new JSONObject().fluentPut("type", "invalidate")
+                                                  .fluentPut("space", SPACE)
+                                                  .fluentPut("prefix",
+                                                             SPACE + "-" + tenantId + "-/" + basePath + "/a/")
+                                                  .fluentPut("recursive", recursive)
+                                                  .fluentPut("node", "another-node"))
+        then:
+        !isCached(basePath + "/a/file.txt")
+        isCached(basePath + "/a/b/file.txt") == !recursive
+        isCached(basePath + "/other/file.txt")
+        where:
+        recursive << [true, false]
+    }
+}
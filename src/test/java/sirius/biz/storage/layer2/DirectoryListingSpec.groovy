@@ -0,0 +1,106 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.biz.storage.layer2
+
+import sirius.biz.storage.layer2.jdbc.SQLBlob
+import sirius.biz.tenants.TenantsHelper
+import sirius.db.jdbc.OMA
+import sirius.kernel.BaseSpecification
+import sirius.kernel.commons.ValueHolder
+import sirius.kernel.di.std.Part
+
+import java.time.LocalDateTime
+
+class DirectoryListingSpec extends BaseSpecification {
+
+    @Part
+    private static BlobStorage blobStorage
+
+    @Part
+    private static OMA oma
+
+    private static List<String> listInBlocks(Directory directory, int blockSize) {
+        List<String> names = []
+        ValueHolder<String> continuation = ValueHolder.of(null)
+        int blocks = 0
+        while (blocks++ < 100) {
+            int sizeBefore = names.size()
+            directory.listChildBlobs(null, null, blockSize, continuation.get(), { blob, token ->
+                names.add(blob.getFilename())
+                continuation.set(token)
+                return true
+            })
+            if (names.size() == sizeBefore) {
+                break
+            }
+        }
+
+        return names
+    }
+
+    def "listing child blobs can be resumed via a continuation"() {
+        given:
+        TenantsHelper.installTestTenant()
+        BlobStorageSpace space = blobStorage.getSpace("blob-files")
+        String basePath = "/listing-" + System.currentTimeMillis()
+        Directory directory = null
+        for (int i = 0; i < 25; i++) {
+            directory = space.findOrCreateByPath(basePath + "/file-" + i + ".txt").getParent()
+        }
+        and:
+        List<String> allNames = []
+        directory.listChildBlobs(null, null, 0, { blob -> allNames.add(blob.getFilename()) })
+        when:
+        List<String> resumedNames = []
+        ValueHolder<String> continuation = ValueHolder.of(null)
+        int blocks = 0
+        while (blocks++ < 10) {
+            int sizeBefore = resumedNames.size()
+            directory.listChildBlobs(null, null, 10, continuation.get(), { blob, token ->
+                resumedNames.add(blob.getFilename())
+                continuation.set(token)
+                return true
+            })
+            if (resumedNames.size() == sizeBefore) {
+                break
+            }
+        }
+        then:
+        allNames.size() == 25
+        resumedNames == allNames
+        blocks == 4
+    }
+
+    def "listing child blobs sorted by their last modification can be resumed, even if a date is missing"() {
+        given:
+        TenantsHelper.installTestTenant()
+        BlobStorageSpace space = blobStorage.getSpace("work")
+        String basePath = "/listing-by-date-" + System.currentTimeMillis()
+        LocalDateTime now = LocalDateTime.now().withNano(0)
+        Directory directory = null
+        for (int i = 0; i < 7; i++) {
+            SQLBlob blob = (SQLBlob) space.findOrCreateByPath(basePath + "/file-" + i + ".txt")
+            // Every other blob has no modification date at all...
+            blob.setLastModified(i % 2 == 0 ? now.minusMinutes(i) : null)
+            oma.update(blob)
+            directory = blob.getParent()
+        }
+        and:
+        List<String> allNames = []
+        directory.listChildBlobs(null, null, 0, { blob -> allNames.add(blob.getFilename()) })
+        when:
+        List<String> resumedNames = listInBlocks(directory, 2)
+        then: "all blobs with a date come first (newest first), followed by all blobs without one"
+        allNames.size() == 7
+        allNames.subList(0, 4) == ["file-0.txt", "file-2.txt", "file-4.txt", "file-6.txt"]
+        allNames.subList(4, 7).toSet() == ["file-1.txt", "file-3.txt", "file-5.txt"].toSet()
+        and:
+        resumedNames == allNames
+    }
+}
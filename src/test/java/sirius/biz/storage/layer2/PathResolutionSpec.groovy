@@ -0,0 +1,49 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.biz.storage.layer2
+
+import sirius.biz.tenants.TenantsHelper
+import sirius.kernel.BaseSpecification
+import sirius.kernel.di.std.Part
+
+class PathResolutionSpec extends BaseSpecification {
+
+    @Part
+    private static BlobStorage blobStorage
+
+    def "findByPath resolves nested blobs via their path hash"() {
+        given:
+        TenantsHelper.installTestTenant()
+        BlobStorageSpace space = blobStorage.getSpace("blob-files")
+        String basePath = "/path-resolution-" + System.currentTimeMillis()
+        when:
+        Blob blob = space.findOrCreateByPath(basePath + "/a/b/c/d/file.txt")
+        then:
+        space.findByPath(basePath + "/a/b/c/d/file.txt").get().getBlobKey() == blob.getBlobKey()
+        space.findOrCreateByPath(basePath + "/a/b/c/d/file.txt").getBlobKey() == blob.getBlobKey()
+        !space.findByPath(basePath + "/a/b/c/file.txt").isPresent()
+    }
+
+    def "findByPath respects renamed and deleted parent directories"() {
+        given:
+        TenantsHelper.installTestTenant()
+        BlobStorageSpace space = blobStorage.getSpace("blob-files")
+        String basePath = "/path-resolution-" + System.currentTimeMillis()
+        Blob blob = space.findOrCreateByPath(basePath + "/old/sub/file.txt")
+        when:
+        blob.getParent().getParent().rename("new")
+        then:
+        !space.findByPath(basePath + "/old/sub/file.txt").isPresent()
+        space.findByPath(basePath + "/new/sub/file.txt").get().getBlobKey() == blob.getBlobKey()
+        when:
+        space.findByPath(basePath + "/new/sub/file.txt").get().getParent().delete()
+        then:
+        !space.findByPath(basePath + "/new/sub/file.txt").isPresent()
+    }
+}
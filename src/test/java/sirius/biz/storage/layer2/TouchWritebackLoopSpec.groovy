@@ -0,0 +1,93 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.biz.storage.layer2
+
+import sirius.kernel.BaseSpecification
+import sirius.kernel.di.Injector
+
+import java.time.Duration
+
+class TouchWritebackLoopSpec extends BaseSpecification {
+
+    private static final String SPACE = "blob-files"
+
+    private static TouchWritebackLoop createLoop() {
+        // We use a separate instance (per simulated node), so that the background loop doesn't write our touches...
+        TouchWritebackLoop loop = new TouchWritebackLoop()
+        Injector.context().wire(loop)
+        loop.touchGranularity = Duration.ofDays(1)
+        loop.touchFilterCapacity = 1000
+        return loop
+    }
+
+    private static String randomBlobKey() {
+        return "touch-" + System.nanoTime()
+    }
+
+    def "repeated touches within an interval are filtered"() {
+        given:
+        TouchWritebackLoop loop = createLoop()
+        String blobKey = randomBlobKey()
+        when:
+        loop.markTouched(SPACE, blobKey)
+        loop.markTouched(SPACE, blobKey)
+        loop.markTouched(SPACE, randomBlobKey())
+        then:
+        loop.touchedBlobs.get(SPACE).size() == 2
+        loop.filteredTouches.getCount() == 1
+    }
+
+    def "the filter is reset once the interval changes"() {
+        given:
+        TouchWritebackLoop loop = createLoop()
+        String blobKey = randomBlobKey()
+        and:
+        loop.markTouched(SPACE, blobKey)
+        loop.drain(loop.touchedBlobs, SPACE)
+        when: "the granularity changes, so does the current interval"
+        loop.touchGranularity = Duration.ofMinutes(1)
+        loop.markTouched(SPACE, blobKey)
+        then:
+        loop.touchedBlobs.get(SPACE) == [blobKey] as Set
+        loop.filteredTouches.getCount() == 0
+    }
+
+    def "touches are only written by one node per interval"() {
+        given:
+        TouchWritebackLoop firstNode = createLoop()
+        TouchWritebackLoop secondNode = createLoop()
+        String blobKey = randomBlobKey()
+        when:
+        firstNode.markTouched(SPACE, blobKey)
+        secondNode.markTouched(SPACE, blobKey)
+        firstNode.doWork()
+        secondNode.doWork()
+        then:
+        firstNode.writtenTouches.getCount() == 1
+        secondNode.writtenTouches.getCount() == 0
+        secondNode.deduplicatedTouches.getCount() == 1
+    }
+
+    def "touches which couldn't be written are retried without being de-duplicated"() {
+        given:
+        TouchWritebackLoop loop = createLoop()
+        String blobKey = randomBlobKey()
+        when: "writing fails, as the space doesn't exist"
+        loop.markTouched("unknown-space", blobKey)
+        loop.doWork()
+        then:
+        loop.writtenTouches.getCount() == 0
+        loop.failedBlobs.get("unknown-space") == [blobKey] as Set
+        when: "the next run also tries to write the touch, although it is already claimed within the cluster"
+        loop.doWork()
+        then:
+        loop.failedBlobs.get("unknown-space") == [blobKey] as Set
+        loop.deduplicatedTouches.getCount() == 0
+    }
+}
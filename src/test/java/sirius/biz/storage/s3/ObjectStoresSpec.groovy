@@ -98,4 +98,20 @@ class ObjectStoresSpec extends BaseSpecification {
                 stores.store().getBucketName("deleted").getName())) == null
     }
 
+    def "multipart upload of a stream with multiple parts works"() {
+        File download
+        when:
+        byte[] data = new byte[25 * 1024 * 1024]
+        new Random(42).nextBytes(data)
+        and:
+        stores.store().upload(stores.store().getBucketName("test"), "multipart", new ByteArrayInputStream(data))
+        and:
+        download = stores.store().download(stores.store().getBucketName("test"), "multipart")
+        then:
+        Arrays.equals(data, java.nio.file.Files.readAllBytes(download.toPath()))
+        and:
+        stores.inFlightUploadBytes.get() == 0
+        cleanup:
+        Files.delete(download)
+    }
 }
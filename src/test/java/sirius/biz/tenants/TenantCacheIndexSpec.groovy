@@ -0,0 +1,142 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.biz.tenants
+
+import sirius.kernel.BaseSpecification
+import sirius.kernel.cache.Cache
+import sirius.kernel.cache.CacheManager
+
+class TenantCacheIndexSpec extends BaseSpecification {
+
+    def "removing a tenant only removes the entries of this tenant"() {
+        given:
+        Cache<String, String> cache = CacheManager.createCoherentCache("test-tenant-index")
+        TenantCacheIndex<String> index = new TenantCacheIndex<>(cache)
+        and:
+        index.put("a1", "tenant-a", "A")
+        index.put("a2", "tenant-a", "A")
+        index.get("b1", "tenant-b", { key -> "B" })
+        when:
+        int removed = index.removeTenantLocally("tenant-a")
+        then:
+        removed == 2
+        cache.get("a1") == null
+        cache.get("a2") == null
+        cache.get("b1") == "B"
+        index.size() == 1
+    }
+
+    def "entries without a tenant are not indexed"() {
+        given:
+        Cache<String, String> cache = CacheManager.createCoherentCache("test-tenant-index-empty")
+        TenantCacheIndex<String> index = new TenantCacheIndex<>(cache)
+        when:
+        index.put("x", null, "X")
+        then:
+        cache.get("x") == "X"
+        index.size() == 0
+        index.removeTenantLocally("unknown") == 0
+    }
+
+    def "removing an entry also removes it from the index"() {
+        given:
+        Cache<String, String> cache = CacheManager.createCoherentCache("test-tenant-index-remove")
+        TenantCacheIndex<String> index = new TenantCacheIndex<>(cache)
+        and:
+        index.put("a1", "tenant-a", "A")
+        index.put("b1", "tenant-b", "B")
+        when:
+        index.remove("a1")
+        then:
+        cache.get("a1") == null
+        index.size() == 1
+        index.removeTenantLocally("tenant-a") == 0
+        when:
+        index.put("b1", null, "B")
+        then:
+        index.size() == 0
+        index.removeTenantLocally("tenant-b") == 0
+        cache.get("b1") == "B"
+    }
+
+    def "re-registering an entry for another tenant moves it"() {
+        given:
+        Cache<String, String> cache = CacheManager.createCoherentCache("test-tenant-index-move")
+        TenantCacheIndex<String> index = new TenantCacheIndex<>(cache)
+        and:
+        index.put("x", "tenant-a", "X")
+        index.put("x", "tenant-a", "X")
+        when:
+        index.put("x", "tenant-b", "X")
+        then:
+        index.size() == 1
+        index.removeTenantLocally("tenant-a") == 0
+        cache.get("x") == "X"
+        index.removeTenantLocally("tenant-b") == 1
+        cache.get("x") == null
+    }
+
+    def "keys of entries which are gone are pruned"() {
+        given:
+        Cache<String, String> cache = CacheManager.createCoherentCache("test-tenant-index-prune")
+        TenantCacheIndex<String> index = new TenantCacheIndex<>(cache)
+        and:
+        for (int i = 0; i < 100; i++) {
+            index.put("key-" + i, "tenant-" + (i % 10), "value")
+        }
+        and: "half of the entries are removed by another node"
+        for (int i = 0; i < 50; i++) {
+            CacheManager.removeCoherentCacheKeyLocally("test-tenant-index-prune", "key-" + i)
+        }
+        when:
+        index.prune()
+        then:
+        index.size() == 50
+        cache.get("key-50") == "value"
+        index.removeTenantLocally("tenant-0") == 5
+    }
+
+    def "reaching the limit prunes the index but keeps the cache"() {
+        given:
+        Cache<String, String> cache = CacheManager.createCoherentCache("test-tenant-index-limit")
+        TenantCacheIndex<String> index = new TenantCacheIndex<>(cache)
+        expect: "the limit is derived from the max size of the cache"
+        index.pruneThreshold == 400
+        when:
+        index.put("kept", "tenant-a", "value")
+        for (int i = 1; i < 400; i++) {
+            index.put("key-" + i, "tenant-" + (i % 10), "value")
+            CacheManager.removeCoherentCacheKeyLocally("test-tenant-index-limit", "key-" + i)
+        }
+        then:
+        index.size() == 400
+        when:
+        index.put("overflow", "tenant-a", "value")
+        then:
+        index.size() == 2
+        cache.get("kept") == "value"
+        cache.get("overflow") == "value"
+        index.removeTenantLocally("tenant-a") == 2
+    }
+
+    def "an entry put while its tenant is removed is not left behind"() {
+        given:
+        Cache<String, String> cache = CacheManager.createCoherentCache("test-tenant-index-race")
+        TenantCacheIndex<String> index = new TenantCacheIndex<>(cache)
+        when: "the tenant is removed while the value is being computed"
+        String value = index.get("a1", "tenant-a", { key ->
+            index.removeTenantLocally("tenant-a")
+            return "A"
+        })
+        then: "the value is returned but not kept, as the removal couldn't see the key"
+        value == "A"
+        cache.get("a1") == null
+        index.size() == 0
+    }
+}
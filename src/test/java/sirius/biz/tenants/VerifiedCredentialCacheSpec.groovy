@@ -0,0 +1,38 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.biz.tenants
+
+import sirius.kernel.BaseSpecification
+import sirius.kernel.di.std.Part
+
+class VerifiedCredentialCacheSpec extends BaseSpecification {
+
+    @Part
+    private static VerifiedCredentialCache verifiedCredentialCache
+
+    def "only the verified secret is accepted"() {
+        when:
+        verifiedCredentialCache.markVerified("account-1", "user", "secret", VerifiedCredentialCache.TYPE_PASSWORD)
+        then:
+        verifiedCredentialCache.findVerifiedType("account-1", "user", "secret") == VerifiedCredentialCache.
+                TYPE_PASSWORD
+        verifiedCredentialCache.findVerifiedType("account-1", "user", "wrong") == null
+        verifiedCredentialCache.findVerifiedType("account-1", "other", "secret") == null
+        verifiedCredentialCache.findVerifiedType("account-2", "user", "secret") == null
+    }
+
+    def "forgetting an account removes its verified credentials"() {
+        given:
+        verifiedCredentialCache.markVerified("account-3", "user", "token", VerifiedCredentialCache.TYPE_API_TOKEN)
+        when:
+        verifiedCredentialCache.forget("account-3")
+        then:
+        verifiedCredentialCache.findVerifiedType("account-3", "user", "token") == null
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.biz.tycho.search
+
+import sirius.kernel.BaseSpecification
+import sirius.kernel.async.TaskContext
+
+class OpenSearchControllerSpec extends BaseSpecification {
+
+    private static final List<String> LABELS = ["abc", "abd", "abcd", "xyz"]
+
+    private static OpenSearchController controller
+
+    def setupSpec() {
+        // As the open search framework is disabled in tests, we use a separate instance...
+        controller = new OpenSearchController()
+        controller.statistics = new OpenSearchStatistics()
+    }
+
+    private static List<String> search(String user, TestSearchProvider provider, String query) {
+        def request = new OpenSearchController.SearchRequest(user, user + "|session", query)
+        return controller.fetchResults(request, provider).collect { it.getLabel() }
+    }
+
+    def "refined queries are answered by filtering the cached results"() {
+        given:
+        String user = "refine-" + System.nanoTime()
+        TestSearchProvider provider = new TestSearchProvider(labels: LABELS)
+        expect:
+        search(user, provider, "ab") == ["abc", "abd", "abcd"]
+        search(user, provider, "abc") == ["abc", "abcd"]
+        search(user, provider, "ab") == ["abc", "abd", "abcd"]
+        provider.numberOfQueries == 1
+    }
+
+    def "the provider is queried again if it doesn't support refinements"() {
+        given:
+        String user = "not-refinable-" + System.nanoTime()
+        TestSearchProvider provider = new TestSearchProvider(labels: LABELS, refinable: false)
+        when:
+        search(user, provider, "ab")
+        then:
+        search(user, provider, "abc") == ["abc", "abcd"]
+        provider.numberOfQueries == 2
+    }
+
+    def "incomplete results are not refined"() {
+        given:
+        String user = "incomplete-" + System.nanoTime()
+        List<String> labels = (1..20).collect { "label-" + it }
+        TestSearchProvider provider = new TestSearchProvider(labels: labels)
+        when: "the provider delivers as many results as requested, there might be more"
+        List<String> results = search(user, provider, "label")
+        then:
+        results.size() == 8
+        search(user, provider, "label-1") == ["label-1", "label-10", "label-11", "label-12", "label-13",
+                                              "label-14", "label-15", "label-16"]
+        provider.numberOfQueries == 2
+    }
+
+    def "results of an aborted search are not cached"() {
+        given:
+        String user = "aborted-" + System.nanoTime()
+        def request = new OpenSearchController.SearchRequest(user, user + "|session", "ab")
+        TestSearchProvider provider = new TestSearchProvider(labels: LABELS, onResult: { request.complete() })
+        when: "the search is aborted after the first result, the remaining ones are dropped"
+        def results = controller.fetchResults(request, provider)
+        then:
+        results.size() == 1
+        when:
+        provider.onResult = {}
+        then: "neither the query itself nor its refinements are served from the incomplete results"
+        search(user, provider, "abc") == ["abc", "abcd"]
+        search(user, provider, "ab") == ["abc", "abd", "abcd"]
+        provider.numberOfQueries == 3
+    }
+
+    def "aborting a search cancels the queries of its providers"() {
+        given:
+        def request = new OpenSearchController.SearchRequest("cancel", "cancel|session", "ab")
+        TaskContext runningQuery = new TaskContext()
+        when:
+        request.registerQuery(runningQuery)
+        then:
+        runningQuery.isActive()
+        when: "the search is superseded by a newer one"
+        request.cancel()
+        then:
+        !runningQuery.isActive()
+        when: "a query starts after the search has been aborted"
+        TaskContext lateQuery = new TaskContext()
+        request.registerQuery(lateQuery)
+        then: "it is cancelled right away"
+        !lateQuery.isActive()
+    }
+}
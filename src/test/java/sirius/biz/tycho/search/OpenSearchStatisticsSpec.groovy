@@ -0,0 +1,52 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.biz.tycho.search
+
+import sirius.kernel.BaseSpecification
+
+import java.time.Duration
+
+class OpenSearchStatisticsSpec extends BaseSpecification {
+
+    private static final Duration MAX_BUDGET = Duration.ofSeconds(5)
+
+    def "the full budget is granted as long as no latency has been observed"() {
+        given:
+        OpenSearchStatistics statistics = new OpenSearchStatistics()
+        expect:
+        statistics.computeBudget(new TestSearchProvider(), MAX_BUDGET) == MAX_BUDGET
+    }
+
+    def "the budget is a multiple of the observed latency"() {
+        given:
+        OpenSearchStatistics statistics = new OpenSearchStatistics()
+        TestSearchProvider provider = new TestSearchProvider()
+        when:
+        statistics.recordLatency(provider, 100, MAX_BUDGET)
+        then:
+        statistics.computeBudget(provider, MAX_BUDGET) == Duration.ofMillis(300)
+        when: "the observed latency is smoothed: 0.8 * 100ms + 0.2 * 200ms = 120ms"
+        statistics.recordLatency(provider, 200, MAX_BUDGET)
+        then:
+        statistics.computeBudget(provider, MAX_BUDGET) == Duration.ofMillis(360)
+    }
+
+    def "the budget is clamped to the minimal and the maximal budget"() {
+        given:
+        OpenSearchStatistics fastStatistics = new OpenSearchStatistics()
+        OpenSearchStatistics slowStatistics = new OpenSearchStatistics()
+        TestSearchProvider provider = new TestSearchProvider()
+        when:
+        fastStatistics.recordLatency(provider, 10, MAX_BUDGET)
+        slowStatistics.recordLatency(provider, 10_000, MAX_BUDGET)
+        then:
+        fastStatistics.computeBudget(provider, MAX_BUDGET) == Duration.ofMillis(250)
+        slowStatistics.computeBudget(provider, MAX_BUDGET) == MAX_BUDGET
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.biz.tycho.search
+
+import java.util.function.Consumer
+import java.util.function.Predicate
+
+/**
+ * Provides a fixed list of labels as search results and counts how often it has actually been queried.
+ */
+class TestSearchProvider implements OpenSearchProvider {
+
+    List<String> labels = []
+    boolean refinable = true
+    int numberOfQueries = 0
+    Closure<?> onResult = {}
+
+    @Override
+    String getLabel() {
+        return "Test"
+    }
+
+    @Override
+    String getUrl() {
+        return null
+    }
+
+    @Override
+    boolean ensureAccess() {
+        return true
+    }
+
+    @Override
+    void query(String query, int maxResults, Consumer<OpenSearchResult> resultCollector) {
+        numberOfQueries++
+        labels.findAll { it.toLowerCase().contains(query) }.take(maxResults).each {
+            resultCollector.accept(new OpenSearchResult().withLabel(it))
+            onResult()
+        }
+    }
+
+    @Override
+    Predicate<OpenSearchResult> createRefinementFilter(String refinedQuery) {
+        if (!refinable) {
+            return null
+        }
+
+        return { result -> result.getLabel().toLowerCase().contains(refinedQuery) } as Predicate<OpenSearchResult>
+    }
+}
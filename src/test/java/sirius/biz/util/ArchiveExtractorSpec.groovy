@@ -0,0 +1,95 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.biz.util
+
+import sirius.kernel.BaseSpecification
+import sirius.kernel.commons.Streams
+import sirius.kernel.di.std.Part
+import sirius.kernel.health.HandledException
+
+import java.nio.charset.StandardCharsets
+import java.util.concurrent.ConcurrentHashMap
+import java.util.zip.ZipEntry
+import java.util.zip.ZipOutputStream
+
+class ArchiveExtractorSpec extends BaseSpecification {
+
+    private static final int NUMBER_OF_FILES = 20
+
+    @Part
+    private static ArchiveExtractor extractor
+
+    private static byte[] createZip() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream()
+        ZipOutputStream zip = new ZipOutputStream(out)
+        for (int i = 0; i < NUMBER_OF_FILES; i++) {
+            zip.putNextEntry(new ZipEntry("folder/file" + i + ".txt"))
+            zip.write(("Content of file " + i).getBytes(StandardCharsets.UTF_8))
+            zip.closeEntry()
+        }
+        zip.putNextEntry(new ZipEntry("folder/.hidden"))
+        zip.closeEntry()
+        zip.close()
+
+        return out.toByteArray()
+    }
+
+    private static String readContents(ExtractedFile file) {
+        InputStream input = file.openInputStream()
+        try {
+            return new String(Streams.toByteArray(input), StandardCharsets.UTF_8)
+        } finally {
+            input.close()
+        }
+    }
+
+    def "extractAllInParallel processes all files of a ZIP archive"() {
+        given:
+        File archive = File.createTempFile("archive", ".zip")
+        archive.bytes = createZip()
+        Map<String, String> contents = new ConcurrentHashMap<>()
+        when:
+        extractor.extractAllInParallel("test.zip", archive, null, { file ->
+            contents.put(file.getFilePath(), readContents(file))
+        })
+        then:
+        contents.size() == NUMBER_OF_FILES
+        contents.get("folder/file7.txt") == "Content of file 7"
+        cleanup:
+        archive.delete()
+    }
+
+    def "extractZipStreamInParallel processes all files and releases all buffers"() {
+        given:
+        byte[] zip = createZip()
+        Map<String, String> contents = new ConcurrentHashMap<>()
+        when:
+        extractor.extractZipStreamInParallel("test.zip", new ByteArrayInputStream(zip), zip.length, null, { file ->
+            contents.put(file.getFilePath(), readContents(file))
+        })
+        then:
+        contents.size() == NUMBER_OF_FILES
+        contents.get("folder/file13.txt") == "Content of file 13"
+        and:
+        ExtractedFileBuffer.getNumberOfInMemoryBuffers() == 0
+    }
+
+    def "extractZipStreamInParallel reports the first failure of a worker"() {
+        given:
+        byte[] zip = createZip()
+        when:
+        extractor.extractZipStreamInParallel("test.zip", new ByteArrayInputStream(zip), zip.length, null, { file ->
+            throw new IllegalStateException("Failed to store " + file.getFilePath())
+        })
+        then:
+        thrown(HandledException)
+        and:
+        ExtractedFileBuffer.getNumberOfInMemoryBuffers() == 0
+    }
+}
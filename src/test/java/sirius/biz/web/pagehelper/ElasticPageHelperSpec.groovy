@@ -10,6 +10,7 @@ package sirius.biz.web.pagehelper
 
 import sirius.biz.web.ElasticPageHelper
 import sirius.db.es.Elastic
+import sirius.db.es.ElasticEntity
 import sirius.kernel.BaseSpecification
 import sirius.kernel.async.CallContext
 import sirius.kernel.di.std.Part
@@ -99,4 +100,32 @@ class ElasticPageHelperSpec extends BaseSpecification {
         facetItems.get(0).getCount() == 3
         facetItems.get(0).isActive() == true
     }
+
+    def "keyset paging yields the same pages as offset based paging"() {
+        given:
+        WebContext wc = CallContext.getCurrent().get(WebContext.class)
+        List<String> offsetIds = []
+        List<String> keysetIds = []
+        when:
+        for (int start : [1, 3, 5]) {
+            wc.queryString = ["start": [String.valueOf(start)]]
+            offsetIds.addAll(ElasticPageHelper.withQuery(elastic.select(ElasticPageHelperEntity.class)
+                                                                .orderAsc(ElasticPageHelperEntity.STRING_FIELD)
+                                                                .orderAsc(ElasticEntity.ID))
+                                              .withContext(wc)
+                                              .withPageSize(2)
+                                              .asPage()
+                                              .getItems()*.getId())
+            keysetIds.addAll(ElasticPageHelper.withQuery(elastic.select(ElasticPageHelperEntity.class))
+                                              .withContext(wc)
+                                              .withPageSize(2)
+                                              .withKeysetPaging(ElasticPageHelperEntity.STRING_FIELD, true)
+                                              .withCachedTotalCount()
+                                              .asPage()
+                                              .getItems()*.getId())
+        }
+        then:
+        keysetIds.size() == 5
+        keysetIds == offsetIds
+    }
 }
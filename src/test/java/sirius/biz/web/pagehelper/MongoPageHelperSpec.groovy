@@ -10,6 +10,7 @@ package sirius.biz.web.pagehelper
 
 import sirius.biz.web.MongoPageHelper
 import sirius.db.mongo.Mango
+import sirius.db.mongo.MongoEntity
 import sirius.kernel.BaseSpecification
 import sirius.kernel.async.CallContext
 import sirius.kernel.di.std.Part
@@ -148,4 +149,66 @@ class MongoPageHelperSpec extends BaseSpecification {
         facetItems.get(0).getCount() == 3
         facetItems.get(0).isActive() == true
     }
+
+    def "keyset paging yields the same pages as offset based paging"() {
+        given:
+        WebContext wc = CallContext.getCurrent().get(WebContext.class)
+        List<String> offsetIds = []
+        List<String> keysetIds = []
+        when:
+        for (int start : [1, 3, 5]) {
+            wc.queryString = ["start": [String.valueOf(start)]]
+            offsetIds.addAll(MongoPageHelper.withQuery(mango.select(MongoPageHelperEntity.class)
+                                                            .orderAsc(MongoPageHelperEntity.STRING_FIELD)
+                                                            .orderAsc(MongoEntity.ID))
+                                            .withContext(wc)
+                                            .withPageSize(2)
+                                            .asPage()
+                                            .getItems()*.getId())
+            keysetIds.addAll(MongoPageHelper.withQuery(mango.select(MongoPageHelperEntity.class))
+                                            .withContext(wc)
+                                            .withPageSize(2)
+                                            .withKeysetPaging(MongoPageHelperEntity.STRING_FIELD, true)
+                                            .withCachedTotalCount()
+                                            .asPage()
+                                            .getItems()*.getId())
+        }
+        then:
+        keysetIds.size() == 5
+        keysetIds == offsetIds
+    }
+
+    def "keyset paging seeks past the last row of the previous page"() {
+        given:
+        WebContext wc = CallContext.getCurrent().get(WebContext.class)
+        String value = "keyset-" + System.nanoTime()
+        List<MongoPageHelperEntity> entities = []
+        for (int i = 0; i < 5; i++) {
+            MongoPageHelperEntity entity = new MongoPageHelperEntity()
+            entity.setStringField(value)
+            mango.update(entity)
+            entities.add(entity)
+        }
+        entities.sort { it.getId() }
+        and:
+        def fetchPage = { int start ->
+            wc.queryString = ["start": [String.valueOf(start)]]
+            MongoPageHelper.withQuery(mango.select(MongoPageHelperEntity.class)
+                                           .eq(MongoPageHelperEntity.STRING_FIELD, value))
+                           .withContext(wc)
+                           .withPageSize(2)
+                           .withKeysetPaging(MongoPageHelperEntity.STRING_FIELD, true)
+                           .asPage()
+                           .getItems()*.getId()
+        }
+        when: "the first page is fetched"
+        def firstPage = fetchPage(1)
+        then:
+        firstPage == [entities[0].getId(), entities[1].getId()]
+        when: "a row of the first page is deleted before the next page is fetched"
+        mango.delete(entities[0])
+        def secondPage = fetchPage(3)
+        then: "the page starts right after the remembered row, whereas skipping two rows would miss the third one"
+        secondPage == [entities[2].getId(), entities[3].getId()]
+    }
 }
@@ -0,0 +1,40 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.biz.web.pagehelper;
+
+import sirius.db.jdbc.SQLEntity;
+import sirius.db.mixing.Mapping;
+import sirius.db.mixing.annotations.Length;
+
+public class SQLPageHelperEntity extends SQLEntity {
+
+    @Length(50)
+    private String run;
+    public static final Mapping RUN = Mapping.named("run");
+
+    @Length(50)
+    private String stringField;
+    public static final Mapping STRING_FIELD = Mapping.named("stringField");
+
+    public String getRun() {
+        return run;
+    }
+
+    public void setRun(String run) {
+        this.run = run;
+    }
+
+    public String getStringField() {
+        return stringField;
+    }
+
+    public void setStringField(String stringField) {
+        this.stringField = stringField;
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.biz.web.pagehelper
+
+import sirius.biz.web.BasePageHelper
+import sirius.biz.web.SQLPageHelper
+import sirius.db.jdbc.OMA
+import sirius.db.jdbc.SQLEntity
+import sirius.kernel.BaseSpecification
+import sirius.kernel.async.CallContext
+import sirius.kernel.di.std.Part
+import sirius.web.controller.Facet
+import sirius.web.http.WebContext
+
+import java.time.Duration
+
+class SQLPageHelperSpec extends BaseSpecification {
+
+    @Part
+    private static OMA oma
+
+    private static void createEntity(String run, String value) {
+        SQLPageHelperEntity entity = new SQLPageHelperEntity()
+        entity.setRun(run)
+        entity.setStringField(value)
+        oma.update(entity)
+    }
+
+    private static List<String> fetchFacetItems(String run) {
+        WebContext wc = CallContext.getCurrent().get(WebContext.class)
+        wc.queryString = [:]
+        def page = SQLPageHelper.withQuery(oma.select(SQLPageHelperEntity.class).eq(SQLPageHelperEntity.RUN, run))
+                                .withContext(wc)
+                                .addQueryFacet(SQLPageHelperEntity.STRING_FIELD.getName(),
+                                               "String",
+                                               { query ->
+                                                   query.copy()
+                                                        .distinctFields(SQLPageHelperEntity.STRING_FIELD)
+                                                        .asSQLQuery()
+                                               })
+                                .asPage()
+        return page.getFacets().get(0).getAllItems()*.getKey().sort()
+    }
+
+    def "query facets are computed concurrently and cached per language"() {
+        given:
+        String run = "facets-" + System.nanoTime()
+        createEntity(run, "a")
+        createEntity(run, "b")
+        createEntity(run, "b")
+        String originalLanguage = CallContext.getCurrent().getLanguage()
+        CallContext.getCurrent().setLanguage("en")
+        when:
+        def items = fetchFacetItems(run)
+        then:
+        items == ["a", "b"]
+        when: "another value is added"
+        createEntity(run, "c")
+        then: "the cached items are used for the same language"
+        fetchFacetItems(run) == ["a", "b"]
+        when: "the facet is requested in another language"
+        CallContext.getCurrent().setLanguage("de")
+        then: "the items are computed again, as their labels might differ"
+        fetchFacetItems(run) == ["a", "b", "c"]
+        cleanup:
+        CallContext.getCurrent().setLanguage(originalLanguage)
+    }
+
+    def "a facet which isn't computed in time only shows its active value"() {
+        given:
+        Duration originalTimeout = BasePageHelper.facetTimeout
+        BasePageHelper.facetTimeout = Duration.ofMillis(100)
+        WebContext wc = CallContext.getCurrent().get(WebContext.class)
+        wc.queryString = ["slow": ["x"]]
+        SQLPageHelper<SQLPageHelperEntity> ph = SQLPageHelper.withQuery(oma.select(SQLPageHelperEntity.class))
+        ph.withContext(wc)
+        ph.addFacet(new Facet("Slow", "slow"), { facet, query -> }, { facet, query ->
+            ph.computeFacetItemsConcurrently(facet, {
+                Thread.sleep(1000)
+                return [new BasePageHelper.ComputedFacetItem("x", "x", 1),
+                        new BasePageHelper.ComputedFacetItem("y", "y", 2)]
+            })
+        })
+        when:
+        def page = ph.asPage()
+        then:
+        def facetItems = page.getFacets().get(0).getAllItems()
+        facetItems.size() == 1
+        facetItems.get(0).getKey() == "x"
+        facetItems.get(0).getCount() == -1
+        cleanup:
+        BasePageHelper.facetTimeout = originalTimeout
+    }
+
+    def "keyset paging yields the same pages as offset based paging"() {
+        given:
+        String run = "keyset-" + System.nanoTime()
+        ["d", "b", "a", "c", "b"].each { value -> createEntity(run, value) }
+        WebContext wc = CallContext.getCurrent().get(WebContext.class)
+        List<Long> offsetIds = []
+        List<Long> keysetIds = []
+        when:
+        for (int start : [1, 3, 5]) {
+            wc.queryString = ["start": [String.valueOf(start)]]
+            offsetIds.addAll(SQLPageHelper.withQuery(oma.select(SQLPageHelperEntity.class)
+                                                        .eq(SQLPageHelperEntity.RUN, run)
+                                                        .orderAsc(SQLPageHelperEntity.STRING_FIELD)
+                                                        .orderAsc(SQLEntity.ID))
+                                          .withContext(wc)
+                                          .withPageSize(2)
+                                          .asPage()
+                                          .getItems()*.getId())
+            keysetIds.addAll(SQLPageHelper.withQuery(oma.select(SQLPageHelperEntity.class)
+                                                        .eq(SQLPageHelperEntity.RUN, run))
+                                          .withContext(wc)
+                                          .withPageSize(2)
+                                          .withKeysetPaging(SQLPageHelperEntity.STRING_FIELD, true)
+                                          .withCachedTotalCount()
+                                          .asPage()
+                                          .getItems()*.getId())
+        }
+        then:
+        keysetIds.size() == 5
+        keysetIds == offsetIds
+    }
+
+    def "keyset paging seeks past the last row of the previous page"() {
+        given:
+        String run = "keyset-seek-" + System.nanoTime()
+        List<SQLPageHelperEntity> entities = []
+        for (int i = 0; i < 5; i++) {
+            SQLPageHelperEntity entity = new SQLPageHelperEntity()
+            entity.setRun(run)
+            entity.setStringField("value")
+            oma.update(entity)
+            entities.add(entity)
+        }
+        entities.sort { it.getId() }
+        and:
+        WebContext wc = CallContext.getCurrent().get(WebContext.class)
+        def fetchPage = { int start ->
+            wc.queryString = ["start": [String.valueOf(start)]]
+            SQLPageHelper.withQuery(oma.select(SQLPageHelperEntity.class).eq(SQLPageHelperEntity.RUN, run))
+                         .withContext(wc)
+                         .withPageSize(2)
+                         .withKeysetPaging(SQLPageHelperEntity.STRING_FIELD, false)
+                         .asPage()
+                         .getItems()*.getId()
+        }
+        when: "the first page is fetched"
+        def firstPage = fetchPage(1)
+        then: "the rows are sorted descending by the field and then by the id"
+        firstPage == [entities[4].getId(), entities[3].getId()]
+        when: "a row of the first page is deleted before the next page is fetched"
+        oma.delete(entities[4])
+        def secondPage = fetchPage(3)
+        then: "the page starts right after the remembered row, whereas skipping two rows would miss the third one"
+        secondPage == [entities[2].getId(), entities[1].getId()]
+    }
+}